@@ -150,21 +150,12 @@ public final class CharArray implements CharSequence, Comparable<CharSequence> {
         if((_offset + fromIndex + csq.length() - 1) >= (_offset + _length))
             throw new IndexOutOfBoundsException(String.format("From Index %d Is Out of Bounds", fromIndex));
         
-        final char c = csq.charAt(0);
-        final int csqLength = csq.length();
-        for (int i = _offset + fromIndex, end = _offset + _length - csqLength + 1; i < end; i++) {
-            if (_array[i] == c) { // Potential match.
-                boolean match = true;
-                for (int j = 1; j < csqLength; j++) {
-                    if (_array[i + j] != csq.charAt(j)) {
-                        match = false;
-                        break;
-                    }
-                }
-                if (match) { return i - _offset; }
-            }
-        }
-        return -1;
+        if (csq.length() == 0) return fromIndex;
+        if (csq.length() == 1) return indexOf(csq.charAt(0), fromIndex);
+        final int i = (csq.length() < TextPattern.SCAN_MAX_LENGTH)
+                ? TextPattern.scan(_array, _offset + fromIndex, _offset + _length, csq)
+                : TextPattern.compiled(csq).search(_array, _offset + fromIndex, _offset + _length);
+        return (i >= 0) ? i - _offset : -1;
     }
 
     /**
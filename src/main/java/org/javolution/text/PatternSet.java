@@ -0,0 +1,458 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.text;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.javolution.annotations.Realtime;
+import org.javolution.lang.Immutable;
+
+/**
+ * <p> A compiled set of character sequences searched for simultaneously
+ *     (multi-pattern search), all matches are reported in a single pass
+ *     over the input. For example:
+ * {@code
+ * PatternSet keywords = PatternSet.valueOf("error", "timeout", "refused");
+ * keywords.matchIn(message, new PatternSet.Handler() {
+ *     public boolean onMatch(int pattern, long start, long end) {
+ *         alerts[pattern]++;
+ *         return true; // Continues.
+ *     }
+ * });
+ * // Incremental search over a stream.
+ * keywords.matchIn(new UTF8StreamReader(in), handler); }</p>
+ *
+ * <p> Matches are reported in increasing order of their end position (the
+ *     longest first for the same end position); overlapping matches are all
+ *     reported. No object is allocated per match.</p>
+ *
+ * <p><i> Implementation Note: The patterns are compiled into an
+ *        <a href="http://en.wikipedia.org/wiki/Aho-Corasick_algorithm">
+ *        Aho-Corasick</a> automaton whose failure transitions are resolved
+ *        in advance; the dense transition table is indexed by the classes of
+ *        the characters present in the patterns (one table lookup per input
+ *        character).</i></p>
+ */
+@Realtime
+public final class PatternSet implements Immutable {
+
+    /**
+     * The handler of the matches found.
+     */
+    public interface Handler {
+
+        /**
+         * Called for each match found.
+         *
+         * @param pattern the index of the pattern matched.
+         * @param start the position of the first character matched.
+         * @param end the position after the last character matched.
+         * @return <code>true</code> to continue the search;
+         *         <code>false</code> to stop.
+         */
+        boolean onMatch(int pattern, long start, long end);
+
+    }
+
+    /**
+     * Holds the patterns.
+     */
+    private final String[] _patterns;
+
+    /**
+     * Holds the character classes (two levels, indexed by the high byte then
+     * the low byte of characters); class <code>0</code> for characters not
+     * in any pattern.
+     */
+    private final char[][] _classes;
+
+    /**
+     * Holds the number of classes (including class <code>0</code>).
+     */
+    private final int _stride;
+
+    /**
+     * Holds the transitions (<code>state * stride + class</code>).
+     */
+    private final int[] _delta;
+
+    /**
+     * Holds for each state the pattern ending there or <code>-1</code>.
+     */
+    private final int[] _match;
+
+    /**
+     * Holds for each state the nearest state on its failure chain having
+     * a match (<code>0</code> if none).
+     */
+    private final int[] _dictionary;
+
+    /**
+     * Holds for each pattern the next pattern identical to it or
+     * <code>-1</code>.
+     */
+    private final int[] _duplicate;
+
+    /**
+     * Creates a pattern set for the specified patterns.
+     */
+    private PatternSet(String[] patterns) {
+        _patterns = patterns;
+        // Character classes.
+        _classes = new char[256][];
+        int classes = 1;
+        int length = 0;
+        for (String pattern : patterns) {
+            if (pattern.length() == 0)
+                throw new IllegalArgumentException("Empty pattern");
+            length += pattern.length();
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                char[] block = _classes[c >>> 8];
+                if (block == null)
+                    block = _classes[c >>> 8] = new char[256];
+                if (block[c & 0xFF] == 0)
+                    block[c & 0xFF] = (char) classes++;
+            }
+        }
+        _stride = classes;
+        // Trie.
+        final int capacity = length + 1;
+        int[] delta = new int[capacity * classes];
+        _match = new int[capacity];
+        _duplicate = new int[patterns.length];
+        for (int i = 0; i < capacity; i++) {
+            _match[i] = -1;
+        }
+        int states = 1;
+        for (int p = 0; p < patterns.length; p++) {
+            String pattern = patterns[p];
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int t = state * classes + classOf(pattern.charAt(i));
+                if (delta[t] == 0)
+                    delta[t] = states++;
+                state = delta[t];
+            }
+            _duplicate[p] = -1;
+            if (_match[state] < 0) {
+                _match[state] = p;
+            } else { // Appends to the duplicates.
+                int q = _match[state];
+                while (_duplicate[q] >= 0) {
+                    q = _duplicate[q];
+                }
+                _duplicate[q] = p;
+            }
+        }
+        // Failure transitions (breadth first).
+        int[] fail = new int[states];
+        _dictionary = new int[states];
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        for (int c = 1; c < classes; c++) {
+            int child = delta[c];
+            if (child != 0)
+                queue[tail++] = child; // Fails to root.
+        }
+        while (head < tail) {
+            int s = queue[head++];
+            int f = fail[s];
+            _dictionary[s] = (_match[f] >= 0) ? f : _dictionary[f];
+            for (int c = 1; c < classes; c++) {
+                int t = s * classes + c;
+                int child = delta[t];
+                if (child != 0) {
+                    fail[child] = delta[f * classes + c];
+                    queue[tail++] = child;
+                } else {
+                    delta[t] = delta[f * classes + c];
+                }
+            }
+        }
+        if (states < capacity) { // Trims.
+            int[] tmp = new int[states * classes];
+            System.arraycopy(delta, 0, tmp, 0, tmp.length);
+            delta = tmp;
+        }
+        _delta = delta;
+    }
+
+    /**
+     * Returns the pattern set holding the specified patterns (the index of
+     * each pattern is its position in the arguments).
+     *
+     * @param patterns the character sequences to search for.
+     * @return the corresponding pattern set.
+     * @throws IllegalArgumentException if any of the patterns is empty.
+     */
+    @Realtime(limit = Realtime.Limit.LINEAR)
+    public static PatternSet valueOf(CharSequence... patterns) {
+        String[] strs = new String[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            strs[i] = patterns[i].toString();
+        }
+        return new PatternSet(strs);
+    }
+
+    /**
+     * Returns the number of patterns in this set.
+     *
+     * @return the number of patterns.
+     */
+    public int size() {
+        return _patterns.length;
+    }
+
+    /**
+     * Returns the pattern at the specified index.
+     *
+     * @param pattern the index of the pattern.
+     * @return the corresponding pattern.
+     */
+    public String get(int pattern) {
+        return _patterns[pattern];
+    }
+
+    /**
+     * Returns the index of the first character of the first match (the match
+     * ending first) in the specified character sequence.
+     *
+     * @param csq the character sequence to be searched.
+     * @return the index of the first match or <code>-1</code> if none.
+     */
+    @Realtime(limit = Realtime.Limit.LINEAR)
+    public int indexIn(CharSequence csq) {
+        final int[] delta = _delta;
+        int state = 0;
+        for (int i = 0, n = csq.length(); i < n; i++) {
+            state = delta[state * _stride + classOf(csq.charAt(i))];
+            int s = (_match[state] >= 0) ? state : _dictionary[state];
+            if (s != 0)
+                return i + 1 - _patterns[_match[s]].length();
+        }
+        return -1;
+    }
+
+    /**
+     * Reports all the matches found in the specified character sequence
+     * ({@link Text} instances are scanned leaf by leaf).
+     *
+     * @param csq the character sequence to be searched.
+     * @param handler the handler of the matches.
+     * @return <code>true</code> if the search completed;
+     *         <code>false</code> if it has been stopped by the handler.
+     */
+    @Realtime(limit = Realtime.Limit.LINEAR)
+    public boolean matchIn(CharSequence csq, Handler handler) {
+        return new Matcher().feed(csq, handler);
+    }
+
+    /**
+     * Reports all the matches found in the characters read from the
+     * specified reader (until the end of the stream is reached or the
+     * search is stopped by the handler).
+     *
+     * @param reader the source of the characters to be searched.
+     * @param handler the handler of the matches.
+     * @return <code>true</code> if the search completed;
+     *         <code>false</code> if it has been stopped by the handler.
+     * @throws IOException if an I/O error occurs.
+     */
+    @Realtime(limit = Realtime.Limit.UNKNOWN)
+    public boolean matchIn(Reader reader, Handler handler) throws IOException {
+        Matcher matcher = new Matcher();
+        char[] buffer = new char[4096];
+        for (int n = reader.read(buffer); n >= 0; n = reader.read(buffer)) {
+            if (!matcher.feed(buffer, 0, n, handler))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a new matcher to search this pattern set incrementally.
+     *
+     * @return a matcher positioned at the beginning of the input.
+     */
+    public Matcher matcher() {
+        return new Matcher();
+    }
+
+    /**
+     * An incremental search of the enclosing pattern set; the input is
+     * provided by pieces (matches spanning several pieces are found).
+     */
+    public final class Matcher {
+
+        private int _state;
+
+        private long _position;
+
+        private Matcher() {
+        }
+
+        /**
+         * Returns the number of characters consumed since this matcher
+         * creation or last reset.
+         *
+         * @return the current position.
+         */
+        public long position() {
+            return _position;
+        }
+
+        /**
+         * Resets this matcher to the beginning of a new input.
+         */
+        public void reset() {
+            _state = 0;
+            _position = 0;
+        }
+
+        /**
+         * Searches the specified characters (next piece of the input).
+         *
+         * @param chars the characters.
+         * @param offset the index of the first character.
+         * @param length the number of characters.
+         * @param handler the handler of the matches.
+         * @return <code>true</code> if the characters have all been searched;
+         *         <code>false</code> if the search has been stopped by the
+         *         handler (the position is then after the last match
+         *         reported).
+         */
+        @Realtime(limit = Realtime.Limit.LINEAR)
+        public boolean feed(char[] chars, int offset, int length,
+                Handler handler) {
+            final int[] delta = _delta;
+            final int[] match = _match;
+            final int stride = _stride;
+            int state = _state;
+            for (int i = offset, end = offset + length; i < end; i++) {
+                state = delta[state * stride + classOf(chars[i])];
+                if (((match[state] >= 0) || (_dictionary[state] != 0))
+                        && !report(state, _position + i + 1 - offset, handler))
+                    return false;
+            }
+            _state = state;
+            _position += length;
+            return true;
+        }
+
+        /**
+         * Searches the specified character sequence (next piece of the
+         * input); {@link Text} instances are scanned leaf by leaf.
+         *
+         * @param csq the characters.
+         * @param handler the handler of the matches.
+         * @return <code>true</code> if the characters have all been searched;
+         *         <code>false</code> if the search has been stopped by the
+         *         handler.
+         */
+        @Realtime(limit = Realtime.Limit.LINEAR)
+        public boolean feed(CharSequence csq, Handler handler) {
+            if (csq instanceof Text) {
+                Text text = (Text) csq;
+                if (text.length() == 0)
+                    return true;
+                Text.Chunks chunks = new Text.Chunks(text, 0);
+                do {
+                    if (!feed(chunks.data, chunks.start, chunks.end
+                            - chunks.start, handler))
+                        return false;
+                } while (chunks.next());
+                return true;
+            }
+            if (csq instanceof CharArray) {
+                CharArray chars = (CharArray) csq;
+                return feed(chars.array(), chars.offset(), chars.length(),
+                        handler);
+            }
+            final int[] delta = _delta;
+            final int[] match = _match;
+            final int stride = _stride;
+            int state = _state;
+            for (int i = 0, n = csq.length(); i < n; i++) {
+                state = delta[state * stride + classOf(csq.charAt(i))];
+                if (((match[state] >= 0) || (_dictionary[state] != 0))
+                        && !report(state, _position + i + 1, handler))
+                    return false;
+            }
+            _state = state;
+            _position += csq.length();
+            return true;
+        }
+
+        /**
+         * Reports the matches ending at the specified position (the matcher
+         * is moved to that state and position if the handler stops).
+         */
+        private boolean report(int state, long end, Handler handler) {
+            for (int s = (_match[state] >= 0) ? state : _dictionary[state];
+                    s != 0; s = _dictionary[s]) {
+                for (int p = _match[s]; p >= 0; p = _duplicate[p]) {
+                    if (!handler.onMatch(p, end - _patterns[p].length(), end)) {
+                        _state = state;
+                        _position = end;
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Returns the class of the specified character.
+     */
+    private int classOf(char c) {
+        char[] block = _classes[c >>> 8];
+        return (block != null) ? block[c & 0xFF] : 0;
+    }
+
+    /**
+     * Returns the textual representation of this pattern set.
+     *
+     * @return the patterns between braces.
+     */
+    @Override
+    public String toString() {
+        TextBuilder tb = new TextBuilder();
+        tb.append('{');
+        for (int i = 0; i < _patterns.length; i++) {
+            if (i != 0) {
+                tb.append(',');
+                tb.append(' ');
+            }
+            tb.append('"');
+            tb.append(_patterns[i]);
+            tb.append('"');
+        }
+        tb.append('}');
+        return tb.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof PatternSet))
+            return false;
+        return java.util.Arrays.equals(_patterns, ((PatternSet) obj)._patterns);
+    }
+
+    @Override
+    public int hashCode() {
+        return java.util.Arrays.hashCode(_patterns);
+    }
+
+}
@@ -11,9 +11,9 @@ package org.javolution.text;
 import org.javolution.annotations.Realtime;
 import org.javolution.lang.Immutable;
 import org.javolution.lang.MathLib;
-import org.javolution.util.function.Order;
 
 import java.io.PrintStream;
+import java.nio.charset.Charset;
 
 /**
  * <p> An immutable character sequence with fast {@link #concat concatenation}, 
@@ -61,21 +61,55 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 */
 	private static final int BLOCK_SIZE = 1 << 5;
 
+	/**
+	 * Holds the lower case of Latin-1 characters.
+	 */
+	private static final char[] LOWER_CASE = caseTable(false);
+
+	/**
+	 * Holds the upper case of Latin-1 characters (some are not Latin-1).
+	 */
+	private static final char[] UPPER_CASE = caseTable(true);
+
 	/**
 	 * Holds the mask used to ensure a block boundary cesures.
 	 */
 	private static final int BLOCK_MASK = -BLOCK_SIZE;
 
+	/**
+	 * Holds the Fibonacci numbers up to <code>Integer.MAX_VALUE</code> 
+	 * (depth bounds).
+	 */
+	private static final int[] FIBONACCI = new int[47]; // F(46) is the greatest int.
+	static {
+		FIBONACCI[1] = 1;
+		for (int i = 2; i < FIBONACCI.length; i++) {
+			FIBONACCI[i] = FIBONACCI[i - 1] + FIBONACCI[i - 2];
+		}
+	}
+
+	/**
+	 * Holds the ISO-8859-1 (Latin-1) charset.
+	 */
+	private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+
 	/**
 	 * Holds an empty character sequence.
 	 */
 	public static final Text EMPTY = new Text("");
 
 	/**
-	 * Holds the raw data (primitive) or <code>null</code> (composite).
+	 * Holds the raw data (primitive) or <code>null</code> (composite or
+	 * compact primitive).
 	 */
 	private final char[] _data;
 
+	/**
+	 * Holds the ISO-8859-1 (Latin-1) data of compact primitives (all 
+	 * characters less than <code>256</code>) or <code>null</code>.
+	 */
+	private final byte[] _bytes;
+
 	/**
 	 * Holds the total number of characters.
 	 */
@@ -92,12 +126,25 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	private Text _tail;
 
 	/**
-	 * Creates a new text instance.
+	 * Holds the depth of the tree (<code>0</code> for primitives).
+	 */
+	private int _depth;
+
+	/**
+	 * Holds the cached hash code (<code>0</code> if not yet calculated).
+	 */
+	private transient int _hash;
+
+	/**
+	 * Creates a new text instance (both arrays <code>null</code> for 
+	 * composites).
 	 * 
-	 * @param isPrimitive indicates if primitive or composite.
+	 * @param data the raw data of a primitive.
+	 * @param bytes the Latin-1 data of a compact primitive.
 	 */
-	private Text(boolean isPrimitive) {
-		_data = isPrimitive ? new char[BLOCK_SIZE] : null;
+	private Text(char[] data, byte[] bytes) {
+		_data = data;
+		_bytes = bytes;
 	}
 
 	/**
@@ -108,14 +155,18 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * @deprecated Use {@link #valueOf(String)} instead.
 	 */
 	public Text(String str) {
-		this(str.length() <= BLOCK_SIZE);
 		_count = str.length();
-		if (_data != null) { // Primitive.
-			str.getChars(0, _count, _data, 0);
+		if (_count <= BLOCK_SIZE) { // Primitive.
+			char[] chars = str.toCharArray();
+			_bytes = isLatin1(chars) ? latin1(chars) : null;
+			_data = (_bytes == null) ? chars : null;
 		} else { // Composite, splits on a block boundary. 
+			_data = null;
+			_bytes = null;
 			int half = ((_count + BLOCK_SIZE) >> 1) & BLOCK_MASK;
 			_head = new Text(str.substring(0, half));
 			_tail = new Text(str.substring(half, _count));
+			_depth = MathLib.max(_head._depth, _tail._depth) + 1;
 		}
 	}
 
@@ -148,9 +199,9 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	private static Text valueOf(String str, int start, int end) {
 		int length = end - start;
 		if (length <= BLOCK_SIZE) {
-			Text text = newPrimitive(length);
-			str.getChars(start, end, text._data, 0);
-			return text;
+			char[] chars = new char[length];
+			str.getChars(start, end, chars, 0);
+			return Text.newPrimitive(chars);
 		} else { // Splits on a block boundary.
 			int half = ((length + BLOCK_SIZE) >> 1) & BLOCK_MASK;
 			return newComposite(Text.valueOf(str, start, start + half),
@@ -185,9 +236,9 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 		if ((offset < 0) || (length < 0) || ((offset + length) > chars.length))
 			throw new IndexOutOfBoundsException();
 		if (length <= BLOCK_SIZE) {
-			Text text = Text.newPrimitive(length);
-			System.arraycopy(chars, offset, text._data, 0, length);
-			return text;
+			char[] data = new char[length];
+			System.arraycopy(chars, offset, data, 0, length);
+			return Text.newPrimitive(data);
 		} else { // Splits on a block boundary.
 			int half = ((length + BLOCK_SIZE) >> 1) & BLOCK_MASK;
 			return Text.newComposite(Text.valueOf(chars, offset, half),
@@ -206,9 +257,9 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	static Text valueOf(TextBuilder tb, int start, int end) {
 		int length = end - start;
 		if (length <= BLOCK_SIZE) {
-			Text text = Text.newPrimitive(length);
-			tb.getChars(start, end, text._data, 0);
-			return text;
+			char[] chars = new char[length];
+			tb.getChars(start, end, chars, 0);
+			return Text.newPrimitive(chars);
 		} else { // Splits on a block boundary.
 			int half = ((length + BLOCK_SIZE) >> 1) & BLOCK_MASK;
 			return Text.newComposite(Text.valueOf(tb, start, start + half),
@@ -216,6 +267,30 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 		}
 	}
 
+	/**
+	 * Returns the text holding the specified blocks of characters followed by
+	 * the specified text (optimization for TextBuilder.toText()); the blocks
+	 * become the leaves of the text returned and are not copied.
+	 * 
+	 * @param  blocks the blocks of characters (shared).
+	 * @param  n the number of blocks.
+	 * @param  blockLength the number of characters of each block.
+	 * @param  tail the characters following the blocks.
+	 * @return the corresponding text instance.
+	 */
+	static Text valueOf(char[][] blocks, int n, int blockLength, Text tail) {
+		Text[] leaves = new Text[n + 1];
+		for (int i = 0; i < n; i++) {
+			Text leaf = new Text(blocks[i], null);
+			leaf._count = blockLength;
+			leaves[i] = leaf;
+		}
+		if (tail._count != 0) {
+			leaves[n++] = tail;
+		}
+		return Text.balanced(leaves, 0, n);
+	}
+
 	/**
 	 * Returns the text representation of the <code>boolean</code> argument.
 	 *
@@ -239,9 +314,7 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * @return a text of length <code>1</code> containing <code>'c'</code>.
 	 */
 	public static Text valueOf(char c) {
-		Text text = Text.newPrimitive(1);
-		text._data[0] = c;
-		return text;
+		return Text.newPrimitive(new char[] { c });
 	}
 
 	/**
@@ -252,8 +325,12 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * @return the corresponding text instance.
 	 */
 	public static Text valueOf(int i) {
-		TextBuilder tb = new TextBuilder();
-		return tb.append(i).toText();
+		TextBuilder tb = TextBuilder.acquire();
+		try {
+			return tb.append(i).toText();
+		} finally {
+			tb.release();
+		}
 	}
 
 	/**
@@ -265,8 +342,12 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * @return the corresponding text instance.
 	 */
 	public static Text valueOf(int i, int radix) {
-		TextBuilder tb = new TextBuilder();
-		return tb.append(i, radix).toText();
+		TextBuilder tb = TextBuilder.acquire();
+		try {
+			return tb.append(i, radix).toText();
+		} finally {
+			tb.release();
+		}
 	}
 
 	/**
@@ -277,8 +358,12 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * @return the corresponding text instance.
 	 */
 	public static Text valueOf(long l) {
-		TextBuilder tb = new TextBuilder();
-		return tb.append(l).toText();
+		TextBuilder tb = TextBuilder.acquire();
+		try {
+			return tb.append(l).toText();
+		} finally {
+			tb.release();
+		}
 	}
 
 	/**
@@ -290,8 +375,12 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * @return the corresponding text instance.
 	 */
 	public static Text valueOf(long l, int radix) {
-		TextBuilder tb = new TextBuilder();
-		return tb.append(l, radix).toText();
+		TextBuilder tb = TextBuilder.acquire();
+		try {
+			return tb.append(l, radix).toText();
+		} finally {
+			tb.release();
+		}
 	}
 
 	/**
@@ -302,8 +391,12 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * @return the corresponding text instance.
 	 */
 	public static Text valueOf(float f) {
-		TextBuilder tb = new TextBuilder();
-		return tb.append(f).toText();
+		TextBuilder tb = TextBuilder.acquire();
+		try {
+			return tb.append(f).toText();
+		} finally {
+			tb.release();
+		}
 	}
 
 	/**
@@ -314,8 +407,12 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * @return the corresponding text instance.
 	 */
 	public static Text valueOf(double d) {
-		TextBuilder tb = new TextBuilder();
-		return tb.append(d).toText();
+		TextBuilder tb = TextBuilder.acquire();
+		try {
+			return tb.append(d).toText();
+		} finally {
+			tb.release();
+		}
 	}
 
 	/**
@@ -335,8 +432,12 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 */
 	public static Text valueOf(double d, int digits, boolean scientific,
 			boolean showZero) {
-		TextBuilder tb = new TextBuilder();
-		return tb.append(d, digits, scientific, showZero).toText();
+		TextBuilder tb = TextBuilder.acquire();
+		try {
+			return tb.append(d, digits, scientific, showZero).toText();
+		} finally {
+			tb.release();
+		}
 	}
 
 	/**
@@ -373,16 +474,16 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 
 	private Text append(String str) { // Try to append, returns null if cannot.
 		int length = str.length();
-		if (_data == null) {
+		if (_head != null) { // Composite.
 			Text merge = _tail.append(str);
 			return merge != null ? Text.newComposite(_head, merge) : null;
 		} else { // Primitive.
 			if (_count + length > BLOCK_SIZE)
 				return null; // Cannot merge.
-			Text text = Text.newPrimitive(_count + length);
-			System.arraycopy(_data, 0, text._data, 0, _count);
-			str.getChars(0, length, text._data, _count);
-			return text;
+			char[] chars = new char[_count + length];
+			getChars(0, _count, chars, 0);
+			str.getChars(0, length, chars, _count);
+			return Text.newPrimitive(chars);
 		}
 	}
 
@@ -391,42 +492,59 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * This method is very fast (faster even than 
 	 * <code>StringBuffer.append(String)</code>) and still returns
 	 * a text instance with an internal binary tree of minimal depth!
+	 * The text returned is {@link #rebalance rebalanced} if the local 
+	 * rotations have not kept its depth bounded.
 	 *
 	 * @param  that the text that is concatenated.
 	 * @return <code>this + that</code>
 	 */
 	public Text concat(Text that) {
+		Text text = merge(that);
+		return text.isBalanced() ? text : text.rebalance();
+	}
+
+	/**
+	 * Returns the concatenation of this text and the specified text 
+	 * (no depth check).
+	 */
+	private Text merge(Text that) {
 		// All Text instances are maintained balanced:
 		//   (head < tail * 2) & (tail < head * 2)
 
 		final int length = this._count + that._count;
 		if (length <= BLOCK_SIZE) { // Merges to primitive.
-			Text text = Text.newPrimitive(length);
-			this.getChars(0, this._count, text._data, 0);
-			that.getChars(0, that._count, text._data, this._count);
-			return text;
+			if ((this._bytes != null) && (that._bytes != null)) { // Compact.
+				byte[] bytes = new byte[length];
+				System.arraycopy(this._bytes, 0, bytes, 0, this._count);
+				System.arraycopy(that._bytes, 0, bytes, this._count, that._count);
+				return Text.newPrimitive(bytes);
+			}
+			char[] chars = new char[length];
+			this.getChars(0, this._count, chars, 0);
+			that.getChars(0, that._count, chars, this._count);
+			return Text.newPrimitive(chars);
 
 		} else { // Returns a composite.
 			Text head = this;
 			Text tail = that;
 
-			if (((head._count << 1) < tail._count) && (tail._data == null)) { // tail is composite
+			if (((head._count << 1) < tail._count) && (tail._head != null)) { // tail is composite
 				// head too small, returns (head + tail/2) + (tail/2) 
 				if (tail._head._count > tail._tail._count) {
 					// Rotates to concatenate with smaller part.
 					tail = tail.rightRotation();
 				}
-				head = head.concat(tail._head);
+				head = head.merge(tail._head);
 				tail = tail._tail;
 
 			} else if (((tail._count << 1) < head._count)
-					&& (head._data == null)) { // head is composite.
+					&& (head._head != null)) { // head is composite.
 				// tail too small, returns (head/2) + (head/2 concat tail)
 				if (head._tail._count > head._head._count) {
 					// Rotates to concatenate with smaller part.
 					head = head.leftRotation();
 				}
-				tail = head._tail.concat(tail);
+				tail = head._tail.merge(tail);
 				head = head._head;
 			}
 			return Text.newComposite(head, tail);
@@ -436,7 +554,7 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	private Text rightRotation() {
 		// See: http://en.wikipedia.org/wiki/Tree_rotation
 		Text P = this._head;
-		if (P._data != null)
+		if (P._head == null)
 			return this; // Head not a composite, cannot rotate.
 		Text A = P._head;
 		Text B = P._tail;
@@ -447,7 +565,7 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	private Text leftRotation() {
 		// See: http://en.wikipedia.org/wiki/Tree_rotation
 		Text Q = this._tail;
-		if (Q._data != null)
+		if (Q._head == null)
 			return this; // Tail not a composite, cannot rotate.
 		Text B = Q._head;
 		Text C = Q._tail;
@@ -525,7 +643,7 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * @return the resulting text.
 	 */
 	public Text replace(CharSet charSet, java.lang.CharSequence replacement) {
-        if (_data != null) {
+        if (_head == null) { // Primitive.
     		int i = indexOfAny(charSet);
     		return (i < 0) ? this : // No character to replace.
     			subtext(0, i).concat(Text.valueOf(replacement)).concat(
@@ -570,6 +688,7 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * @return the index in the range
 	 *         <code>[fromIndex, length() - csq.length()]</code> 
 	 *         or <code>-1</code> if the character sequence is not found.
+	 * @see TextPattern
 	 */
 	public int indexOf(java.lang.CharSequence csq, int fromIndex) {
 
@@ -580,6 +699,12 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 		if (csqLength == 0) {
 			return (min > max) ? -1 : min;
 		}
+		if (min > max)
+			return -1;
+		if ((_head != null) && (csqLength > 1)) // Composite, searches leaf by leaf.
+			return (csqLength < TextPattern.SCAN_MAX_LENGTH) ? TextPattern
+					.scan(this, min, csq) : TextPattern.compiled(csq).indexIn(
+					this, min);
 
 		// Searches for csq.
 		final char c = csq.charAt(0);
@@ -704,15 +829,10 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 *          trailing white space.
 	 */
 	public Text trim() {
-		int first = 0; // First character index.
-		int last = length() - 1; // Last character index.
-		while ((first <= last) && (charAt(first) <= ' ')) {
-			first++;
-		}
-		while ((last >= first) && (charAt(last) <= ' ')) {
-			last--;
-		}
-		return subtext(first, last + 1);
+		int first = indexOfNonBlank();
+		if (first < 0)
+			return subtext(_count, _count);
+		return subtext(first, lastIndexOfNonBlank() + 1);
 	}
 
 	/**
@@ -724,13 +844,11 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 *        same character content as this text; <code>false</code> otherwise.
 	 */
 	public boolean contentEquals(java.lang.CharSequence csq) {
+		if (csq instanceof Text)
+			return equals(csq);
 		if (csq.length() != _count)
 			return false;
-		for (int i = 0; i < _count;) {
-			if (this.charAt(i) != csq.charAt(i++))
-				return false;
-		}
-		return true;
+		return compare(this, csq) == 0;
 	}
 
 	/**
@@ -744,22 +862,56 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	public boolean contentEqualsIgnoreCase(java.lang.CharSequence csq) {
 		if (this._count != csq.length())
 			return false;
-		for (int i = 0; i < _count;) {
-			char u1 = this.charAt(i);
-			char u2 = csq.charAt(i++);
-			if (u1 != u2) {
-				u1 = Character.toUpperCase(u1);
-				u2 = Character.toUpperCase(u2);
-				if ((u1 != u2)
-						&& (Character.toLowerCase(u1) != Character
-								.toLowerCase(u2)))
-					return false;
-
+		if (_count == 0)
+			return true;
+		Chunks l = new Chunks(this, 0);
+		if (csq instanceof Text) { // Leaf by leaf on both sides.
+			Chunks r = new Chunks((Text) csq, 0);
+			for (int n = _count; n > 0;) {
+				if (l.start == l.end)
+					l.next();
+				if (r.start == r.end)
+					r.next();
+				final int m = MathLib.min(MathLib.min(l.end - l.start, r.end - r.start), n);
+				final char[] ld = l.data;
+				final char[] rd = r.data;
+				for (int i = l.start, j = r.start, stop = i + m; i < stop; i++, j++) {
+					if ((ld[i] != rd[j]) && !equalsIgnoreCase(ld[i], rd[j]))
+						return false;
+				}
+				l.start += m;
+				r.start += m;
+				n -= m;
 			}
+			return true;
 		}
+		int j = 0;
+		do {
+			final char[] data = l.data;
+			for (int i = l.start; i < l.end; i++) {
+				final char c = csq.charAt(j++);
+				if ((data[i] != c) && !equalsIgnoreCase(data[i], c))
+					return false;
+			}
+		} while (l.next());
 		return true;
 	}
 
+	/**
+	 * Indicates if the specified distinct characters are equal ignoring case
+	 * (ASCII characters are folded without table look-up).
+	 */
+	private static boolean equalsIgnoreCase(char c1, char c2) {
+		if ((c1 | c2) < 128) { // ASCII.
+			final int folded = c1 | 0x20;
+			return (folded == (c2 | 0x20)) && (folded >= 'a') && (folded <= 'z');
+		}
+		char u1 = Character.toUpperCase(c1);
+		char u2 = Character.toUpperCase(c2);
+		return (u1 == u2)
+				|| (Character.toLowerCase(u1) == Character.toLowerCase(u2));
+	}
+
 	/**
 	 * Compares this text against the specified object for equality.
 	 * Returns <code>true</code> if the specified object is a text having
@@ -780,24 +932,30 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 		final Text that = (Text) obj;
 		if (this._count != that._count)
 			return false;
-		for (int i = 0; i < _count;) {
-			if (this.charAt(i) != that.charAt(i++))
-				return false;
-		}
-		return true;
+		if ((this._hash != 0) && (that._hash != 0) && (this._hash != that._hash))
+			return false;
+		return compare(this, that) == 0;
 	}
 
 	/**
-	 * Returns the hash code for this text.
+	 * Returns the hash code for this text (same as the hash code of the 
+	 * corresponding <code>String</code>). The hash code is calculated 
+	 * once, leaf by leaf, and then cached.
 	 *
 	 * @return the hash code value.
 	 */
 	@Override
 	public int hashCode() {
-		int h = 0;
-		final int length = this.length();
-		for (int i = 0; i < length;) {
-			h = 31 * h + charAt(i++);
+		int h = _hash;
+		if ((h == 0) && (_count != 0)) {
+			Chunks chunks = new Chunks(this, 0);
+			do {
+				final char[] data = chunks.data;
+				for (int i = chunks.start, n = chunks.end; i < n;) {
+					h = 31 * h + data[i++];
+				}
+			} while (chunks.next());
+			_hash = h;
 		}
 		return h;
 	}
@@ -812,7 +970,55 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 *          <code>CharSequence</code> or a <code>String</code>.
 	 */
 	public int compareTo(CharSequence csq) {
-		return Order.lexical().compare(this, csq);
+		return compare(this, csq);
+	}
+
+	/**
+	 * Compares the specified texts lexicographically leaf by leaf.
+	 */
+	private static int compare(Text left, Text right) {
+		Chunks l = new Chunks(left, 0);
+		Chunks r = new Chunks(right, 0);
+		for (int n = MathLib.min(left._count, right._count); n > 0;) {
+			if (l.start == l.end)
+				l.next();
+			if (r.start == r.end)
+				r.next();
+			final int m = MathLib.min(MathLib.min(l.end - l.start, r.end - r.start), n);
+			final char[] ld = l.data;
+			final char[] rd = r.data;
+			for (int i = l.start, j = r.start, stop = i + m; i < stop; i++, j++) {
+				if (ld[i] != rd[j])
+					return ld[i] - rd[j];
+			}
+			l.start += m;
+			r.start += m;
+			n -= m;
+		}
+		return left._count - right._count;
+	}
+
+	/**
+	 * Compares the specified text with the specified character sequence
+	 * lexicographically (leaf by leaf for the text).
+	 */
+	private static int compare(Text left, CharSequence right) {
+		if (right instanceof Text)
+			return compare(left, (Text) right);
+		final int n = MathLib.min(left._count, right.length());
+		if (n > 0) {
+			Chunks chunks = new Chunks(left, 0);
+			int j = 0;
+			do {
+				final char[] data = chunks.data;
+				for (int i = chunks.start, stop = MathLib.min(chunks.end, i + n - j); i < stop; i++, j++) {
+					final char c = right.charAt(j);
+					if (data[i] != c)
+						return data[i] - c;
+				}
+			} while ((j < n) && chunks.next());
+		}
+		return left._count - right.length();
 	}
 
 	/**
@@ -825,6 +1031,113 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 		return this;
 	}
 
+	/**
+	 * Returns a text with the same characters as this text whose tree
+	 * has minimal depth; adjacent small leaves are merged (up to the
+	 * block size). This method is called automatically when the depth of
+	 * a concatenation exceeds the Fibonacci bound (a text of depth 
+	 * <code>d</code> should hold at least <code>F(d + 2)</code> 
+	 * characters), it might be called explicitly after many 
+	 * insertions/deletions.
+	 *
+	 * @return the balanced text (<code>this</code> if primitive).
+	 */
+	@Realtime(limit = Realtime.Limit.LINEAR)
+	public Text rebalance() {
+		if (_head == null) // Primitive.
+			return this;
+		Text[] leaves = new Text[getNbrOfLeaves()];
+		int n = packLeaves(leaves, 0);
+		return Text.balanced(leaves, 0, n);
+	}
+
+	/**
+	 * Returns the concatenation of the specified character sequences as a 
+	 * text of minimal depth whose leaves are full blocks (except the last).
+	 *
+	 * @param  pieces the character sequences to concatenate.
+	 * @return the text holding all the characters of the pieces in order.
+	 */
+	@Realtime(limit = Realtime.Limit.LINEAR)
+	public static Text join(CharSequence... pieces) {
+		int length = 0;
+		for (CharSequence csq : pieces) {
+			length += csq.length();
+		}
+		if (length == 0)
+			return Text.EMPTY;
+		Text[] leaves = new Text[(length + BLOCK_SIZE - 1) / BLOCK_SIZE];
+		int n = 0;
+		char[] block = new char[MathLib.min(length, BLOCK_SIZE)];
+		int filled = 0;
+		int remaining = length;
+		for (CharSequence csq : pieces) {
+			for (int i = 0, csqLength = csq.length(); i < csqLength;) {
+				int count = MathLib.min(block.length - filled, csqLength - i);
+				if (csq instanceof String) {
+					((String) csq).getChars(i, i + count, block, filled);
+				} else if (csq instanceof Text) {
+					((Text) csq).getChars(i, i + count, block, filled);
+				} else {
+					for (int j = 0; j < count; j++) {
+						block[filled + j] = csq.charAt(i + j);
+					}
+				}
+				i += count;
+				filled += count;
+				if (filled == block.length) { // Full block.
+					leaves[n++] = Text.newPrimitive(block);
+					remaining -= filled;
+					block = new char[MathLib.min(remaining, BLOCK_SIZE)];
+					filled = 0;
+				}
+			}
+		}
+		return Text.balanced(leaves, 0, n);
+	}
+
+	/**
+	 * Indicates if the depth of this text is within the Fibonacci bound.
+	 */
+	private boolean isBalanced() {
+		return (_depth + 2 < FIBONACCI.length) && (_count >= FIBONACCI[_depth + 2]);
+	}
+
+	/**
+	 * Adds the leaves of this text to the specified array after the 
+	 * specified number of leaves, merging small adjacent leaves.
+	 * 
+	 * @return the new number of leaves.
+	 */
+	private int packLeaves(Text[] leaves, int n) {
+		if (_head != null) // Composite.
+			return _tail.packLeaves(leaves, _head.packLeaves(leaves, n));
+		if (_count == 0)
+			return n;
+		if (n > 0) {
+			Text last = leaves[n - 1];
+			if (last._count + _count <= BLOCK_SIZE) {
+				leaves[n - 1] = last.merge(this);
+				return n;
+			}
+		}
+		leaves[n] = this;
+		return n + 1;
+	}
+
+	/**
+	 * Returns the text of minimal depth holding the specified leaves.
+	 */
+	private static Text balanced(Text[] leaves, int from, int to) {
+		if (from == to)
+			return Text.EMPTY;
+		if (to - from == 1)
+			return leaves[from];
+		int middle = (from + to) >>> 1;
+		return Text.newComposite(balanced(leaves, from, middle), balanced(
+				leaves, middle, to));
+	}
+
 	/**
 	 * Prints the current statistics on this text tree structure.
 	 *  
@@ -845,51 +1158,106 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	}
 
 	private int getDepth() {
-		if (_data != null) // Primitive.
-			return 0;
-		return MathLib.max(_head.getDepth(), _tail.getDepth()) + 1;
+		return _depth;
 	}
 
 	private int getNbrOfBranches() {
-		return (_data == null) ? _head.getNbrOfBranches()
+		return (_head != null) ? _head.getNbrOfBranches()
 				+ _tail.getNbrOfBranches() + 1 : 0;
 	}
 
 	private int getNbrOfLeaves() {
-		return (_data == null) ? _head.getNbrOfLeaves()
+		return (_head != null) ? _head.getNbrOfLeaves()
 				+ _tail.getNbrOfLeaves() : 1;
 	}
 
 	/**
 	 * Converts the characters of this text to lower case.
 	 * 
-	 * @return the text in lower case.
+	 * @return the text in lower case (<code>this</code> if unchanged).
 	 * @see Character#toLowerCase(char) 
 	 */
 	public Text toLowerCase() {
-		if (_data == null) // Composite.
-			return Text.newComposite(_head.toLowerCase(), _tail.toLowerCase());
-		Text text = Text.newPrimitive(_count);
-		for (int i = 0; i < _count;) {
-			text._data[i] = Character.toLowerCase(_data[i++]);
+		if (_head != null) { // Composite.
+			Text head = _head.toLowerCase();
+			Text tail = _tail.toLowerCase();
+			return ((head == _head) && (tail == _tail)) ? this : Text
+					.newComposite(head, tail);
 		}
-		return text;
+		return toCase(LOWER_CASE, false);
 	}
 
 	/**
 	 * Converts the characters of this text to upper case.
 	 * 
-	 * @return the text in lower case.
+	 * @return the text in upper case (<code>this</code> if unchanged).
 	 * @see Character#toUpperCase(char) 
 	 */
 	public Text toUpperCase() {
-		if (_data == null) // Composite.
-			return newComposite(_head.toUpperCase(), _tail.toUpperCase());
-		Text text = Text.newPrimitive(_count);
-		for (int i = 0; i < _count;) {
-			text._data[i] = Character.toUpperCase(_data[i++]);
+		if (_head != null) { // Composite.
+			Text head = _head.toUpperCase();
+			Text tail = _tail.toUpperCase();
+			return ((head == _head) && (tail == _tail)) ? this : Text
+					.newComposite(head, tail);
 		}
-		return text;
+		return toCase(UPPER_CASE, true);
+	}
+
+	/**
+	 * Converts the case of this primitive text; Latin-1 characters are
+	 * converted using the specified table.
+	 */
+	private Text toCase(char[] table, boolean upperCase) {
+		int i = 0; // First character changed.
+		if (_bytes != null) { // Compact.
+			final byte[] bytes = _bytes;
+			while ((i < _count) && (table[bytes[i] & 0xFF] == (bytes[i] & 0xFF))) {
+				i++;
+			}
+			if (i == _count)
+				return this;
+			byte[] converted = new byte[_count];
+			System.arraycopy(bytes, 0, converted, 0, i);
+			for (; i < _count; i++) {
+				final char c = table[bytes[i] & 0xFF];
+				if (c >= 256) { // Widens (e.g. 'ÿ' to upper case).
+					char[] chars = new char[_count];
+					for (int j = 0; j < _count; j++) {
+						chars[j] = table[bytes[j] & 0xFF];
+					}
+					return Text.newPrimitive(chars);
+				}
+				converted[i] = (byte) c;
+			}
+			return Text.newPrimitive(converted);
+		}
+		final char[] data = _data;
+		while ((i < _count) && (toCase(data[i], table, upperCase) == data[i])) {
+			i++;
+		}
+		if (i == _count)
+			return this;
+		char[] chars = new char[_count];
+		System.arraycopy(data, 0, chars, 0, i);
+		for (; i < _count; i++) {
+			chars[i] = toCase(data[i], table, upperCase);
+		}
+		return Text.newPrimitive(chars);
+	}
+
+	private static char toCase(char c, char[] table, boolean upperCase) {
+		if (c < 256)
+			return table[c];
+		return upperCase ? Character.toUpperCase(c) : Character.toLowerCase(c);
+	}
+
+	private static char[] caseTable(boolean upperCase) {
+		char[] table = new char[256];
+		for (int i = 0; i < 256; i++) {
+			table[i] = upperCase ? Character.toUpperCase((char) i) : Character
+					.toLowerCase((char) i);
+		}
+		return table;
 	}
 
 	/**
@@ -903,8 +1271,10 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	public char charAt(int index) {
 		if (index >= _count)
 			throw new IndexOutOfBoundsException();
-		return (_data != null) ? _data[index] : (index < _head._count) ? _head
-				.charAt(index) : _tail.charAt(index - _head._count);
+		if (_head == null) // Primitive.
+			return (_data != null) ? _data[index] : (char) (_bytes[index] & 0xFF);
+		return (index < _head._count) ? _head.charAt(index) : _tail
+				.charAt(index - _head._count);
 	}
 
 	/**
@@ -931,7 +1301,16 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 *         or <code>-1</code> if the character does not occur.
 	 */
 	public int indexOf(char c, int fromIndex) {
-		if (_data != null) { // Primitive.
+		if (_bytes != null) { // Compact primitive.
+			if (c >= 256)
+				return -1;
+			final byte b = (byte) c;
+			for (int i = MathLib.max(fromIndex, 0); i < _count; i++) {
+				if (_bytes[i] == b)
+					return i;
+			}
+			return -1;
+		} else if (_data != null) { // Primitive.
 			for (int i = MathLib.max(fromIndex, 0); i < _count; i++) {
 				if (_data[i] == c)
 					return i;
@@ -974,7 +1353,16 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 *         or <code>-1</code> if the character does not occur.
 	 */
 	public int lastIndexOf(char c, int fromIndex) {
-		if (_data != null) { // Primitive.
+		if (_bytes != null) { // Compact primitive.
+			if (c >= 256)
+				return -1;
+			final byte b = (byte) c;
+			for (int i = MathLib.min(fromIndex, _count - 1); i >= 0; i--) {
+				if (_bytes[i] == b)
+					return i;
+			}
+			return -1;
+		} else if (_data != null) { // Primitive.
 			for (int i = MathLib.min(fromIndex, _count - 1); i >= 0; i--) {
 				if (_data[i] == c)
 					return i;
@@ -1002,7 +1390,7 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 *         start is greather than end, or end is greater than length.
 	 */
 	public Text subtext(int start, int end) {
-		if (_data != null) { // Primitive.
+		if (_head == null) { // Primitive.
 			if ((start < 0) || (start > end) || (end > _count))
 				throw new IndexOutOfBoundsException();
 			if ((start == 0) && (end == _count))
@@ -1010,9 +1398,14 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 			if (start == end)
 				return Text.EMPTY;
 			int length = end - start;
-			Text text = Text.newPrimitive(length);
-			System.arraycopy(_data, start, text._data, 0, length);
-			return text;
+			if (_bytes != null) { // Compact.
+				byte[] bytes = new byte[length];
+				System.arraycopy(_bytes, start, bytes, 0, length);
+				return Text.newPrimitive(bytes);
+			}
+			char[] chars = new char[length];
+			System.arraycopy(_data, start, chars, 0, length);
+			return Text.newPrimitive(chars);
 		} else { // Composite.
 			final int cesure = _head._count;
 			if (end <= cesure)
@@ -1022,7 +1415,7 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 			if ((start == 0) && (end == _count))
 				return this;
 			// Overlaps head and tail.
-			return _head.subtext(start, cesure).concat(
+			return _head.subtext(start, cesure).merge(
 					_tail.subtext(0, end - cesure));
 		}
 	}
@@ -1039,10 +1432,16 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 *         start is greater than end, or end is greater than length
 	 */
 	public void getChars(int start, int end, char dest[], int destPos) {
-		if (_data != null) { // Primitive.
+		if (_head == null) { // Primitive.
 			if ((start < 0) || (end > _count) || (start > end))
 				throw new IndexOutOfBoundsException();
-			System.arraycopy(_data, start, dest, destPos, end - start);
+			if (_bytes != null) { // Widens.
+				for (int i = start, j = destPos; i < end;) {
+					dest[j++] = (char) (_bytes[i++] & 0xFF);
+				}
+			} else {
+				System.arraycopy(_data, start, dest, destPos, end - start);
+			}
 		} else { // Composite.
 			final int cesure = _head._count;
 			if (end <= cesure) {
@@ -1062,7 +1461,9 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * @return the <code>java.lang.String</code> for this text.
 	 */
 	public String toString() {
-		if (_data != null) { // Primitive.
+		if (_bytes != null) { // Compact primitive.
+			return new String(_bytes, LATIN1);
+		} else if (_data != null) { // Primitive.
 			return new String(_data, 0, _count);
 		} else { // Composite.
 			char[] data = new char[_count];
@@ -1073,10 +1474,10 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 
 	// Implements ValueType interface.
 	public Text copy() {
-		if (_data != null) { // Primitive.
-			Text text = Text.newPrimitive(_count);
-			System.arraycopy(_data, 0, text._data, 0, _count);
-			return text;
+		if (_bytes != null) { // Compact primitive.
+			return Text.newPrimitive(_bytes.clone());
+		} else if (_data != null) { // Primitive.
+			return Text.newPrimitive(_data.clone());
 		} else { // Composite.
 			return Text.newComposite((Text) _head.copy(), (Text) _tail.copy());
 		}
@@ -1098,11 +1499,11 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 		if (length < 0)
 			throw new IndexOutOfBoundsException();
 		if (length <= BLOCK_SIZE) {
-			Text text = Text.newPrimitive(length);
+			char[] chars = new char[length];
 			for (int i = 0; i < length;) {
-				text._data[i++] = c;
+				chars[i++] = c;
 			}
-			return text;
+			return Text.newPrimitive(chars);
 		} else {
 			final int middle = (length >> 1);
 			return Text.newComposite(Text.valueOf(c, middle),
@@ -1117,7 +1518,7 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 *@return <code>true</code> if this text  contains only whitespace.
 	 */
 	public boolean isBlank() {
-		return isBlank(0, length());
+		return indexOfNonBlank() < 0;
 	}
 
 	/**
@@ -1129,13 +1530,70 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 *@return true if all characters in this range are whitespace
 	 */
 	public boolean isBlank(int start, int length) {
-		for (int i = start; i < start + length; i++) {
-			if (charAt(i) > ' ')
-				return false;
-		}
+		if (length <= 0)
+			return true;
+		if ((start < 0) || (start + length > _count))
+			throw new IndexOutOfBoundsException();
+		Chunks chunks = new Chunks(this, start);
+		do {
+			final char[] data = chunks.data;
+			for (int i = chunks.start, stop = MathLib.min(chunks.end, i + length); i < stop; i++, length--) {
+				if (data[i] > ' ')
+					return false;
+			}
+		} while ((length > 0) && chunks.next());
 		return true;
 	}
 
+	/**
+	 * Returns the index of the first character greater than the space
+	 * character or <code>-1</code> if none (leaf by leaf).
+	 */
+	private int indexOfNonBlank() {
+		if (_head != null) { // Composite.
+			int i = _head.indexOfNonBlank();
+			if (i >= 0)
+				return i;
+			i = _tail.indexOfNonBlank();
+			return (i >= 0) ? _head._count + i : -1;
+		}
+		if (_bytes != null) { // Compact.
+			for (int i = 0; i < _count; i++) {
+				if ((_bytes[i] & 0xFF) > ' ')
+					return i;
+			}
+			return -1;
+		}
+		for (int i = 0; i < _count; i++) {
+			if (_data[i] > ' ')
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the last character greater than the space
+	 * character or <code>-1</code> if none (leaf by leaf).
+	 */
+	private int lastIndexOfNonBlank() {
+		if (_head != null) { // Composite.
+			int i = _tail.lastIndexOfNonBlank();
+			return (i >= 0) ? _head._count + i : _head.lastIndexOfNonBlank();
+		}
+		if (_bytes != null) { // Compact.
+			for (int i = _count; --i >= 0;) {
+				if ((_bytes[i] & 0xFF) > ' ')
+					return i;
+			}
+			return -1;
+		}
+		for (int i = _count; --i >= 0;) {
+			if (_data[i] > ' ')
+				return i;
+		}
+		return -1;
+	}
+
 	/**
 	 * Returns a copy of this text, with leading whitespace omitted.
 	 *
@@ -1143,12 +1601,8 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * or this text if it has no leading white space.
 	 */
 	public Text trimStart() {
-		int first = 0; // First character index.
-		int last = length() - 1; // Last character index.
-		while ((first <= last) && (charAt(first) <= ' ')) {
-			first++;
-		}
-		return subtext(first, last + 1);
+		int first = indexOfNonBlank();
+		return subtext((first < 0) ? _count : first, _count);
 	}
 
 	/**
@@ -1159,12 +1613,7 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * or this text if it has no trailing white space.
 	 */
 	public Text trimEnd() {
-		int first = 0; // First character index.
-		int last = length() - 1; // Last character index.
-		while ((last >= first) && (charAt(last) <= ' ')) {
-			last--;
-		}
-		return subtext(first, last + 1);
+		return subtext(0, lastIndexOfNonBlank() + 1);
 	}
 
 	/**
@@ -1315,16 +1764,61 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	//
 	////////////////////////////////////////////////////////////////////////////
 	/**
-	 * Returns a new primitive text instance.
+	 * Returns the number of bytes holding the characters of this text 
+	 * (one per character for compact primitives, two otherwise).
+	 */
+	int dataBytes() {
+		if (_head != null)
+			return _head.dataBytes() + _tail.dataBytes();
+		return (_bytes != null) ? _count : _count << 1;
+	}
+
+	/**
+	 * Returns a new primitive text instance holding the specified characters
+	 * (compact if all characters are Latin-1).
+	 *
+	 * @param chars the characters (the array is not copied).
+	 */
+	private static Text newPrimitive(char[] chars) {
+		Text text = isLatin1(chars) ? new Text(null, latin1(chars)) : new Text(
+				chars, null);
+		text._count = chars.length;
+		return text;
+	}
+
+	/**
+	 * Returns a new compact primitive text instance.
 	 *
-	 * @param length the primitive length.
+	 * @param bytes the Latin-1 characters (the array is not copied).
 	 */
-	private static Text newPrimitive(int length) {
-		Text text = new Text(true);
-		text._count = length;
+	private static Text newPrimitive(byte[] bytes) {
+		Text text = new Text(null, bytes);
+		text._count = bytes.length;
 		return text;
 	}
 
+	/**
+	 * Indicates if all the specified characters are less than <code>256</code>.
+	 */
+	private static boolean isLatin1(char[] chars) {
+		for (char c : chars) {
+			if (c >= 256)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the specified Latin-1 characters narrowed to bytes.
+	 */
+	private static byte[] latin1(char[] chars) {
+		byte[] bytes = new byte[chars.length];
+		for (int i = 0; i < chars.length; i++) {
+			bytes[i] = (byte) chars[i];
+		}
+		return bytes;
+	}
+
 	/**
 	 * Returns a composite text instance.
 	 *
@@ -1332,11 +1826,110 @@ public final class Text implements CharSequence, Comparable<CharSequence>,
 	 * @param tail the composite tail.
 	 */
 	private static Text newComposite(Text head, Text tail) {
-		Text text = new Text(false);
+		Text text = new Text(null, null);
 		text._count = head._count + tail._count;
 		text._head = head;
 		text._tail = tail;
+		text._depth = MathLib.max(head._depth, tail._depth) + 1;
 		return text;
 	}
 
+	/**
+	 * A cursor over the primitive blocks (leaves) of a text, in order.
+	 * The current chunk is <code>data[start, end)</code> (possibly empty 
+	 * for the first chunk); the characters before <code>start</code> may 
+	 * be skipped by advancing <code>start</code> directly. The data of
+	 * compact leaves is widened into a buffer overwritten by {@link #next}.
+	 */
+	static final class Chunks {
+
+		/** The data of the current leaf. */
+		char[] data;
+
+		/** The index of the first character of the current chunk. */
+		int start;
+
+		/** The index after the last character of the current chunk. */
+		int end;
+
+		/** The position in the text of <code>data[0]</code>. */
+		int offset;
+
+		private Text[] stack; // Tails still to visit (composites).
+		private char[] buffer; // Widened data of compact leaves.
+		private int top;
+
+		/**
+		 * Creates a cursor whose first chunk starts at the specified index.
+		 * 
+		 * @param text the text to traverse.
+		 * @param fromIndex the index of the first character (in the range 
+		 *        <code>[0, text.length()]</code>).
+		 */
+		Chunks(Text text, int fromIndex) {
+			Text node = text;
+			while (node._head != null) { // Composite.
+				final int cesure = offset + node._head._count;
+				if (fromIndex < cesure) {
+					push(node._tail);
+					node = node._head;
+				} else {
+					offset = cesure;
+					node = node._tail;
+				}
+			}
+			data = chars(node);
+			start = fromIndex - offset;
+			end = node._count;
+		}
+
+		/**
+		 * Moves to the next non-empty leaf.
+		 * 
+		 * @return <code>true</code> if there is a next leaf; 
+		 *         <code>false</code> otherwise (the cursor is unchanged).
+		 */
+		boolean next() {
+			while (top > 0) {
+				Text node = stack[--top];
+				stack[top] = null;
+				while (node._head != null) {
+					push(node._tail);
+					node = node._head;
+				}
+				if (node._count == 0)
+					continue;
+				offset += end;
+				data = chars(node);
+				start = 0;
+				end = node._count;
+				return true;
+			}
+			return false;
+		}
+
+		private char[] chars(Text leaf) {
+			if (leaf._data != null)
+				return leaf._data;
+			if ((buffer == null) || (buffer.length < leaf._count))
+				buffer = new char[MathLib.max(leaf._count, BLOCK_SIZE)];
+			final byte[] bytes = leaf._bytes;
+			for (int i = 0, n = leaf._count; i < n; i++) { // Widens.
+				buffer[i] = (char) (bytes[i] & 0xFF);
+			}
+			return buffer;
+		}
+
+		private void push(Text tail) {
+			if (stack == null) {
+				stack = new Text[8];
+			} else if (top == stack.length) {
+				Text[] tmp = new Text[top << 1];
+				System.arraycopy(stack, 0, tmp, 0, top);
+				stack = tmp;
+			}
+			stack[top++] = tail;
+		}
+	}
+
 }
\ No newline at end of file
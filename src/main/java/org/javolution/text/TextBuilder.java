@@ -18,7 +18,19 @@ import java.io.Serializable;
  *     
  * <p> This class is not intended for large documents manipulations which should be performed with the {@link Text}
  *     class directly (<code>O(Log(n))</code> {@link Text#insert insertion} and 
- *     {@link Text#delete deletion} capabilities).</p>
+ *     {@link Text#delete deletion} capabilities). Still, repeated {@link #insert insertions} and 
+ *     {@link #delete deletions} around the same location are performed in time proportional to the edit size
+ *     (gap buffer), which is convenient for templates or messages patching.</p>
+ *
+ * <p> Temporary builders (e.g. to format objects to strings) can be recycled to avoid allocating new builders
+ *     (and growing them) repeatedly:
+ * {@code
+ * TextBuilder tb = TextBuilder.acquire();
+ * try {
+ *     return tb.append("Order ").append(id).append(": ").append(price).toString();
+ * } finally {
+ *     tb.release();
+ * }}</p>
  *     
  * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
  * @version 5.3, January 20, 2008
@@ -48,6 +60,49 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
      */
     private int _capacity = C0;
 
+    /**
+     * Holds the number of characters whose blocks are shared with a text
+     * (these blocks are copied before being modified).
+     */
+    private int _shared;
+
+    /**
+     * Holds the logical position of the gap (unused characters between the 
+     * characters before and after the last edit position).
+     */
+    private int _gapStart;
+
+    /**
+     * Holds the length of the gap (<code>0</code> when the gap is closed).
+     */
+    private int _gapLength;
+
+    /**
+     * Indicates if this builder is held by the recycler.
+     */
+    private transient boolean _recycled;
+
+    /**
+     * Holds the maximum number of builders recycled per thread.
+     */
+    private static final int RECYCLED_MAX = 4;
+
+    /**
+     * Holds the maximum capacity of recycled builders (larger builders are
+     * not retained).
+     */
+    private static final int RECYCLED_CAPACITY_MAX = C1 << 4;
+
+    /**
+     * Holds the builders recycled by the current thread.
+     */
+    private static final ThreadLocal<TextBuilder[]> RECYCLED = new ThreadLocal<TextBuilder[]>() {
+        @Override
+        protected TextBuilder[] initialValue() {
+            return new TextBuilder[RECYCLED_MAX];
+        }
+    };
+
     /**
      * Creates a text builder of small initial capacity.
      */
@@ -80,6 +135,50 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
         }
     }
 
+    /**
+     * Returns an empty text builder recycled by the current thread or a new 
+     * text builder if none. The builder returned should be {@link #release
+     * released} once not used anymore.
+     * 
+     * @return an empty text builder.
+     */
+    public static TextBuilder acquire() {
+        TextBuilder[] recycled = RECYCLED.get();
+        for (int i = RECYCLED_MAX; --i >= 0;) {
+            TextBuilder tb = recycled[i];
+            if (tb != null) {
+                recycled[i] = null;
+                tb._recycled = false;
+                return tb;
+            }
+        }
+        return new TextBuilder();
+    }
+
+    /**
+     * Clears this text builder and makes it available to the current thread 
+     * {@link #acquire} method. Builders whose capacity exceeds
+     * <code>16384</code> characters are not retained. This builder should
+     * not be used after being released.
+     * 
+     * @throws IllegalStateException if this builder is already released.
+     */
+    public final void release() {
+        if (_recycled)
+            throw new IllegalStateException("Builder already released");
+        _recycled = true; // Even if not retained (detects double release).
+        clear();
+        if (_capacity > RECYCLED_CAPACITY_MAX)
+            return;
+        TextBuilder[] recycled = RECYCLED.get();
+        for (int i = 0; i < RECYCLED_MAX; i++) {
+            if (recycled[i] == null) {
+                recycled[i] = this;
+                return;
+            }
+        }
+    }
+
     /**
      * Returns the length (character count) of this text builder.
      *
@@ -100,6 +199,8 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
     public final char charAt(int index) {
         if (index >= _length)
             throw new IndexOutOfBoundsException();
+        if (index >= _gapStart)
+            index += _gapLength;
         return index < C1 ? _low[index] : _high[index >> B1][index & M1];
     }
 
@@ -119,10 +220,22 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
             int dstBegin) {
         if ((srcBegin < 0) || (srcBegin > srcEnd) || (srcEnd > this._length))
             throw new IndexOutOfBoundsException();
-        for (int i = srcBegin, j = dstBegin; i < srcEnd;) {
+        if (srcBegin < _gapStart) { // Before the gap.
+            int end = MathLib.min(srcEnd, _gapStart);
+            copy(srcBegin, end, dst, dstBegin);
+            dstBegin += end - srcBegin;
+            srcBegin = end;
+        }
+        if (srcBegin < srcEnd) { // After the gap.
+            copy(srcBegin + _gapLength, srcEnd + _gapLength, dst, dstBegin);
+        }
+    }
+
+    private void copy(int begin, int end, char[] dst, int dstBegin) { // Physical positions.
+        for (int i = begin, j = dstBegin; i < end;) {
             char[] chars0 = _high[i >> B1];
             int i0 = i & M1;
-            int length = MathLib.min(C1 - i0, srcEnd - i);
+            int length = MathLib.min(C1 - i0, end - i);
             System.arraycopy(chars0, i0, dst, j, length);
             i += length;
             j += length;
@@ -140,6 +253,10 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
     public final void setCharAt(int index, char c) {
         if ((index < 0) || (index >= _length))
             throw new IndexOutOfBoundsException();
+        if (index < _shared)
+            unshare(true);
+        if (index >= _gapStart)
+            index += _gapLength;
         _high[index >> B1][index & M1] = c;
     }
 
@@ -166,6 +283,10 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
     public final void setLength(int newLength, char fillChar) {
         if (newLength < 0)
             throw new IndexOutOfBoundsException();
+        if (newLength < _shared)
+            unshare(true);
+        if (_gapLength != 0)
+            closeGap();
         if (newLength <= _length)
             _length = newLength;
         else
@@ -197,6 +318,8 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
      * @return <code>this</code>
      */
     public final TextBuilder append(char c) {
+        if (_gapLength != 0)
+            closeGap();
         if (_length >= _capacity)
             increaseCapacity();
         _high[_length >> B1][_length & M1] = c;
@@ -281,6 +404,8 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
         if ((start < 0) || (end < 0) || (start > end) || (end > str.length()))
             throw new IndexOutOfBoundsException("start: " + start + ", end: "
                     + end + ", str.length(): " + str.length());
+        if (_gapLength != 0)
+            closeGap();
         int newLength = _length + end - start;
         while (_capacity < newLength) {
             increaseCapacity();
@@ -325,6 +450,8 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
             return append("null");
         if ((start < 0) || (end < 0) || (start > end) || (end > txt.length()))
             throw new IndexOutOfBoundsException();
+        if (_gapLength != 0)
+            closeGap();
         int newLength = _length + end - start;
         while (_capacity < newLength) {
             increaseCapacity();
@@ -365,6 +492,8 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
         final int end = offset + length;
         if ((offset < 0) || (length < 0) || (end > chars.length))
             throw new IndexOutOfBoundsException();
+        if (_gapLength != 0)
+            closeGap();
         int newLength = _length + length;
         while (_capacity < newLength) {
             increaseCapacity();
@@ -410,6 +539,8 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
             i = -i;
         }
         int digits = MathLib.digitLength(i);
+        if (_gapLength != 0)
+            closeGap();
         if (_capacity < _length + digits)
             increaseCapacity();
         _length += digits;
@@ -697,18 +828,25 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
     public final TextBuilder insert(int index, java.lang.CharSequence csq) {
         if ((index < 0) || (index > _length))
             throw new IndexOutOfBoundsException("index: " + index);
+        if (index < _shared)
+            unshare(true);
         final int shift = csq.length();
-        int newLength = _length + shift;
-        while (newLength >= _capacity) {
-            increaseCapacity();
-        }
-        _length = newLength;
-        for (int i = _length - shift; --i >= index;) {
-            this.setCharAt(i + shift, this.charAt(i));
+        moveGap(index);
+        if (_gapLength < shift) { // Enlarges the gap (shifts the characters after the gap).
+            int grow = MathLib.max(shift - _gapLength, MathLib.min(_length, C1));
+            while (_capacity < _length + _gapLength + grow) {
+                increaseCapacity();
+            }
+            int after = _gapStart + _gapLength;
+            move(after, after + grow, _length - _gapStart);
+            _gapLength += grow;
         }
-        for (int i = csq.length(); --i >= 0;) {
-            this.setCharAt(index + i, csq.charAt(i));
+        for (int i = 0, j = _gapStart; i < shift; i++, j++) {
+            _high[j >> B1][j & M1] = csq.charAt(i);
         }
+        _gapStart += shift;
+        _gapLength -= shift;
+        _length += shift;
         return this;
     }
 
@@ -719,6 +857,10 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
      * @return <code>this.delete(0, this.length())</code>
      */
     public final TextBuilder clear() {
+        if (_shared != 0)
+            unshare(false);
+        _gapStart = 0;
+        _gapLength = 0;
         _length = 0;
         return this;
     }
@@ -735,9 +877,10 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
     public final TextBuilder delete(int start, int end) {
         if ((start < 0) || (end < 0) || (start > end) || (end > this.length()))
             throw new IndexOutOfBoundsException();
-        for (int i = end, j = start; i < _length;) {
-            this.setCharAt(j++, this.charAt(i++));
-        }
+        if (start < _shared)
+            unshare(true);
+        moveGap(start);
+        _gapLength += end - start; // The gap absorbs the characters deleted.
         _length -= end - start;
         return this;
     }
@@ -748,6 +891,8 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
      * @return <code>this</code>
      */
     public final TextBuilder reverse() {
+        if (_shared != 0)
+            unshare(true);
         final int n = _length - 1;
         for (int j = (n - 1) >> 1; j >= 0;) {
             char c = charAt(j);
@@ -759,11 +904,22 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
 
     /**
      * Returns the {@link Text} corresponding to this {@link TextBuilder}.
+     * For large builders the full blocks of characters are not copied but 
+     * shared with the text returned (<code>O(number of blocks)</code>);
+     * they are copied only if this builder is later modified below its 
+     * current length (copy-on-write).
      *
      * @return the corresponding {@link Text} instance.
      */
     public final Text toText() {
-        return Text.valueOf(this, 0, _length);
+        if (_length < C1)
+            return Text.valueOf(this, 0, _length);
+        if (_gapLength != 0)
+            closeGap();
+        int n = _length >> B1; // Number of full blocks.
+        Text tail = Text.valueOf(this, n << B1, _length);
+        _shared = MathLib.max(_shared, n << B1);
+        return Text.valueOf(_high, n, C1, tail);
     }
 
     /**
@@ -774,7 +930,8 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
      */
     @Override
     public final String toString() {
-        return (_length < C1) ? new String(_low, 0, _length) : toLargeString();
+        return ((_length < C1) && (_gapLength == 0)) ? new String(_low, 0, _length)
+                : toLargeString();
     }
 
     private String toLargeString() {
@@ -792,7 +949,7 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
     public final CharArray toCharArray() {
         CharArray cArray = new CharArray();
         char[] data;
-        if (_length < C1) {
+        if ((_length < C1) && (_gapLength == 0)) {
             data = _low;
         } else {
             data = new char[_length];
@@ -853,13 +1010,72 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
         if (csq.length() != _length)
             return false;
         for (int i = 0; i < _length;) {
-            char c = _high[i >> B1][i & M1];
+            char c = charAt(i);
             if (csq.charAt(i++) != c)
                 return false;
         }
         return true;
     }
 
+    /**
+     * Moves the gap to the specified logical position.
+     */
+    private void moveGap(int index) {
+        if (_gapLength != 0) {
+            if (index < _gapStart) { // Shifts characters before the gap to the right.
+                move(index, index + _gapLength, _gapStart - index);
+            } else if (index > _gapStart) { // Shifts characters after the gap to the left.
+                move(_gapStart + _gapLength, _gapStart, index - _gapStart);
+            }
+        }
+        _gapStart = index;
+    }
+
+    /**
+     * Closes the gap (moves it to the end where it becomes free capacity).
+     */
+    private void closeGap() {
+        moveGap(_length);
+        _gapLength = 0;
+    }
+
+    /**
+     * Moves characters between physical positions (ranges may overlap).
+     */
+    private void move(int src, int dst, int length) {
+        if (dst > src) { // Copies backward.
+            for (int i = src + length, j = dst + length; length > 0;) {
+                int n = MathLib.min(MathLib.min(((i - 1) & M1) + 1, ((j - 1) & M1) + 1), length);
+                i -= n;
+                j -= n;
+                System.arraycopy(_high[i >> B1], i & M1, _high[j >> B1], j & M1, n);
+                length -= n;
+            }
+        } else { // Copies forward.
+            for (int i = src, j = dst; length > 0;) {
+                int n = MathLib.min(MathLib.min(C1 - (i & M1), C1 - (j & M1)), length);
+                System.arraycopy(_high[i >> B1], i & M1, _high[j >> B1], j & M1, n);
+                i += n;
+                j += n;
+                length -= n;
+            }
+        }
+    }
+
+    /**
+     * Stops sharing blocks with texts (the shared blocks are copied or 
+     * replaced by new blocks).
+     * 
+     * @param copy indicates if the content of the shared blocks is kept.
+     */
+    private void unshare(boolean copy) {
+        for (int j = _shared >> B1; --j >= 0;) {
+            _high[j] = copy ? _high[j].clone() : new char[C1];
+        }
+        _low = _high[0];
+        _shared = 0;
+    }
+
     /**
      * Increases this text builder capacity.
      */
@@ -867,7 +1083,7 @@ public class TextBuilder implements Appendable, CharSequence, Serializable {
         if (_capacity < C1) { // For small capacity, resize.
             _capacity <<= 1;
             char[] tmp = new char[_capacity];
-            System.arraycopy(_low, 0, tmp, 0, _length);
+            System.arraycopy(_low, 0, tmp, 0, _length + _gapLength);
             _low = tmp;
             _high[0] = tmp;
         } else { // Add a new low block of 1024 elements.
@@ -113,11 +113,19 @@ public abstract class TextFormat<T> {
     /**
      * Convenience method to format the specified object to a {@link String}.
      * 
+     * The text builder used for formatting is {@link TextBuilder#acquire
+     * recycled}.
+     * 
      * @param obj the object to format.
      * @return the formatting result as a string.
      */
     public String format(T obj) {
-        return this.format(obj, new TextBuilder()).toString();
+        TextBuilder tb = TextBuilder.acquire();
+        try {
+            return this.format(obj, tb).toString();
+        } finally {
+            tb.release();
+        }
 
     }
 }
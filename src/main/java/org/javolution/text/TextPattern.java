@@ -0,0 +1,567 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.text;
+
+import org.javolution.annotations.Realtime;
+import org.javolution.lang.Immutable;
+import org.javolution.lang.MathLib;
+
+/**
+ * <p> A precompiled character sequence to search for (substring search).
+ *     Patterns searched repeatedly (e.g. when scanning logs) should be
+ *     compiled once and reused. For example:
+ * {@code
+ * TextPattern error = TextPattern.valueOf("ERROR");
+ * for (Text line : lines) {
+ *     if (error.indexIn(line) >= 0) ...
+ * } }</p>
+ *
+ * <p><i> Implementation Note: Short patterns are searched for using the
+ *        Boyer-Moore-Horspool algorithm (sublinear on average), long patterns
+ *        using the Two-Way algorithm (linear in the worst case) accelerated
+ *        by the same bad-character shifts. {@link Text} instances are
+ *        scanned leaf by leaf through a small sliding window (no
+ *        flattening of the text).</i></p>
+ */
+@Realtime
+public final class TextPattern implements Immutable {
+
+    /**
+     * Holds the minimum pattern length for which the Two-Way algorithm is used.
+     */
+    private static final int TWO_WAY_MIN_LENGTH = 32;
+
+    /**
+     * Holds the initial size of the sliding window used to scan texts
+     * (doubled after each window searched).
+     */
+    private static final int MIN_WINDOW_SIZE = 64;
+
+    /**
+     * Holds the maximum size of the sliding window (unless the pattern is
+     * longer).
+     */
+    private static final int MAX_WINDOW_SIZE = 1024;
+
+    /**
+     * Holds the length below which character sequences are searched for
+     * by direct scan (no pattern compiled) by {@link Text#indexOf} and
+     * {@link CharArray#indexOf}.
+     */
+    static final int SCAN_MAX_LENGTH = 8;
+
+    /**
+     * Holds the last pattern compiled for {@link Text#indexOf} or
+     * {@link CharArray#indexOf} (searches repeated for the same characters
+     * do not allocate).
+     */
+    private static volatile TextPattern lastCompiled;
+
+    /**
+     * Holds the characters searched for.
+     */
+    private final char[] _pattern;
+
+    /**
+     * Holds the bad-character shifts (hashed on the low byte of characters).
+     */
+    private final int[] _shifts;
+
+    /**
+     * Holds the Two-Way critical position (long patterns only).
+     */
+    private final int _critical;
+
+    /**
+     * Holds the Two-Way shift after a full match of the right part
+     * (long patterns only).
+     */
+    private final int _period;
+
+    /**
+     * Indicates if the pattern is periodic (long patterns only).
+     */
+    private final boolean _periodic;
+
+    /**
+     * Creates a pattern for the specified characters.
+     */
+    private TextPattern(char[] pattern) {
+        _pattern = pattern;
+        final int m = pattern.length;
+        if (m < 2) { // Simple scan.
+            _shifts = null;
+            _critical = 0;
+            _period = 0;
+            _periodic = false;
+            return;
+        }
+        _shifts = new int[256];
+        for (int i = 0; i < 256; i++) {
+            _shifts[i] = m;
+        }
+        if (m < TWO_WAY_MIN_LENGTH) { // Horspool shifts (last character excluded).
+            for (int i = 0; i < m - 1; i++) {
+                _shifts[pattern[i] & 0xFF] = m - 1 - i;
+            }
+            _critical = 0;
+            _period = 0;
+            _periodic = false;
+            return;
+        }
+        for (int i = 0; i < m; i++) { // Shifts to align the last character.
+            _shifts[pattern[i] & 0xFF] = m - 1 - i;
+        }
+        // Critical factorization (maximal suffixes for both orderings).
+        long ms1 = maxSuffix(pattern, false);
+        long ms2 = maxSuffix(pattern, true);
+        long ms = ((int) ms1 >= (int) ms2) ? ms1 : ms2;
+        int critical = (int) ms; // Index of the last character of the left part (-1 if empty).
+        int period = (int) (ms >>> 32);
+        boolean periodic = true;
+        for (int i = 0; i <= critical; i++) {
+            if (pattern[i] != pattern[i + period]) {
+                periodic = false;
+                break;
+            }
+        }
+        _critical = critical;
+        _periodic = periodic;
+        _period = periodic ? period : MathLib.max(critical + 1, m - critical - 1) + 1;
+    }
+
+    /**
+     * Returns the pattern for the specified character sequence.
+     *
+     * @param csq the character sequence to search for.
+     * @return the corresponding pattern.
+     */
+    public static TextPattern valueOf(CharSequence csq) {
+        final int length = csq.length();
+        char[] pattern = new char[length];
+        if (csq instanceof String) {
+            ((String) csq).getChars(0, length, pattern, 0);
+        } else if (csq instanceof Text) {
+            ((Text) csq).getChars(0, length, pattern, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                pattern[i] = csq.charAt(i);
+            }
+        }
+        return new TextPattern(pattern);
+    }
+
+    /**
+     * Returns the pattern for the specified character sequence, the last
+     * pattern returned is reused if it has the same characters.
+     */
+    static TextPattern compiled(CharSequence csq) {
+        TextPattern pattern = lastCompiled;
+        if ((pattern == null) || !pattern.matches(csq)) {
+            pattern = valueOf(csq);
+            lastCompiled = pattern;
+        }
+        return pattern;
+    }
+
+    /**
+     * Indicates if this pattern has the same characters as the specified
+     * character sequence.
+     */
+    private boolean matches(CharSequence csq) {
+        final char[] x = _pattern;
+        if (csq.length() != x.length)
+            return false;
+        for (int i = 0; i < x.length; i++) {
+            if (x[i] != csq.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Searches the specified (short) character sequence in the specified
+     * region by direct scan.
+     *
+     * @param y the array searched.
+     * @param from the index of the first character of the region.
+     * @param to the index after the last character of the region.
+     * @param x the non-empty character sequence searched for.
+     * @return the index of the first occurrence or <code>-1</code> if none.
+     */
+    static int scan(char[] y, int from, int to, CharSequence x) {
+        final int m = x.length();
+        final char first = x.charAt(0);
+        for (int j = from, max = to - m; j <= max; j++) {
+            if (y[j] != first)
+                continue;
+            int i = 1;
+            while ((i < m) && (y[j + i] == x.charAt(i))) {
+                i++;
+            }
+            if (i == m)
+                return j;
+        }
+        return -1;
+    }
+
+    /**
+     * Searches the specified (short) character sequence in the specified
+     * text by direct scan, leaf by leaf.
+     *
+     * @param text the text searched.
+     * @param from the index to start searching from.
+     * @param x the non-empty character sequence searched for.
+     * @return the index of the first occurrence or <code>-1</code> if none.
+     */
+    static int scan(Text text, int from, CharSequence x) {
+        final int m = x.length();
+        final int max = text.length() - m; // Last possible match position.
+        if (from > max)
+            return -1;
+        final char first = x.charAt(0);
+        Text.Chunks chunks = new Text.Chunks(text, from);
+        do {
+            final char[] data = chunks.data;
+            final int offset = chunks.offset;
+            final int end = chunks.end;
+            for (int j = chunks.start, stop = MathLib.min(end, max - offset + 1); j < stop; j++) {
+                if (data[j] != first)
+                    continue;
+                int i = 1;
+                while ((i < m) && (j + i < end) && (data[j + i] == x.charAt(i))) {
+                    i++;
+                }
+                while ((i < m) && (text.charAt(offset + j + i) == x.charAt(i))) { // Next leaves.
+                    i++;
+                }
+                if (i == m)
+                    return offset + j;
+            }
+        } while ((chunks.offset + chunks.end <= max) && chunks.next());
+        return -1;
+    }
+
+    /**
+     * Returns the number of characters of this pattern.
+     *
+     * @return the pattern length.
+     */
+    public int length() {
+        return _pattern.length;
+    }
+
+    /**
+     * Equivalent to {@link #indexIn(java.lang.CharSequence, int)
+     * indexIn(csq, 0)}
+     *
+     * @param csq the character sequence to be searched.
+     * @return the index of the first occurrence of this pattern in the
+     *         specified character sequence or <code>-1</code> if none found.
+     */
+    public int indexIn(CharSequence csq) {
+        return indexIn(csq, 0);
+    }
+
+    /**
+     * Returns the index of the first occurrence of this pattern in the
+     * specified character sequence searching forward from the specified index.
+     *
+     * @param csq the character sequence to be searched.
+     * @param fromIndex the index to search from.
+     * @return the index in the range
+     *         <code>[fromIndex, csq.length() - length()]</code>
+     *         or <code>-1</code> if none found.
+     */
+    @Realtime(limit = Realtime.Limit.LINEAR)
+    public int indexIn(CharSequence csq, int fromIndex) {
+        final int n = csq.length();
+        final int from = MathLib.max(fromIndex, 0);
+        if (n - from < _pattern.length)
+            return -1;
+        if (csq instanceof CharArray) {
+            CharArray chars = (CharArray) csq;
+            int offset = chars.offset();
+            int i = search(chars.array(), offset + from, offset + n);
+            return (i >= 0) ? i - offset : -1;
+        }
+        if (csq instanceof Text)
+            return indexIn((Text) csq, from);
+        // Generic character sequence, scanned through a sliding window.
+        final int m = _pattern.length;
+        char[] window = new char[MathLib.min(MathLib.max(m << 1,
+                MIN_WINDOW_SIZE), n - from)];
+        int pos = from; // Position of window[0].
+        int filled = 0;
+        while (true) {
+            int length = MathLib.min(window.length - filled, n - pos - filled);
+            if (csq instanceof String) {
+                ((String) csq).getChars(pos + filled, pos + filled + length,
+                        window, filled);
+            } else {
+                for (int i = 0, j = pos + filled; i < length;) {
+                    window[filled + i++] = csq.charAt(j++);
+                }
+            }
+            filled += length;
+            int i = search(window, 0, filled);
+            if (i >= 0)
+                return pos + i;
+            if (pos + filled == n)
+                return -1;
+            int keep = m - 1; // Possible match overlapping the window end.
+            window = slide(window, filled, n - pos - filled);
+            pos += filled - keep;
+            filled = keep;
+        }
+    }
+
+    /**
+     * Equivalent to {@link #indexIn(char[], int) indexIn(chars, 0)}
+     *
+     * @param chars the character array to be searched.
+     * @return the index of the first occurrence of this pattern in the
+     *         specified array or <code>-1</code> if none found.
+     */
+    public int indexIn(char[] chars) {
+        return indexIn(chars, 0);
+    }
+
+    /**
+     * Returns the index of the first occurrence of this pattern in the
+     * specified character array searching forward from the specified index.
+     *
+     * @param chars the character array to be searched.
+     * @param fromIndex the index to search from.
+     * @return the index in the specified array or <code>-1</code> if none
+     *         found.
+     */
+    @Realtime(limit = Realtime.Limit.LINEAR)
+    public int indexIn(char[] chars, int fromIndex) {
+        return search(chars, MathLib.max(fromIndex, 0), chars.length);
+    }
+
+    /**
+     * Returns the index of the first occurrence of this pattern in the
+     * specified text (scanned leaf by leaf).
+     */
+    int indexIn(Text text, int from) {
+        final int n = text.length();
+        final int m = _pattern.length;
+        if (n - from < m)
+            return -1;
+        Text.Chunks chunks = new Text.Chunks(text, from);
+        int i = search(chunks.data, chunks.start, chunks.end); // In place.
+        if (i >= 0) // No earlier match could overlap the next leaf.
+            return chunks.offset + i;
+        if (chunks.offset + chunks.end == n)
+            return -1;
+        chunks.start = MathLib.max(chunks.start, chunks.end - m + 1);
+        int pos = chunks.offset + chunks.start; // Position of window[0].
+        char[] window = new char[MathLib.min(MathLib.max(m << 1,
+                MIN_WINDOW_SIZE), n - pos)];
+        int filled = 0;
+        while (true) {
+            while (filled < window.length) { // Fills the window.
+                if ((chunks.start == chunks.end) && !chunks.next())
+                    break;
+                int length = MathLib.min(chunks.end - chunks.start,
+                        window.length - filled);
+                System.arraycopy(chunks.data, chunks.start, window, filled, length);
+                chunks.start += length;
+                filled += length;
+            }
+            i = search(window, 0, filled);
+            if (i >= 0)
+                return pos + i;
+            if (pos + filled == n)
+                return -1;
+            int keep = m - 1; // Possible match overlapping the window end.
+            window = slide(window, filled, n - pos - filled);
+            pos += filled - keep;
+            filled = keep;
+        }
+    }
+
+    /**
+     * Keeps the last <code>length() - 1</code> characters of the specified
+     * window at the beginning of the window returned (possibly larger).
+     *
+     * @param window the window searched.
+     * @param filled the number of characters in the window.
+     * @param remaining the number of characters not yet read.
+     */
+    private char[] slide(char[] window, int filled, int remaining) {
+        final int keep = _pattern.length - 1;
+        final int max = MathLib.max(_pattern.length << 1, MAX_WINDOW_SIZE);
+        final int length = MathLib.min(MathLib.min(window.length << 1, max),
+                keep + remaining);
+        char[] tmp = (length > window.length) ? new char[length] : window;
+        System.arraycopy(window, filled - keep, tmp, 0, keep);
+        return tmp;
+    }
+
+    /**
+     * Searches for this pattern in the specified array region.
+     *
+     * @param y the array searched.
+     * @param from the index of the first character of the region.
+     * @param to the index after the last character of the region.
+     * @return the index of the first occurrence or <code>-1</code> if none.
+     */
+    int search(char[] y, int from, int to) {
+        final char[] x = _pattern;
+        final int m = x.length;
+        if (to - from < m)
+            return -1;
+        if (m == 0)
+            return from;
+        if (m == 1) {
+            final char c = x[0];
+            for (int j = from; j < to; j++) {
+                if (y[j] == c)
+                    return j;
+            }
+            return -1;
+        }
+        final int[] shifts = _shifts;
+        final int last = m - 1;
+        final int max = to - m; // Last possible match position.
+        if (m < TWO_WAY_MIN_LENGTH) { // Horspool.
+            final char lastChar = x[last];
+            for (int j = from; j <= max;) {
+                final char c = y[j + last];
+                if (c == lastChar) {
+                    int i = last - 1;
+                    while ((i >= 0) && (x[i] == y[j + i])) {
+                        i--;
+                    }
+                    if (i < 0)
+                        return j;
+                }
+                j += shifts[c & 0xFF];
+            }
+            return -1;
+        }
+        // Two-Way.
+        final int critical = _critical;
+        final int period = _period;
+        if (_periodic) {
+            int memory = -1; // Prefix already known to match (periodic).
+            for (int j = from; j <= max;) {
+                final int shift = shifts[y[j + last] & 0xFF];
+                if (shift != 0) {
+                    j += shift;
+                    memory = -1;
+                    continue;
+                }
+                int i = MathLib.max(critical, memory) + 1;
+                while ((i < m) && (x[i] == y[j + i])) {
+                    i++;
+                }
+                if (i >= m) {
+                    i = critical;
+                    while ((i > memory) && (x[i] == y[j + i])) {
+                        i--;
+                    }
+                    if (i <= memory)
+                        return j;
+                    j += period;
+                    memory = m - period - 1;
+                } else {
+                    j += i - critical;
+                    memory = -1;
+                }
+            }
+        } else {
+            for (int j = from; j <= max;) {
+                final int shift = shifts[y[j + last] & 0xFF];
+                if (shift != 0) {
+                    j += shift;
+                    continue;
+                }
+                int i = critical + 1;
+                while ((i < m) && (x[i] == y[j + i])) {
+                    i++;
+                }
+                if (i >= m) {
+                    i = critical;
+                    while ((i >= 0) && (x[i] == y[j + i])) {
+                        i--;
+                    }
+                    if (i < 0)
+                        return j;
+                    j += period;
+                } else {
+                    j += i - critical;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the maximal suffix of the specified pattern for the natural
+     * (or reverse) character ordering; the index of the character preceding
+     * the suffix is returned in the low 32 bits, the period of the suffix in
+     * the high 32 bits.
+     */
+    private static long maxSuffix(char[] x, boolean reverse) {
+        int ms = -1;
+        int j = 0;
+        int k = 1;
+        int p = 1;
+        while (j + k < x.length) {
+            final char a = x[j + k];
+            final char b = x[ms + k];
+            if (reverse ? (a > b) : (a < b)) {
+                j += k;
+                k = 1;
+                p = j - ms;
+            } else if (a == b) {
+                if (k != p) {
+                    k++;
+                } else {
+                    j += p;
+                    k = 1;
+                }
+            } else {
+                ms = j;
+                j = ms + 1;
+                k = p = 1;
+            }
+        }
+        return (((long) p) << 32) | (ms & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the characters searched for.
+     *
+     * @return the pattern as a string.
+     */
+    @Override
+    public String toString() {
+        return new String(_pattern);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof TextPattern))
+            return false;
+        return java.util.Arrays.equals(_pattern, ((TextPattern) obj)._pattern);
+    }
+
+    @Override
+    public int hashCode() {
+        return java.util.Arrays.hashCode(_pattern);
+    }
+
+}
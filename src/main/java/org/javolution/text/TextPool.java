@@ -0,0 +1,300 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.text;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.javolution.annotations.Realtime;
+import org.javolution.lang.MathLib;
+
+/**
+ * <p> A bounded pool of canonical texts, to deduplicate the symbols, keys or
+ *     field names repeatedly parsed from messages. Character sequences
+ *     (typically {@link CharArray} views over a parsing buffer) are looked
+ *     up without allocation; a new {@link Text} is created only when the
+ *     pool does not hold the same characters already. For example:
+ * {@code
+ * static final TextPool SYMBOLS = new TextPool(4096);
+ * ...
+ * CharArray symbol = ...; // View over the message buffer.
+ * Text text = SYMBOLS.text(symbol); // Canonical text (no allocation if already pooled).
+ * String str = SYMBOLS.string(symbol); // Canonical string.
+ * }</p>
+ *
+ * <p> This class is thread-safe: look-ups are lock-free, and insertions are
+ *     performed through compare-and-set. Once the pool is full, older entries
+ *     not recently looked up are evicted; the instances returned are then
+ *     canonical as long as they are not evicted (identity comparisons
+ *     should not be used).</p>
+ *
+ * <p> The pool keeps count of its {@link #hits hits}, {@link #misses misses}
+ *     and of the {@link #bytesSaved bytes} that would have been allocated
+ *     without it.</p>
+ *
+ * <p><i> Implementation Note: The pool is a set-associative cache; each
+ *        character sequence hashes to a set of {@link #WAYS} entries, the
+ *        entry evicted within a full set being selected with a second chance
+ *        (clock) policy.</i></p>
+ */
+@Realtime
+public final class TextPool {
+
+    /**
+     * Holds the number of entries per set.
+     */
+    public static final int WAYS = 4;
+
+    /**
+     * Holds the estimated memory footprint of a text header (bytes).
+     */
+    private static final int TEXT_OVERHEAD = 40;
+
+    /**
+     * Holds the pool entries.
+     */
+    private final AtomicReferenceArray<Entry> _entries;
+
+    /**
+     * Holds the mask to select a set (multiple of WAYS).
+     */
+    private final int _mask;
+
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private final LongAdder _bytesSaved = new LongAdder();
+
+    /**
+     * Creates a pool holding at most the specified number of texts (rounded
+     * up to the next power of two).
+     *
+     * @param capacity the maximum number of pooled texts.
+     * @throws IllegalArgumentException if <code>capacity &lt;= 0</code>
+     */
+    public TextPool(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity: " + capacity);
+        int n = 1 << MathLib.bitLength(MathLib.max(capacity, WAYS) - 1);
+        _entries = new AtomicReferenceArray<Entry>(n);
+        _mask = (n - 1) & -WAYS;
+    }
+
+    /**
+     * Returns the canonical text having the same characters as the specified
+     * character sequence.
+     *
+     * @param csq the character sequence.
+     * @return the pooled text or a new text (then pooled).
+     */
+    @Realtime(limit = LINEAR)
+    public Text text(CharSequence csq) {
+        return entry(csq).text;
+    }
+
+    /**
+     * Returns the canonical string having the same characters as the
+     * specified character sequence.
+     *
+     * @param csq the character sequence.
+     * @return the pooled string or a new string (then pooled).
+     */
+    @Realtime(limit = LINEAR)
+    public String string(CharSequence csq) {
+        Entry entry = entry(csq);
+        String str = entry.string;
+        if (str == null) { // Benign race (strings are immutable).
+            entry.string = str = entry.text.toString();
+        }
+        return str;
+    }
+
+    /**
+     * Returns the number of look-ups for which a pooled instance was found.
+     */
+    @Realtime(limit = CONSTANT)
+    public long hits() {
+        return _hits.sum();
+    }
+
+    /**
+     * Returns the number of look-ups for which a new instance was created.
+     */
+    @Realtime(limit = CONSTANT)
+    public long misses() {
+        return _misses.sum();
+    }
+
+    /**
+     * Returns the number of entries evicted to make room for new ones.
+     */
+    @Realtime(limit = CONSTANT)
+    public long evictions() {
+        return _evictions.sum();
+    }
+
+    /**
+     * Returns the ratio of look-ups for which a pooled instance was found
+     * (<code>0</code> if no look-up has been performed).
+     */
+    @Realtime(limit = CONSTANT)
+    public double hitRatio() {
+        long hits = _hits.sum();
+        long total = hits + _misses.sum();
+        return (total == 0) ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Returns an estimate of the memory (bytes) which would have been
+     * allocated for the instances returned from the pool (hits); Latin-1
+     * texts are counted one byte per character, others two.
+     */
+    @Realtime(limit = CONSTANT)
+    public long bytesSaved() {
+        return _bytesSaved.sum();
+    }
+
+    /**
+     * Returns the number of texts currently pooled.
+     */
+    @Realtime(limit = LINEAR)
+    public int size() {
+        int size = 0;
+        for (int i = 0, n = _entries.length(); i < n; i++) {
+            if (_entries.get(i) != null)
+                size++;
+        }
+        return size;
+    }
+
+    /**
+     * Removes all the pooled texts and resets the statistics.
+     */
+    @Realtime(limit = LINEAR)
+    public void clear() {
+        for (int i = 0, n = _entries.length(); i < n; i++) {
+            _entries.set(i, null);
+        }
+        _hits.reset();
+        _misses.reset();
+        _evictions.reset();
+        _bytesSaved.reset();
+    }
+
+    /**
+     * Returns the entry for the specified character sequence (pooled or
+     * new).
+     */
+    private Entry entry(CharSequence csq) {
+        final int hash = hash(csq);
+        final int set = (hash ^ (hash >>> 16)) & _mask;
+        for (int i = set; i < set + WAYS; i++) { // Lock-free look-up.
+            Entry entry = _entries.get(i);
+            if ((entry != null) && (entry.hash == hash) && entry.matches(csq)) {
+                if (!entry.used)
+                    entry.used = true; // Second chance (benign race).
+                _hits.increment();
+                _bytesSaved.add(entry.bytes);
+                return entry;
+            }
+        }
+        _misses.increment();
+        Entry created = new Entry(hash, Text.valueOf(csq));
+        while (true) {
+            int victim = -1;
+            for (int i = set; i < set + WAYS; i++) {
+                Entry entry = _entries.get(i);
+                if (entry == null) {
+                    if (_entries.compareAndSet(i, null, created))
+                        return created;
+                    entry = _entries.get(i);
+                    if (entry == null)
+                        continue;
+                }
+                if ((entry.hash == hash) && entry.matches(csq))
+                    return entry; // Pooled concurrently.
+                if (entry.used) {
+                    entry.used = false;
+                } else if (victim < 0) {
+                    victim = i;
+                }
+            }
+            if (victim < 0)
+                victim = set + ((hash >>> 16) & (WAYS - 1)); // All recently used.
+            Entry evicted = _entries.get(victim);
+            if ((evicted != null) && _entries.compareAndSet(victim, evicted, created)) {
+                _evictions.increment();
+                return created;
+            }
+        }
+    }
+
+    /**
+     * Returns the hash code of the specified character sequence (same as
+     * <code>String.hashCode()</code>).
+     */
+    private static int hash(CharSequence csq) {
+        if (csq instanceof CharArray) {
+            CharArray ca = (CharArray) csq;
+            char[] array = ca.array();
+            int h = 0;
+            for (int i = ca.offset(), end = i + ca.length(); i < end; i++) {
+                h = 31 * h + array[i];
+            }
+            return h;
+        }
+        if ((csq instanceof String) || (csq instanceof Text))
+            return csq.hashCode(); // Cached.
+        int h = 0;
+        for (int i = 0, n = csq.length(); i < n; i++) {
+            h = 31 * h + csq.charAt(i);
+        }
+        return h;
+    }
+
+    /**
+     * A pooled text.
+     */
+    private static final class Entry {
+        final int hash;
+        final Text text;
+        final int bytes; // Estimated footprint of the text.
+        String string; // Created on demand.
+        boolean used; // Looked up since last eviction scan.
+
+        Entry(int hash, Text text) {
+            this.hash = hash;
+            this.text = text;
+            this.bytes = TEXT_OVERHEAD + text.dataBytes();
+        }
+
+        boolean matches(CharSequence csq) {
+            final int length = text.length();
+            if (csq.length() != length)
+                return false;
+            if (csq instanceof CharArray) {
+                CharArray ca = (CharArray) csq;
+                char[] array = ca.array();
+                for (int i = 0, j = ca.offset(); i < length; i++, j++) {
+                    if (text.charAt(i) != array[j])
+                        return false;
+                }
+                return true;
+            }
+            for (int i = 0; i < length; i++) {
+                if (text.charAt(i) != csq.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+    }
+}
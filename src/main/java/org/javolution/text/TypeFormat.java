@@ -635,9 +635,12 @@ public final class TypeFormat {
     		throw new IllegalArgumentException("Appendable Cannot Be Null");
         if (a instanceof TextBuilder)
             return ((TextBuilder) a).append(i);
-        TextBuilder tb = new TextBuilder();
-        tb.append(i);
-        return a.append(tb);
+        TextBuilder tb = TextBuilder.acquire();
+        try {
+            return a.append(tb.append(i));
+        } finally {
+            tb.release();
+        }
     }
 
     /**
@@ -658,9 +661,12 @@ public final class TypeFormat {
     		throw new IllegalArgumentException("Appendable Cannot Be Null");
         if (a instanceof TextBuilder)
             return ((TextBuilder) a).append(i, radix);
-        TextBuilder tb = new TextBuilder();
-        tb.append(i, radix);
-        return a.append(tb);
+        TextBuilder tb = TextBuilder.acquire();
+        try {
+            return a.append(tb.append(i, radix));
+        } finally {
+            tb.release();
+        }
     }
 
     /**
@@ -679,9 +685,12 @@ public final class TypeFormat {
     		throw new IllegalArgumentException("Appendable Cannot Be Null");
         if (a instanceof TextBuilder)
             return ((TextBuilder) a).append(l);
-        TextBuilder tb = new TextBuilder();
-        tb.append(l);
-        return a.append(tb);
+        TextBuilder tb = TextBuilder.acquire();
+        try {
+            return a.append(tb.append(l));
+        } finally {
+            tb.release();
+        }
     }
 
     /**
@@ -703,9 +712,12 @@ public final class TypeFormat {
     		throw new IllegalArgumentException("Appendable Cannot Be Null");
         if (a instanceof TextBuilder)
             return ((TextBuilder) a).append(l, radix);
-        TextBuilder tb = new TextBuilder();
-        tb.append(l, radix);
-        return a.append(tb);
+        TextBuilder tb = TextBuilder.acquire();
+        try {
+            return a.append(tb.append(l, radix));
+        } finally {
+            tb.release();
+        }
     }
 
     /**
@@ -766,9 +778,12 @@ public final class TypeFormat {
     		throw new IllegalArgumentException("Appendable Cannot Be Null");
         if (a instanceof TextBuilder)
             return ((TextBuilder) a).append(d, digits, scientific, showZero);
-        TextBuilder tb = new TextBuilder();
-        tb.append(d, digits, scientific, showZero);
-        return a.append(tb);
+        TextBuilder tb = TextBuilder.acquire();
+        try {
+            return a.append(tb.append(d, digits, scientific, showZero));
+        } finally {
+            tb.release();
+        }
     }
 
 }
\ No newline at end of file
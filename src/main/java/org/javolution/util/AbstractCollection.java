@@ -97,21 +97,26 @@ public abstract class AbstractCollection<E> implements Collection<E>, Serializab
      * Returns a view exposing only the elements matching the specified filter. Adding elements not matching the 
      * specified filter has no effect. If this collection is initially empty, using a filtered view
      * ensures that this collection has only elements satisfying the specified filter predicate.
+     * Chained {@code filter}, {@code map} and {@code distinct} views are fused into a single pipeline 
+     * (no intermediate iterator per operation).
      */
     public AbstractCollection<E> filter(Predicate<? super E> filter) {
-        return new FilteredCollectionImpl<E>(this, filter);
+        return PipelineCollectionImpl.filter(this, filter);
     }
 
     /**
      * Returns a view exposing elements through the specified mapping function.
-     * The returned view does not allow new elements to be added.
+     * The returned view does not allow new elements to be added; chained views are fused 
+     * (see {@link #filter}).
      */
     public <R> AbstractCollection<R> map(Function<? super E, ? extends R> function) {
-        return new MappedCollectionImpl<E, R>(this, function);
+        return PipelineCollectionImpl.map(this, function);
     }
     
     /**
      * Returns an ordered view exposing its elements sorted according to the specified comparator.
+     * Iterating over the first {@code k} elements only is performed in {@code O(n + k log(n))}; the sorted 
+     * elements are cached by the view as long as this collection {@link #modCount} is unchanged.
      */
     public AbstractCollection<E> sorted(Comparator<? super E> comparator) {
         return new SortedCollectionImpl<E>(this, comparator);
@@ -142,6 +147,20 @@ public abstract class AbstractCollection<E> implements Collection<E>, Serializab
         return new DistinctCollectionImpl<E>(this);
     }
 
+    /**
+     * Returns a view exposing only distinct elements, optionally indexed. If indexed and this collection
+     * {@link #equality() equality} is an {@link Order}, the view maintains the multiplicity of its elements
+     * to perform {@code add}/{@code contains}/{@code remove}/{@code size} in constant time and to iterate without
+     * tracking the elements having no duplicate. The index is rebuilt when this collection is modified outside
+     * of the view, as detected through its {@link #modCount} (or through its size if it does not keep track of its
+     * modifications, in which case replacements are not detected).
+     * 
+     * @param indexed indicates if the view should maintain a companion index.
+     */
+    public AbstractCollection<E> distinct(boolean indexed) {
+        return new DistinctCollectionImpl<E>(this, indexed);
+    }
+
     /**
      * Returns an ordered view keeping track of the insertion order and exposing elements in that order 
      * (first added, first to iterate). This view can be useful for compatibility with Java linked collections
@@ -532,6 +551,16 @@ public abstract class AbstractCollection<E> implements Collection<E>, Serializab
     /** Returns the element equality used for element comparison. */
     public abstract Equality<? super E> equality();
 
+    /** 
+     * Returns a counter incremented by each modification of this collection or {@code -1} if this collection 
+     * does not keep track of its modifications (default). Views caching derived data (e.g. {@link #sorted sorted} 
+     * views) use this counter to detect when their cache is stale.
+     */
+    @Realtime(limit = CONSTANT)
+    public int modCount() {
+        return -1;
+    }
+
     /** Returns a copy of this collection; updates of the copy should not impact the original. */
     @Realtime(limit = LINEAR)
     @SuppressWarnings("unchecked")
@@ -23,10 +23,12 @@ import org.javolution.annotations.Realtime;
 import org.javolution.util.function.Equality;
 import org.javolution.util.function.Order;
 import org.javolution.util.function.UnaryOperator;
+import org.javolution.util.internal.function.LexicalOrderImpl;
 import org.javolution.util.internal.map.AtomicMapImpl;
 import org.javolution.util.internal.map.KeySetImpl;
 import org.javolution.util.internal.map.LinkedMapImpl;
 import org.javolution.util.internal.map.MultiMapImpl;
+import org.javolution.util.internal.map.PrefixMapImpl;
 import org.javolution.util.internal.map.SharedMapImpl;
 import org.javolution.util.internal.map.SubMapImpl;
 import org.javolution.util.internal.map.UnmodifiableMapImpl;
@@ -101,6 +103,18 @@ public abstract class AbstractMap<K, V> implements ConcurrentMap<K, V>, SortedMa
         return new SubMapImpl<K,V>(this, fromKey, fromInclusive, toKey, toInclusive);
     }
      
+    /** 
+     * Returns a view of the portion of this map whose keys start with the specified prefix. 
+     * 
+     * @throws UnsupportedOperationException if the keys of this map are not {@link Order#lexical lexically} ordered.
+     */
+    @Realtime(limit = CONSTANT)
+    public AbstractMap<K,V> prefixMap(CharSequence prefix) {
+        if (!(keyOrder() instanceof LexicalOrderImpl))
+            throw new UnsupportedOperationException("prefix map requires lexical key order");
+        return new PrefixMapImpl<K,V>(this, prefix);
+    }
+     
     /**
      * Returns an atomic view over this map. All operations that write or access multiple elements in the map 
      * are atomic. All read operations are mutex-free.
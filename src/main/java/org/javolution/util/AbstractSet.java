@@ -12,8 +12,10 @@ import org.javolution.annotations.Nullable;
 import org.javolution.annotations.ReadOnly;
 import org.javolution.annotations.Realtime;
 import org.javolution.util.function.Equality;
+import org.javolution.util.function.Function;
 import org.javolution.util.function.Order;
 import org.javolution.util.function.Predicate;
+import org.javolution.util.internal.function.LexicalOrderImpl;
 import org.javolution.util.internal.set.*;
 
 import java.util.Collection;
@@ -83,6 +85,28 @@ public abstract class AbstractSet<E> extends AbstractCollection<E> implements So
         return new SubSetImpl<E>(this, element, true, element, true);
     }
      
+    /** 
+     * Returns a view holding only the elements starting with the specified prefix. Since these elements are 
+     * contiguous in {@link Order#lexical lexical} order, iterations go directly to the first element having the 
+     * prefix (no full scan).
+     * 
+     * @param prefix the characters the elements of the view start with.
+     * @throws UnsupportedOperationException if this set is not lexically ordered.
+     */
+    @SuppressWarnings("unchecked")
+    @Realtime(limit = CONSTANT)
+    public AbstractSet<E> prefixRange(CharSequence prefix) {
+        if (!(order() instanceof LexicalOrderImpl))
+            throw new UnsupportedOperationException("prefix range requires lexical order");
+        return new PrefixSetImpl<E>(this, prefix, (E) prefix, (E) PrefixSetImpl.successor(prefix), 
+                new Function<E, CharSequence>() {
+                    @Override
+                    public CharSequence apply(E param) {
+                        return (CharSequence) param;
+                    }
+                });
+    }
+     
     @Override
     @Realtime(limit = CONSTANT)
     public AbstractSet<E> subSet(E fromElement, E toElement) {
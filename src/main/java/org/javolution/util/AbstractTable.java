@@ -98,6 +98,20 @@ public abstract class AbstractTable<E> extends AbstractCollection<E> implements
         return new CustomEqualityTableImpl<E>(this, equality);
     }
 
+    /**
+     * Returns a view using the specified equality comparator, optionally indexed. If indexed and the 
+     * specified equality is an {@link Order}, the view maintains a {@link FastSet} of its elements to perform 
+     * {@code contains} in constant time (and {@code indexOf} misses without searching); modifications to this 
+     * table not performed through the indexed view are not reflected by the view index.
+     * 
+     * @param equality the equality to use for element comparisons.
+     * @param indexed indicates if the view should maintain a companion index.
+     */
+    @Realtime(limit = CONSTANT)
+    public AbstractTable<E> equality(Equality<? super E> equality, boolean indexed) {
+        return new CustomEqualityTableImpl<E>(this, equality, indexed);
+    }
+
     @Override
     @Realtime(limit = CONSTANT)
     public <R> AbstractTable<R> map(Function<? super E, ? extends R> function) {
@@ -446,6 +460,74 @@ public abstract class AbstractTable<E> extends AbstractCollection<E> implements
         return (AbstractTable<E>) super.clone();
     }
 
+    /**
+     * Creates a {@link TableIndex secondary index} over the rows of this table (hash-based, constant time lookup).
+     * 
+     * @param keyExtractor the function returning the key of a row.
+     * @param unique indicates if distinct rows having the same key are forbidden.
+     * @throws IllegalArgumentException if {@code unique} and the table already holds distinct rows with the same key.
+     * @throws UnsupportedOperationException if this table does not support secondary indexes.
+     */
+    @Realtime(limit = LINEAR)
+    public <K> TableIndex<E, K> index(Function<? super E, ? extends K> keyExtractor, boolean unique) {
+        return index(keyExtractor, Order.standard(), unique);
+    }
+
+    /**
+     * Creates a {@link TableIndex secondary index} over the rows of this table ordered using the specified key order
+     * (range queries are supported if the key order is an ordered {@link org.javolution.util.function.Indexer 
+     * Indexer}). Composite keys can be extracted using {@link TableIndex#composite}.
+     * 
+     * @param keyExtractor the function returning the key of a row.
+     * @param keyOrder the key order.
+     * @param unique indicates if distinct rows having the same key are forbidden.
+     * @throws IllegalArgumentException if {@code unique} and the table already holds distinct rows with the same key.
+     * @throws UnsupportedOperationException if this table does not support secondary indexes.
+     */
+    @Realtime(limit = LINEAR)
+    public <K> TableIndex<E, K> index(Function<? super E, ? extends K> keyExtractor, Order<? super K> keyOrder,
+            boolean unique) {
+        return addIndex(new TableIndex<E, K>(keyExtractor, unique, new FastMap<K, E>(keyOrder), 
+                new FastMap<K, FastTable<E>>(keyOrder)));
+    }
+
+    /**
+     * Creates a {@link TableIndex secondary index} over the rows of this table ordered using the specified key 
+     * comparator ({@link FastTreeMap B+tree} based, logarithmic time lookups and range queries).
+     * 
+     * @param keyExtractor the function returning the key of a row.
+     * @param keyComparator the key comparator.
+     * @param unique indicates if distinct rows having the same key are forbidden.
+     * @throws IllegalArgumentException if {@code unique} and the table already holds distinct rows with the same key.
+     * @throws UnsupportedOperationException if this table does not support secondary indexes.
+     */
+    @Realtime(limit = LINEAR)
+    public <K> TableIndex<E, K> index(Function<? super E, ? extends K> keyExtractor, 
+            Comparator<? super K> keyComparator, boolean unique) {
+        return addIndex(new TableIndex<E, K>(keyExtractor, unique, new FastTreeMap<K, E>(keyComparator), 
+                new FastTreeMap<K, FastTable<E>>(keyComparator)));
+    }
+
+    /** 
+     * Removes the specified index from this table (the index is not maintained anymore).
+     * 
+     * @return {@code true} if the specified index was an index of this table; {@code false} otherwise.
+     */
+    @Realtime(limit = CONSTANT)
+    public boolean dropIndex(TableIndex<E, ?> index) {
+        return false; // No index supported by default.
+    }
+
+    /**
+     * Populates the specified index with the rows of this table and maintains it on updates; this method should 
+     * be overridden by tables supporting secondary indexes.
+     * 
+     * @throws UnsupportedOperationException if this table does not support secondary indexes (default).
+     */
+    protected <K> TableIndex<E, K> addIndex(TableIndex<E, K> index) {
+        throw new UnsupportedOperationException("Secondary indexes not supported");
+    }
+
     /**
      * Sorts this table in place (quick sort).
      */
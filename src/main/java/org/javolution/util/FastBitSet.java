@@ -17,6 +17,12 @@ import org.javolution.util.function.Predicate;
 
 import java.util.Arrays;
 import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 import static org.javolution.annotations.Realtime.Limit.LINEAR;
 
@@ -32,6 +38,7 @@ public class FastBitSet extends AbstractSet<Index> {
 
     private static final long serialVersionUID = 0x700L; // Version.
     private static final long[] ALL_CLEARED = new long[0];
+    private static final int BLOCK_SIZE = 512; // Words per block for n-ary operations (4 KB).
     
     /** Holds the bits (64 bits per long). */
     private long[] bits;
@@ -61,7 +68,7 @@ public class FastBitSet extends AbstractSet<Index> {
      */
     @Realtime(limit = LINEAR)
     public final void and(FastBitSet that) {
-        long[] thatBits = that.toLongArray();
+        long[] thatBits = that.bits;
         int n = MathLib.min(this.bits.length, thatBits.length);
         for (int i = 0; i < n; i++) {
             this.bits[i] &= thatBits[i];
@@ -71,6 +78,45 @@ public class FastBitSet extends AbstractSet<Index> {
         }
     }
 
+    /**
+     * Returns the number of bits set in both this bit set and the one specified
+     * (the cardinality of their intersection, without materializing it).
+     *
+     * @param that the second bit set.
+     * @return the number of common bits being set.
+     */
+    @Realtime(limit = LINEAR)
+    public final int andCardinality(FastBitSet that) {
+        return andCount(bits, that.bits, 0, MathLib.min(bits.length, that.bits.length));
+    }
+
+    /**
+     * Returns the number of bits set in both this bit set and the one specified
+     * from the specified {@code fromIndex} (inclusive) to the specified
+     * {@code toIndex} (exclusive).
+     *
+     * @param that the second bit set.
+     * @param  fromIndex index of the first bit to be counted.
+     * @param  toIndex index after the last bit to be counted.
+     * @return the number of common bits being set within the range.
+     * @throws IndexOutOfBoundsException if
+     *          {@code (fromIndex < 0) | (toIndex < fromIndex)}
+     */
+    @Realtime(limit = LINEAR)
+    public final int andCardinality(FastBitSet that, int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return 0;
+        long[] a = this.bits, b = that.bits;
+        int i = fromIndex >>> 6;
+        int j = (toIndex - 1) >>> 6;
+        long first = -1L << fromIndex;
+        long last = -1L >>> -toIndex;
+        if (i == j) return Long.bitCount(word(a, i) & word(b, i) & first & last);
+        int n = MathLib.min(MathLib.min(a.length, b.length), j);
+        return Long.bitCount(word(a, i) & word(b, i) & first) + andCount(a, b, i + 1, n)
+                + Long.bitCount(word(a, j) & word(b, j) & last);
+    }
+
  	/**
      * Performs the logical AND operation on this bit set and the
      * complement of the given bit set.  This means it
@@ -81,13 +127,62 @@ public class FastBitSet extends AbstractSet<Index> {
      */
     @Realtime(limit = LINEAR)
     public final void andNot(FastBitSet that) {
-        long[] thatBits = that.toLongArray();
+        long[] thatBits = that.bits;
         int n = MathLib.min(this.bits.length, thatBits.length);
         for (int i = 0; i < n; i++) {
             this.bits[i] &= ~thatBits[i];
         }
     }
 
+    /**
+     * Stores into the specified bit set the bits of this bit set which are not
+     * set in the one specified; the result words are reused when large enough
+     * (no allocation). The result may be {@code this} or {@code that}.
+     *
+     * @param that the second bit set.
+     * @param result the bit set holding the result (previous content overwritten).
+     */
+    @Realtime(limit = LINEAR)
+    public final void andNot(FastBitSet that, FastBitSet result) {
+        long[] a = this.bits, b = that.bits;
+        if (result.bits.length < a.length) result.bits = new long[a.length];
+        long[] r = result.bits;
+        int n = MathLib.min(a.length, b.length);
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            r[i] = a[i] & ~b[i];
+            r[i + 1] = a[i + 1] & ~b[i + 1];
+            r[i + 2] = a[i + 2] & ~b[i + 2];
+            r[i + 3] = a[i + 3] & ~b[i + 3];
+        }
+        for (; i < n; i++) r[i] = a[i] & ~b[i];
+        if (r != a) System.arraycopy(a, n, r, n, a.length - n);
+        Arrays.fill(r, a.length, r.length, 0L);
+    }
+
+    /**
+     * Returns the number of bits set in this bit set and not in the one specified
+     * (the cardinality of their difference, without materializing it).
+     *
+     * @param that the second bit set.
+     * @return the number of bits being set only in this bit set.
+     */
+    @Realtime(limit = LINEAR)
+    public final int andNotCardinality(FastBitSet that) {
+        long[] a = this.bits, b = that.bits;
+        int n = MathLib.min(a.length, b.length);
+        int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            c0 += Long.bitCount(a[i] & ~b[i]);
+            c1 += Long.bitCount(a[i + 1] & ~b[i + 1]);
+            c2 += Long.bitCount(a[i + 2] & ~b[i + 2]);
+            c3 += Long.bitCount(a[i + 3] & ~b[i + 3]);
+        }
+        for (; i < n; i++) c0 += Long.bitCount(a[i] & ~b[i]);
+        return c0 + c1 + c2 + c3 + count(a, n, a.length);
+    }
+
      /**
      * Returns the number of bits set to {@code true} (or the size of this 
      * set).
@@ -95,11 +190,30 @@ public class FastBitSet extends AbstractSet<Index> {
      * @return the number of bits being set.
      */
     public final int cardinality() {
-        int sum = 0;
-        for (int i = 0; i < bits.length; i++) {
-            sum += MathLib.bitCount(bits[i]);
-        }
-        return sum;
+        return count(bits, 0, bits.length);
+    }
+
+    /**
+     * Returns the number of bits set to {@code true} from the specified
+     * {@code fromIndex} (inclusive) to the specified {@code toIndex} (exclusive).
+     *
+     * @param  fromIndex index of the first bit to be counted.
+     * @param  toIndex index after the last bit to be counted.
+     * @return the number of bits being set within the range.
+     * @throws IndexOutOfBoundsException if
+     *          {@code (fromIndex < 0) | (toIndex < fromIndex)}
+     */
+    @Realtime(limit = LINEAR)
+    public final int cardinality(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return 0;
+        int i = fromIndex >>> 6;
+        int j = (toIndex - 1) >>> 6;
+        long first = -1L << fromIndex;
+        long last = -1L >>> -toIndex;
+        if (i == j) return Long.bitCount(word(bits, i) & first & last);
+        return Long.bitCount(word(bits, i) & first) + count(bits, i + 1, MathLib.min(bits.length, j))
+                + Long.bitCount(word(bits, j) & last);
     }
 
      @Override
@@ -270,7 +384,7 @@ public class FastBitSet extends AbstractSet<Index> {
      */
     @Realtime(limit = LINEAR)
     public final boolean intersects(FastBitSet that) {
-        long[] thatBits = that.toLongArray();
+        long[] thatBits = that.bits;
         int i = MathLib.min(this.bits.length, thatBits.length);
         while (--i >= 0) {
             if ((bits[i] & thatBits[i]) != 0) return true; 
@@ -313,19 +427,14 @@ public class FastBitSet extends AbstractSet<Index> {
      * @throws IndexOutOfBoundsException if {@code fromIndex < 0} 
      */
     public final int nextClearBit(int fromIndex) {
-        int offset = fromIndex >> 6;
-        long mask = 1L << fromIndex;
-        while (offset < bits.length) {
-            long h = bits[offset];
-            do {
-                if ((h & mask) == 0) { return fromIndex; }
-                mask <<= 1;
-                fromIndex++;
-            } while (mask != 0);
-            mask = 1;
-            offset++;
+        int i = fromIndex >> 6;
+        if (i >= bits.length) return fromIndex;
+        long word = ~bits[i] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) return (i << 6) + Long.numberOfTrailingZeros(word);
+            if (++i == bits.length) return i << 6;
+            word = ~bits[i];
         }
-        return fromIndex;
     }
 
     /**
@@ -341,20 +450,89 @@ public class FastBitSet extends AbstractSet<Index> {
      * @throws IndexOutOfBoundsException if {@code fromIndex < 0} 
      */
     public final int nextSetBit(int fromIndex) {
-        int offset = fromIndex >> 6;
-        long mask = 1L << fromIndex;
-        while (offset < bits.length) {
-            long h = bits[offset];
-            do {
-                if ((h & mask) != 0)
-                    return fromIndex;
-                mask <<= 1;
-                fromIndex++;
-            } while (mask != 0);
-            mask = 1;
-            offset++;
-        }
-        return -1;
+        int i = fromIndex >> 6;
+        if (i >= bits.length) return -1;
+        long word = bits[i] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) return (i << 6) + Long.numberOfTrailingZeros(word);
+            if (++i == bits.length) return -1;
+            word = bits[i];
+        }
+    }
+
+    /**
+     * Extracts the indices of the next {@code true} bits, from the specified bit (inclusive), into the 
+     * specified array. The following code will iterates through the bit set without allocating:[code]
+     *    int[] buffer = new int[256];
+     *    for (int n, from = 0; (n = bitSet.nextSetBits(from, buffer)) > 0; from = buffer[n - 1] + 1) {
+     *         for (int i = 0; i < n; i++) ... buffer[i] ...
+     *    }[/code]
+     *
+     * @param fromIndex the start location.
+     * @param out the array to fill.
+     * @return the number of indices written (less than {@code out.length} when there are no more bits set).
+     */
+    @Realtime(limit = LINEAR)
+    public final int nextSetBits(int fromIndex, int[] out) {
+        int i = fromIndex >> 6;
+        if ((i >= bits.length) || (out.length == 0)) return 0;
+        int n = 0;
+        long word = bits[i] & (-1L << fromIndex);
+        while (true) {
+            for (; word != 0; word &= word - 1) {
+                out[n++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                if (n == out.length) return n;
+            }
+            if (++i == bits.length) return n;
+            word = bits[i];
+        }
+    }
+
+    /**
+     * Performs the specified action on the index of each {@code true} bit in ascending order 
+     * (no allocation, words are scanned using {@link Long#numberOfTrailingZeros}).
+     *
+     * @param action the action to perform on each bit index.
+     */
+    @Realtime(limit = LINEAR)
+    public final void forEachSetBit(IntConsumer action) {
+        long[] words = bits;
+        for (int i = 0; i < words.length; i++)
+            for (long word = words[i]; word != 0; word &= word - 1)
+                action.accept((i << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    /**
+     * Returns a sequential stream of the indices of the {@code true} bits in ascending order. Unlike 
+     * {@link #stream()} the indices are not boxed; the stream is fed word by word.
+     *
+     * @return the stream of bit indices.
+     */
+    public final IntStream bitStream() {
+        final long[] words = bits;
+        PrimitiveIterator.OfInt itr = new PrimitiveIterator.OfInt() {
+            int i = -1;
+            long word;
+
+            @Override
+            public boolean hasNext() {
+                while (word == 0) {
+                    if (++i >= words.length) return false;
+                    word = words[i];
+                }
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int index = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                return index;
+            }
+        };
+        return StreamSupport.intStream(Spliterators.spliterator(itr, cardinality(), 
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL), false);
     }
 
     /**
@@ -374,6 +552,48 @@ public class FastBitSet extends AbstractSet<Index> {
         }
     }
 
+    /**
+     * Returns the number of bits set in this bit set or in the one specified
+     * (the cardinality of their union, without materializing it).
+     *
+     * @param that the second bit set.
+     * @return the number of bits being set in either bit set.
+     */
+    @Realtime(limit = LINEAR)
+    public final int orCardinality(FastBitSet that) {
+        long[] a = this.bits, b = that.bits;
+        int n = MathLib.min(a.length, b.length);
+        return orCount(a, b, 0, n) + count(a, n, a.length) + count(b, n, b.length);
+    }
+
+    /**
+     * Returns the number of bits set in this bit set or in the one specified
+     * from the specified {@code fromIndex} (inclusive) to the specified
+     * {@code toIndex} (exclusive).
+     *
+     * @param that the second bit set.
+     * @param  fromIndex index of the first bit to be counted.
+     * @param  toIndex index after the last bit to be counted.
+     * @return the number of bits being set in either bit set within the range.
+     * @throws IndexOutOfBoundsException if
+     *          {@code (fromIndex < 0) | (toIndex < fromIndex)}
+     */
+    @Realtime(limit = LINEAR)
+    public final int orCardinality(FastBitSet that, int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return 0;
+        long[] a = this.bits, b = that.bits;
+        int i = fromIndex >>> 6;
+        int j = (toIndex - 1) >>> 6;
+        long first = -1L << fromIndex;
+        long last = -1L >>> -toIndex;
+        if (i == j) return Long.bitCount((word(a, i) | word(b, i)) & first & last);
+        int n = MathLib.max(MathLib.min(MathLib.min(a.length, b.length), j), i + 1);
+        return Long.bitCount((word(a, i) | word(b, i)) & first) + orCount(a, b, i + 1, n)
+                + count(a, n, MathLib.min(a.length, j)) + count(b, n, MathLib.min(b.length, j))
+                + Long.bitCount((word(a, j) | word(b, j)) & last);
+    }
+
     @Override
      public final Order<? super Index> order() {
          return Index.ORDER;
@@ -388,20 +608,15 @@ public class FastBitSet extends AbstractSet<Index> {
      * @throws IndexOutOfBoundsException if {@code fromIndex < -1} 
      */
     public final int previousClearBit(int fromIndex) {
-        int offset = fromIndex >> 6;
-        long mask = 1L << fromIndex;
-        while (offset >= 0) {
-            long h = bits[offset];
-            do {
-                if ((h & mask) == 0)
-                    return fromIndex;
-                mask >>= 1;
-                fromIndex--;
-            } while (mask != 0);
-            mask = 1L << 63;
-            offset--;
-        }
-        return -1;
+        if (fromIndex < 0) return -1;
+        int i = fromIndex >> 6;
+        if (i >= bits.length) return fromIndex;
+        long word = ~bits[i] & (-1L >>> (63 - (fromIndex & 63)));
+        while (true) {
+            if (word != 0) return (i << 6) + 63 - Long.numberOfLeadingZeros(word);
+            if (--i < 0) return -1;
+            word = ~bits[i];
+        }
     }
 
     /**
@@ -417,20 +632,21 @@ public class FastBitSet extends AbstractSet<Index> {
      * @throws IndexOutOfBoundsException if {@code fromIndex < -1} 
      */
     public final int previousSetBit(int fromIndex) {
-        int offset = fromIndex >> 6;
-        long mask = 1L << fromIndex;
-        while (offset >= 0) {
-            long h = bits[offset];
-            do {
-                if ((h & mask) != 0)
-                    return fromIndex;
-                mask >>= 1;
-                fromIndex--;
-            } while (mask != 0);
-            mask = 1L << 63;
-            offset--;
-        }
-        return -1;
+        if (fromIndex < 0) return -1;
+        int i = fromIndex >> 6;
+        long word;
+        if (i >= bits.length) {
+            i = bits.length - 1;
+            if (i < 0) return -1;
+            word = bits[i];
+        } else {
+            word = bits[i] & (-1L >>> (63 - (fromIndex & 63)));
+        }
+        while (true) {
+            if (word != 0) return (i << 6) + 63 - Long.numberOfLeadingZeros(word);
+            if (--i < 0) return -1;
+            word = bits[i];
+        }
     }
 
     @Override
@@ -554,6 +770,123 @@ public class FastBitSet extends AbstractSet<Index> {
         }
     }
 
+    /**
+     * Returns the intersection of the specified bit sets computed in a single
+     * pass; the words are processed by blocks small enough to stay in cache
+     * while each operand is combined.
+     *
+     * @param bitSets the bit sets to intersect.
+     * @return a new bit set holding the bits set in all the specified bit sets.
+     */
+    @Realtime(limit = LINEAR)
+    public static FastBitSet intersection(FastBitSet... bitSets) {
+        FastBitSet result = new FastBitSet();
+        if (bitSets.length == 0) return result;
+        int n = Integer.MAX_VALUE;
+        for (FastBitSet bitSet : bitSets) n = MathLib.min(n, bitSet.bits.length);
+        long[] r = new long[n];
+        System.arraycopy(bitSets[0].bits, 0, r, 0, n);
+        for (int start = 0; start < n; start += BLOCK_SIZE) {
+            int end = MathLib.min(start + BLOCK_SIZE, n);
+            for (int k = 1; k < bitSets.length; k++) {
+                long[] b = bitSets[k].bits;
+                int i = start;
+                for (; i + 3 < end; i += 4) {
+                    r[i] &= b[i];
+                    r[i + 1] &= b[i + 1];
+                    r[i + 2] &= b[i + 2];
+                    r[i + 3] &= b[i + 3];
+                }
+                for (; i < end; i++) r[i] &= b[i];
+            }
+        }
+        result.bits = r;
+        return result;
+    }
+
+    /**
+     * Returns the union of the specified bit sets computed in a single pass;
+     * the words are processed by blocks small enough to stay in cache while
+     * each operand is combined.
+     *
+     * @param bitSets the bit sets to merge.
+     * @return a new bit set holding the bits set in any of the specified bit sets.
+     */
+    @Realtime(limit = LINEAR)
+    public static FastBitSet union(FastBitSet... bitSets) {
+        FastBitSet result = new FastBitSet();
+        int n = 0;
+        for (FastBitSet bitSet : bitSets) n = MathLib.max(n, bitSet.bits.length);
+        if (n == 0) return result;
+        long[] r = new long[n];
+        for (int start = 0; start < n; start += BLOCK_SIZE) {
+            for (FastBitSet bitSet : bitSets) {
+                long[] b = bitSet.bits;
+                int end = MathLib.min(start + BLOCK_SIZE, b.length);
+                int i = start;
+                for (; i + 3 < end; i += 4) {
+                    r[i] |= b[i];
+                    r[i + 1] |= b[i + 1];
+                    r[i + 2] |= b[i + 2];
+                    r[i + 3] |= b[i + 3];
+                }
+                for (; i < end; i++) r[i] |= b[i];
+            }
+        }
+        result.bits = r;
+        return result;
+    }
+
+    // Counts the bits set in the words from i (inclusive) to n (exclusive), unrolled for the JIT.
+    private static int count(long[] a, int i, int n) {
+        int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+        for (; i + 3 < n; i += 4) {
+            c0 += Long.bitCount(a[i]);
+            c1 += Long.bitCount(a[i + 1]);
+            c2 += Long.bitCount(a[i + 2]);
+            c3 += Long.bitCount(a[i + 3]);
+        }
+        for (; i < n; i++) c0 += Long.bitCount(a[i]);
+        return c0 + c1 + c2 + c3;
+    }
+
+    // Counts the bits set in both words from i (inclusive) to n (exclusive).
+    private static int andCount(long[] a, long[] b, int i, int n) {
+        int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+        for (; i + 3 < n; i += 4) {
+            c0 += Long.bitCount(a[i] & b[i]);
+            c1 += Long.bitCount(a[i + 1] & b[i + 1]);
+            c2 += Long.bitCount(a[i + 2] & b[i + 2]);
+            c3 += Long.bitCount(a[i + 3] & b[i + 3]);
+        }
+        for (; i < n; i++) c0 += Long.bitCount(a[i] & b[i]);
+        return c0 + c1 + c2 + c3;
+    }
+
+    // Counts the bits set in either words from i (inclusive) to n (exclusive).
+    private static int orCount(long[] a, long[] b, int i, int n) {
+        int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+        for (; i + 3 < n; i += 4) {
+            c0 += Long.bitCount(a[i] | b[i]);
+            c1 += Long.bitCount(a[i + 1] | b[i + 1]);
+            c2 += Long.bitCount(a[i + 2] | b[i + 2]);
+            c3 += Long.bitCount(a[i + 3] | b[i + 3]);
+        }
+        for (; i < n; i++) c0 += Long.bitCount(a[i] | b[i]);
+        return c0 + c1 + c2 + c3;
+    }
+
+    // Returns the word at the specified position (zero if beyond length).
+    private static long word(long[] words, int i) {
+        return (i < words.length) ? words[i] : 0L;
+    }
+
+    // Checks range arguments.
+    private static void checkRange(int fromIndex, int toIndex) {
+        if ((fromIndex < 0) || (toIndex < fromIndex))
+            throw new IndexOutOfBoundsException();
+    }
+
     // Checks capacity.
     private void ensureCapacity(int capacity) {
         if (bits.length < capacity) {
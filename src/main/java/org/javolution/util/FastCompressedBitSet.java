@@ -0,0 +1,561 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+import static org.javolution.annotations.Realtime.Limit.LOG_N;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.annotations.Realtime;
+import org.javolution.lang.Index;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
+import org.javolution.util.internal.bitset.Container;
+
+/**
+ * A compressed bit-set for sparse or clustered sets of indices, integrated with the collection framework
+ * as a set of {@link Index indices} (same semantic as {@link FastBitSet}).
+ *
+ * The bits are split into chunks of 2^16 bits; only non-empty chunks are kept and each chunk is held
+ * as a sorted array of values (up to 4096 values), a bitmap (dense chunks) or a list of runs
+ * (consecutive values, see {@link #runOptimize}). Memory footprint is proportional to the number
+ * of bits set (not to the highest bit set) and logical operations are performed chunk by chunk using the
+ * fastest algorithm for the chunks involved ([Roaring bitmaps]).
+ *
+ * ```java
+ * FastCompressedBitSet entitled = new FastCompressedBitSet();
+ * entitled.set(1 << 30); // Costs a few bytes (128 MB for FastBitSet).
+ * entitled.set(0, 1000000); // Single run.
+ * ```
+ *
+ * [Roaring bitmaps]: https://roaringbitmap.org/
+ */
+public class FastCompressedBitSet extends AbstractSet<Index> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final char[] NO_KEYS = new char[0];
+    private static final Container[] NO_CONTAINERS = new Container[0];
+
+    /** Holds the high 16 bits of the chunks (sorted). */
+    private char[] keys;
+
+    /** Holds the chunks containers. */
+    private Container[] containers;
+
+    /** Holds the number of chunks. */
+    private int count;
+
+    /**
+     * Creates a new bit-set (all bits cleared).
+     */
+    public FastCompressedBitSet() {
+        keys = NO_KEYS;
+        containers = NO_CONTAINERS;
+    }
+
+      ////////////////////////////////////////////////////////////////////////////
+     // Set operations.
+     //
+
+    @Override
+    public final boolean add(Index index, boolean allowDuplicate) {
+        return !getAndSet(index.intValue(), true); // allowDuplicate flag ignored.
+    }
+
+    /**
+     * Performs the logical AND operation on this bit set and the given bit set. The result is stored
+     * into this bit set.
+     *
+     * @param that the second bit set.
+     */
+    @Realtime(limit = LINEAR)
+    public final void and(FastCompressedBitSet that) {
+        int n = 0;
+        for (int i = 0, j = 0; (i < count) && (j < that.count);) {
+            if (keys[i] < that.keys[j]) i++;
+            else if (that.keys[j] < keys[i]) j++;
+            else {
+                Container c = Container.and(containers[i], that.containers[j++]);
+                if (c != null) {
+                    keys[n] = keys[i];
+                    containers[n++] = c;
+                }
+                i++;
+            }
+        }
+        Arrays.fill(containers, n, count, null);
+        count = n;
+    }
+
+    /**
+     * Performs the logical AND operation on this bit set and the complement of the given bit set.
+     * The result is stored into this bit set.
+     *
+     * @param that the second bit set
+     */
+    @Realtime(limit = LINEAR)
+    public final void andNot(FastCompressedBitSet that) {
+        int n = 0;
+        for (int i = 0, j = 0; i < count; i++) {
+            while ((j < that.count) && (that.keys[j] < keys[i])) j++;
+            Container c = ((j < that.count) && (that.keys[j] == keys[i])) ?
+                    Container.andNot(containers[i], that.containers[j]) : containers[i];
+            if (c != null) {
+                keys[n] = keys[i];
+                containers[n++] = c;
+            }
+        }
+        Arrays.fill(containers, n, count, null);
+        count = n;
+    }
+
+    /**
+     * Returns the number of bits set to {@code true} (or the size of this set).
+     *
+     * @return the number of bits being set.
+     */
+    @Realtime(limit = LINEAR)
+    public final int cardinality() {
+        int sum = 0;
+        for (int i = 0; i < count; i++) sum += containers[i].cardinality();
+        return sum;
+    }
+
+    @Override
+    public final void clear() {
+        keys = NO_KEYS;
+        containers = NO_CONTAINERS;
+        count = 0;
+    }
+
+    /**
+     * Removes the specified integer value from this set. That is the corresponding bit is cleared.
+     *
+     * @param bitIndex a non-negative integer.
+     */
+    @Realtime(limit = LOG_N)
+    public final void clear(int bitIndex) {
+        getAndSet(bitIndex, false);
+    }
+
+    /**
+     * Sets the bits from the specified {@code fromIndex} (inclusive) to the specified {@code toIndex}
+     * (exclusive) to {@code false}.
+     *
+     * @param  fromIndex index of the first bit to be cleared.
+     * @param  toIndex index after the last bit to be cleared.
+     * @throws IndexOutOfBoundsException if {@code (fromIndex < 0) | (toIndex < fromIndex)}
+     */
+    @Realtime(limit = LINEAR)
+    public final void clear(int fromIndex, int toIndex) {
+        if ((fromIndex < 0) || (toIndex < fromIndex))
+            throw new IndexOutOfBoundsException();
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            long start = keys[i] << 16;
+            Container c = containers[i];
+            if ((start + Container.CAPACITY > fromIndex) && (start < toIndex)) {
+                c = c.removeRange((int) Math.max(fromIndex - start, 0),
+                        (int) Math.min(toIndex - start, Container.CAPACITY));
+                if (c.cardinality() == 0) continue;
+            }
+            keys[n] = keys[i];
+            containers[n++] = c;
+        }
+        Arrays.fill(containers, n, count, null);
+        count = n;
+    }
+
+    @Override
+    public final FastCompressedBitSet clone() {
+        FastCompressedBitSet copy = new FastCompressedBitSet();
+        copy.keys = Arrays.copyOf(keys, count);
+        copy.containers = new Container[count];
+        for (int i = 0; i < count; i++) copy.containers[i] = containers[i].clone();
+        copy.count = count;
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof FastCompressedBitSet)) return super.equals(obj);
+        FastCompressedBitSet that = (FastCompressedBitSet) obj;
+        if ((that.count != count) || (that.cardinality() != cardinality())) return false;
+        for (int i = nextSetBit(0), j = that.nextSetBit(0); i >= 0; i = nextSetBit(i + 1), j = that.nextSetBit(j + 1))
+            if (i != j) return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() { // Consistent with AbstractSet.hashCode (sum of indices).
+        int hash = 0;
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) hash += i;
+        return hash;
+    }
+
+     ////////////////////////////////////////////////////////////////////////////
+     // BitSet Operations.
+     //
+
+    @Override
+    public final FastIterator<Index> descendingIterator(@Nullable Index from) {
+        int start = (from == null) ? Integer.MAX_VALUE : from.intValue();
+        return new IteratorImpl(this, start, true);
+    }
+
+    /**
+     * Returns {@code true } if the specified integer is in this bit set; {@code false } otherwise.
+     *
+     * @param bitIndex a non-negative integer.
+     * @return the value of the bit at the specified index.
+     */
+    @Realtime(limit = LOG_N)
+    public final boolean get(int bitIndex) {
+        int i = indexOf((char) (bitIndex >>> 16));
+        return (i >= 0) && containers[i].contains(bitIndex & 0xFFFF);
+    }
+
+    /**
+     * Sets the specified bit, returns {@code true} if previously set.
+     */
+    @Realtime(limit = LOG_N)
+    public final boolean getAndSet(int bitIndex, boolean value) {
+        if (bitIndex < 0) throw new IndexOutOfBoundsException();
+        char key = (char) (bitIndex >>> 16);
+        int low = bitIndex & 0xFFFF;
+        int i = indexOf(key);
+        if (i < 0) {
+            if (value) insert(-i - 1, key, Container.of(low));
+            return false;
+        }
+        Container c = containers[i];
+        if (c.contains(low) == value) return value;
+        c = value ? c.add(low) : c.remove(low);
+        if (c.cardinality() != 0) containers[i] = c;
+        else removeAt(i);
+        return !value;
+    }
+
+    /**
+     * Performs the specified action on the index of each {@code true} bit in ascending order (no allocation).
+     *
+     * @param action the action to perform on each bit index.
+     */
+    @Realtime(limit = LINEAR)
+    public final void forEachSetBit(IntConsumer action) {
+        for (int i = 0; i < count; i++) containers[i].forEach(keys[i] << 16, action);
+    }
+
+    @Override
+    public Index getAny(Index index) {
+        return get(index.intValue()) ? index : null;
+    }
+
+    /**
+     * Returns {@code true} if this bit set shares at least one common bit with the specified bit set.
+     *
+     * @param that the bit set to check for intersection
+     * @return {@code true} if the sets intersect; {@code false} otherwise.
+     */
+    @Realtime(limit = LINEAR)
+    public final boolean intersects(FastCompressedBitSet that) {
+        for (int i = 0, j = 0; (i < count) && (j < that.count);) {
+            if (keys[i] < that.keys[j]) i++;
+            else if (that.keys[j] < keys[i]) j++;
+            else if (Container.intersects(containers[i++], that.containers[j++])) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public final boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public final FastIterator<Index> iterator(@Nullable Index from) {
+        int start = (from == null) ? 0 : from.intValue();
+        return new IteratorImpl(this, start, false);
+    }
+
+    /**
+     * Returns the index of the highest set bit plus one.
+     *
+     * @return the logical length of this bit set.
+     */
+    public final int length() {
+        return (count == 0) ? 0 :
+            (keys[count - 1] << 16) + containers[count - 1].previous(Container.CAPACITY - 1) + 1;
+    }
+
+    /**
+     * Returns the index of the next {@code false} bit, from the specified bit (inclusive).
+     *
+     * @param fromIndex the start location.
+     * @return the first {@code false} bit.
+     */
+    @Realtime(limit = LINEAR)
+    public final int nextClearBit(int fromIndex) {
+        int i = indexOf((char) (fromIndex >>> 16));
+        if (i < 0) return fromIndex;
+        for (int low = fromIndex & 0xFFFF; i < count; i++, low = 0) {
+            if ((keys[i] << 16) + low != fromIndex) return fromIndex; // Gap between chunks.
+            int clear = containers[i].nextClear(low);
+            fromIndex = (keys[i] << 16) + clear;
+            if (clear < Container.CAPACITY) return fromIndex;
+        }
+        return fromIndex;
+    }
+
+    /**
+     * Returns the index of the next {@code true} bit, from the specified bit (inclusive). If there is none,
+     * {@code -1} is returned.
+     *
+     * @param fromIndex the start location.
+     * @return the next set bit or {@code -1} if none.
+     */
+    @Realtime(limit = LOG_N)
+    public final int nextSetBit(int fromIndex) {
+        if (fromIndex < 0) return -1;
+        char key = (char) (fromIndex >>> 16);
+        int i = indexOf(key);
+        if (i >= 0) {
+            int next = containers[i].next(fromIndex & 0xFFFF);
+            if (next >= 0) return (key << 16) + next;
+            i++;
+        } else {
+            i = -i - 1;
+        }
+        return (i < count) ? (keys[i] << 16) + containers[i].next(0) : -1;
+    }
+
+    /**
+     * Performs the logical OR operation on this bit set and the one specified. The result is stored
+     * into this bit set.
+     *
+     * @param that the second bit set.
+     */
+    @Realtime(limit = LINEAR)
+    public final void or(FastCompressedBitSet that) {
+        char[] newKeys = new char[count + that.count];
+        Container[] newContainers = new Container[count + that.count];
+        int n = 0;
+        for (int i = 0, j = 0; (i < count) || (j < that.count);) {
+            if ((j >= that.count) || ((i < count) && (keys[i] < that.keys[j]))) {
+                newKeys[n] = keys[i];
+                newContainers[n++] = containers[i++];
+            } else if ((i >= count) || (that.keys[j] < keys[i])) {
+                newKeys[n] = that.keys[j];
+                newContainers[n++] = that.containers[j++].clone();
+            } else {
+                newKeys[n] = keys[i];
+                newContainers[n++] = Container.or(containers[i++], that.containers[j++]);
+            }
+        }
+        keys = newKeys;
+        containers = newContainers;
+        count = n;
+    }
+
+    @Override
+    public final Order<? super Index> order() {
+        return Index.ORDER;
+    }
+
+    /**
+     * Returns the index of the previous {@code true} bit, from the specified bit (inclusive). If there is
+     * none, {@code -1} is returned.
+     *
+     * @param fromIndex the start location.
+     * @return the previous set bit or {@code -1} if none.
+     */
+    @Realtime(limit = LOG_N)
+    public final int previousSetBit(int fromIndex) {
+        if (fromIndex < 0) return -1;
+        char key = (char) (fromIndex >>> 16);
+        int i = indexOf(key);
+        if (i >= 0) {
+            int previous = containers[i].previous(fromIndex & 0xFFFF);
+            if (previous >= 0) return (key << 16) + previous;
+            i--;
+        } else {
+            i = -i - 2;
+        }
+        return (i >= 0) ? (keys[i] << 16) + containers[i].previous(Container.CAPACITY - 1) : -1;
+    }
+
+    @Override
+    public Index removeAny(Index index) {
+        return getAndSet(index.intValue(), false) ? index : null;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Index> filter) {
+        boolean modified = false;
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            if (filter.test(Index.of(i))) {
+                clear(i);
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Converts the chunks to runs of consecutive values when this reduces the memory footprint
+     * (typically after bulk insertions of consecutive values).
+     */
+    @Realtime(limit = LINEAR)
+    public final void runOptimize() {
+        for (int i = 0; i < count; i++) containers[i] = containers[i].optimize();
+    }
+
+    /**
+     * Adds the specified integer to this set (corresponding bit is set to {@code true}).
+     *
+     * @param bitIndex a non-negative integer.
+     * @throws IndexOutOfBoundsException if {@code bitIndex < 0}
+     */
+    @Realtime(limit = LOG_N)
+    public final void set(int bitIndex) {
+        getAndSet(bitIndex, true);
+    }
+
+    /**
+     * Sets the bits from the specified {@code fromIndex} (inclusive) to the specified {@code toIndex}
+     * (exclusive) to {@code true}. Chunks fully covered are held as a single run.
+     *
+     * @param  fromIndex index of the first bit to be set.
+     * @param  toIndex index after the last bit to be set.
+     * @throws IndexOutOfBoundsException if {@code (fromIndex < 0) | (toIndex < fromIndex)}
+     */
+    @Realtime(limit = LINEAR)
+    public final void set(int fromIndex, int toIndex) {
+        if ((fromIndex < 0) || (toIndex < fromIndex))
+            throw new IndexOutOfBoundsException();
+        if (fromIndex == toIndex) return;
+        for (int key = fromIndex >>> 16, last = (toIndex - 1) >>> 16; key <= last; key++) {
+            int start = key << 16;
+            int from = Math.max(fromIndex - start, 0);
+            int to = (int) Math.min((long) toIndex - start, Container.CAPACITY);
+            int i = indexOf((char) key);
+            if (i < 0) insert(-i - 1, (char) key, Container.ofRange(from, to));
+            else containers[i] = containers[i].addRange(from, to);
+        }
+    }
+
+    @Override
+    public final int size() {
+        return cardinality();
+    }
+
+    /**
+     * Performs the logical XOR operation on this bit set and the one specified. The result is stored
+     * into this bit set.
+     *
+     * @param that the second bit set.
+     */
+    @Realtime(limit = LINEAR)
+    public final void xor(FastCompressedBitSet that) {
+        char[] newKeys = new char[count + that.count];
+        Container[] newContainers = new Container[count + that.count];
+        int n = 0;
+        for (int i = 0, j = 0; (i < count) || (j < that.count);) {
+            if ((j >= that.count) || ((i < count) && (keys[i] < that.keys[j]))) {
+                newKeys[n] = keys[i];
+                newContainers[n++] = containers[i++];
+            } else if ((i >= count) || (that.keys[j] < keys[i])) {
+                newKeys[n] = that.keys[j];
+                newContainers[n++] = that.containers[j++].clone();
+            } else {
+                Container c = Container.xor(containers[i], that.containers[j++]);
+                if (c != null) {
+                    newKeys[n] = keys[i];
+                    newContainers[n++] = c;
+                }
+                i++;
+            }
+        }
+        keys = newKeys;
+        containers = newContainers;
+        count = n;
+    }
+
+    /** Returns the position of the specified key or {@code -(insertion point) - 1} if none. */
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, count, key);
+    }
+
+    private void insert(int i, char key, Container container) {
+        if (count == keys.length) {
+            int capacity = Math.max(4, count * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, i, keys, i + 1, count - i);
+        System.arraycopy(containers, i, containers, i + 1, count - i);
+        keys[i] = key;
+        containers[i] = container;
+        count++;
+    }
+
+    private void removeAt(int i) {
+        System.arraycopy(keys, i + 1, keys, i, count - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, count - i - 1);
+        containers[--count] = null;
+    }
+
+    /** BitSet iterator implementation. */
+    private static final class IteratorImpl implements FastIterator<Index> {
+
+        private final FastCompressedBitSet that;
+        private int nextIndex;
+        private int currentIndex = -1;
+        private boolean reversed;
+
+        public IteratorImpl(FastCompressedBitSet that, int from, boolean reversed) {
+            this.that = that;
+            this.nextIndex = reversed ? that.previousSetBit(from) : that.nextSetBit(from);
+            this.reversed = reversed;
+        }
+
+        public boolean hasNext() {
+            return (nextIndex >= 0);
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super Index> matching) {
+            while (hasNext()) {
+                if (matching.test(Index.of(nextIndex))) return true;
+                next();
+            }
+            return false;
+        }
+
+        public Index next() {
+            if (nextIndex < 0)
+                throw new NoSuchElementException();
+            currentIndex = nextIndex;
+            nextIndex = reversed ? that.previousSetBit(nextIndex - 1) : that.nextSetBit(nextIndex + 1);
+            return Index.of(currentIndex);
+        }
+
+        public void remove() {
+            if (currentIndex < 0)
+                throw new IllegalStateException();
+            that.clear(currentIndex);
+            currentIndex = -1;
+        }
+
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.annotations.Realtime;
+import org.javolution.lang.Index;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
+
+/**
+ * A fixed-capacity, lock-free bit-set integrated with the collection framework as a set of {@link Index indices}.
+ *
+ * Single bit updates are performed through compare-and-set on the words of an {@link AtomicLongArray}; unlike
+ * {@link AbstractSet#shared shared} (global lock) or {@link AbstractSet#atomic atomic} (copy-on-write) views,
+ * concurrent writers only contend when they update the same word. Bulk operations ({@link #cardinality},
+ * iterations, {@link #clear()}) are weakly consistent: they reflect concurrent updates word by word.
+ *
+ * The {@link #claimNextClearBit} method finds and sets a clear bit atomically, which allows for
+ * instances to be used as lock-free slot allocators.
+ *
+ * ```java
+ * FastConcurrentBitSet slots = new FastConcurrentBitSet(1024);
+ * int slot = slots.claimNextClearBit(0); // Thread-safe, -1 if all slots are taken.
+ * ...
+ * slots.clear(slot); // Releases the slot.
+ * ```
+ */
+public class FastConcurrentBitSet extends AbstractSet<Index> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+
+    /** Holds the bits (64 bits per long). */
+    private final AtomicLongArray bits;
+
+    /** Holds the number of bits. */
+    private final int capacity;
+
+    /**
+     * Creates a new bit-set (all bits cleared) holding the specified number of bits.
+     *
+     * @param capacity the number of bits (fixed).
+     */
+    public FastConcurrentBitSet(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("Negative capacity");
+        this.capacity = capacity;
+        this.bits = new AtomicLongArray((capacity + 63) >>> 6);
+    }
+
+      ////////////////////////////////////////////////////////////////////////////
+     // Set operations.
+     //
+
+    @Override
+    public final boolean add(Index index, boolean allowDuplicate) {
+        return !getAndSet(index.intValue(), true); // allowDuplicate flag ignored.
+    }
+
+    /**
+     * Returns the number of bits this bit-set can hold.
+     */
+    @Realtime(limit = CONSTANT)
+    public final int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of bits set to {@code true} (weakly consistent).
+     *
+     * @return the number of bits being set.
+     */
+    @Realtime(limit = LINEAR)
+    public final int cardinality() {
+        int sum = 0;
+        for (int i = 0, n = bits.length(); i < n; i++) sum += Long.bitCount(bits.get(i));
+        return sum;
+    }
+
+    /**
+     * Finds and sets atomically the first clear bit, from the specified bit (inclusive).
+     *
+     * @param fromIndex the start location.
+     * @return the index of the bit claimed or {@code -1} if all bits from the specified location are set.
+     */
+    @Realtime(limit = LINEAR)
+    public final int claimNextClearBit(int fromIndex) {
+        if (fromIndex < 0) throw new IndexOutOfBoundsException();
+        for (int i = fromIndex >>> 6, n = bits.length(); i < n; i++) {
+            long mask = (i == fromIndex >>> 6) ? -1L << fromIndex : -1L;
+            if ((i == n - 1) && ((capacity & 63) != 0)) mask &= (1L << capacity) - 1;
+            while (true) {
+                long word = bits.get(i);
+                long free = ~word & mask;
+                if (free == 0) break; // Next word.
+                long bit = free & -free;
+                if (bits.compareAndSet(i, word, word | bit))
+                    return (i << 6) + Long.numberOfTrailingZeros(bit);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Clears all the bits (weakly consistent, each word is cleared atomically).
+     */
+    @Override
+    public final void clear() {
+        for (int i = 0, n = bits.length(); i < n; i++) bits.set(i, 0L);
+    }
+
+    /**
+     * Clears atomically the specified bit.
+     *
+     * @param bitIndex the index of the bit to clear.
+     */
+    @Realtime(limit = CONSTANT)
+    public final void clear(int bitIndex) {
+        getAndSet(bitIndex, false);
+    }
+
+    /**
+     * Returns a copy of this bit-set (snapshot taken word by word).
+     */
+    @Override
+    public final FastConcurrentBitSet clone() {
+        FastConcurrentBitSet copy = new FastConcurrentBitSet(capacity);
+        for (int i = 0, n = bits.length(); i < n; i++) copy.bits.set(i, bits.get(i));
+        return copy;
+    }
+
+    @Override
+    public final FastIterator<Index> descendingIterator(@Nullable Index from) {
+        int start = (from == null) ? capacity - 1 : from.intValue();
+        return new IteratorImpl(this, start, true);
+    }
+
+    /**
+     * Flips atomically the specified bit.
+     *
+     * @param bitIndex the index of the bit to flip.
+     * @return the previous value of the bit.
+     */
+    @Realtime(limit = CONSTANT)
+    public final boolean flip(int bitIndex) {
+        checkIndex(bitIndex);
+        int i = bitIndex >>> 6;
+        long mask = 1L << bitIndex;
+        while (true) {
+            long word = bits.get(i);
+            if (bits.compareAndSet(i, word, word ^ mask)) return (word & mask) != 0;
+        }
+    }
+
+    /**
+     * Returns the value of the specified bit ({@code false} if beyond capacity).
+     *
+     * @param bitIndex the index of the bit.
+     * @return the value of the bit at the specified index.
+     */
+    @Realtime(limit = CONSTANT)
+    public final boolean get(int bitIndex) {
+        return (bitIndex >= 0) && (bitIndex < capacity) && (bits.get(bitIndex >>> 6) & (1L << bitIndex)) != 0;
+    }
+
+    /**
+     * Sets atomically the specified bit to the specified value.
+     *
+     * @param bitIndex the index of the bit.
+     * @param value the new value.
+     * @return the previous value of the bit.
+     * @throws IndexOutOfBoundsException if {@code (bitIndex < 0) || (bitIndex >= capacity())}
+     */
+    @Realtime(limit = CONSTANT)
+    public final boolean getAndSet(int bitIndex, boolean value) {
+        checkIndex(bitIndex);
+        int i = bitIndex >>> 6;
+        long mask = 1L << bitIndex;
+        while (true) {
+            long word = bits.get(i);
+            boolean previous = (word & mask) != 0;
+            if (previous == value) return previous; // No update necessary.
+            if (bits.compareAndSet(i, word, word ^ mask)) return previous;
+        }
+    }
+
+    @Override
+    public Index getAny(Index index) {
+        return get(index.intValue()) ? index : null;
+    }
+
+    @Override
+    public final boolean isEmpty() {
+        for (int i = 0, n = bits.length(); i < n; i++)
+            if (bits.get(i) != 0) return false;
+        return true;
+    }
+
+    @Override
+    public final FastIterator<Index> iterator(@Nullable Index from) {
+        int start = (from == null) ? 0 : from.intValue();
+        return new IteratorImpl(this, start, false);
+    }
+
+    /**
+     * Returns the index of the next {@code false} bit, from the specified bit (inclusive).
+     *
+     * @param fromIndex the start location.
+     * @return the next clear bit or {@code -1} if all bits up to the capacity are set.
+     */
+    @Realtime(limit = LINEAR)
+    public final int nextClearBit(int fromIndex) {
+        if (fromIndex < 0) throw new IndexOutOfBoundsException();
+        for (int i = fromIndex >>> 6, n = bits.length(); i < n; i++) {
+            long free = ~bits.get(i) & ((i == fromIndex >>> 6) ? -1L << fromIndex : -1L);
+            if (free != 0) {
+                int index = (i << 6) + Long.numberOfTrailingZeros(free);
+                return (index < capacity) ? index : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the next {@code true} bit, from the specified bit (inclusive).
+     *
+     * @param fromIndex the start location.
+     * @return the next set bit or {@code -1} if none.
+     */
+    @Realtime(limit = LINEAR)
+    public final int nextSetBit(int fromIndex) {
+        if (fromIndex < 0) throw new IndexOutOfBoundsException();
+        for (int i = fromIndex >>> 6, n = bits.length(); i < n; i++) {
+            long word = bits.get(i) & ((i == fromIndex >>> 6) ? -1L << fromIndex : -1L);
+            if (word != 0) return (i << 6) + Long.numberOfTrailingZeros(word);
+        }
+        return -1;
+    }
+
+    @Override
+    public final Order<? super Index> order() {
+        return Index.ORDER;
+    }
+
+    /**
+     * Returns the index of the previous {@code true} bit, from the specified bit (inclusive).
+     *
+     * @param fromIndex the start location.
+     * @return the previous set bit or {@code -1} if none.
+     */
+    @Realtime(limit = LINEAR)
+    public final int previousSetBit(int fromIndex) {
+        if (fromIndex < 0) return -1;
+        if (fromIndex >= capacity) fromIndex = capacity - 1;
+        for (int i = fromIndex >>> 6; i >= 0; i--) {
+            long word = bits.get(i) & ((i == fromIndex >>> 6) ? -1L >>> (63 - (fromIndex & 63)) : -1L);
+            if (word != 0) return (i << 6) + 63 - Long.numberOfLeadingZeros(word);
+        }
+        return -1;
+    }
+
+    @Override
+    public Index removeAny(Index index) {
+        return getAndSet(index.intValue(), false) ? index : null;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Index> filter) {
+        boolean modified = false;
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            if (filter.test(Index.of(i)) && getAndSet(i, false)) modified = true;
+        }
+        return modified;
+    }
+
+    /**
+     * Sets atomically the specified bit.
+     *
+     * @param bitIndex the index of the bit to set.
+     * @throws IndexOutOfBoundsException if {@code (bitIndex < 0) || (bitIndex >= capacity())}
+     */
+    @Realtime(limit = CONSTANT)
+    public final void set(int bitIndex) {
+        getAndSet(bitIndex, true);
+    }
+
+    @Override
+    public final int size() {
+        return cardinality();
+    }
+
+    private void checkIndex(int bitIndex) {
+        if ((bitIndex < 0) || (bitIndex >= capacity))
+            throw new IndexOutOfBoundsException("Index: " + bitIndex + ", Capacity: " + capacity);
+    }
+
+    /** BitSet iterator implementation (weakly consistent). */
+    private static final class IteratorImpl implements FastIterator<Index> {
+
+        private final FastConcurrentBitSet that;
+        private int nextIndex;
+        private int currentIndex = -1;
+        private boolean reversed;
+
+        public IteratorImpl(FastConcurrentBitSet that, int from, boolean reversed) {
+            this.that = that;
+            this.nextIndex = reversed ? that.previousSetBit(from) : that.nextSetBit(from);
+            this.reversed = reversed;
+        }
+
+        public boolean hasNext() {
+            return (nextIndex >= 0);
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super Index> matching) {
+            while (hasNext()) {
+                if (matching.test(Index.of(nextIndex))) return true;
+                next();
+            }
+            return false;
+        }
+
+        public Index next() {
+            if (nextIndex < 0)
+                throw new NoSuchElementException();
+            currentIndex = nextIndex;
+            nextIndex = reversed ? that.previousSetBit(nextIndex - 1) : that.nextSetBit(nextIndex + 1);
+            return Index.of(currentIndex);
+        }
+
+        public void remove() {
+            if (currentIndex < 0)
+                throw new IllegalStateException();
+            that.clear(currentIndex);
+            currentIndex = -1;
+        }
+
+    }
+}
@@ -0,0 +1,516 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+import static org.javolution.annotations.Realtime.Limit.LOG_N;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.annotations.Realtime;
+import org.javolution.util.function.Equality;
+import org.javolution.util.function.Predicate;
+
+/**
+ * A priority queue (4-ary heap) based upon {@link FractalArray}; the heap grows and shrinks without ever
+ * resizing an array.
+ *
+ * Elements are ordered either by the comparator specified at construction or, for heaps created through
+ * {@link #byPriority()}, by a primitive {@code long} priority (lowest first) attached to each element.
+ * Each insertion returns a {@link Handle} which can be used to update the element/priority in {@code O(log(n))}
+ * ({@link #decreaseKey}, {@link #decreasePriority}) or to remove it. Elements with equal priorities are all kept
+ * (unlike a {@link FastSet} ordered by priority). Elements added to a priority heap through the collection methods
+ * ({@link #add}, {@link #offer}, {@link #addAll}, {@link #with}, ...) are given the heap default priority
+ * (see {@link #byPriority(long)}).
+ *
+ * ```java
+ * FastHeap<Event> events = FastHeap.byPriority();
+ * FastHeap.Handle<Event> timeout = events.insert(now + 500, timeoutEvent);
+ * ...
+ * events.setPriority(timeout, now + 1000); // Reschedules the timeout.
+ * while (!events.isEmpty() && (events.peekPriority() <= now))
+ *      events.poll().run();
+ * ```
+ *
+ * Iterations are performed in heap order (not sorted).
+ *
+ * @param <E> the type of heap elements
+ */
+public class FastHeap<E> extends AbstractCollection<E> implements Queue<E> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final int ARITY = 4; // Shallower than binary heaps and children are contiguous.
+
+    /**
+     * A reference to an element inserted into a heap.
+     *
+     * @param <E> the type of the element referenced
+     */
+    public static final class Handle<E> implements Serializable {
+        private static final long serialVersionUID = 0x700L; // Version.
+        private E element;
+        private long priority;
+        private int index; // -1 when not queued.
+
+        private Handle(E element, long priority) {
+            this.element = element;
+            this.priority = priority;
+        }
+
+        /** Returns the element referenced by this handle. */
+        public E getElement() {
+            return element;
+        }
+
+        /** Returns the priority of the element (priority heaps). */
+        public long getPriority() {
+            return priority;
+        }
+
+        /** Indicates if the element is still queued (has not been polled or removed). */
+        public boolean isQueued() {
+            return index >= 0;
+        }
+    }
+
+    private final @Nullable Comparator<? super E> comparator; // Null for priority heaps.
+    private final long defaultPriority; // Priority of elements inserted without priority (priority heaps).
+    private FractalArray<Handle<E>> array;
+    private int length;
+    private transient int modCount; // Incremented by each modification.
+
+    /**  Creates an empty heap ordering its elements according to their natural order (see {@link Comparable}). */
+    @SuppressWarnings("unchecked")
+    public FastHeap() {
+        this(new Comparator<E>() {
+            @Override
+            public int compare(E left, E right) {
+                return ((Comparable<? super E>) left).compareTo(right);
+            }});
+    }
+
+    /**
+     * Creates an empty heap ordering its elements according to the specified comparator.
+     *
+     * @param comparator the comparator used to order the elements (smallest first).
+     */
+    public FastHeap(Comparator<? super E> comparator) {
+        if (comparator == null) throw new NullPointerException("Null comparator");
+        this.comparator = comparator;
+        this.defaultPriority = 0;
+        this.array = FractalArray.empty();
+    }
+
+    /** Base constructor (private). */
+    private FastHeap(@Nullable Comparator<? super E> comparator, long defaultPriority,
+            FractalArray<Handle<E>> array, int length) {
+        this.comparator = comparator;
+        this.defaultPriority = defaultPriority;
+        this.array = array;
+        this.length = length;
+    }
+
+    /**
+     * Returns an empty heap whose elements are ordered by their {@code long} priority (lowest first).
+     * Elements should be inserted using {@link #insert(long, Object)}; elements inserted without priority
+     * (e.g. {@link #add}) have a priority of {@code 0}.
+     */
+    public static <E> FastHeap<E> byPriority() {
+        return byPriority(0);
+    }
+
+    /**
+     * Returns an empty heap whose elements are ordered by their {@code long} priority (lowest first) with
+     * the specified priority for the elements inserted without priority ({@link #insert(Object)}, {@link #add},
+     * {@link #offer}, {@link #addAll}, ...).
+     *
+     * @param defaultPriority the priority of the elements inserted without priority.
+     */
+    public static <E> FastHeap<E> byPriority(long defaultPriority) {
+        return new FastHeap<E>(null, defaultPriority, FractalArray.<Handle<E>>empty(), 0);
+    }
+
+    @Override
+    public FastHeap<E> with(@SuppressWarnings("unchecked") E... elements) {
+        addAll(elements);
+        return this;
+    }
+
+    /**
+     * Inserts the specified element into this heap; for heaps ordered by priority the element is given the
+     * heap default priority.
+     *
+     * @param element the element to insert.
+     * @return the handle to the element inserted.
+     */
+    @Realtime(limit = LOG_N)
+    public final Handle<E> insert(E element) {
+        return insert(new Handle<E>(element, (comparator == null) ? defaultPriority : 0));
+    }
+
+    /**
+     * Inserts the specified element with the specified priority into this heap (heaps ordered by priority).
+     *
+     * @param priority the priority of the element (lowest first).
+     * @param element the element to insert.
+     * @return the handle to the element inserted.
+     * @throws UnsupportedOperationException if this heap is ordered by comparator.
+     */
+    @Realtime(limit = LOG_N)
+    public final Handle<E> insert(long priority, @Nullable E element) {
+        if (comparator != null) throw new UnsupportedOperationException("Heap ordered by comparator");
+        return insert(new Handle<E>(element, priority));
+    }
+
+    @Override
+    @Realtime(limit = LOG_N)
+    public final boolean add(E element) {
+        insert(element);
+        return true;
+    }
+
+    @Override
+    @Realtime(limit = LOG_N)
+    public final boolean offer(E element) {
+        insert(element);
+        return true;
+    }
+
+    /** Returns the smallest element or {@code null} if this heap is empty. */
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final @Nullable E peek() {
+        return (length == 0) ? null : array.get(0).element;
+    }
+
+    /** Returns the handle of the smallest element or {@code null} if this heap is empty. */
+    @Realtime(limit = CONSTANT)
+    public final @Nullable Handle<E> peekHandle() {
+        return (length == 0) ? null : array.get(0);
+    }
+
+    /**
+     * Returns the lowest priority (heaps ordered by priority).
+     *
+     * @throws NoSuchElementException if this heap is empty.
+     */
+    @Realtime(limit = CONSTANT)
+    public final long peekPriority() {
+        if (length == 0) throw new NoSuchElementException();
+        return array.get(0).priority;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final E element() {
+        if (length == 0) throw new NoSuchElementException();
+        return array.get(0).element;
+    }
+
+    /** Removes and returns the smallest element or {@code null} if this heap is empty. */
+    @Override
+    @Realtime(limit = LOG_N)
+    public final @Nullable E poll() {
+        if (length == 0) return null;
+        Handle<E> first = array.get(0);
+        removeAt(0);
+        return first.element;
+    }
+
+    @Override
+    @Realtime(limit = LOG_N)
+    public final E remove() {
+        if (length == 0) throw new NoSuchElementException();
+        return poll();
+    }
+
+    /**
+     * Removes the element referenced by the specified handle.
+     *
+     * @param handle the handle of the element to remove.
+     * @return {@code true} if the element was queued in this heap; {@code false} otherwise.
+     */
+    @Realtime(limit = LOG_N)
+    public final boolean remove(Handle<E> handle) {
+        if (!isQueued(handle)) return false;
+        removeAt(handle.index);
+        return true;
+    }
+
+    /** Indicates if the specified handle references an element queued in this heap. */
+    @Realtime(limit = CONSTANT)
+    public final boolean isQueued(Handle<E> handle) {
+        int i = handle.index;
+        return (i >= 0) && (i < length) && (array.get(i) == handle);
+    }
+
+    /**
+     * Replaces the element referenced by the specified handle with a smaller (or equal) element.
+     *
+     * @param handle the handle of the element to replace.
+     * @param element the new element.
+     * @throws IllegalArgumentException if the handle does not belong to this heap or if the new element
+     *         is greater than the one it replaces.
+     * @throws UnsupportedOperationException if this heap is ordered by priority.
+     */
+    @Realtime(limit = LOG_N)
+    public final void decreaseKey(Handle<E> handle, E element) {
+        if (comparator == null) throw new UnsupportedOperationException("Heap ordered by priority");
+        check(handle);
+        if (comparator.compare(element, handle.element) > 0) throw new IllegalArgumentException("Key increased");
+        handle.element = element;
+        siftUp(handle.index, handle);
+        modCount++;
+    }
+
+    /**
+     * Replaces the element referenced by the specified handle and restores the heap order.
+     *
+     * @param handle the handle of the element to replace.
+     * @param element the new element.
+     * @throws IllegalArgumentException if the handle does not belong to this heap.
+     */
+    @Realtime(limit = LOG_N)
+    public final void update(Handle<E> handle, E element) {
+        check(handle);
+        handle.element = element;
+        reposition(handle);
+    }
+
+    /**
+     * Lowers the priority of the element referenced by the specified handle (heaps ordered by priority).
+     *
+     * @param handle the handle of the element.
+     * @param priority the new priority.
+     * @throws IllegalArgumentException if the handle does not belong to this heap or if the new priority
+     *         is greater than the current one.
+     * @throws UnsupportedOperationException if this heap is ordered by comparator.
+     */
+    @Realtime(limit = LOG_N)
+    public final void decreasePriority(Handle<E> handle, long priority) {
+        if (comparator != null) throw new UnsupportedOperationException("Heap ordered by comparator");
+        check(handle);
+        if (priority > handle.priority) throw new IllegalArgumentException("Priority increased");
+        handle.priority = priority;
+        siftUp(handle.index, handle);
+        modCount++;
+    }
+
+    /**
+     * Sets the priority of the element referenced by the specified handle (heaps ordered by priority).
+     *
+     * @param handle the handle of the element.
+     * @param priority the new priority.
+     * @throws IllegalArgumentException if the handle does not belong to this heap.
+     * @throws UnsupportedOperationException if this heap is ordered by comparator.
+     */
+    @Realtime(limit = LOG_N)
+    public final void setPriority(Handle<E> handle, long priority) {
+        if (comparator != null) throw new UnsupportedOperationException("Heap ordered by comparator");
+        check(handle);
+        handle.priority = priority;
+        reposition(handle);
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final boolean isEmpty() {
+        return length == 0;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final int size() {
+        return length;
+    }
+
+    @Override
+    @Realtime(limit = LINEAR)
+    public final void clear() {
+        for (int i = 0; i < length; i++) array.get(i).index = -1;
+        array = FractalArray.empty();
+        length = 0;
+        modCount++;
+    }
+
+    @Override
+    @Realtime(limit = LINEAR)
+    public boolean removeIf(Predicate<? super E> filter) {
+        int n = 0;
+        for (int i = 0; i < length; i++) { // Compacts.
+            Handle<E> handle = array.get(i);
+            if (filter.test(handle.element)) {
+                handle.index = -1;
+            } else {
+                handle.index = n;
+                array = array.set(n++, handle);
+            }
+        }
+        if (n == length) return false;
+        for (int i = n; i < length; i++) array = array.clear(i);
+        length = n;
+        for (int i = (n - 2) / ARITY; (n > 1) && (i >= 0); i--) siftDown(i, array.get(i)); // Heapify.
+        modCount++;
+        return true;
+    }
+
+    @Override
+    @Realtime(limit = LINEAR)
+    public FastHeap<E> clone() {
+        FastHeap<E> copy = new FastHeap<E>(comparator, defaultPriority, FractalArray.<Handle<E>>empty(), length);
+        for (int i = 0; i < length; i++) {
+            Handle<E> handle = array.get(i);
+            Handle<E> handleCopy = new Handle<E>(handle.element, handle.priority);
+            handleCopy.index = i;
+            copy.array = copy.array.set(i, handleCopy);
+        }
+        return copy;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final Equality<? super E> equality() {
+        return Equality.standard();
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final FastIterator<E> iterator() {
+        return new IteratorImpl<E>(array, 0, length, 1);
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final FastIterator<E> descendingIterator() {
+        return new IteratorImpl<E>(array, length - 1, -1, -1);
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final int modCount() {
+        return modCount;
+    }
+
+    private Handle<E> insert(Handle<E> handle) {
+        siftUp(length++, handle);
+        modCount++;
+        return handle;
+    }
+
+    private void removeAt(int i) {
+        Handle<E> removed = array.get(i);
+        removed.index = -1;
+        Handle<E> last = array.get(--length);
+        array = array.clear(length);
+        if (i != length) {
+            siftDown(i, last);
+            if (last.index == i) siftUp(i, last);
+        }
+        modCount++;
+    }
+
+    private void reposition(Handle<E> handle) {
+        int i = handle.index;
+        siftUp(i, handle);
+        if (handle.index == i) siftDown(i, handle);
+        modCount++;
+    }
+
+    private void check(Handle<E> handle) {
+        if (!isQueued(handle)) throw new IllegalArgumentException("Handle not queued in this heap");
+    }
+
+    private boolean less(Handle<E> left, Handle<E> right) {
+        return (comparator == null) ? left.priority < right.priority
+                : comparator.compare(left.element, right.element) < 0;
+    }
+
+    // Moves the specified handle from position i towards the root.
+    private void siftUp(int i, Handle<E> handle) {
+        while (i > 0) {
+            int parent = (i - 1) / ARITY;
+            Handle<E> p = array.get(parent);
+            if (!less(handle, p)) break;
+            p.index = i;
+            array = array.set(i, p);
+            i = parent;
+        }
+        handle.index = i;
+        array = array.set(i, handle);
+    }
+
+    // Moves the specified handle from position i towards the leaves.
+    private void siftDown(int i, Handle<E> handle) {
+        while (true) {
+            int child = i * ARITY + 1;
+            if (child >= length) break;
+            Handle<E> smallest = array.get(child);
+            for (int c = child + 1, end = Math.min(child + ARITY, length); c < end; c++) {
+                Handle<E> h = array.get(c);
+                if (less(h, smallest)) {
+                    smallest = h;
+                    child = c;
+                }
+            }
+            if (!less(smallest, handle)) break;
+            smallest.index = i;
+            array = array.set(i, smallest);
+            i = child;
+        }
+        handle.index = i;
+        array = array.set(i, handle);
+    }
+
+    /** Iterator Implementation (heap order). */
+    private static final class IteratorImpl<E> implements FastIterator<E> {
+        private final FractalArray<Handle<E>> array;
+        private int next;
+        private final int end;
+        private final int step;
+
+        public IteratorImpl(FractalArray<Handle<E>> array, int next, int end, int step) {
+            this.array = array;
+            this.next = next;
+            this.end = end;
+            this.step = step;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != end;
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super E> matching) {
+            for (; next != end; next += step) {
+                E element = array.get(next).element;
+                if (matching.test(element)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public E next() {
+            if (next == end) throw new NoSuchElementException();
+            E element = array.get(next).element;
+            next += step;
+            return element;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
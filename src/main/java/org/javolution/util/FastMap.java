@@ -191,7 +191,17 @@ public class FastMap<K, V> extends AbstractMap<K, V> {
 
     /** Freezes this map and returns the corresponding {@link Immutable} instance (cannot be reversed). */
     public final Immutable<K,V> freeze() {
-        return new Immutable<K,V>(keyOrder, valuesEquality, entries.freeze());
+        return freeze(false);
+    }
+
+    /** 
+     * Freezes this map and returns the corresponding {@link Immutable} instance (cannot be reversed).
+     * 
+     * @param compact indicates if the map entries should be copied into a dense read-optimized layout
+     *        (see {@link FastSet#freeze(boolean)}).
+     */
+    public final Immutable<K,V> freeze(boolean compact) {
+        return new Immutable<K,V>(keyOrder, valuesEquality, entries.freeze(compact));
     }
 
     @Override
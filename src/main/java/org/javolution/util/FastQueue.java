@@ -0,0 +1,163 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.annotations.Realtime;
+import org.javolution.util.function.Consumer;
+import org.javolution.util.function.Supplier;
+import org.javolution.util.internal.queue.LinkedSegmentQueueImpl;
+import org.javolution.util.internal.queue.MpmcArrayQueueImpl;
+import org.javolution.util.internal.queue.MpscArrayQueueImpl;
+import org.javolution.util.internal.queue.SpscArrayQueueImpl;
+
+/**
+ * A lock-free queue for handing elements from producer threads to consumer threads.
+ *
+ * Unlike {@link AbstractCollection#shared shared} tables, no lock is ever acquired; the producer and
+ * consumer indices are held on separate cache lines and updated through compare-and-set (multiple producers
+ * or consumers) or ordered writes (single producer or consumer). Implementations are selected according to
+ * the number of threads on each side; using a queue with more producers (or consumers) than it has been
+ * created for results in undefined behavior.
+ *
+ * ```java
+ * FastQueue<Message> inbox = FastQueue.mpsc(1024); // Many writers, one reader.
+ *
+ * // Producers.
+ * if (!inbox.offer(msg)) ... // Full.
+ *
+ * // Consumer (batch processing).
+ * inbox.drainTo(new Consumer<Message>() {
+ *     public void accept(Message msg) {
+ *         process(msg);
+ *     }});
+ * ```
+ *
+ * Queues do not accept {@code null} elements ({@code null} is returned by {@link #poll} when the queue is empty).
+ *
+ * @param <E> the type of queue elements
+ */
+public abstract class FastQueue<E> {
+
+    /** Default constructor. */
+    protected FastQueue() {
+    }
+
+    /**
+     * Returns a bounded single-producer / single-consumer queue (ring buffer).
+     *
+     * @param capacity the minimum capacity (rounded up to a power of two).
+     */
+    public static <E> FastQueue<E> spsc(int capacity) {
+        return new SpscArrayQueueImpl<E>(capacity);
+    }
+
+    /**
+     * Returns a bounded multi-producer / single-consumer queue (ring buffer).
+     *
+     * @param capacity the minimum capacity (rounded up to a power of two).
+     */
+    public static <E> FastQueue<E> mpsc(int capacity) {
+        return new MpscArrayQueueImpl<E>(capacity);
+    }
+
+    /**
+     * Returns a bounded multi-producer / multi-consumer queue (ring buffer with sequenced slots).
+     *
+     * @param capacity the minimum capacity (rounded up to a power of two).
+     */
+    public static <E> FastQueue<E> mpmc(int capacity) {
+        return new MpmcArrayQueueImpl<E>(capacity);
+    }
+
+    /**
+     * Returns an unbounded multi-producer / single-consumer queue made of linked array segments
+     * (segments are allocated as the queue grows and released once consumed).
+     */
+    public static <E> FastQueue<E> unbounded() {
+        return new LinkedSegmentQueueImpl<E>();
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if not full.
+     *
+     * @param element the element to insert.
+     * @return {@code true} if the element has been inserted; {@code false} if this queue is full.
+     * @throws NullPointerException if the specified element is {@code null}
+     */
+    @Realtime(limit = CONSTANT)
+    public abstract boolean offer(E element);
+
+    /** Removes and returns the head of this queue or {@code null} if this queue is empty. */
+    @Realtime(limit = CONSTANT)
+    public abstract @Nullable E poll();
+
+    /** Returns the head of this queue (consumer threads only) or {@code null} if this queue is empty. */
+    @Realtime(limit = CONSTANT)
+    public abstract @Nullable E peek();
+
+    /** Returns the maximum number of elements held ({@code Integer.MAX_VALUE} for unbounded queues). */
+    @Realtime(limit = CONSTANT)
+    public abstract int capacity();
+
+    /** Returns an estimate of the number of elements held (exact if there is no concurrent access). */
+    @Realtime(limit = CONSTANT)
+    public abstract int size();
+
+    /** Indicates if this queue is empty (estimate if there is concurrent access). */
+    @Realtime(limit = CONSTANT)
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Removes all the elements available and passes them to the specified consumer.
+     *
+     * @param consumer the consumer of the elements removed.
+     * @return the number of elements removed.
+     */
+    @Realtime(limit = LINEAR)
+    public final int drainTo(Consumer<? super E> consumer) {
+        return drainTo(consumer, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes up to the specified number of elements and passes them to the specified consumer.
+     *
+     * @param consumer the consumer of the elements removed.
+     * @param limit the maximum number of elements to remove.
+     * @return the number of elements removed.
+     */
+    @Realtime(limit = LINEAR)
+    public int drainTo(Consumer<? super E> consumer, int limit) {
+        int n = 0;
+        for (E e; (n < limit) && ((e = poll()) != null); n++) consumer.accept(e);
+        return n;
+    }
+
+    /**
+     * Inserts up to the specified number of elements from the specified supplier while this queue is not full.
+     * The supplier is only called when there is room for the element it returns.
+     *
+     * @param supplier the supplier of {@code non-null} elements.
+     * @param limit the maximum number of elements to insert.
+     * @return the number of elements inserted.
+     * @throws NullPointerException if the supplier returns {@code null} (previous elements remain inserted)
+     */
+    @Realtime(limit = LINEAR)
+    public abstract int fillFrom(Supplier<? extends E> supplier, int limit);
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(size: " + size() + ", capacity: " + capacity() + ")";
+    }
+}
@@ -0,0 +1,553 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+
+import java.io.Serializable;
+import java.util.NoSuchElementException;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.annotations.Realtime;
+import org.javolution.util.function.Equality;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
+
+/**
+ * Lexically ordered map whose keys are stored in a compressed radix tree (PATRICIA trie).
+ *
+ * Keys sharing a common prefix share the nodes holding that prefix and chains of single-child nodes are collapsed
+ * into one node (the node label). Look-up time depends only on the key length (not on the map size) and
+ * prefix queries ({@link #prefixMap}) go directly to the subtree holding the keys with the specified prefix.
+ * For large dictionaries of keys with long common prefixes (e.g. URLs, file paths, identifiers) this map
+ * uses less memory than a {@link FastMap} with {@link Order#lexical lexical} order.
+ *
+ * ```java
+ * FastRadixMap<String, Route> routes = new FastRadixMap<String, Route>();
+ * routes.put("/api/users", usersRoute);
+ * routes.put("/api/users/admin", adminRoute);
+ * routes.put("/api/orders", ordersRoute);
+ * ...
+ * for (String path : routes.prefixMap("/api/users").keySet()) { ... } // Iterates over the users routes only.
+ * ```
+ *
+ * Iterations follow the {@link Order#lexical lexical} order of the keys.
+ *
+ * @param <K> the type of keys ({@code null} keys are not supported)
+ * @param <V> the type of values
+ */
+@Realtime
+public class FastRadixMap<K extends CharSequence, V> extends AbstractMap<K, V> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final char[] NO_CHAR = new char[0];
+
+    private final Equality<? super V> valuesEquality;
+    private final EntrySet entries = new EntrySet();
+    private Node<K, V> root = new Node<K, V>(NO_CHAR);
+    private int size;
+
+    /** Creates a radix map using {@link Equality#standard() standard} equality for its values. */
+    public FastRadixMap() {
+        this(Equality.standard());
+    }
+
+    /** Creates a radix map using the specified equality for its values. */
+    public FastRadixMap(Equality<? super V> valuesEquality) {
+        this.valuesEquality = valuesEquality;
+    }
+
+    @Override
+    public FastRadixMap<K,V> with(K key, V value) {
+        put(key, value);
+        return this;
+    }
+
+    @Override
+    public AbstractSet<Entry<K, V>> entries() {
+        return entries;
+    }
+
+    @Override
+    public final int size() {
+        return size;
+    }
+
+    @Override
+    public final boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public final void clear() {
+        root = new Node<K, V>(NO_CHAR);
+        size = 0;
+    }
+
+    @Override
+    public final Order<? super K> keyOrder() {
+        return Order.lexical();
+    }
+
+    @Override
+    public final Equality<? super V> valuesEquality() {
+        return valuesEquality;
+    }
+
+    @Override
+    public final Entry<K, V> getEntry(K key) {
+        Node<K, V> node = find(key);
+        return (node != null) ? node.entry : null;
+    }
+
+    @Override
+    public final Entry<K, V> addEntry(K key, V value) {
+        Entry<K, V> entry = new Entry<K, V>(key, value);
+        insert(entry, true /* allowDuplicate */);
+        return entry;
+    }
+
+    @Override
+    public final Entry<K, V> removeEntry(K key) {
+        int length = key.length();
+        Node<K, V> parent = null;
+        int index = -1; // Index of node in parent.
+        Node<K, V> grandParent = null;
+        int parentIndex = -1; // Index of parent in grand parent.
+        Node<K, V> node = root;
+        for (int i = 0; i < length;) {
+            int j = node.indexOf(key.charAt(i));
+            if (j < 0) return null;
+            Node<K, V> child = node.children[j];
+            if (!child.matches(key, i)) return null;
+            i += child.label.length;
+            grandParent = parent;
+            parentIndex = index;
+            parent = node;
+            index = j;
+            node = child;
+        }
+        Entry<K, V> removed = node.removeEntry();
+        if (removed == null) return null;
+        size--;
+        if (parent != null) parent.compact(index);
+        if (grandParent != null) grandParent.compact(parentIndex); // Parent may have lost its only other child.
+        return removed;
+    }
+
+    @Override
+    @Realtime(limit = LINEAR)
+    public FastRadixMap<K, V> clone() {
+        FastRadixMap<K, V> copy = new FastRadixMap<K, V>(valuesEquality);
+        copy.root = root.copy();
+        copy.size = size;
+        return copy;
+    }
+
+    /** Returns the node whose key is the one specified or {@code null} if none. */
+    private Node<K, V> find(CharSequence key) {
+        Node<K, V> node = root;
+        for (int i = 0, length = key.length(); i < length;) {
+            int j = node.indexOf(key.charAt(i));
+            if (j < 0) return null;
+            node = node.children[j];
+            if (!node.matches(key, i)) return null;
+            i += node.label.length;
+        }
+        return node;
+    }
+
+    /** Inserts the specified entry (splitting the node labels if necessary). */
+    private boolean insert(Entry<K, V> entry, boolean allowDuplicate) {
+        K key = entry.getKey();
+        Node<K, V> node = root;
+        for (int i = 0, length = key.length(); i < length;) {
+            char c = key.charAt(i);
+            int j = node.indexOf(c);
+            if (j < 0) { // New leaf.
+                Node<K, V> leaf = new Node<K, V>(chars(key, i, length));
+                leaf.entry = entry;
+                node.insertChild(~j, leaf);
+                size++;
+                return true;
+            }
+            Node<K, V> child = node.children[j];
+            char[] label = child.label;
+            int m = 1; // First character matches.
+            while ((m < label.length) && (i + m < length) && (label[m] == key.charAt(i + m))) m++;
+            if (m < label.length) { // Splits child.
+                char[] head = new char[m];
+                System.arraycopy(label, 0, head, 0, m);
+                char[] tail = new char[label.length - m];
+                System.arraycopy(label, m, tail, 0, tail.length);
+                Node<K, V> split = new Node<K, V>(head);
+                child.label = tail;
+                split.insertChild(0, child);
+                node.children[j] = split;
+                child = split;
+            }
+            i += m;
+            node = child;
+        }
+        if (!node.addEntry(entry, allowDuplicate)) return false;
+        size++;
+        return true;
+    }
+
+    private static char[] chars(CharSequence csq, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) chars[i - start] = csq.charAt(i);
+        return chars;
+    }
+
+    /** A node of the radix tree. */
+    private static final class Node<K, V> implements Serializable {
+        private static final long serialVersionUID = FastRadixMap.serialVersionUID;
+        char[] label; // Characters from parent node (first character is the one in parent firsts array).
+        @Nullable Entry<K, V> entry; // Entry whose key ends at this node.
+        @Nullable FastTable<Entry<K, V>> duplicates; // Other entries with the same key (multimap).
+        char[] firsts = NO_CHAR; // Sorted first characters of children labels.
+        @SuppressWarnings("unchecked")
+        Node<K, V>[] children = (Node<K, V>[]) new Node<?, ?>[0];
+        int count; // Number of children.
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        /** Returns the index of the child starting with the specified character or {@code -(insertion point) - 1}. */
+        int indexOf(char c) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midChar = firsts[mid];
+                if (midChar < c) low = mid + 1;
+                else if (midChar > c) high = mid - 1;
+                else return mid;
+            }
+            return ~low;
+        }
+
+        /** Indicates if the key starts with this node label at the specified position. */
+        boolean matches(CharSequence key, int start) {
+            if (key.length() - start < label.length) return false;
+            for (int i = label.length; i > 0;)
+                if (label[--i] != key.charAt(start + i)) return false;
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        void insertChild(int index, Node<K, V> child) {
+            if (count == firsts.length) {
+                int capacity = (count == 0) ? 2 : count << 1;
+                char[] tmpFirsts = new char[capacity];
+                System.arraycopy(firsts, 0, tmpFirsts, 0, count);
+                firsts = tmpFirsts;
+                Node<K, V>[] tmpChildren = (Node<K, V>[]) new Node<?, ?>[capacity];
+                System.arraycopy(children, 0, tmpChildren, 0, count);
+                children = tmpChildren;
+            }
+            System.arraycopy(firsts, index, firsts, index + 1, count - index);
+            System.arraycopy(children, index, children, index + 1, count - index);
+            firsts[index] = child.label[0];
+            children[index] = child;
+            count++;
+        }
+
+        void removeChild(int index) {
+            System.arraycopy(firsts, index + 1, firsts, index, count - index - 1);
+            System.arraycopy(children, index + 1, children, index, count - index - 1);
+            children[--count] = null;
+        }
+
+        /** Removes or merges the child at the specified index if it has no entry and at most one child. */
+        void compact(int index) {
+            Node<K, V> child = children[index];
+            if (child.entry != null) return;
+            if (child.count == 0) {
+                removeChild(index);
+            } else if (child.count == 1) { // Merges with grand-child.
+                Node<K, V> grandChild = child.children[0];
+                char[] label = new char[child.label.length + grandChild.label.length];
+                System.arraycopy(child.label, 0, label, 0, child.label.length);
+                System.arraycopy(grandChild.label, 0, label, child.label.length, grandChild.label.length);
+                grandChild.label = label;
+                children[index] = grandChild;
+            }
+        }
+
+        boolean addEntry(Entry<K, V> e, boolean allowDuplicate) {
+            if (entry == null) {
+                entry = e;
+                return true;
+            }
+            if (!allowDuplicate) return false;
+            if (duplicates == null) duplicates = new FastTable<Entry<K, V>>();
+            duplicates.addLast(e);
+            return true;
+        }
+
+        Entry<K, V> removeEntry() {
+            if ((duplicates != null) && !duplicates.isEmpty()) return duplicates.removeLast();
+            Entry<K, V> removed = entry;
+            entry = null;
+            return removed;
+        }
+
+        /** Removes the entries (including in sub-nodes) matching the specified filter, returns the count removed. */
+        int removeIf(Predicate<? super Entry<K, V>> filter) {
+            int removed = 0;
+            if (duplicates != null) {
+                int n = duplicates.size();
+                duplicates.removeIf(filter);
+                removed += n - duplicates.size();
+            }
+            if ((entry != null) && filter.test(entry)) {
+                removed++;
+                entry = ((duplicates != null) && !duplicates.isEmpty()) ? duplicates.removeFirst() : null;
+            }
+            for (int i = count; --i >= 0;) { // Reverse order, removals do not shift indices of children to visit.
+                removed += children[i].removeIf(filter);
+                compact(i);
+            }
+            return removed;
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<K, V> copy() {
+            Node<K, V> copy = new Node<K, V>(label);
+            if (entry != null) copy.entry = new Entry<K, V>(entry.getKey(), entry.getValue());
+            if (duplicates != null) {
+                copy.duplicates = new FastTable<Entry<K, V>>();
+                for (Entry<K, V> e : duplicates)
+                    copy.duplicates.addLast(new Entry<K, V>(e.getKey(), e.getValue()));
+            }
+            copy.firsts = firsts.clone();
+            copy.children = (Node<K, V>[]) new Node<?, ?>[children.length];
+            for (int i = 0; i < count; i++) copy.children[i] = children[i].copy();
+            copy.count = count;
+            return copy;
+        }
+
+        int entryCount() {
+            return (entry == null) ? 0 : (duplicates == null) ? 1 : 1 + duplicates.size();
+        }
+
+        Entry<K, V> entryAt(int i) {
+            return (i == 0) ? entry : duplicates.get(i - 1);
+        }
+    }
+
+    /** The entries view (backed by the radix tree). */
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+        private static final long serialVersionUID = FastRadixMap.serialVersionUID;
+        private final Order<Entry<K, V>> order = new Order<Entry<K, V>>() {
+            private static final long serialVersionUID = FastRadixMap.serialVersionUID;
+
+            @Override
+            public boolean areEqual(Entry<K, V> left, Entry<K, V> right) {
+                if (left == right) return true;
+                if ((left == null) || (right == null)) return false;
+                return Order.lexical().areEqual(left.getKey(), right.getKey());
+            }
+
+            @Override
+            public int compare(Entry<K, V> left, Entry<K, V> right) {
+                if (left == null) return -1;
+                if (right == null) return 1;
+                return Order.lexical().compare(left.getKey(), right.getKey());
+            }
+
+            @Override
+            public long indexOf(Entry<K, V> entry) {
+                if (entry == null) return 0;
+                return Order.lexical().indexOf(entry.getKey());
+            }
+
+        };
+
+        @Override
+        public boolean add(Entry<K, V> entry, boolean allowDuplicate) {
+            return insert(entry, allowDuplicate);
+        }
+
+        @Override
+        public void clear() {
+            FastRadixMap.this.clear();
+        }
+
+        @Override
+        public FastIterator<Entry<K, V>> descendingIterator(@Nullable Entry<K, V> high) {
+            return new IteratorImpl((high != null) ? high.getKey() : null, true);
+        }
+
+        @Override
+        public Entry<K, V> getAny(Entry<K, V> entry) {
+            return getEntry(entry.getKey());
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public FastIterator<Entry<K, V>> iterator(@Nullable Entry<K, V> low) {
+            return new IteratorImpl((low != null) ? low.getKey() : null, false);
+        }
+
+        @Override
+        public Order<? super Entry<K, V>> order() {
+            return order;
+        }
+
+        @Override
+        public Entry<K, V> removeAny(Entry<K, V> entry) {
+            return removeEntry(entry.getKey());
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super Entry<K, V>> filter) {
+            int removed = root.removeIf(filter);
+            size -= removed;
+            return removed != 0;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+    }
+
+    /** Depth-first iterator over the radix tree (starting at the node closest to the specified bound). */
+    private final class IteratorImpl implements FastIterator<Entry<K, V>> {
+        private final boolean descending;
+        @SuppressWarnings("unchecked")
+        private Node<K, V>[] nodes = (Node<K, V>[]) new Node<?, ?>[8]; // Stack of nodes being visited.
+        private int[] positions = new int[8]; // Position of the next child to visit (or remaining count if descending).
+        private int depth;
+        private Node<K, V> node; // Node holding the next entries (null if none).
+        private int entryIndex; // Index of the next entry in node.
+
+        private IteratorImpl(@Nullable CharSequence bound, boolean descending) {
+            this.descending = descending;
+            push(root);
+            if ((bound == null) ? (!descending && (root.entry != null)) : seek(bound)) node = root;
+            if (node == null) node = nextNode();
+            else node = nodes[depth - 1];
+            if (node != null) entryIndex = descending ? node.entryCount() - 1 : 0;
+        }
+
+        /** Moves the stack to the specified bound, returns true if the top node is the first to iterate. */
+        private boolean seek(CharSequence bound) {
+            int length = bound.length();
+            for (int i = 0;;) {
+                Node<K, V> top = nodes[depth - 1];
+                if (i == length) { // Top node key is the bound.
+                    if (!descending) return top.entry != null;
+                    positions[depth - 1] = 0; // Children are greater than bound.
+                    return false;
+                }
+                int j = top.indexOf(bound.charAt(i));
+                if (j < 0) { // Children before insertion point are lower.
+                    positions[depth - 1] = ~j;
+                    return false;
+                }
+                Node<K, V> child = top.children[j];
+                char[] label = child.label;
+                int m = 1;
+                while ((m < label.length) && (i + m < length) && (label[m] == bound.charAt(i + m))) m++;
+                if (m == label.length) { // Descends.
+                    positions[depth - 1] = descending ? j : j + 1;
+                    push(child);
+                    i += m;
+                    continue;
+                }
+                boolean greater = (i + m == length) || (label[m] > bound.charAt(i + m)); // Whole child subtree.
+                positions[depth - 1] = greater ? j : j + 1;
+                return false;
+            }
+        }
+
+        private void push(Node<K, V> n) {
+            if (depth == nodes.length) {
+                @SuppressWarnings("unchecked")
+                Node<K, V>[] tmpNodes = (Node<K, V>[]) new Node<?, ?>[depth << 1];
+                System.arraycopy(nodes, 0, tmpNodes, 0, depth);
+                nodes = tmpNodes;
+                int[] tmpPositions = new int[depth << 1];
+                System.arraycopy(positions, 0, tmpPositions, 0, depth);
+                positions = tmpPositions;
+            }
+            nodes[depth] = n;
+            positions[depth++] = descending ? n.count : 0;
+        }
+
+        /** Returns the next node holding entries (pre-order if ascending, reverse post-order if descending). */
+        private Node<K, V> nextNode() {
+            while (depth > 0) {
+                Node<K, V> top = nodes[depth - 1];
+                int pos = positions[depth - 1];
+                if (descending) {
+                    if (pos > 0) {
+                        positions[depth - 1] = pos - 1;
+                        push(top.children[pos - 1]);
+                    } else {
+                        depth--;
+                        if (top.entry != null) return top;
+                    }
+                } else {
+                    if (pos < top.count) {
+                        positions[depth - 1] = pos + 1;
+                        Node<K, V> child = top.children[pos];
+                        push(child);
+                        if (child.entry != null) return child;
+                    } else {
+                        depth--;
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return node != null;
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super Entry<K, V>> matching) {
+            while (node != null) {
+                if (matching.test(node.entryAt(entryIndex))) return true;
+                next();
+            }
+            return false;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (node == null) throw new NoSuchElementException();
+            Entry<K, V> next = node.entryAt(entryIndex);
+            if (descending ? --entryIndex < 0 : ++entryIndex >= node.entryCount()) {
+                node = nextNode();
+                if (node != null) entryIndex = descending ? node.entryCount() - 1 : 0;
+            }
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
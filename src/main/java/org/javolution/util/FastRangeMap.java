@@ -0,0 +1,373 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+import static org.javolution.annotations.Realtime.Limit.LOG_N;
+import static org.javolution.lang.MathLib.unsignedLessThan;
+
+import java.io.Serializable;
+import java.util.NoSuchElementException;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.annotations.Realtime;
+import org.javolution.text.TextBuilder;
+import org.javolution.util.function.Equality;
+import org.javolution.util.function.Predicate;
+
+/**
+ * A map from disjoint unsigned 64-bits intervals to values, based upon a {@link FractalArray} indexed by the
+ * first index of each interval.
+ *
+ * Mappings over a range split or truncate the intervals previously mapped in that range; adjacent intervals
+ * mapped to equal values are automatically coalesced. Point lookups and overlap queries are performed
+ * through {@link FractalArray#next FractalArray.next} (bounded number of levels).
+ *
+ * ```java
+ * FastRangeMap<String> networks = new FastRangeMap<String>();
+ * networks.put(ip("10.0.0.0"), ip("11.0.0.0"), "private");
+ * networks.put(ip("10.1.0.0"), ip("10.2.0.0"), "lab"); // Splits the "private" range.
+ * String network = networks.get(ip("10.1.2.3")); // "lab"
+ * ```
+ *
+ * Ranges are specified as {@code from} (inclusive) and {@code to} (exclusive), both unsigned.
+ *
+ * @param <V> the type of the values ({@code null} values are not supported, mapping a range to {@code null}
+ *            removes it)
+ */
+public class FastRangeMap<V> implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+
+    /**
+     * An interval mapped to a value (immutable).
+     *
+     * @param <V> the type of the value
+     */
+    public static final class Range<V> implements Serializable {
+        private static final long serialVersionUID = 0x700L; // Version.
+        private final long from;
+        private final long last; // Inclusive.
+        private final V value;
+
+        private Range(long from, long last, V value) {
+            this.from = from;
+            this.last = last;
+            this.value = value;
+        }
+
+        /** Returns the unsigned first index of this range (inclusive). */
+        public long getFrom() {
+            return from;
+        }
+
+        /** Returns the unsigned index after the last index of this range (exclusive). */
+        public long getTo() {
+            return last + 1;
+        }
+
+        /** Returns the value this range is mapped to. */
+        public V getValue() {
+            return value;
+        }
+
+        /** Indicates if this range contains the specified unsigned index. */
+        public boolean contains(long index) {
+            return !unsignedLessThan(index, from) && !unsignedLessThan(last, index);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Range)) return false;
+            Range<?> that = (Range<?>) obj;
+            return (from == that.from) && (last == that.last) && value.equals(that.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (from ^ (from >>> 32) ^ last ^ (last >>> 32)) * 31 + value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "[" + Long.toUnsignedString(from) + ", " + Long.toUnsignedString(last + 1) + ")=" + value;
+        }
+    }
+
+    private final Equality<? super V> valuesEquality;
+    private FractalArray<Range<V>> ranges = FractalArray.empty();
+    private int size;
+
+    /** Creates an empty range map using default equality to coalesce adjacent ranges. */
+    public FastRangeMap() {
+        this(Equality.standard());
+    }
+
+    /**
+     * Creates an empty range map using the specified equality to coalesce adjacent ranges.
+     *
+     * @param valuesEquality the equality used to determine if adjacent ranges map to the same value.
+     */
+    public FastRangeMap(Equality<? super V> valuesEquality) {
+        this.valuesEquality = valuesEquality;
+    }
+
+    /**
+     * Maps the specified range to the specified value; previous mappings within that range are replaced
+     * (ranges partially covered are split) and adjacent ranges mapped to an equal value are merged.
+     *
+     * @param from the unsigned first index of the range (inclusive).
+     * @param to the unsigned index after the last index of the range (exclusive).
+     * @param value the value or {@code null} to remove the mappings in the specified range.
+     * @throws IllegalArgumentException if {@code to < from} (unsigned)
+     */
+    @Realtime(limit = LOG_N, comment = "Linear in the number of ranges overlapped")
+    public void put(long from, long to, @Nullable V value) {
+        remove(from, to);
+        if ((value == null) || (from == to)) return;
+        long last = to - 1;
+        if (from != 0) { // Merges with left neighbor.
+            Range<V> left = floor(from - 1);
+            if ((left != null) && (left.last == from - 1) && valuesEquality.areEqual(left.value, value)) {
+                from = left.from;
+                removeRange(left);
+            }
+        }
+        if (last != -1) { // Merges with right neighbor.
+            Range<V> right = ranges.get(last + 1);
+            if ((right != null) && valuesEquality.areEqual(right.value, value)) {
+                last = right.last;
+                removeRange(right);
+            }
+        }
+        addRange(new Range<V>(from, last, value));
+    }
+
+    /**
+     * Removes the mappings within the specified range (ranges partially covered are truncated or split).
+     *
+     * @param from the unsigned first index of the range (inclusive).
+     * @param to the unsigned index after the last index of the range (exclusive).
+     * @throws IllegalArgumentException if {@code to < from} (unsigned)
+     */
+    @Realtime(limit = LOG_N, comment = "Linear in the number of ranges overlapped")
+    public void remove(long from, long to) {
+        if (unsignedLessThan(to, from)) throw new IllegalArgumentException("to < from (unsigned)");
+        if (from == to) return;
+        long last = to - 1;
+        Range<V> range = floor(from);
+        if ((range != null) && !unsignedLessThan(range.last, from)) { // Overlaps the start of the removed range.
+            removeRange(range);
+            if (range.from != from) addRange(new Range<V>(range.from, from - 1, range.value));
+            if (unsignedLessThan(last, range.last)) { // Removed range strictly inside.
+                addRange(new Range<V>(last + 1, range.last, range.value));
+                return;
+            }
+        }
+        if (from == last) return;
+        for (long start = from + 1; (start = ranges.next(start, last, Predicate.TRUE)) != -1;) {
+            range = ranges.get(start);
+            removeRange(range);
+            if (unsignedLessThan(last, range.last)) { // Overlaps the end of the removed range.
+                addRange(new Range<V>(last + 1, range.last, range.value));
+                return;
+            }
+            if (start == last) return;
+            start++;
+        }
+    }
+
+    /**
+     * Returns the value mapped to the range holding the specified index.
+     *
+     * @param index the unsigned index.
+     * @return the corresponding value or {@code null} if the index is not in any range.
+     */
+    @Realtime(limit = LOG_N)
+    public @Nullable V get(long index) {
+        Range<V> range = getRange(index);
+        return (range != null) ? range.value : null;
+    }
+
+    /**
+     * Returns the range holding the specified index.
+     *
+     * @param index the unsigned index.
+     * @return the range holding the specified index or {@code null} if none.
+     */
+    @Realtime(limit = LOG_N)
+    public @Nullable Range<V> getRange(long index) {
+        Range<V> range = floor(index);
+        return ((range != null) && !unsignedLessThan(range.last, index)) ? range : null;
+    }
+
+    /**
+     * Indicates if any index of the specified range is mapped.
+     *
+     * @param from the unsigned first index of the range (inclusive).
+     * @param to the unsigned index after the last index of the range (exclusive).
+     */
+    @Realtime(limit = LOG_N)
+    public boolean overlaps(long from, long to) {
+        if (!unsignedLessThan(from, to)) return false;
+        if (getRange(from) != null) return true;
+        return (from != to - 1) && (ranges.next(from + 1, to - 1, Predicate.TRUE) != -1);
+    }
+
+    /**
+     * Returns an iterator over the ranges overlapping the specified range (ascending order).
+     *
+     * @param from the unsigned first index of the range (inclusive).
+     * @param to the unsigned index after the last index of the range (exclusive).
+     */
+    @Realtime(limit = LOG_N)
+    public FastIterator<Range<V>> overlapping(long from, long to) {
+        if (!unsignedLessThan(from, to)) return new IteratorImpl<V>(ranges, -1, 0);
+        Range<V> first = getRange(from);
+        long start = (first != null) ? first.from : ranges.next(from, to - 1, Predicate.TRUE);
+        return new IteratorImpl<V>(ranges, start, to - 1);
+    }
+
+    /** Returns an iterator over all the ranges of this map (ascending order). */
+    @Realtime(limit = CONSTANT)
+    public FastIterator<Range<V>> iterator() {
+        return new IteratorImpl<V>(ranges, ranges.next(0, -1, Predicate.TRUE), -1);
+    }
+
+    /** Returns the number of disjoint ranges mapped. */
+    @Realtime(limit = CONSTANT)
+    public int size() {
+        return size;
+    }
+
+    /** Indicates if this map is empty. */
+    @Realtime(limit = CONSTANT)
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Removes all the mappings. */
+    @Realtime(limit = CONSTANT)
+    public void clear() {
+        ranges = FractalArray.empty();
+        size = 0;
+    }
+
+    /** Returns the equality used to coalesce adjacent ranges. */
+    @Realtime(limit = CONSTANT)
+    public Equality<? super V> valuesEquality() {
+        return valuesEquality;
+    }
+
+    /** Returns a copy of this map (ranges are immutable and shared). */
+    @Override
+    @Realtime(limit = LINEAR)
+    @SuppressWarnings("unchecked")
+    public FastRangeMap<V> clone() {
+        try {
+            FastRangeMap<V> copy = (FastRangeMap<V>) super.clone();
+            copy.ranges = ranges.clone();
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new Error("Cannot happen since cloneable.");
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof FastRangeMap)) return false;
+        FastRangeMap<?> that = (FastRangeMap<?>) obj;
+        if (this.size != that.size) return false;
+        for (FastIterator<?> i = iterator(), j = that.iterator(); i.hasNext();)
+            if (!i.next().equals(j.next())) return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (FastIterator<Range<V>> i = iterator(); i.hasNext();) hash += i.next().hashCode();
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        TextBuilder dest = new TextBuilder();
+        dest.append('[');
+        for (FastIterator<Range<V>> i = iterator(); i.hasNext();) {
+            dest.append(i.next().toString());
+            if (i.hasNext()) dest.append(',').append(' ');
+        }
+        return dest.append(']').toString();
+    }
+
+    // Returns the range starting at or before the specified index (may not contain it).
+    private Range<V> floor(long index) {
+        long start = ranges.next(index, 0, Predicate.TRUE);
+        return (start == -1) ? null : ranges.get(start); // No range starts at 2^64-1 (exclusive bound).
+    }
+
+    private void addRange(Range<V> range) {
+        ranges = ranges.set(range.from, range);
+        size++;
+    }
+
+    private void removeRange(Range<V> range) {
+        ranges = ranges.clear(range.from);
+        size--;
+    }
+
+    /** Iterator over consecutive ranges starting at the specified index up to the specified last index. */
+    private static final class IteratorImpl<V> implements FastIterator<Range<V>> {
+        private final FractalArray<Range<V>> ranges;
+        private final long last;
+        private Range<V> next;
+
+        IteratorImpl(FractalArray<Range<V>> ranges, long start, long last) {
+            this.ranges = ranges;
+            this.last = last;
+            this.next = (start == -1) ? null : ranges.get(start);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super Range<V>> matching) {
+            while (next != null) {
+                if (matching.test(next)) return true;
+                next();
+            }
+            return false;
+        }
+
+        @Override
+        public Range<V> next() {
+            if (next == null) throw new NoSuchElementException();
+            Range<V> range = next;
+            long start = range.last + 1;
+            if ((range.last == -1) || (range.last == last) || unsignedLessThan(last, start)) {
+                next = null;
+            } else {
+                start = ranges.next(start, last, Predicate.TRUE);
+                next = (start == -1) ? null : ranges.get(start);
+            }
+            return range;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
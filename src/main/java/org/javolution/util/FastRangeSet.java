@@ -0,0 +1,174 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+import static org.javolution.annotations.Realtime.Limit.LOG_N;
+import static org.javolution.lang.MathLib.unsignedLessThan;
+
+import java.io.Serializable;
+
+import org.javolution.annotations.Realtime;
+import org.javolution.text.TextBuilder;
+import org.javolution.util.FastRangeMap.Range;
+
+/**
+ * A set of unsigned 64-bits indices held as disjoint intervals (a {@link FastRangeMap} whose ranges are
+ * all mapped to {@link Boolean#TRUE}); adding overlapping or adjacent intervals merges them, removing an
+ * interval splits the ranges it partially covers.
+ *
+ * ```java
+ * FastRangeSet busy = new FastRangeSet();
+ * busy.add(900, 1200);
+ * busy.add(1200, 1300); // Coalesced into [900, 1300)
+ * boolean free = !busy.overlaps(1230, 1400); // false
+ * ```
+ */
+public class FastRangeSet implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+
+    private FastRangeMap<Boolean> map = new FastRangeMap<Boolean>();
+
+    /** Creates an empty range set. */
+    public FastRangeSet() {
+    }
+
+    /**
+     * Adds the specified range to this set.
+     *
+     * @param from the unsigned first index of the range (inclusive).
+     * @param to the unsigned index after the last index of the range (exclusive).
+     * @throws IllegalArgumentException if {@code to < from} (unsigned)
+     */
+    @Realtime(limit = LOG_N, comment = "Linear in the number of ranges overlapped")
+    public void add(long from, long to) {
+        map.put(from, to, Boolean.TRUE);
+    }
+
+    /**
+     * Removes the specified range from this set.
+     *
+     * @param from the unsigned first index of the range (inclusive).
+     * @param to the unsigned index after the last index of the range (exclusive).
+     * @throws IllegalArgumentException if {@code to < from} (unsigned)
+     */
+    @Realtime(limit = LOG_N, comment = "Linear in the number of ranges overlapped")
+    public void remove(long from, long to) {
+        map.remove(from, to);
+    }
+
+    /** Indicates if this set contains the specified unsigned index. */
+    @Realtime(limit = LOG_N)
+    public boolean contains(long index) {
+        return map.getRange(index) != null;
+    }
+
+    /**
+     * Indicates if this set contains all the indices of the specified range.
+     *
+     * @param from the unsigned first index of the range (inclusive).
+     * @param to the unsigned index after the last index of the range (exclusive).
+     */
+    @Realtime(limit = LOG_N)
+    public boolean contains(long from, long to) {
+        if (!unsignedLessThan(from, to)) return true;
+        Range<Boolean> range = map.getRange(from); // Ranges are coalesced.
+        return (range != null) && range.contains(to - 1);
+    }
+
+    /**
+     * Indicates if this set contains any index of the specified range.
+     *
+     * @param from the unsigned first index of the range (inclusive).
+     * @param to the unsigned index after the last index of the range (exclusive).
+     */
+    @Realtime(limit = LOG_N)
+    public boolean overlaps(long from, long to) {
+        return map.overlaps(from, to);
+    }
+
+    /** Returns the range of this set holding the specified index or {@code null} if none. */
+    @Realtime(limit = LOG_N)
+    public Range<Boolean> getRange(long index) {
+        return map.getRange(index);
+    }
+
+    /**
+     * Returns an iterator over the ranges of this set overlapping the specified range (ascending order).
+     *
+     * @param from the unsigned first index of the range (inclusive).
+     * @param to the unsigned index after the last index of the range (exclusive).
+     */
+    @Realtime(limit = LOG_N)
+    public FastIterator<Range<Boolean>> overlapping(long from, long to) {
+        return map.overlapping(from, to);
+    }
+
+    /** Returns an iterator over the ranges of this set (ascending order). */
+    @Realtime(limit = CONSTANT)
+    public FastIterator<Range<Boolean>> iterator() {
+        return map.iterator();
+    }
+
+    /** Returns the number of disjoint ranges in this set. */
+    @Realtime(limit = CONSTANT)
+    public int size() {
+        return map.size();
+    }
+
+    /** Indicates if this set is empty. */
+    @Realtime(limit = CONSTANT)
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /** Removes all the ranges of this set. */
+    @Realtime(limit = CONSTANT)
+    public void clear() {
+        map.clear();
+    }
+
+    /** Returns a copy of this set. */
+    @Override
+    @Realtime(limit = LINEAR)
+    public FastRangeSet clone() {
+        try {
+            FastRangeSet copy = (FastRangeSet) super.clone();
+            copy.map = map.clone();
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new Error("Cannot happen since cloneable.");
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return (this == obj) || ((obj instanceof FastRangeSet) && map.equals(((FastRangeSet) obj).map));
+    }
+
+    @Override
+    public int hashCode() {
+        return map.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        TextBuilder dest = new TextBuilder();
+        dest.append('[');
+        for (FastIterator<Range<Boolean>> i = iterator(); i.hasNext();) {
+            Range<Boolean> range = i.next();
+            dest.append('[').append(Long.toUnsignedString(range.getFrom())).append(", ");
+            dest.append(Long.toUnsignedString(range.getTo())).append(')');
+            if (i.hasNext()) dest.append(',').append(' ');
+        }
+        return dest.append(']').toString();
+    }
+}
@@ -105,6 +105,7 @@ public class FastSet<E> extends AbstractSet<E> {
     FractalArray<E> singles; // Hold single instances. If single is set, multiple is not, and reciprocally. 
     FractalArray<AbstractSet<E>> multiples; // Holds multiple instances (collisions). 
     int size; // Keep tracks of the size since fractal arrays are unbounded.
+    transient int modCount; // Incremented by each modification.
 
     /** Creates a {@link Equality#STANDARD standard} set arbitrarily ordered (hash order). */
     public FastSet() {
@@ -137,12 +138,25 @@ public class FastSet<E> extends AbstractSet<E> {
 
     /** Freezes this set and returns the corresponding {@link Immutable} instance (cannot be reversed). */
     public final Immutable<E> freeze() {
-        singles = singles.unmodifiable();
+        return freeze(false);
+    }
+
+    /** 
+     * Freezes this set and returns the corresponding {@link Immutable} instance (cannot be reversed).
+     * 
+     * @param compact indicates if the set elements should be copied into a dense read-optimized layout
+     *        (see {@link FractalArray#compact}); recommended for large sets loaded once and read many times.
+     */
+    @Realtime(limit = LINEAR)
+    public final Immutable<E> freeze(boolean compact) {
         for (FractalArray.Iterator<AbstractSet<E>> itr = multiples.iterator(); itr.hasNext();) {
             long index = itr.nextIndex();
-            multiples.set(index, itr.next().unmodifiable()); // Replaces.
+            AbstractSet<E> multiple = itr.next();
+            multiples = multiples.set(index, (compact && (multiple instanceof FastSet)) ? 
+                    ((FastSet<E>)multiple).freeze(true) : multiple.unmodifiable()); // Replaces.
         }
-        multiples = multiples.unmodifiable();
+        singles = compact ? singles.compact() : singles.unmodifiable();
+        multiples = compact ? multiples.compact() : multiples.unmodifiable();
         return new Immutable<E>(order, singles, multiples, size);
     }
 
@@ -171,13 +185,17 @@ public class FastSet<E> extends AbstractSet<E> {
                 if (!allowDuplicate && order.areEqual(element, single)) return false;
                 singles = singles.clear(index); // No more single.
                 Order<? super E> subOrder = order.subOrder(element); 
+                if (subOrder == null) subOrder = order.subOrder(single);
                 multiple = (subOrder != null) ? new FastSet<E>(subOrder) : new SortedSetImpl<E>(order);
+                multiple.add(single, true);
+                multiple.add(element, true);
                 multiples = multiples.set(index, multiple);
             } else { // Empty slot.
                 singles = singles.set(index, element);
             }
         }
         size++; 
+        modCount++;
         return true;
     }
          
@@ -201,6 +219,7 @@ public class FastSet<E> extends AbstractSet<E> {
         singles = FractalArray.empty();
         multiples = FractalArray.empty();
         size = 0;
+        modCount++;
     }
 
     @Override
@@ -274,6 +293,7 @@ public class FastSet<E> extends AbstractSet<E> {
             singles = singles.clear(index);
         }
         --size;
+        modCount++;
         return removed;
     }
 
@@ -294,7 +314,9 @@ public class FastSet<E> extends AbstractSet<E> {
             singles = singles.clear(itr.nextIndex());
             --size;
         }
-        return initialSize != size;
+        if (initialSize == size) return false;
+        modCount++;
+        return true;
     }
 
     @Realtime(limit = CONSTANT)
@@ -303,6 +325,12 @@ public class FastSet<E> extends AbstractSet<E> {
         return size;
     }       
 
+    @Realtime(limit = CONSTANT)
+    @Override
+    public final int modCount() {
+        return modCount;
+    }
+
     @Override
     @Realtime(limit = CONSTANT)
     public final E findAny() {
@@ -316,11 +344,12 @@ public class FastSet<E> extends AbstractSet<E> {
     public final E first() {
         long s = singles.next(0, -1, Predicate.TRUE);
         long m = multiples.next(0, -1, Predicate.TRUE);
-        AbstractSet<E> innerSet;
-        if (!MathLib.unsignedLessThan(s, m) && ((innerSet = multiples.get(m)) != null)) 
+        AbstractSet<E> innerSet = multiples.get(m);
+        E single = singles.get(s); // Index -1 is returned when none.
+        if ((innerSet != null) && ((single == null) || MathLib.unsignedLessThan(m, s))) 
             return innerSet.first();
-        if (singles.isEmpty()) throw new NoSuchElementException();
-        return singles.get(s);
+        if (single == null) throw new NoSuchElementException();
+        return single;
     }
 
     @Override
@@ -328,11 +357,12 @@ public class FastSet<E> extends AbstractSet<E> {
     public final E last() {
         long s = singles.next(-1, 0, Predicate.TRUE);
         long m = multiples.next(-1, 0, Predicate.TRUE);
-        AbstractSet<E> innerSet;
-        if (!MathLib.unsignedLessThan(m, s) && ((innerSet = multiples.get(m)) != null)) 
+        AbstractSet<E> innerSet = multiples.get(m);
+        E single = singles.get(s); // Index -1 is returned when none.
+        if ((innerSet != null) && ((single == null) || MathLib.unsignedLessThan(s, m))) 
             return innerSet.last();
-        if (singles.isEmpty()) throw new NoSuchElementException();
-        return singles.get(s);
+        if (single == null) throw new NoSuchElementException();
+        return single;
     }
     
     
@@ -341,6 +371,7 @@ public class FastSet<E> extends AbstractSet<E> {
         private FractalArray.Iterator<E> singleItr;
         private FractalArray.Iterator<AbstractSet<E>> multipleItr;
         private FastIterator<E> subItr; // Takes precedence when subItr.hasNext()
+        private final PendingIterator<E> pending = new PendingIterator<E>();
         
         @SuppressWarnings("unchecked")
         public AscendingIteratorImpl(@Nullable E from) {
@@ -348,7 +379,8 @@ public class FastSet<E> extends AbstractSet<E> {
             singleItr = singles.iterator(i);
             multipleItr = multiples.iterator(i);            
             if (multipleItr.hasNext() && !MathLib.unsignedLessThan(singleItr.nextIndex(), multipleItr.nextIndex())) {
-                subItr = multipleItr.next().iterator(from);
+                boolean sameIndex = multipleItr.nextIndex() == i; // Else from is lower than all inner elements.
+                subItr = sameIndex ? multipleItr.next().iterator(from) : multipleItr.next().iterator();
             } else {
                 subItr = (FastIterator<E>) EMPTY_ITERATOR; 
             }
@@ -382,7 +414,11 @@ public class FastSet<E> extends AbstractSet<E> {
                     subItr = multipleItr.next().iterator();
                 } else {
                     if (!singleItr.hasNext()) return false;
-                    if (matching.test(singleItr.next())) return true;
+                    E single = singleItr.next();
+                    if (matching.test(single)) { // Not consumed.
+                        subItr = pending.set(single);
+                        return true;
+                    }
                 }
             }    
        }
@@ -394,14 +430,18 @@ public class FastSet<E> extends AbstractSet<E> {
         private FractalArray.Iterator<E> singleItr;
         private FractalArray.Iterator<AbstractSet<E>> multipleItr;
         private FastIterator<E> subItr; // Takes precedence when subItr.hasNext()
+        private final PendingIterator<E> pending = new PendingIterator<E>();
         
         @SuppressWarnings("unchecked")
         public DescendingIteratorImpl(@Nullable E from) {
             long i = (from != null) ? order.indexOf(from) : -1;
             singleItr = singles.descendingIterator(i);
             multipleItr = multiples.descendingIterator(i);            
-            if (multipleItr.hasNext() && !MathLib.unsignedLessThan(multipleItr.nextIndex(), singleItr.nextIndex())) {
-                subItr = multipleItr.next().descendingIterator(from);
+            if (multipleItr.hasNext() && (!singleItr.hasNext() || 
+                    !MathLib.unsignedLessThan(multipleItr.nextIndex(), singleItr.nextIndex()))) {
+                boolean sameIndex = multipleItr.nextIndex() == i; // Else from is higher than all inner elements.
+                subItr = sameIndex ? multipleItr.next().descendingIterator(from) : 
+                    multipleItr.next().descendingIterator();
             } else {
                 subItr = (FastIterator<E>) EMPTY_ITERATOR; 
             }
@@ -420,7 +460,8 @@ public class FastSet<E> extends AbstractSet<E> {
         @Override
         public E next() {
             if (subItr.hasNext()) return subItr.next();
-            if (multipleItr.hasNext() && !MathLib.unsignedLessThan(multipleItr.nextIndex(), singleItr.nextIndex())) {
+            if (multipleItr.hasNext() && (!singleItr.hasNext() || 
+                    !MathLib.unsignedLessThan(multipleItr.nextIndex(), singleItr.nextIndex()))) {
                 subItr = multipleItr.next().descendingIterator();
                 return subItr.next();
             }
@@ -431,17 +472,63 @@ public class FastSet<E> extends AbstractSet<E> {
         public boolean hasNext(Predicate<? super E> matching) {
             while (true) {
                 if (subItr.hasNext(matching)) return true;
-                if (multipleItr.hasNext() && !MathLib.unsignedLessThan(multipleItr.nextIndex(), singleItr.nextIndex())) {
+                if (multipleItr.hasNext() && (!singleItr.hasNext() || 
+                        !MathLib.unsignedLessThan(multipleItr.nextIndex(), singleItr.nextIndex()))) {
                     subItr = multipleItr.next().descendingIterator();
                 } else {
                     if (!singleItr.hasNext()) return false;
-                    if (matching.test(singleItr.next())) return true;
+                    E single = singleItr.next();
+                    if (matching.test(single)) { // Not consumed.
+                        subItr = pending.set(single);
+                        return true;
+                    }
                 }
             }    
        }
 
     }
     
+    /** Iterator over a single element already tested (reused). */
+    private static final class PendingIterator<E> implements FastIterator<E> {
+        private E next;
+        private boolean hasNext;
+
+        PendingIterator<E> set(E element) {
+            next = element;
+            hasNext = true;
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super E> matching) {
+            if (hasNext && !matching.test(next)) {
+                hasNext = false;
+                next = null;
+            }
+            return hasNext;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext) throw new NoSuchElementException();
+            hasNext = false;
+            E tmp = next;
+            next = null;
+            return tmp;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(); // As per contract.
+        }
+
+    }
+
     /** Iterator over empty collection. */
     private static final FastIterator<Object> EMPTY_ITERATOR = new FastIterator<Object> () {
 
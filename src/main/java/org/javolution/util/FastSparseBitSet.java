@@ -0,0 +1,536 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.annotations.Realtime;
+import org.javolution.lang.Index;
+import org.javolution.lang.MathLib;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
+
+/**
+ * A sparse bit-set covering the full unsigned 64-bits {@link Index} range, integrated with the collection
+ * framework as a set of {@link Index indices}.
+ *
+ * Bits are held in blocks of 64 words (4096 bits) stored in a {@link FractalArray} keyed by
+ * {@code index >>> 12}. Memory footprint is proportional to the number of occupied blocks and iterations
+ * or logical operations skip empty sub-trees of the fractal array.
+ *
+ * As for {@link FractalArray}, searches return {@code -1} when there is no bit found; since {@code -1}
+ * is also a valid (unsigned) index, {@link #get(long) get(-1)} should be checked when the distinction matters
+ * (iterators handle it transparently).
+ */
+public class FastSparseBitSet extends AbstractSet<Index> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final int BLOCK_SHIFT = 12;
+    private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+    private static final int WORDS_PER_BLOCK = 1 << (BLOCK_SHIFT - 6);
+
+    /** Holds the blocks of bits (non-null blocks have at least one bit set). */
+    private FractalArray<long[]> blocks = FractalArray.empty();
+
+    /**
+     * Creates a new bit-set (all bits cleared).
+     */
+    public FastSparseBitSet() {
+    }
+
+      ////////////////////////////////////////////////////////////////////////////
+     // Set operations.
+     //
+
+    @Override
+    public final boolean add(Index index, boolean allowDuplicate) {
+        return !getAndSet(index.longValue(), true); // allowDuplicate flag ignored.
+    }
+
+    /**
+     * Performs the logical AND operation on this bit set and the given bit set. The result is stored
+     * into this bit set.
+     *
+     * @param that the second bit set.
+     */
+    @Realtime(limit = LINEAR)
+    public final void and(FastSparseBitSet that) {
+        FractalArray<long[]> result = FractalArray.empty();
+        for (FractalArray.Iterator<long[]> itr = blocks.iterator(); itr.hasNext();) {
+            long key = itr.nextIndex();
+            long[] block = itr.next();
+            long[] thatBlock = that.blocks.get(key);
+            if (thatBlock == null) continue;
+            long any = 0;
+            for (int i = 0; i < WORDS_PER_BLOCK; i++) any |= block[i] &= thatBlock[i];
+            if (any != 0) result = result.set(key, block);
+        }
+        blocks = result;
+    }
+
+    /**
+     * Performs the logical AND operation on this bit set and the complement of the given bit set.
+     * The result is stored into this bit set.
+     *
+     * @param that the second bit set
+     */
+    @Realtime(limit = LINEAR)
+    public final void andNot(FastSparseBitSet that) {
+        for (FractalArray.Iterator<long[]> itr = that.blocks.iterator(); itr.hasNext();) {
+            long key = itr.nextIndex();
+            long[] thatBlock = itr.next();
+            long[] block = blocks.get(key);
+            if (block == null) continue;
+            long any = 0;
+            for (int i = 0; i < WORDS_PER_BLOCK; i++) any |= block[i] &= ~thatBlock[i];
+            if (any == 0) blocks = blocks.clear(key);
+        }
+    }
+
+    /**
+     * Returns the number of bits set to {@code true}.
+     *
+     * @return the number of bits being set.
+     */
+    @Realtime(limit = LINEAR)
+    public final long cardinality() {
+        long sum = 0;
+        for (FractalArray.Iterator<long[]> itr = blocks.iterator(); itr.hasNext();)
+            for (long word : itr.next()) sum += Long.bitCount(word);
+        return sum;
+    }
+
+    @Override
+    public final void clear() {
+        blocks = FractalArray.empty();
+    }
+
+    /**
+     * Clears the bit at the specified unsigned 64-bits index.
+     *
+     * @param bitIndex the unsigned 64-bits index.
+     */
+    @Realtime(limit = CONSTANT)
+    public final void clear(long bitIndex) {
+        getAndSet(bitIndex, false);
+    }
+
+    /**
+     * Sets the bits from the specified {@code fromIndex} (inclusive) to the specified {@code toIndex}
+     * (exclusive) to {@code false}. Only the occupied blocks in range are visited.
+     *
+     * @param  fromIndex unsigned index of the first bit to be cleared.
+     * @param  toIndex unsigned index after the last bit to be cleared.
+     * @throws IndexOutOfBoundsException if {@code toIndex < fromIndex} (unsigned)
+     */
+    @Realtime(limit = LINEAR)
+    public final void clear(long fromIndex, long toIndex) {
+        if (MathLib.unsignedLessThan(toIndex, fromIndex))
+            throw new IndexOutOfBoundsException();
+        if (fromIndex == toIndex) return;
+        long firstKey = fromIndex >>> BLOCK_SHIFT;
+        long lastKey = (toIndex - 1) >>> BLOCK_SHIFT;
+        for (long key = firstKey; ; key++) {
+            key = blocks.next(key, lastKey, Predicate.TRUE);
+            if (key == -1) return; // Keys are less than 2^52.
+            long[] block = blocks.get(key);
+            int from = (key == firstKey) ? (int) fromIndex & BLOCK_MASK : 0;
+            int to = (key == lastKey) ? (int) ((toIndex - 1) & BLOCK_MASK) + 1 : BLOCK_MASK + 1;
+            clearRange(block, from, to);
+            if (isZero(block)) blocks = blocks.clear(key);
+            if (key == lastKey) return;
+        }
+    }
+
+    @Override
+    public final FastSparseBitSet clone() {
+        FastSparseBitSet copy = new FastSparseBitSet();
+        for (FractalArray.Iterator<long[]> itr = blocks.iterator(); itr.hasNext();) {
+            long key = itr.nextIndex();
+            copy.blocks = copy.blocks.set(key, itr.next().clone());
+        }
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof FastSparseBitSet)) return super.equals(obj);
+        FastSparseBitSet that = (FastSparseBitSet) obj;
+        FractalArray.Iterator<long[]> itr = blocks.iterator();
+        FractalArray.Iterator<long[]> thatItr = that.blocks.iterator();
+        while (itr.hasNext() && thatItr.hasNext()) {
+            if (itr.nextIndex() != thatItr.nextIndex()) return false;
+            if (!java.util.Arrays.equals(itr.next(), thatItr.next())) return false;
+        }
+        return !itr.hasNext() && !thatItr.hasNext();
+    }
+
+    @Override
+    public int hashCode() { // Consistent with AbstractSet.hashCode (sum of indices).
+        long hash = 0;
+        for (FractalArray.Iterator<long[]> itr = blocks.iterator(); itr.hasNext();) {
+            long base = itr.nextIndex() << BLOCK_SHIFT;
+            long[] block = itr.next();
+            for (int i = 0; i < WORDS_PER_BLOCK; i++)
+                for (long w = block[i]; w != 0; w &= w - 1)
+                    hash += base + (i << 6) + Long.numberOfTrailingZeros(w);
+        }
+        return (int) hash;
+    }
+
+     ////////////////////////////////////////////////////////////////////////////
+     // BitSet Operations.
+     //
+
+    @Override
+    public final FastIterator<Index> descendingIterator(@Nullable Index from) {
+        return new IteratorImpl(this, (from == null) ? -1 : from.longValue(), true);
+    }
+
+    /**
+     * Returns {@code true } if the bit at the specified unsigned 64-bits index is set.
+     *
+     * @param bitIndex the unsigned 64-bits index.
+     * @return the value of the bit at the specified index.
+     */
+    @Realtime(limit = CONSTANT)
+    public final boolean get(long bitIndex) {
+        long[] block = blocks.get(bitIndex >>> BLOCK_SHIFT);
+        return (block != null) && (block[(int) (bitIndex >>> 6) & (WORDS_PER_BLOCK - 1)] & (1L << bitIndex)) != 0;
+    }
+
+    /**
+     * Sets the bit at the specified unsigned 64-bits index, returns {@code true} if previously set.
+     */
+    @Realtime(limit = CONSTANT)
+    public final boolean getAndSet(long bitIndex, boolean value) {
+        long key = bitIndex >>> BLOCK_SHIFT;
+        int word = (int) (bitIndex >>> 6) & (WORDS_PER_BLOCK - 1);
+        long mask = 1L << bitIndex;
+        long[] block = blocks.get(key);
+        if (block == null) {
+            if (!value) return false;
+            block = new long[WORDS_PER_BLOCK];
+            blocks = blocks.set(key, block);
+        }
+        boolean previous = (block[word] & mask) != 0;
+        if (value) {
+            block[word] |= mask;
+        } else if (previous) {
+            block[word] &= ~mask;
+            if (isZero(block)) blocks = blocks.clear(key);
+        }
+        return previous;
+    }
+
+    /**
+     * Performs the specified action on the unsigned index of each {@code true} bit in ascending order 
+     * (no allocation).
+     *
+     * @param action the action to perform on each bit index.
+     */
+    @Realtime(limit = LINEAR)
+    public final void forEachSetBit(LongConsumer action) {
+        for (FractalArray.Iterator<long[]> itr = blocks.iterator(); itr.hasNext();) {
+            long base = itr.nextIndex() << BLOCK_SHIFT;
+            long[] block = itr.next();
+            for (int i = 0; i < WORDS_PER_BLOCK; i++)
+                for (long w = block[i]; w != 0; w &= w - 1)
+                    action.accept(base + (i << 6) + Long.numberOfTrailingZeros(w));
+        }
+    }
+
+    @Override
+    public Index getAny(Index index) {
+        return get(index.longValue()) ? index : null;
+    }
+
+    /**
+     * Returns {@code true} if this bit set shares at least one common bit with the specified bit set.
+     *
+     * @param that the bit set to check for intersection
+     * @return {@code true} if the sets intersect; {@code false} otherwise.
+     */
+    @Realtime(limit = LINEAR)
+    public final boolean intersects(FastSparseBitSet that) {
+        for (FractalArray.Iterator<long[]> itr = blocks.iterator(); itr.hasNext();) {
+            long[] thatBlock = that.blocks.get(itr.nextIndex());
+            long[] block = itr.next();
+            if (thatBlock == null) continue;
+            for (int i = 0; i < WORDS_PER_BLOCK; i++)
+                if ((block[i] & thatBlock[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public final boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+
+    @Override
+    public final FastIterator<Index> iterator(@Nullable Index from) {
+        return new IteratorImpl(this, (from == null) ? 0 : from.longValue(), false);
+    }
+
+    /**
+     * Returns the unsigned index of the next {@code true} bit, from the specified bit (inclusive).
+     *
+     * @param fromIndex the unsigned start location.
+     * @return the next bit set or {@code -1} if none.
+     */
+    @Realtime(limit = LINEAR)
+    public final long nextSetBit(long fromIndex) {
+        long key = fromIndex >>> BLOCK_SHIFT;
+        long[] block = blocks.get(key);
+        if (block != null) {
+            int next = nextSet(block, (int) fromIndex & BLOCK_MASK);
+            if (next >= 0) return (key << BLOCK_SHIFT) + next;
+        }
+        if (key == (-1L >>> BLOCK_SHIFT)) return -1;
+        key = blocks.next(key + 1, -1, Predicate.TRUE); // Skips empty sub-trees.
+        return (key != -1) ? (key << BLOCK_SHIFT) + nextSet(blocks.get(key), 0) : -1;
+    }
+
+    /**
+     * Returns the unsigned index of the previous {@code true} bit, from the specified bit (inclusive).
+     *
+     * @param fromIndex the unsigned start location.
+     * @return the previous bit set or {@code -1} if none.
+     */
+    @Realtime(limit = LINEAR)
+    public final long previousSetBit(long fromIndex) {
+        long key = fromIndex >>> BLOCK_SHIFT;
+        long[] block = blocks.get(key);
+        if (block != null) {
+            int previous = previousSet(block, (int) fromIndex & BLOCK_MASK);
+            if (previous >= 0) return (key << BLOCK_SHIFT) + previous;
+        }
+        if (key == 0) return -1;
+        key = blocks.next(key - 1, 0, Predicate.TRUE); // Skips empty sub-trees.
+        return (key != -1) ? (key << BLOCK_SHIFT) + previousSet(blocks.get(key), BLOCK_MASK) : -1;
+    }
+
+    /**
+     * Performs the logical OR operation on this bit set and the one specified. The result is stored
+     * into this bit set.
+     *
+     * @param that the second bit set.
+     */
+    @Realtime(limit = LINEAR)
+    public final void or(FastSparseBitSet that) {
+        for (FractalArray.Iterator<long[]> itr = that.blocks.iterator(); itr.hasNext();) {
+            long key = itr.nextIndex();
+            long[] thatBlock = itr.next();
+            long[] block = blocks.get(key);
+            if (block == null) {
+                blocks = blocks.set(key, thatBlock.clone());
+            } else {
+                for (int i = 0; i < WORDS_PER_BLOCK; i++) block[i] |= thatBlock[i];
+            }
+        }
+    }
+
+    @Override
+    public final Order<? super Index> order() {
+        return Index.ORDER;
+    }
+
+    @Override
+    public Index removeAny(Index index) {
+        return getAndSet(index.longValue(), false) ? index : null;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Index> filter) {
+        boolean modified = false;
+        FastIterator<Index> itr = iterator();
+        while (itr.hasNext(filter)) {
+            clear(itr.next().longValue());
+            modified = true;
+        }
+        return modified;
+    }
+
+    /**
+     * Sets the bit at the specified unsigned 64-bits index.
+     *
+     * @param bitIndex the unsigned 64-bits index.
+     */
+    @Realtime(limit = CONSTANT)
+    public final void set(long bitIndex) {
+        getAndSet(bitIndex, true);
+    }
+
+    /**
+     * Sets the bits from the specified {@code fromIndex} (inclusive) to the specified {@code toIndex}
+     * (exclusive) to {@code true}.
+     *
+     * @param  fromIndex unsigned index of the first bit to be set.
+     * @param  toIndex unsigned index after the last bit to be set.
+     * @throws IndexOutOfBoundsException if {@code toIndex < fromIndex} (unsigned)
+     */
+    @Realtime(limit = LINEAR)
+    public final void set(long fromIndex, long toIndex) {
+        if (MathLib.unsignedLessThan(toIndex, fromIndex))
+            throw new IndexOutOfBoundsException();
+        if (fromIndex == toIndex) return;
+        long firstKey = fromIndex >>> BLOCK_SHIFT;
+        long lastKey = (toIndex - 1) >>> BLOCK_SHIFT;
+        for (long key = firstKey; ; key++) {
+            long[] block = blocks.get(key);
+            if (block == null) {
+                block = new long[WORDS_PER_BLOCK];
+                blocks = blocks.set(key, block);
+            }
+            int from = (key == firstKey) ? (int) fromIndex & BLOCK_MASK : 0;
+            int to = (key == lastKey) ? (int) ((toIndex - 1) & BLOCK_MASK) + 1 : BLOCK_MASK + 1;
+            setRange(block, from, to);
+            if (key == lastKey) return;
+        }
+    }
+
+    /**
+     * Returns the number of bits set (saturated to {@code Integer.MAX_VALUE}).
+     */
+    @Override
+    public final int size() {
+        return (int) MathLib.min(cardinality(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Performs the logical XOR operation on this bit set and the one specified. The result is stored
+     * into this bit set.
+     *
+     * @param that the second bit set.
+     */
+    @Realtime(limit = LINEAR)
+    public final void xor(FastSparseBitSet that) {
+        for (FractalArray.Iterator<long[]> itr = that.blocks.iterator(); itr.hasNext();) {
+            long key = itr.nextIndex();
+            long[] thatBlock = itr.next();
+            long[] block = blocks.get(key);
+            if (block == null) {
+                blocks = blocks.set(key, thatBlock.clone());
+            } else {
+                long any = 0;
+                for (int i = 0; i < WORDS_PER_BLOCK; i++) any |= block[i] ^= thatBlock[i];
+                if (any == 0) blocks = blocks.clear(key);
+            }
+        }
+    }
+
+    private static boolean isZero(long[] block) {
+        for (long w : block)
+            if (w != 0) return false;
+        return true;
+    }
+
+    private static int nextSet(long[] block, int from) { // Bit position in block or -1
+        int i = from >>> 6;
+        long w = block[i] & (-1L << from);
+        while (true) {
+            if (w != 0) return (i << 6) + Long.numberOfTrailingZeros(w);
+            if (++i == WORDS_PER_BLOCK) return -1;
+            w = block[i];
+        }
+    }
+
+    private static int previousSet(long[] block, int from) { // Bit position in block or -1
+        int i = from >>> 6;
+        long w = block[i] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (w != 0) return (i << 6) + 63 - Long.numberOfLeadingZeros(w);
+            if (--i < 0) return -1;
+            w = block[i];
+        }
+    }
+
+    private static void setRange(long[] block, int from, int to) { // to exclusive, from < to
+        int i = from >>> 6;
+        int j = (to - 1) >>> 6;
+        if (i == j) {
+            block[i] |= (-1L << from) & (-1L >>> -to);
+            return;
+        }
+        block[i] |= -1L << from;
+        for (int k = i + 1; k < j; k++) block[k] = -1L;
+        block[j] |= -1L >>> -to;
+    }
+
+    private static void clearRange(long[] block, int from, int to) { // to exclusive, from < to
+        int i = from >>> 6;
+        int j = (to - 1) >>> 6;
+        if (i == j) {
+            block[i] &= ~((-1L << from) & (-1L >>> -to));
+            return;
+        }
+        block[i] &= ~(-1L << from);
+        for (int k = i + 1; k < j; k++) block[k] = 0;
+        block[j] &= ~(-1L >>> -to);
+    }
+
+    /** BitSet iterator implementation. */
+    private static final class IteratorImpl implements FastIterator<Index> {
+
+        private final FastSparseBitSet that;
+        private final boolean reversed;
+        private long nextIndex;
+        private boolean hasNext;
+        private long currentIndex;
+        private boolean hasCurrent;
+
+        public IteratorImpl(FastSparseBitSet that, long from, boolean reversed) {
+            this.that = that;
+            this.reversed = reversed;
+            seek(from);
+        }
+
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super Index> matching) {
+            while (hasNext) {
+                if (matching.test(Index.of(nextIndex))) return true;
+                next();
+            }
+            return false;
+        }
+
+        public Index next() {
+            if (!hasNext)
+                throw new NoSuchElementException();
+            currentIndex = nextIndex;
+            hasCurrent = true;
+            if (currentIndex == (reversed ? 0 : -1)) hasNext = false; // Last index reached.
+            else seek(reversed ? currentIndex - 1 : currentIndex + 1);
+            return Index.of(currentIndex);
+        }
+
+        public void remove() {
+            if (!hasCurrent)
+                throw new IllegalStateException();
+            that.clear(currentIndex);
+            hasCurrent = false;
+        }
+
+        private void seek(long from) { // -1 is both a valid index and the "none" value.
+            nextIndex = reversed ? that.previousSetBit(from) : that.nextSetBit(from);
+            hasNext = (nextIndex != -1) || (reversed ? (from == -1) && that.get(-1L) : that.get(-1L));
+        }
+
+    }
+}
@@ -11,7 +11,9 @@ package org.javolution.util;
 import static org.javolution.annotations.Realtime.Limit.CONSTANT;
 import static org.javolution.annotations.Realtime.Limit.LINEAR;
 import static org.javolution.annotations.Realtime.Limit.LOG_N;
+import static org.javolution.annotations.Realtime.Limit.N_SQUARE;
 
+import java.util.Comparator;
 import java.util.NoSuchElementException;
 
 import org.javolution.annotations.Nullable;
@@ -81,6 +83,8 @@ public class FastTable<E> extends AbstractTable<E> {
 
     private FractalArray<E> array;
     private int length; // Keep tracks of the length since fractal arrays are unbounded.
+    private transient int modCount; // Incremented by each modification.
+    private transient TableIndex<E, ?>[] indexes; // Secondary indexes (null if none).
 
 
     /**  Creates an empty table using default object equality for elements comparisons. */
@@ -110,7 +114,10 @@ public class FastTable<E> extends AbstractTable<E> {
     @Override
     @Realtime(limit = CONSTANT)
     public final boolean add(@Nullable E element) {
+        if (indexes != null) checkIndexes(element, null);
         array = array.set(length++, element);
+        modCount++;
+        if (indexes != null) indexAdded(element);
         return true;
     }
 
@@ -118,7 +125,10 @@ public class FastTable<E> extends AbstractTable<E> {
     @Realtime(limit = LOG_N)
     public final void add(int index, @Nullable E element) {
         if (index < 0 || index > length) throw new IndexOutOfBoundsException();
+        if (indexes != null) checkIndexes(element, null);
         array = array.shift(index, length++, element);
+        modCount++;
+        if (indexes != null) indexAdded(element);
     }
 
     @Override
@@ -126,6 +136,9 @@ public class FastTable<E> extends AbstractTable<E> {
     public  void clear() {
         array = FractalArray.empty();
         length = 0;
+        modCount++;
+        if (indexes != null) 
+            for (TableIndex<E, ?> index : indexes) index.clear();
     }
 
     @Override
@@ -133,6 +146,7 @@ public class FastTable<E> extends AbstractTable<E> {
     public FastTable<E> clone() {
         FastTable<E> copy = (FastTable<E>) super.clone();
         copy.array = array.clone();
+        copy.indexes = null; // Indexes are not cloned.
         return copy;
     }
 
@@ -161,6 +175,8 @@ public class FastTable<E> extends AbstractTable<E> {
         if (index < 0 || index >= length) throw new IndexOutOfBoundsException();
         E removed = array.get(index);
         array = array.shift(--length, index, null);
+        modCount++;
+        if (indexes != null) indexRemoved(removed);
         return removed;
     }
 
@@ -169,16 +185,107 @@ public class FastTable<E> extends AbstractTable<E> {
     public final @Nullable E set(int index, @Nullable E element) {
         if (index < 0 || index >= length) throw new IndexOutOfBoundsException();
         E previous = array.get(index);
+        if (indexes != null) checkIndexes(element, previous);
         array = array.set(index, element);
+        modCount++;
+        if (indexes != null) {
+            indexRemoved(previous);
+            indexAdded(element);
+        }
         return previous;
     }
 
+    @Override
+    @Realtime(limit = LINEAR)
+    public boolean removeIf(Predicate<? super E> filter) {
+        int j = 0;
+        for (int i = 0; i < length; i++) { // Compacts in place.
+            E e = array.get(i);
+            if (filter.test(e)) {
+                if (indexes != null) indexRemoved(e);
+                continue; // Removed (not copied).
+            }
+            if (i != j) array = array.set(j, e);
+            j++;
+        }
+        if (j == length) return false;
+        for (int i = j; i < length; i++) array = array.clear(i);
+        length = j;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    @Realtime(limit = N_SQUARE)
+    public void sort(Comparator<? super E> cmp) {
+        TableIndex<E, ?>[] tmp = indexes; // Sorting does not change the rows indexed.
+        indexes = null;
+        try {
+            super.sort(cmp);
+        } finally {
+            indexes = tmp;
+        }
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public boolean dropIndex(TableIndex<E, ?> index) {
+        if (indexes == null) return false;
+        for (int i = 0; i < indexes.length; i++) {
+            if (indexes[i] != index) continue;
+            if (indexes.length == 1) {
+                indexes = null;
+            } else {
+                @SuppressWarnings("unchecked")
+                TableIndex<E, ?>[] tmp = (TableIndex<E, ?>[]) new TableIndex<?, ?>[indexes.length - 1];
+                System.arraycopy(indexes, 0, tmp, 0, i);
+                System.arraycopy(indexes, i + 1, tmp, i, tmp.length - i);
+                indexes = tmp;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected <K> TableIndex<E, K> addIndex(TableIndex<E, K> index) {
+        for (int i = 0; i < length; i++) { // Populates the index.
+            E e = array.get(i);
+            index.check(e, null);
+            index.added(e);
+        }
+        @SuppressWarnings("unchecked")
+        TableIndex<E, ?>[] tmp = (TableIndex<E, ?>[]) new TableIndex<?, ?>[(indexes != null) ? indexes.length + 1 : 1];
+        if (indexes != null) System.arraycopy(indexes, 0, tmp, 0, indexes.length);
+        tmp[tmp.length - 1] = index;
+        indexes = tmp;
+        return index;
+    }
+
     @Override
     @Realtime(limit = CONSTANT)
     public final int size() {
         return length;
     }
 
+    @Override
+    @Realtime(limit = CONSTANT)
+    public final int modCount() {
+        return modCount;
+    }
+
+    private void checkIndexes(E element, E replaced) { // Before any modification.
+        for (TableIndex<E, ?> index : indexes) index.check(element, replaced);
+    }
+
+    private void indexAdded(E element) {
+        for (TableIndex<E, ?> index : indexes) index.added(element);
+    }
+
+    private void indexRemoved(E element) {
+        for (TableIndex<E, ?> index : indexes) index.removed(element);
+    }
+
     /** List Iterator Implementation. */
     private static final class IteratorImpl<E> implements FastListIterator<E> {
         private final FractalArray<E> array;
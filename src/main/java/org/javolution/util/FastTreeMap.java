@@ -0,0 +1,193 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.javolution.annotations.Realtime;
+import org.javolution.util.function.Equality;
+import org.javolution.util.function.Order;
+import org.javolution.util.internal.function.ComparatorOrderImpl;
+
+/**
+ * Ordered map / multimap based upon a {@link FastTreeSet B+tree} of entries; it relies on key comparisons
+ * only (no {@link Order#indexOf indexing}) and guarantees O(log(n)) updates with fast range scans
+ * ({@link #subMap subMap}, {@link #headMap headMap}, {@link #tailMap tailMap}).
+ *
+ * ```java
+ * FastTreeMap<Date, Event> agenda = new FastTreeMap<Date, Event>(); // Natural order.
+ * ...
+ * for (Event event : agenda.subMap(monday, saturday).values()) { ... }
+ * ```
+ *
+ * @param <K> the type of keys ({@code null} values are not supported)
+ * @param <V> the type of values
+ */
+@Realtime
+public class FastTreeMap<K, V> extends AbstractMap<K, V> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+
+    private final Order<? super K> keyOrder;
+    private final Equality<? super V> valuesEquality;
+    private final FastTreeSet<Entry<K, V>> entries;
+
+    /** Creates a map ordered according to the natural order of its keys (see {@link Comparable}). */
+    public FastTreeMap() {
+        this(new ComparatorOrderImpl<K>(null));
+    }
+
+    /** Creates a map ordered using the specified key comparator. */
+    public FastTreeMap(Comparator<? super K> comparator) {
+        this(new ComparatorOrderImpl<K>(comparator));
+    }
+
+    /** Creates a map ordered using the specified key order (only the order comparisons are used). */
+    public FastTreeMap(Order<? super K> keyOrder) {
+        this(keyOrder, Equality.standard());
+    }
+
+    /** Creates a map ordered using the specified key order and using the specified equality for its values. */
+    public FastTreeMap(Order<? super K> keyOrder, Equality<? super V> valuesEquality) {
+        this.keyOrder = keyOrder;
+        this.valuesEquality = valuesEquality;
+        this.entries = new FastTreeSet<Entry<K, V>>(new Order<Entry<K, V>>() {
+            private static final long serialVersionUID = FastTreeMap.serialVersionUID;
+
+            @Override
+            public boolean areEqual(Entry<K, V> left, Entry<K, V> right) {
+                if (left == right) return true;
+                if ((left == null) || (right == null)) return false;
+                return FastTreeMap.this.keyOrder.areEqual(left.getKey(), right.getKey());
+            }
+
+            @Override
+            public int compare(Entry<K, V> left, Entry<K, V> right) {
+                if (left == null) return -1;
+                if (right == null) return 1;
+                return FastTreeMap.this.keyOrder.compare(left.getKey(), right.getKey());
+            }
+
+            @Override
+            public long indexOf(Entry<K, V> entry) {
+                if (entry == null) return 0;
+                return FastTreeMap.this.keyOrder.indexOf(entry.getKey());
+            }
+
+        });
+    }
+
+    /** Base constructor (private). */
+    private FastTreeMap(Order<? super K> keyOrder, Equality<? super V> valuesEquality,
+            FastTreeSet<Entry<K, V>> entries) {
+        this.keyOrder = keyOrder;
+        this.valuesEquality = valuesEquality;
+        this.entries = entries;
+    }
+
+    /**
+     * Replaces the content of this map with the specified mappings given in ascending key order
+     * (see {@link FastTreeSet#load}).
+     *
+     * @param sorted the mappings in ascending key order.
+     * @return {@code this}
+     * @throws IllegalArgumentException if the keys are not in ascending order (this map is then unchanged).
+     */
+    @Realtime(limit = LINEAR)
+    public FastTreeMap<K, V> load(final Iterable<? extends Map.Entry<? extends K, ? extends V>> sorted) {
+        entries.load(new Iterable<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                final Iterator<? extends Map.Entry<? extends K, ? extends V>> itr = sorted.iterator();
+                return new Iterator<Entry<K, V>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return itr.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        Map.Entry<? extends K, ? extends V> mapping = itr.next();
+                        return new Entry<K, V>(mapping.getKey(), mapping.getValue());
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public final FastTreeSet<Entry<K, V>> entries() {
+        return entries;
+    }
+
+    @Override
+    public FastTreeMap<K, V> with(K key, V value) {
+        put(key, value);
+        return this;
+    }
+
+    @Override
+    public final int size() {
+        return entries.size();
+    }
+
+    @Override
+    public final Equality<? super V> valuesEquality() {
+        return valuesEquality;
+    }
+
+    @Override
+    @Realtime(limit = LINEAR)
+    public FastTreeMap<K, V> clone() {
+        return new FastTreeMap<K, V>(keyOrder, valuesEquality, entries.clone());
+    }
+
+    @Override
+    public final Entry<K, V> getEntry(K key) {
+        return entries.getAny(new Entry<K, V>(key, null));
+    }
+
+    @Override
+    public final Entry<K, V> removeEntry(K key) {
+        return entries.removeAny(new Entry<K, V>(key, null));
+    }
+
+    @Override
+    public final void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public final boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    @Override
+    public final Order<? super K> keyOrder() {
+        return keyOrder;
+    }
+
+    @Override
+    public final Entry<K, V> addEntry(K key, V value) {
+        Entry<K, V> entry = new Entry<K, V>(key, value);
+        entries.add(entry, true /* allowDuplicate */);
+        return entry;
+    }
+
+}
@@ -0,0 +1,703 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+import static org.javolution.annotations.Realtime.Limit.LOG_N;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.annotations.Realtime;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
+import org.javolution.util.internal.function.ComparatorOrderImpl;
+
+/**
+ * Ordered set / multiset based upon a <a href="https://en.wikipedia.org/wiki/B%2B_tree">B+tree</a>; it relies
+ * on order comparisons only and is the set of choice for elements without a usable {@link Order#indexOf index}.
+ *
+ * Elements are held in wide nodes (64 entries by default) for cache locality; leaves are linked together so that
+ * iterations and range scans ({@link #subSet subSet}, {@link #iterator(Object) iterator(from)}) do not go back
+ * through the tree. Insertions and removals are performed in O(log(n)).
+ *
+ * ```java
+ * FastTreeSet<String> names = new FastTreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+ * names.load(sortedNames); // Bulk loading (bottom-up) from ascending input.
+ * ...
+ * names.subSet("A", "B").clear(); // Removes the names starting with "A" or "a".
+ * ```
+ *
+ * @param <E> the type of set elements (cannot be {@code null})
+ */
+public class FastTreeSet<E> extends AbstractSet<E> {
+    private static final long serialVersionUID = 0x700L; // Version.
+
+    /** The default maximum number of elements (leaves) or children (inner nodes) per node. */
+    public static final int DEFAULT_NODE_CAPACITY = 64;
+
+    private final Order<? super E> order;
+    private final int capacity; // Maximum number of entries per node.
+    private transient Node root;
+    private transient Leaf first; // First leaf (never null).
+    private transient Leaf last; // Last leaf (never null).
+    private transient int size;
+    private transient int modCount;
+
+    /** Creates an empty set ordered according to the natural order of its elements (see {@link Comparable}). */
+    public FastTreeSet() {
+        this(new ComparatorOrderImpl<E>(null));
+    }
+
+    /** Creates an empty set ordered using the specified comparator. */
+    public FastTreeSet(Comparator<? super E> comparator) {
+        this(new ComparatorOrderImpl<E>(comparator));
+    }
+
+    /** Creates an empty set ordered using the specified order (only the order comparisons are used). */
+    public FastTreeSet(Order<? super E> order) {
+        this(order, DEFAULT_NODE_CAPACITY);
+    }
+
+    /**
+     * Creates an empty set ordered using the specified order and having the specified node capacity.
+     *
+     * @param order the set order.
+     * @param nodeCapacity the maximum number of elements (leaves) or children (inner nodes) per node.
+     * @throws IllegalArgumentException if {@code nodeCapacity < 4}
+     */
+    public FastTreeSet(Order<? super E> order, int nodeCapacity) {
+        if (nodeCapacity < 4) throw new IllegalArgumentException("Node capacity should be at least 4");
+        this.order = order;
+        this.capacity = nodeCapacity;
+        root = first = last = new Leaf(nodeCapacity);
+    }
+
+    @Override
+    public FastTreeSet<E> with(@SuppressWarnings("unchecked") E... elements) {
+        addAll(elements);
+        return this;
+    }
+
+    /**
+     * Replaces the content of this set with the specified elements given in ascending order. The tree is built
+     * bottom-up with full nodes, which is much faster than adding the elements one at a time.
+     *
+     * @param sorted the elements in ascending order (duplicates are kept).
+     * @return {@code this}
+     * @throws IllegalArgumentException if the elements are not in ascending order (this set is then unchanged).
+     */
+    @Realtime(limit = LINEAR)
+    public FastTreeSet<E> load(Iterable<? extends E> sorted) {
+        build(sorted.iterator());
+        modCount++;
+        return this;
+    }
+
+    @Override
+    @Realtime(limit = LOG_N)
+    public boolean add(E element, boolean allowDuplicate) {
+        if (!allowDuplicate && (getAny(element) != null)) return false;
+        Leaf leaf = leafOf(element, true);
+        insert(leaf, indexOf(leaf, element, true), element);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    @Realtime(limit = LOG_N)
+    public E getAny(E element) {
+        Leaf leaf = leafOf(element, false);
+        for (int i = indexOf(leaf, element, false);; i++) {
+            if (i == leaf.size) {
+                if ((leaf = leaf.next) == null) return null;
+                i = 0;
+            }
+            E e = elementAt(leaf, i);
+            if (order.compare(e, element) != 0) return null;
+            if (order.areEqual(element, e)) return e;
+        }
+    }
+
+    @Override
+    @Realtime(limit = LOG_N)
+    public E removeAny(E element) {
+        Leaf leaf = leafOf(element, false);
+        for (int i = indexOf(leaf, element, false);; i++) {
+            if (i == leaf.size) {
+                if ((leaf = leaf.next) == null) return null;
+                i = 0;
+            }
+            E e = elementAt(leaf, i);
+            if (order.compare(e, element) != 0) return null;
+            if (order.areEqual(element, e)) {
+                remove(leaf, i);
+                size--;
+                modCount++;
+                return e;
+            }
+        }
+    }
+
+    @Override
+    @Realtime(limit = LINEAR)
+    public boolean removeIf(final Predicate<? super E> filter) {
+        final FastIterator<E> itr = iterator();
+        final Predicate<E> retained = new Predicate<E>() {
+            @Override
+            public boolean test(E param) {
+                return !filter.test(param);
+            }
+        };
+        int initialSize = size;
+        build(new Iterator<E>() { // Rebuilds the tree with the retained elements.
+            @Override
+            public boolean hasNext() {
+                return itr.hasNext(retained);
+            }
+
+            @Override
+            public E next() {
+                return itr.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        });
+        if (size == initialSize) return false;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public void clear() {
+        root = first = last = new Leaf(capacity);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    @Realtime(limit = LINEAR)
+    public FastTreeSet<E> clone() {
+        FastTreeSet<E> copy = (FastTreeSet<E>) super.clone();
+        copy.build(iterator());
+        return copy;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public Order<? super E> order() {
+        return order;
+    }
+
+    @Override
+    @Realtime(limit = LOG_N)
+    public FastIterator<E> iterator(@Nullable E low) {
+        return new AscendingIteratorImpl(low);
+    }
+
+    @Override
+    @Realtime(limit = LOG_N)
+    public FastIterator<E> descendingIterator(@Nullable E high) {
+        return new DescendingIteratorImpl(high);
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public int modCount() {
+        return modCount;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public E findAny() {
+        return (size != 0) ? elementAt(first, 0) : null;
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public E first() {
+        if (size == 0) throw new NoSuchElementException();
+        return elementAt(first, 0);
+    }
+
+    @Override
+    @Realtime(limit = CONSTANT)
+    public E last() {
+        if (size == 0) throw new NoSuchElementException();
+        return elementAt(last, last.size - 1);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // Tree structure.
+    //
+
+    /** Base class of tree nodes. */
+    private static abstract class Node {
+        Inner parent;
+        int size; // Number of elements (leaf) or children (inner node).
+    }
+
+    /** Leaf holding the elements in ascending order. */
+    private static final class Leaf extends Node {
+        final Object[] elements;
+        Leaf previous, next;
+
+        Leaf(int capacity) {
+            elements = new Object[capacity];
+        }
+    }
+
+    /**
+     * Inner node; {@code keys[i]} (for {@code i > 0}) is lower or equal to the elements of {@code children[i]} and
+     * greater or equal to the elements of {@code children[i-1]} (separators may be elements already removed).
+     */
+    private static final class Inner extends Node {
+        final Object[] keys;
+        final Node[] children;
+
+        Inner(int capacity) {
+            keys = new Object[capacity];
+            children = new Node[capacity];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(Leaf leaf, int i) {
+        return (E) leaf.elements[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    private E keyAt(Inner inner, int i) {
+        return (E) inner.keys[i];
+    }
+
+    /** Returns the minimum number of entries of non-root nodes. */
+    private int minimum() {
+        return capacity >> 1;
+    }
+
+    /**
+     * Returns the leaf holding the first element greater or equal to the one specified (or greater if
+     * {@code upper}); if that element is not in the leaf returned then it is the first element of the next leaf.
+     */
+    private Leaf leafOf(E element, boolean upper) {
+        Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            int low = 1, high = inner.size; // Searches the last key lower (or equal if upper) than element.
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = order.compare(keyAt(inner, mid), element);
+                if ((cmp < 0) || (upper && (cmp == 0))) low = mid + 1;
+                else high = mid;
+            }
+            node = inner.children[low - 1];
+        }
+        return (Leaf) node;
+    }
+
+    /** Returns the index of the first element greater or equal (or greater if {@code upper}) in the given leaf. */
+    private int indexOf(Leaf leaf, E element, boolean upper) {
+        int low = 0, high = leaf.size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = order.compare(elementAt(leaf, mid), element);
+            if ((cmp < 0) || (upper && (cmp == 0))) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /** Returns the position of the specified child in its parent. */
+    private static int childIndex(Inner parent, Node child) {
+        for (int i = 0;; i++)
+            if (parent.children[i] == child) return i;
+    }
+
+    /** Inserts the specified element at the specified position, splits the leaf if full. */
+    private void insert(Leaf leaf, int i, E element) {
+        if (leaf.size < capacity) {
+            System.arraycopy(leaf.elements, i, leaf.elements, i + 1, leaf.size - i);
+            leaf.elements[i] = element;
+            leaf.size++;
+            return;
+        }
+        Leaf right = new Leaf(capacity);
+        int half = (capacity + 1) >> 1; // Number of elements of the left leaf after insertion.
+        int from = (i < half) ? half - 1 : half; // First element moved.
+        right.size = capacity - from;
+        System.arraycopy(leaf.elements, from, right.elements, 0, right.size);
+        Arrays.fill(leaf.elements, from, capacity, null);
+        leaf.size = from;
+        if (i < half) insert(leaf, i, element);
+        else insert(right, i - from, element);
+        right.next = leaf.next;
+        if (right.next != null) right.next.previous = right;
+        else last = right;
+        right.previous = leaf;
+        leaf.next = right;
+        insertChild(leaf, right, right.elements[0]);
+    }
+
+    /** Inserts the specified node right after its left sibling in their parent (splits the parent if full). */
+    private void insertChild(Node left, Node right, Object key) {
+        Inner parent = left.parent;
+        if (parent == null) { // New root.
+            Inner inner = new Inner(capacity);
+            inner.children[0] = left;
+            inner.children[1] = right;
+            inner.keys[1] = key;
+            inner.size = 2;
+            left.parent = right.parent = inner;
+            root = inner;
+            return;
+        }
+        int i = childIndex(parent, left) + 1;
+        if (parent.size < capacity) {
+            System.arraycopy(parent.keys, i, parent.keys, i + 1, parent.size - i);
+            System.arraycopy(parent.children, i, parent.children, i + 1, parent.size - i);
+            parent.keys[i] = key;
+            parent.children[i] = right;
+            parent.size++;
+            right.parent = parent;
+            return;
+        }
+        Object[] keys = new Object[capacity + 1]; // Splits (rare).
+        Node[] children = new Node[capacity + 1];
+        System.arraycopy(parent.keys, 0, keys, 0, i);
+        System.arraycopy(parent.children, 0, children, 0, i);
+        keys[i] = key;
+        children[i] = right;
+        System.arraycopy(parent.keys, i, keys, i + 1, capacity - i);
+        System.arraycopy(parent.children, i, children, i + 1, capacity - i);
+        int half = (capacity + 1) >> 1;
+        Inner sibling = new Inner(capacity);
+        sibling.size = capacity + 1 - half;
+        System.arraycopy(keys, half, sibling.keys, 0, sibling.size);
+        System.arraycopy(children, half, sibling.children, 0, sibling.size);
+        System.arraycopy(keys, 0, parent.keys, 0, half);
+        System.arraycopy(children, 0, parent.children, 0, half);
+        Arrays.fill(parent.keys, half, capacity, null);
+        Arrays.fill(parent.children, half, capacity, null);
+        parent.size = half;
+        for (int j = 0; j < half; j++) parent.children[j].parent = parent;
+        for (int j = 0; j < sibling.size; j++) sibling.children[j].parent = sibling;
+        insertChild(parent, sibling, sibling.keys[0]);
+    }
+
+    /** Removes the element at the specified position, rebalances the tree if the leaf underflows. */
+    private void remove(Leaf leaf, int i) {
+        System.arraycopy(leaf.elements, i + 1, leaf.elements, i, leaf.size - i - 1);
+        leaf.elements[--leaf.size] = null;
+        if ((leaf.parent == null) || (leaf.size >= minimum())) return;
+        Inner parent = leaf.parent;
+        int ci = childIndex(parent, leaf);
+        Leaf left = (ci > 0) ? (Leaf) parent.children[ci - 1] : null;
+        Leaf right = (ci + 1 < parent.size) ? (Leaf) parent.children[ci + 1] : null;
+        if ((left != null) && (left.size > minimum())) { // Borrows from left sibling.
+            System.arraycopy(leaf.elements, 0, leaf.elements, 1, leaf.size++);
+            leaf.elements[0] = left.elements[--left.size];
+            left.elements[left.size] = null;
+            parent.keys[ci] = leaf.elements[0];
+        } else if ((right != null) && (right.size > minimum())) { // Borrows from right sibling.
+            leaf.elements[leaf.size++] = right.elements[0];
+            System.arraycopy(right.elements, 1, right.elements, 0, --right.size);
+            right.elements[right.size] = null;
+            parent.keys[ci + 1] = right.elements[0];
+        } else if (left != null) {
+            merge(left, leaf, parent, ci);
+        } else {
+            merge(leaf, right, parent, ci + 1);
+        }
+    }
+
+    /** Merges the specified adjacent leaves (the right leaf at position {@code ri} is removed). */
+    private void merge(Leaf left, Leaf right, Inner parent, int ri) {
+        System.arraycopy(right.elements, 0, left.elements, left.size, right.size);
+        left.size += right.size;
+        left.next = right.next;
+        if (left.next != null) left.next.previous = left;
+        else last = left;
+        removeChild(parent, ri);
+    }
+
+    /** Removes the child at the specified position, rebalances the tree if the node underflows. */
+    private void removeChild(Inner node, int i) {
+        System.arraycopy(node.keys, i + 1, node.keys, i, node.size - i - 1);
+        System.arraycopy(node.children, i + 1, node.children, i, node.size - i - 1);
+        node.size--;
+        node.keys[node.size] = null;
+        node.children[node.size] = null;
+        if (node.parent == null) { // Root.
+            if (node.size == 1) { // Decreases the tree height.
+                root = node.children[0];
+                root.parent = null;
+            }
+            return;
+        }
+        if (node.size >= minimum()) return;
+        Inner parent = node.parent;
+        int ci = childIndex(parent, node);
+        Inner left = (ci > 0) ? (Inner) parent.children[ci - 1] : null;
+        Inner right = (ci + 1 < parent.size) ? (Inner) parent.children[ci + 1] : null;
+        if ((left != null) && (left.size > minimum())) { // Borrows from left sibling.
+            System.arraycopy(node.keys, 0, node.keys, 1, node.size);
+            System.arraycopy(node.children, 0, node.children, 1, node.size++);
+            node.keys[1] = parent.keys[ci];
+            node.children[0] = left.children[--left.size];
+            node.children[0].parent = node;
+            node.keys[0] = parent.keys[ci] = left.keys[left.size];
+            left.keys[left.size] = null;
+            left.children[left.size] = null;
+        } else if ((right != null) && (right.size > minimum())) { // Borrows from right sibling.
+            node.keys[node.size] = parent.keys[ci + 1];
+            node.children[node.size] = right.children[0];
+            node.children[node.size++].parent = node;
+            parent.keys[ci + 1] = right.keys[1];
+            System.arraycopy(right.keys, 1, right.keys, 0, --right.size);
+            System.arraycopy(right.children, 1, right.children, 0, right.size);
+            right.keys[right.size] = null;
+            right.children[right.size] = null;
+        } else if (left != null) {
+            merge(left, node, parent, ci);
+        } else {
+            merge(node, right, parent, ci + 1);
+        }
+    }
+
+    /** Merges the specified adjacent inner nodes (the right node at position {@code ri} is removed). */
+    private void merge(Inner left, Inner right, Inner parent, int ri) {
+        for (int j = 0; j < right.size; j++) {
+            left.keys[left.size + j] = (j == 0) ? parent.keys[ri] : right.keys[j];
+            left.children[left.size + j] = right.children[j];
+            right.children[j].parent = left;
+        }
+        left.size += right.size;
+        removeChild(parent, ri);
+    }
+
+    /** Replaces this tree with a tree built bottom-up from the specified elements (ascending order). */
+    private void build(Iterator<? extends E> sorted) {
+        Node[] level = new Node[16];
+        Object[] mins = new Object[16];
+        int count = 0;
+        int n = 0;
+        Leaf leaf = new Leaf(capacity);
+        Leaf head = leaf;
+        E previous = null;
+        while (sorted.hasNext()) {
+            E e = sorted.next();
+            if ((n++ != 0) && (order.compare(previous, e) > 0))
+                throw new IllegalArgumentException("Elements not in ascending order");
+            if (leaf.size == capacity) {
+                if (count == level.length) {
+                    level = Arrays.copyOf(level, count * 2);
+                    mins = Arrays.copyOf(mins, count * 2);
+                }
+                level[count++] = leaf;
+                Leaf next = new Leaf(capacity);
+                next.previous = leaf;
+                leaf = leaf.next = next;
+            }
+            leaf.elements[leaf.size++] = previous = e;
+        }
+        if (count == level.length) {
+            level = Arrays.copyOf(level, count + 1);
+            mins = Arrays.copyOf(mins, count + 1);
+        }
+        level[count++] = leaf;
+        if ((count > 1) && (leaf.size < minimum())) { // Borrows from previous (full) leaf.
+            Leaf prev = leaf.previous;
+            int moved = minimum() - leaf.size;
+            System.arraycopy(leaf.elements, 0, leaf.elements, moved, leaf.size);
+            System.arraycopy(prev.elements, prev.size - moved, leaf.elements, 0, moved);
+            Arrays.fill(prev.elements, prev.size - moved, prev.size, null);
+            prev.size -= moved;
+            leaf.size += moved;
+        }
+        for (int i = 0; i < count; i++) mins[i] = ((Leaf) level[i]).elements[0];
+        while (count > 1) { // Builds the upper level.
+            int parents = 0;
+            Inner inner = null;
+            for (int i = 0; i < count; i++) {
+                Node child = level[i];
+                Object min = mins[i];
+                if ((inner == null) || (inner.size == capacity)) { // Parents overwrite the level already read.
+                    inner = new Inner(capacity);
+                    mins[parents] = min;
+                    level[parents++] = inner;
+                }
+                inner.keys[inner.size] = min;
+                inner.children[inner.size++] = child;
+                child.parent = inner;
+            }
+            if ((parents > 1) && (inner.size < minimum())) { // Borrows from previous (full) node.
+                Inner prev = (Inner) level[parents - 2];
+                int moved = minimum() - inner.size;
+                System.arraycopy(inner.keys, 0, inner.keys, moved, inner.size);
+                System.arraycopy(inner.children, 0, inner.children, moved, inner.size);
+                System.arraycopy(prev.keys, prev.size - moved, inner.keys, 0, moved);
+                System.arraycopy(prev.children, prev.size - moved, inner.children, 0, moved);
+                Arrays.fill(prev.keys, prev.size - moved, prev.size, null);
+                Arrays.fill(prev.children, prev.size - moved, prev.size, null);
+                prev.size -= moved;
+                inner.size += moved;
+                for (int j = 0; j < moved; j++) inner.children[j].parent = inner;
+                mins[parents - 1] = inner.keys[0];
+            }
+            count = parents;
+        }
+        root = level[0];
+        root.parent = null;
+        first = head;
+        last = leaf;
+        size = n;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (Leaf leaf = first; leaf != null; leaf = leaf.next)
+            for (int i = 0; i < leaf.size; i++) out.writeObject(leaf.elements[i]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        Object[] elements = new Object[in.readInt()];
+        for (int i = 0; i < elements.length; i++) elements[i] = in.readObject();
+        build((Iterator<E>) Arrays.asList(elements).iterator());
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // Iterators.
+    //
+
+    /** Ascending iterator following the leaves links. */
+    private final class AscendingIteratorImpl implements FastIterator<E> {
+        private Leaf leaf;
+        private int index;
+
+        AscendingIteratorImpl(@Nullable E from) {
+            if (from == null) {
+                leaf = first;
+            } else {
+                leaf = leafOf(from, false);
+                index = indexOf(leaf, from, false);
+            }
+            if (index == leaf.size) { // Also when empty.
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null;
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super E> matching) {
+            for (; leaf != null; leaf = leaf.next, index = 0)
+                for (; index < leaf.size; index++)
+                    if (matching.test(elementAt(leaf, index))) return true;
+            return false;
+        }
+
+        @Override
+        public E next() {
+            if (leaf == null) throw new NoSuchElementException();
+            E next = elementAt(leaf, index);
+            if (++index == leaf.size) {
+                leaf = leaf.next;
+                index = 0;
+            }
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /** Descending iterator following the leaves links. */
+    private final class DescendingIteratorImpl implements FastIterator<E> {
+        private Leaf leaf;
+        private int index;
+
+        DescendingIteratorImpl(@Nullable E from) {
+            if (from == null) {
+                leaf = last;
+                index = leaf.size - 1;
+            } else {
+                leaf = leafOf(from, true);
+                index = indexOf(leaf, from, true) - 1;
+            }
+            if (index < 0) { // Also when empty.
+                leaf = leaf.previous;
+                index = (leaf != null) ? leaf.size - 1 : -1;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null;
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super E> matching) {
+            for (; leaf != null; leaf = leaf.previous, index = (leaf != null) ? leaf.size - 1 : -1)
+                for (; index >= 0; index--)
+                    if (matching.test(elementAt(leaf, index))) return true;
+            return false;
+        }
+
+        @Override
+        public E next() {
+            if (leaf == null) throw new NoSuchElementException();
+            E next = elementAt(leaf, index);
+            if (--index < 0) {
+                leaf = leaf.previous;
+                index = (leaf != null) ? leaf.size - 1 : -1;
+            }
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
@@ -11,6 +11,7 @@ package org.javolution.util;
 import org.javolution.annotations.Nullable;
 import org.javolution.annotations.Realtime;
 import org.javolution.util.function.Predicate;
+import org.javolution.util.internal.CompactArrayImpl;
 import org.javolution.util.internal.FractalArrayImpl;
 
 import java.io.Serializable;
@@ -175,6 +176,16 @@ public abstract class FractalArray<E> implements Cloneable, Serializable, Iterab
         return new Unmodifiable<E>(this);
     }
 
+    /** 
+     * Returns an immutable dense copy of this array for read-mostly data. Indices and elements are held in 
+     * sorted parallel arrays with a directory over the index high bits; look-ups are performed in 
+     * {@link Realtime.Limit#LOG_N O(Log(n))} worst case but touch fewer cache lines and use less memory.  
+     */  
+    @Realtime(limit=LINEAR)
+    public FractalArray<E> compact() {
+        return new CompactArrayImpl<E>(this);
+    }
+
     @Override
     public Iterator<E> iterator() {
         return iterator(0);
@@ -205,7 +216,7 @@ public abstract class FractalArray<E> implements Cloneable, Serializable, Iterab
             filter = matching;            
             nextIndex = (nextIndex != -1) ? fractal.next(nextIndex + 1, -1, this) : -1;
             filter = null;
-            return true;
+            return next != null;
         }
 
         @Override
@@ -261,7 +272,7 @@ public abstract class FractalArray<E> implements Cloneable, Serializable, Iterab
             filter = matching;            
             previousIndex = (previousIndex != 0) ? fractal.next(previousIndex - 1, 0, this) : -1;
             filter = null;
-            return true;
+            return previous != null;
         }
 
         @Override
@@ -0,0 +1,205 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.javolution.annotations.Realtime.Limit.CONSTANT;
+import static org.javolution.annotations.Realtime.Limit.LINEAR;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.annotations.ReadOnly;
+import org.javolution.annotations.Realtime;
+import org.javolution.util.function.Function;
+
+/**
+ * A secondary index over the rows of a table, mapping the key extracted from each row to the rows having that key.
+ * Indexes are created through {@link AbstractTable#index(Function, boolean)} and are kept consistent by the table
+ * own mutators ({@code add}, {@code set}, {@code remove}, {@code clear}, ...) including when the table is modified
+ * through one of its views.
+ *
+ * ```java
+ * FastTable<Person> persons = ...;
+ * TableIndex<Person, String> byName = persons.index(Person::getName, true); // Unique.
+ * TableIndex<Person, Integer> byAge = persons.index(Person::getAge, Order.valueOf(i -> i), false); // Ordered.
+ * Person john = byName.get("John"); // Constant time.
+ * FastTable<Person> teenagers = byAge.range(13, 20); // Range query (ordered index).
+ * ```
+ *
+ * Rows are indexed by identity; the key of a row should not change while the row is in the table (rows should be
+ * replaced using {@link AbstractTable#set set} instead). {@code null} rows and rows with {@code null} keys are
+ * not indexed.
+ *
+ * @param <E> the type of table rows
+ * @param <K> the type of index keys
+ */
+public final class TableIndex<E, K> {
+
+    private final Function<? super E, ? extends K> keyExtractor;
+    private final boolean unique;
+    private final AbstractMap<K, E> firsts; // First row for each key.
+    private final AbstractMap<K, FastTable<E>> others; // Other rows (duplicate keys).
+
+    TableIndex(Function<? super E, ? extends K> keyExtractor, boolean unique, AbstractMap<K, E> firsts,
+            AbstractMap<K, FastTable<E>> others) {
+        this.keyExtractor = keyExtractor;
+        this.unique = unique;
+        this.firsts = firsts;
+        this.others = others;
+    }
+
+    /**
+     * Returns a key extractor for composite indexes; the key returned is the list of the fields extracted
+     * (two composite keys are equal if all their fields are equal).
+     *
+     * @param fields the functions extracting each field of the composite key.
+     */
+    @SafeVarargs
+    public static <E> Function<E, List<Object>> composite(final Function<? super E, ?>... fields) {
+        return new Function<E, List<Object>>() {
+            @Override
+            public List<Object> apply(E row) {
+                Object[] key = new Object[fields.length];
+                for (int i = 0; i < fields.length; i++) key[i] = fields[i].apply(row);
+                return Arrays.asList(key);
+            }
+        };
+    }
+
+    /** Indicates if this index does not allow distinct rows having the same key. */
+    @Realtime(limit = CONSTANT)
+    public boolean isUnique() {
+        return unique;
+    }
+
+    /** Returns the function used to extract the key of the rows. */
+    @Realtime(limit = CONSTANT)
+    public Function<? super E, ? extends K> keyExtractor() {
+        return keyExtractor;
+    }
+
+    /** Returns the first row added having the specified key or {@code null} if none. */
+    @Realtime(limit = CONSTANT)
+    public @Nullable E get(K key) {
+        return firsts.get(key);
+    }
+
+    /** Indicates if any row has the specified key. */
+    @Realtime(limit = CONSTANT)
+    public boolean containsKey(K key) {
+        return firsts.containsKey(key);
+    }
+
+    /** Returns the number of rows having the specified key. */
+    @Realtime(limit = CONSTANT)
+    public int count(K key) {
+        if (!firsts.containsKey(key)) return 0;
+        FastTable<E> bucket = others.get(key);
+        return (bucket != null) ? bucket.size() + 1 : 1;
+    }
+
+    /** Returns the rows having the specified key (copy). */
+    @Realtime(limit = LINEAR, comment = "Linear in the number of rows returned")
+    public FastTable<E> getAll(K key) {
+        FastTable<E> rows = new FastTable<E>();
+        AbstractMap.Entry<K, E> entry = firsts.getEntry(key);
+        if (entry != null) addRows(entry, rows);
+        return rows;
+    }
+
+    /**
+     * Returns the rows whose keys range from {@code fromKey} (inclusive) to {@code toKey} (exclusive) in the key
+     * order of this index (copy); range queries are meaningful only for indexes created with an ordered
+     * {@link org.javolution.util.function.Indexer Indexer} or a comparator.
+     *
+     * @param fromKey the lower key (inclusive) or {@code null} for no lower bound.
+     * @param toKey the higher key (exclusive) or {@code null} for no higher bound.
+     */
+    @Realtime(limit = LINEAR, comment = "Linear in the number of rows returned")
+    public FastTable<E> range(@Nullable K fromKey, @Nullable K toKey) {
+        FastTable<E> rows = new FastTable<E>();
+        for (AbstractMap.Entry<K, E> entry : firsts.subMap(fromKey, true, toKey, false).entries())
+            addRows(entry, rows);
+        return rows;
+    }
+
+    /** Returns the distinct keys of this index (in key order). */
+    @Realtime(limit = CONSTANT)
+    public @ReadOnly AbstractSet<K> keys() {
+        return firsts.keySet().unmodifiable();
+    }
+
+    private void addRows(AbstractMap.Entry<K, E> entry, FastTable<E> rows) {
+        rows.add(entry.getValue());
+        FastTable<E> bucket = others.get(entry.getKey());
+        if (bucket != null) rows.addAll(bucket);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // Table hooks.
+    //
+
+    /** Checks that the specified row can replace the specified one (or be added) without violating uniqueness. */
+    void check(@Nullable E row, @Nullable E replaced) {
+        if (!unique || (row == null)) return;
+        K key = keyExtractor.apply(row);
+        if (key == null) return;
+        E first = firsts.get(key);
+        if ((first == null) || (first == row)) return; // Same row may be held twice (e.g. swaps when sorting).
+        if ((first == replaced) && !others.containsKey(key)) return;
+        throw new IllegalArgumentException("Duplicate key: " + key);
+    }
+
+    /** Indexes the specified row. */
+    void added(@Nullable E row) {
+        if (row == null) return;
+        K key = keyExtractor.apply(row);
+        if (key == null) return;
+        if (!firsts.containsKey(key)) {
+            firsts.put(key, row);
+            return;
+        }
+        FastTable<E> bucket = others.get(key);
+        if (bucket == null) others.put(key, bucket = new FastTable<E>());
+        bucket.add(row);
+    }
+
+    /** Removes the specified row from this index. */
+    void removed(@Nullable E row) {
+        if (row == null) return;
+        K key = keyExtractor.apply(row);
+        if (key == null) return;
+        AbstractMap.Entry<K, E> entry = firsts.getEntry(key);
+        if (entry == null) return; // Not indexed.
+        FastTable<E> bucket = others.get(key);
+        if (entry.getValue() == row) {
+            if (bucket == null) {
+                firsts.remove(key);
+                return;
+            }
+            firsts.put(key, bucket.removeFirst());
+        } else if (bucket != null) {
+            for (int i = 0, n = bucket.size(); i < n; i++) {
+                if (bucket.get(i) == row) {
+                    bucket.remove(i);
+                    break;
+                }
+            }
+        }
+        if ((bucket != null) && bucket.isEmpty()) others.remove(key);
+    }
+
+    /** Removes all the rows from this index. */
+    void clear() {
+        firsts.clear();
+        others.clear();
+    }
+
+}
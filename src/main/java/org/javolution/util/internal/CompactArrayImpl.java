@@ -0,0 +1,189 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2016 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal;
+
+import java.util.NoSuchElementException;
+
+import org.javolution.lang.Immutable;
+import org.javolution.util.FractalArray;
+import org.javolution.util.function.Predicate;
+
+import static org.javolution.lang.MathLib.*;
+
+/**
+ * An immutable dense fractal array for read-mostly data. The indices and elements are held in sorted parallel
+ * arrays (no per-node slack); a directory over the high bits of the indices (relative to the minimum index)
+ * narrows the binary search to a few cache lines.
+ */
+public final class CompactArrayImpl<E> extends FractalArray<E> implements Immutable {
+	private static final long serialVersionUID = 0x700L;
+	private static final int ENTRIES_PER_BUCKET = 4; // Average (uniform distribution).
+
+	private final long[] indices; // Sorted (unsigned).
+	private final E[] elements;
+	private final int[] directory; // First position of each bucket (plus end position).
+	private final int shift; // Index offset to bucket shift.
+
+	/** Creates a compact copy of the specified fractal array. */
+	@SuppressWarnings("unchecked")
+	public CompactArrayImpl(FractalArray<E> fractal) {
+		int n = 0;
+		for (FractalArray.Iterator<E> itr = fractal.iterator(); itr.hasNext(); itr.next()) n++;
+		indices = new long[n];
+		elements = (E[]) new Object[n];
+		int i = 0;
+		for (FractalArray.Iterator<E> itr = fractal.iterator(); itr.hasNext();) {
+			indices[i] = itr.nextIndex();
+			elements[i++] = itr.next();
+		}
+		int bucketBits = 0;
+		while ((ENTRIES_PER_BUCKET << bucketBits) < n) bucketBits++;
+		long span = (n != 0) ? indices[n - 1] - indices[0] : 0; // Unsigned.
+		int spanBits = 64 - Long.numberOfLeadingZeros(span);
+		shift = min(max(0, spanBits - bucketBits), 63);
+		int bucketCount = (int) (span >>> shift) + 1;
+		directory = new int[bucketCount + 1];
+		for (int b = 0, p = 0; b <= bucketCount; b++) {
+			while ((p < n) && (bucketOf(indices[p]) < b)) p++;
+			directory[b] = p;
+		}
+	}
+
+	@Override
+	public CompactArrayImpl<E> clone() {
+		return this; // Immutable.
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return indices.length == 0;
+	}
+
+	@Override
+	public E get(long index) {
+		int i = lowerBound(index);
+		return ((i < indices.length) && (indices[i] == index)) ? elements[i] : null;
+	}
+
+	@Override
+	public FractalArray<E> clear(long index) {
+		throw new UnsupportedOperationException("Compact arrays are immutable");
+	}
+
+	@Override
+	public FractalArray<E> set(long index, E element) {
+		throw new UnsupportedOperationException("Compact arrays are immutable");
+	}
+
+	@Override
+	public FractalArray<E> shift(long from, long to, E inserted) {
+		throw new UnsupportedOperationException("Compact arrays are immutable");
+	}
+
+	@Override
+	public long next(long from, long to, Predicate<? super E> matching) {
+		if (!unsignedLessThan(to, from)) { // Ascending.
+			for (int i = lowerBound(from); (i < indices.length) && !unsignedLessThan(to, indices[i]); i++)
+				if (matching.test(elements[i])) return indices[i];
+		} else { // Descending.
+			for (int i = upperBound(from) - 1; (i >= 0) && !unsignedLessThan(indices[i], to); i--)
+				if (matching.test(elements[i])) return indices[i];
+		}
+		return -1;
+	}
+
+	@Override
+	public FractalArray.Iterator<E> iterator(long from) {
+		return new IteratorImpl(lowerBound(from), false);
+	}
+
+	@Override
+	public FractalArray.Iterator<E> descendingIterator(long from) {
+		return new IteratorImpl(upperBound(from) - 1, true);
+	}
+
+	@Override
+	public FractalArray<E> unmodifiable() {
+		return this;
+	}
+
+	@Override
+	public FractalArray<E> compact() {
+		return this;
+	}
+
+	private int bucketOf(long index) { // Index in range.
+		return (int) ((index - indices[0]) >>> shift);
+	}
+
+	/** Returns the position of the first index greater than or equal to the one specified. */
+	private int lowerBound(long index) {
+		int n = indices.length;
+		if ((n == 0) || !unsignedLessThan(indices[0], index)) return 0;
+		if (unsignedLessThan(indices[n - 1], index)) return n;
+		int b = bucketOf(index);
+		int low = directory[b];
+		int high = directory[b + 1]; // Exclusive.
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (unsignedLessThan(indices[mid], index)) low = mid + 1;
+			else high = mid;
+		}
+		return low;
+	}
+
+	/** Returns the position of the first index strictly greater than the one specified. */
+	private int upperBound(long index) {
+		int i = lowerBound(index);
+		return ((i < indices.length) && (indices[i] == index)) ? i + 1 : i;
+	}
+
+	/** Iterates directly over the parallel arrays. */
+	private final class IteratorImpl implements FractalArray.Iterator<E> {
+		private final boolean descending;
+		private int position;
+
+		private IteratorImpl(int position, boolean descending) {
+			this.position = position;
+			this.descending = descending;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (position >= 0) && (position < indices.length);
+		}
+
+		@Override
+		public boolean hasNext(Predicate<? super E> matching) {
+			for (; hasNext(); position += descending ? -1 : 1)
+				if (matching.test(elements[position])) return true;
+			return false;
+		}
+
+		@Override
+		public E next() {
+			if (!hasNext()) throw new NoSuchElementException();
+			E next = elements[position];
+			position += descending ? -1 : 1;
+			return next;
+		}
+
+		@Override
+		public long nextIndex() {
+			return hasNext() ? indices[position] : -1;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException(); // As per contract.
+		}
+
+	}
+
+}
@@ -75,6 +75,16 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 		return (value >>> bits) << bits;
 	}
 
+	/** Returns the greatest of two unsigned 64-bits values. */
+	private static final long unsignedMax(long x, long y) {
+		return unsignedLessThan(x, y) ? y : x;
+	}
+
+	/** Returns the smallest of two unsigned 64-bits values. */
+	private static final long unsignedMin(long x, long y) {
+		return unsignedLessThan(x, y) ? x : y;
+	}
+
 	/** The empty singleton. */
 	private static final class Empty<E> extends FractalArrayImpl<E> implements Immutable {
 		private static final long serialVersionUID = FractalArrayImpl.serialVersionUID;
@@ -111,7 +121,7 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 
 		@Override
 		public long next(long from, long to, Predicate<? super E> matching) {
-			return 0;
+			return -1;
 		}
 
 		@Override
@@ -314,7 +324,7 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 				if (inserted != null)
 					count--; // element at 'to' discarded.
 			}
-			return (count == 1) ? extractFractal() : this;
+			return (count == 0) ? FractalArrayImpl.<E>empty() : (count == 1) ? extractFractal() : this;
 		}
 
 		@Override
@@ -326,16 +336,16 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 		public long next(long from, long to, Predicate<? super E> matching) {
 			int inc;
 			if (unsignedLessThan(from, to)) {
-				if (isOverflow(from))
+				if (isOverflow(from) || isUnderflow(to))
 					return -1;
-				from = max(firstIndex(), from);
-				to = min(lastIndex(), to);
+				from = unsignedMax(firstIndex(), from);
+				to = unsignedMin(lastIndex(), to);
 				inc = 1;
 			} else {
-				if (isUnderflow(from))
+				if (isUnderflow(from) || isOverflow(to))
 					return -1;
-				from = min(lastIndex(), from);
-				to = max(firstIndex(), to);
+				from = unsignedMin(lastIndex(), from);
+				to = unsignedMax(firstIndex(), to);
 				inc = -1;
 			}
 			for (int i = arrayIndex(from), n = arrayIndex(to);; i = (i + inc) & MASK) {
@@ -343,7 +353,7 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 				if ((e != null) && matching.test(e))
 					return indexFor(i);
 				if (i == n)
-					return 0;
+					return -1;
 			}
 		}
 
@@ -466,7 +476,9 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 			FractalArrayImpl<E> newFractal = fractal.clear(subIndex(index));
 			if (newFractal != fractal)
 				inners[i] = newFractal.isEmpty() ? null : newFractal;
-			return newFractal.isEmpty() && (--count == 1) ? extractFractal() : this;
+			if (!newFractal.isEmpty())
+				return this;
+			return (--count == 0) ? FractalArrayImpl.<E>empty() : (count == 1) ? extractFractal() : this;
 		}
 
 		@Override
@@ -560,7 +572,7 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 				}
 			}
 
-			return (count == 1) ? extractFractal() : this;
+			return (count == 0) ? FractalArrayImpl.<E>empty() : (count == 1) ? extractFractal() : this;
 		}
 
 		@Override
@@ -572,16 +584,16 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 		public long next(long from, long to, Predicate<? super E> matching) {
 			int inc;
 			if (unsignedLessThan(from, to)) {
-				if (isOverflow(from))
+				if (isOverflow(from) || isUnderflow(to))
 					return -1;
-				from = max(firstIndex(), from);
-				to = min(lastIndex(), to);
+				from = unsignedMax(firstIndex(), from);
+				to = unsignedMin(lastIndex(), to);
 				inc = 1;
 			} else {
-				if (isUnderflow(from))
+				if (isUnderflow(from) || isOverflow(to))
 					return -1;
-				from = min(lastIndex(), from);
-				to = max(firstIndex(), to);
+				from = unsignedMin(lastIndex(), from);
+				to = unsignedMax(firstIndex(), to);
 				inc = -1;
 			}
 			for (int i = arrayIndex(from), first = i, last = arrayIndex(to);; i = (i + inc) & MASK) {
@@ -617,8 +629,9 @@ public abstract class FractalArrayImpl<E> extends FractalArray<E> {
 				FractalArrayImpl<E> inner = inners[i];
 				if (inner == null)
 					continue;
-				//inner.prefix = indexFor(i, 0L); // Full prefix is the index of the first fractal element.
-				return inner;
+				if (inner instanceof Single) // Inner prefix is relative, the single index is made absolute.
+					return new Single<E>(indexFor(i, inner.prefix), ((Single<E>) inner).element);
+				return this; // Other inners cannot be extracted (their prefix is relative to this fractal).
 			}
 		}
 
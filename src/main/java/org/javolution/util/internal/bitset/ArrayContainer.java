@@ -0,0 +1,182 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.bitset;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A container holding up to {@link #ARRAY_MAX} values in a sorted array.
+ */
+public final class ArrayContainer extends Container {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final char[] NONE = new char[0];
+    char[] values;
+    int size;
+
+    ArrayContainer() {
+        values = NONE;
+    }
+
+    ArrayContainer(char[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    ArrayContainer(long[] words, int cardinality) {
+        values = new char[cardinality];
+        for (int i = 0; i < words.length; i++)
+            for (long w = words[i]; w != 0; w &= w - 1)
+                values[size++] = (char) ((i << 6) + Long.numberOfTrailingZeros(w));
+    }
+
+    @Override
+    public int cardinality() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int low) {
+        return Arrays.binarySearch(values, 0, size, (char) low) >= 0;
+    }
+
+    @Override
+    public Container add(int low) {
+        int i = Arrays.binarySearch(values, 0, size, (char) low);
+        if (i >= 0) return this;
+        if (size >= ARRAY_MAX) return toBitmap().add(low);
+        i = -i - 1;
+        if (size == values.length) values = Arrays.copyOf(values, Math.min(Math.max(4, size * 2), ARRAY_MAX));
+        System.arraycopy(values, i, values, i + 1, size - i);
+        values[i] = (char) low;
+        size++;
+        return this;
+    }
+
+    @Override
+    public Container remove(int low) {
+        int i = Arrays.binarySearch(values, 0, size, (char) low);
+        if (i < 0) return this;
+        System.arraycopy(values, i + 1, values, i, size - i - 1);
+        size--;
+        return this;
+    }
+
+    @Override
+    public Container addRange(int from, int to) {
+        if (from >= to) return this;
+        long[] words = toWords();
+        setRange(words, from, to);
+        return of(words);
+    }
+
+    @Override
+    public Container removeRange(int from, int to) {
+        if (from >= to) return this;
+        int i = lowerBound(from);
+        int j = lowerBound(to);
+        System.arraycopy(values, j, values, i, size - j);
+        size -= j - i;
+        return this;
+    }
+
+    @Override
+    public int next(int from) {
+        int i = lowerBound(from);
+        return (i < size) ? values[i] : -1;
+    }
+
+    @Override
+    public int previous(int from) {
+        int i = lowerBound(from + 1) - 1;
+        return (i >= 0) ? values[i] : -1;
+    }
+
+    @Override
+    public int nextClear(int from) {
+        for (int i = lowerBound(from); (i < size) && (values[i] == from); i++) from++;
+        return from;
+    }
+
+    @Override
+    public void forEach(int base, IntConsumer action) {
+        for (int i = 0; i < size; i++) action.accept(base + values[i]);
+    }
+
+    @Override
+    public void orInto(long[] words) {
+        for (int i = 0; i < size; i++) words[values[i] >>> 6] |= 1L << values[i];
+    }
+
+    @Override
+    public void andNotInto(long[] words) {
+        for (int i = 0; i < size; i++) words[values[i] >>> 6] &= ~(1L << values[i]);
+    }
+
+    @Override
+    public void xorInto(long[] words) {
+        for (int i = 0; i < size; i++) words[values[i] >>> 6] ^= 1L << values[i];
+    }
+
+    @Override
+    public Container optimize() {
+        RunContainer runs = RunContainer.ofSorted(values, size);
+        return (runs.sizeInBytes() < 2 * size) ? runs : this;
+    }
+
+    @Override
+    public ArrayContainer clone() {
+        return new ArrayContainer(Arrays.copyOf(values, size), size);
+    }
+
+    /** Returns the values also in (or not in) the specified container ({@code null} if none). */
+    Container retain(Container that, boolean inThat) {
+        char[] retained = new char[size];
+        int n = 0;
+        for (int i = 0; i < size; i++)
+            if (that.contains(values[i]) == inThat) retained[n++] = values[i];
+        return (n != 0) ? new ArrayContainer(retained, n) : null;
+    }
+
+    /** Merges the specified array (union or symmetric difference), the result has at most ARRAY_MAX values. */
+    Container merge(ArrayContainer that, boolean exclusive) {
+        char[] merged = new char[size + that.size];
+        int i = 0, j = 0, n = 0;
+        while ((i < size) && (j < that.size)) {
+            char a = values[i];
+            char b = that.values[j];
+            if (a < b) {
+                merged[n++] = a;
+                i++;
+            } else if (b < a) {
+                merged[n++] = b;
+                j++;
+            } else {
+                if (!exclusive) merged[n++] = a;
+                i++;
+                j++;
+            }
+        }
+        while (i < size) merged[n++] = values[i++];
+        while (j < that.size) merged[n++] = that.values[j++];
+        return (n != 0) ? new ArrayContainer(merged, n) : null;
+    }
+
+    private BitmapContainer toBitmap() {
+        return new BitmapContainer(toWords(), size);
+    }
+
+    private int lowerBound(int low) { // Index of the first value greater than or equal to low.
+        if (low >= CAPACITY) return size;
+        int i = Arrays.binarySearch(values, 0, size, (char) low);
+        return (i >= 0) ? i : -i - 1;
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.bitset;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A container holding more than {@link #ARRAY_MAX} values as a bitmap of {@link #WORDS} words.
+ */
+public final class BitmapContainer extends Container {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    final long[] words;
+    private int cardinality;
+
+    BitmapContainer(long[] words, int cardinality) {
+        this.words = words;
+        this.cardinality = cardinality;
+    }
+
+    @Override
+    public int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    public boolean contains(int low) {
+        return (words[low >>> 6] & (1L << low)) != 0;
+    }
+
+    @Override
+    public Container add(int low) {
+        long w = words[low >>> 6];
+        long updated = w | (1L << low);
+        if (w != updated) {
+            words[low >>> 6] = updated;
+            cardinality++;
+        }
+        return this;
+    }
+
+    @Override
+    public Container remove(int low) {
+        long w = words[low >>> 6];
+        long updated = w & ~(1L << low);
+        if (w == updated) return this;
+        words[low >>> 6] = updated;
+        return (--cardinality <= ARRAY_MAX) ? new ArrayContainer(words, cardinality) : this;
+    }
+
+    @Override
+    public Container addRange(int from, int to) {
+        setRange(words, from, to);
+        updateCardinality();
+        return this;
+    }
+
+    @Override
+    public Container removeRange(int from, int to) {
+        clearRange(words, from, to);
+        updateCardinality();
+        return (cardinality <= ARRAY_MAX) ? new ArrayContainer(words, cardinality) : this;
+    }
+
+    @Override
+    public int next(int from) {
+        if (from >= CAPACITY) return -1;
+        int i = from >>> 6;
+        long w = words[i] & (-1L << from);
+        while (true) {
+            if (w != 0) return (i << 6) + Long.numberOfTrailingZeros(w);
+            if (++i == WORDS) return -1;
+            w = words[i];
+        }
+    }
+
+    @Override
+    public int previous(int from) {
+        if (from < 0) return -1;
+        int i = from >>> 6;
+        long w = words[i] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (w != 0) return (i << 6) + 63 - Long.numberOfLeadingZeros(w);
+            if (--i < 0) return -1;
+            w = words[i];
+        }
+    }
+
+    @Override
+    public int nextClear(int from) {
+        if (from >= CAPACITY) return CAPACITY;
+        int i = from >>> 6;
+        long w = ~words[i] & (-1L << from);
+        while (true) {
+            if (w != 0) return (i << 6) + Long.numberOfTrailingZeros(w);
+            if (++i == WORDS) return CAPACITY;
+            w = ~words[i];
+        }
+    }
+
+    @Override
+    public void forEach(int base, IntConsumer action) {
+        for (int i = 0; i < WORDS; i++)
+            for (long w = words[i]; w != 0; w &= w - 1)
+                action.accept(base + (i << 6) + Long.numberOfTrailingZeros(w));
+    }
+
+    @Override
+    public void orInto(long[] words) {
+        for (int i = 0; i < WORDS; i++) words[i] |= this.words[i];
+    }
+
+    @Override
+    public void andNotInto(long[] words) {
+        for (int i = 0; i < WORDS; i++) words[i] &= ~this.words[i];
+    }
+
+    @Override
+    public void xorInto(long[] words) {
+        for (int i = 0; i < WORDS; i++) words[i] ^= this.words[i];
+    }
+
+    @Override
+    public Container optimize() {
+        RunContainer runs = RunContainer.ofWords(words);
+        return (runs.sizeInBytes() < WORDS * 8) ? runs : this;
+    }
+
+    @Override
+    public BitmapContainer clone() {
+        return new BitmapContainer(words.clone(), cardinality);
+    }
+
+    private void updateCardinality() {
+        cardinality = 0;
+        for (long w : words) cardinality += Long.bitCount(w);
+    }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.bitset;
+
+import java.io.Serializable;
+import java.util.function.IntConsumer;
+
+/**
+ * A chunk of 2^16 bits of a compressed bit-set. Depending on its content, a chunk is held as a sorted array
+ * of values (sparse), a bitmap (dense) or a list of runs (consecutive bits set).
+ *
+ * Updates may return a new container (e.g. array converted to bitmap when full); callers should always use
+ * the container returned.
+ */
+public abstract class Container implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+
+    /** The number of bits per container. */
+    public static final int CAPACITY = 1 << 16;
+
+    /** The maximum cardinality of array containers. */
+    public static final int ARRAY_MAX = 4096;
+
+    /** The number of words of bitmap containers. */
+    public static final int WORDS = CAPACITY >>> 6;
+
+    /** Returns a new container holding the single value specified. */
+    public static Container of(int low) {
+        return new ArrayContainer().add(low);
+    }
+
+    /** Returns the most compact array or bitmap container for the specified words ({@code null} if empty). */
+    public static Container of(long[] words) {
+        int cardinality = 0;
+        for (long w : words) cardinality += Long.bitCount(w);
+        if (cardinality == 0) return null;
+        return (cardinality <= ARRAY_MAX) ? new ArrayContainer(words, cardinality) :
+            new BitmapContainer(words, cardinality);
+    }
+
+    /** Returns a new container holding the specified range of values (runs container). */
+    public static Container ofRange(int from, int to) {
+        return new RunContainer().addRange(from, to);
+    }
+
+    /** Returns the number of values held. */
+    public abstract int cardinality();
+
+    /** Indicates if the specified value is held. */
+    public abstract boolean contains(int low);
+
+    /** Adds the specified value. */
+    public abstract Container add(int low);
+
+    /** Removes the specified value. */
+    public abstract Container remove(int low);
+
+    /** Adds the values from {@code from} (inclusive) to {@code to} (exclusive). */
+    public abstract Container addRange(int from, int to);
+
+    /** Removes the values from {@code from} (inclusive) to {@code to} (exclusive). */
+    public abstract Container removeRange(int from, int to);
+
+    /** Returns the smallest value greater than or equal to the one specified or {@code -1} if none. */
+    public abstract int next(int from);
+
+    /** Returns the greatest value less than or equal to the one specified or {@code -1} if none. */
+    public abstract int previous(int from);
+
+    /** Returns the smallest value not held greater than or equal to the one specified ({@link #CAPACITY} if none). */
+    public abstract int nextClear(int from);
+
+    /** Performs the specified action on each value held (ascending) offset by the specified base. */
+    public abstract void forEach(int base, IntConsumer action);
+
+    /** Sets the bits of the specified words for the values held. */
+    public abstract void orInto(long[] words);
+
+    /** Clears the bits of the specified words for the values held. */
+    public abstract void andNotInto(long[] words);
+
+    /** Flips the bits of the specified words for the values held. */
+    public abstract void xorInto(long[] words);
+
+    /** Returns the most compact container for the values held (possibly {@code this}). */
+    public abstract Container optimize();
+
+    @Override
+    public abstract Container clone();
+
+    /** Returns the values held as a new array of {@link #WORDS} words. */
+    public long[] toWords() {
+        long[] words = new long[WORDS];
+        orInto(words);
+        return words;
+    }
+
+    /** Returns the intersection of the specified containers ({@code null} if empty). */
+    public static Container and(Container a, Container b) {
+        if (a instanceof ArrayContainer) return ((ArrayContainer) a).retain(b, true);
+        if (b instanceof ArrayContainer) return ((ArrayContainer) b).retain(a, true);
+        long[] words = a.toWords();
+        long[] other = (b instanceof BitmapContainer) ? ((BitmapContainer) b).words : b.toWords();
+        for (int i = 0; i < WORDS; i++) words[i] &= other[i];
+        return of(words);
+    }
+
+    /** Returns the union of the specified containers. */
+    public static Container or(Container a, Container b) {
+        if ((a instanceof ArrayContainer) && (b instanceof ArrayContainer) &&
+                (a.cardinality() + b.cardinality() <= ARRAY_MAX))
+            return ((ArrayContainer) a).merge((ArrayContainer) b, false);
+        if ((a instanceof RunContainer) && (b instanceof RunContainer))
+            return ((RunContainer) a).union((RunContainer) b);
+        if (a.cardinality() == CAPACITY) return a.clone();
+        if (b.cardinality() == CAPACITY) return b.clone();
+        long[] words = (a instanceof BitmapContainer) ? ((BitmapContainer) a).words.clone() : a.toWords();
+        b.orInto(words);
+        return of(words);
+    }
+
+    /** Returns the symmetric difference of the specified containers ({@code null} if empty). */
+    public static Container xor(Container a, Container b) {
+        if ((a instanceof ArrayContainer) && (b instanceof ArrayContainer) &&
+                (a.cardinality() + b.cardinality() <= ARRAY_MAX))
+            return ((ArrayContainer) a).merge((ArrayContainer) b, true);
+        long[] words = (a instanceof BitmapContainer) ? ((BitmapContainer) a).words.clone() : a.toWords();
+        b.xorInto(words);
+        return of(words);
+    }
+
+    /** Returns the values of {@code a} not in {@code b} ({@code null} if empty). */
+    public static Container andNot(Container a, Container b) {
+        if (a instanceof ArrayContainer) return ((ArrayContainer) a).retain(b, false);
+        long[] words = (a instanceof BitmapContainer) ? ((BitmapContainer) a).words.clone() : a.toWords();
+        b.andNotInto(words);
+        return of(words);
+    }
+
+    /** Indicates if the specified containers have at least one value in common. */
+    public static boolean intersects(Container a, Container b) {
+        if (b instanceof ArrayContainer) {
+            Container tmp = a;
+            a = b;
+            b = tmp;
+        }
+        if (a instanceof ArrayContainer) {
+            ArrayContainer array = (ArrayContainer) a;
+            for (int i = 0; i < array.size; i++)
+                if (b.contains(array.values[i])) return true;
+            return false;
+        }
+        long[] words = a.toWords();
+        long[] other = b.toWords();
+        for (int i = 0; i < WORDS; i++)
+            if ((words[i] & other[i]) != 0) return true;
+        return false;
+    }
+
+    /** Sets the bits from {@code from} (inclusive) to {@code to} (exclusive) of the specified words. */
+    static void setRange(long[] words, int from, int to) {
+        if (from >= to) return;
+        int i = from >>> 6;
+        int j = (to - 1) >>> 6;
+        if (i == j) {
+            words[i] |= (-1L << from) & (-1L >>> -to);
+            return;
+        }
+        words[i] |= -1L << from;
+        for (int k = i + 1; k < j; k++) words[k] = -1L;
+        words[j] |= -1L >>> -to;
+    }
+
+    /** Clears the bits from {@code from} (inclusive) to {@code to} (exclusive) of the specified words. */
+    static void clearRange(long[] words, int from, int to) {
+        if (from >= to) return;
+        int i = from >>> 6;
+        int j = (to - 1) >>> 6;
+        if (i == j) {
+            words[i] &= ~((-1L << from) & (-1L >>> -to));
+            return;
+        }
+        words[i] &= ~(-1L << from);
+        for (int k = i + 1; k < j; k++) words[k] = 0;
+        words[j] &= ~(-1L >>> -to);
+    }
+
+    /** Flips the bits from {@code from} (inclusive) to {@code to} (exclusive) of the specified words. */
+    static void flipRange(long[] words, int from, int to) {
+        if (from >= to) return;
+        int i = from >>> 6;
+        int j = (to - 1) >>> 6;
+        if (i == j) {
+            words[i] ^= (-1L << from) & (-1L >>> -to);
+            return;
+        }
+        words[i] ^= -1L << from;
+        for (int k = i + 1; k < j; k++) words[k] = ~words[k];
+        words[j] ^= -1L >>> -to;
+    }
+
+}
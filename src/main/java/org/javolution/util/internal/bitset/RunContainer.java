@@ -0,0 +1,271 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.bitset;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A container holding its values as sorted runs of consecutive values (non-overlapping, non-adjacent).
+ */
+public final class RunContainer extends Container {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final char[] NONE = new char[0];
+    private char[] runs; // Start and last (inclusive) value of each run.
+    private int count; // Number of runs.
+    private int cardinality;
+
+    RunContainer() {
+        runs = NONE;
+    }
+
+    private RunContainer(char[] runs, int count) {
+        this.runs = runs;
+        this.count = count;
+        updateCardinality();
+    }
+
+    /** Returns the runs of the specified sorted values. */
+    static RunContainer ofSorted(char[] values, int size) {
+        char[] runs = new char[8];
+        int n = 0;
+        for (int i = 0; i < size;) {
+            int start = values[i];
+            int last = start;
+            while ((++i < size) && (values[i] == last + 1)) last++;
+            if (2 * n + 2 > runs.length) runs = Arrays.copyOf(runs, runs.length * 2);
+            runs[2 * n] = (char) start;
+            runs[2 * n++ + 1] = (char) last;
+        }
+        return new RunContainer(runs, n);
+    }
+
+    /** Returns the runs of the specified words. */
+    static RunContainer ofWords(long[] words) {
+        char[] runs = new char[8];
+        int n = 0;
+        for (int start = nextSet(words, 0); start >= 0; ) {
+            int end = nextClear(words, start); // Exclusive.
+            if (2 * n + 2 > runs.length) runs = Arrays.copyOf(runs, runs.length * 2);
+            runs[2 * n] = (char) start;
+            runs[2 * n++ + 1] = (char) (end - 1);
+            start = (end < CAPACITY) ? nextSet(words, end) : -1;
+        }
+        return new RunContainer(runs, n);
+    }
+
+    /** Returns the memory footprint of this container (approximate). */
+    int sizeInBytes() {
+        return 2 + 4 * count;
+    }
+
+    @Override
+    public int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    public boolean contains(int low) {
+        int j = lastStartingAtOrBefore(low);
+        return (j >= 0) && (low <= last(j));
+    }
+
+    @Override
+    public Container add(int low) {
+        return addRange(low, low + 1);
+    }
+
+    @Override
+    public Container remove(int low) {
+        return removeRange(low, low + 1);
+    }
+
+    @Override
+    public Container addRange(int from, int to) {
+        if (from >= to) return this;
+        int last = to - 1;
+        int i = firstEndingAtOrAfter(from - 1); // Merges adjacent runs.
+        int j = lastStartingAtOrBefore(last + 1);
+        if (i <= j) {
+            from = Math.min(from, start(i));
+            last = Math.max(last, last(j));
+        }
+        replace(i, j, new char[] { (char) from, (char) last }, 1);
+        return compact();
+    }
+
+    @Override
+    public Container removeRange(int from, int to) {
+        if (from >= to) return this;
+        int last = to - 1;
+        int i = firstEndingAtOrAfter(from);
+        int j = lastStartingAtOrBefore(last);
+        if (i > j) return this;
+        char[] pieces = new char[4];
+        int n = 0;
+        if (start(i) < from) {
+            pieces[2 * n] = (char) start(i);
+            pieces[2 * n++ + 1] = (char) (from - 1);
+        }
+        if (last(j) > last) {
+            pieces[2 * n] = (char) (last + 1);
+            pieces[2 * n++ + 1] = (char) last(j);
+        }
+        replace(i, j, pieces, n);
+        return compact();
+    }
+
+    @Override
+    public int next(int from) {
+        int i = firstEndingAtOrAfter(from);
+        return (i < count) ? Math.max(from, start(i)) : -1;
+    }
+
+    @Override
+    public int previous(int from) {
+        int j = lastStartingAtOrBefore(from);
+        return (j >= 0) ? Math.min(from, last(j)) : -1;
+    }
+
+    @Override
+    public int nextClear(int from) {
+        int j = lastStartingAtOrBefore(from);
+        return ((j >= 0) && (from <= last(j))) ? last(j) + 1 : from;
+    }
+
+    @Override
+    public void forEach(int base, IntConsumer action) {
+        for (int i = 0; i < count; i++)
+            for (int value = start(i), last = last(i); value <= last; value++) action.accept(base + value);
+    }
+
+    @Override
+    public void orInto(long[] words) {
+        for (int i = 0; i < count; i++) setRange(words, start(i), last(i) + 1);
+    }
+
+    @Override
+    public void andNotInto(long[] words) {
+        for (int i = 0; i < count; i++) clearRange(words, start(i), last(i) + 1);
+    }
+
+    @Override
+    public void xorInto(long[] words) {
+        for (int i = 0; i < count; i++) flipRange(words, start(i), last(i) + 1);
+    }
+
+    @Override
+    public Container optimize() {
+        return compact();
+    }
+
+    @Override
+    public RunContainer clone() {
+        return new RunContainer(Arrays.copyOf(runs, 2 * count), count);
+    }
+
+    /** Returns the union of this container with the one specified. */
+    Container union(RunContainer that) {
+        char[] merged = new char[2 * (count + that.count)];
+        int n = 0;
+        for (int i = 0, j = 0; (i < count) || (j < that.count);) {
+            int start, last;
+            if ((j >= that.count) || ((i < count) && (start(i) <= that.start(j)))) {
+                start = start(i);
+                last = last(i++);
+            } else {
+                start = that.start(j);
+                last = that.last(j++);
+            }
+            if ((n > 0) && (start <= merged[2 * n - 1] + 1)) { // Overlapping or adjacent.
+                if (last > merged[2 * n - 1]) merged[2 * n - 1] = (char) last;
+            } else {
+                merged[2 * n] = (char) start;
+                merged[2 * n++ + 1] = (char) last;
+            }
+        }
+        return new RunContainer(merged, n).compact();
+    }
+
+    /** Returns this container or an equivalent array/bitmap container if smaller. */
+    private Container compact() {
+        if (cardinality == 0) return this;
+        int arrayBytes = (cardinality <= ARRAY_MAX) ? 2 * cardinality : Integer.MAX_VALUE;
+        if (sizeInBytes() <= Math.min(arrayBytes, WORDS * 8)) return this;
+        return of(toWords());
+    }
+
+    private int start(int i) {
+        return runs[2 * i];
+    }
+
+    private int last(int i) {
+        return runs[2 * i + 1];
+    }
+
+    /** Returns the index of the first run whose last value is greater than or equal to x ({@code count} if none). */
+    private int firstEndingAtOrAfter(int x) {
+        int low = 0, high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (last(mid) < x) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /** Returns the index of the last run whose start value is less than or equal to x ({@code -1} if none). */
+    private int lastStartingAtOrBefore(int x) {
+        int low = 0, high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (start(mid) <= x) low = mid + 1;
+            else high = mid;
+        }
+        return low - 1;
+    }
+
+    /** Replaces the runs from i to j (inclusive, j = i - 1 for insertion) by the specified runs. */
+    private void replace(int i, int j, char[] pieces, int n) {
+        int newCount = count - (j - i + 1) + n;
+        char[] updated = (2 * newCount <= runs.length) ? runs : Arrays.copyOf(runs, Math.max(8, 4 * newCount));
+        System.arraycopy(runs, 2 * (j + 1), updated, 2 * (i + n), 2 * (count - j - 1));
+        System.arraycopy(pieces, 0, updated, 2 * i, 2 * n);
+        runs = updated;
+        count = newCount;
+        updateCardinality();
+    }
+
+    private void updateCardinality() {
+        cardinality = 0;
+        for (int i = 0; i < count; i++) cardinality += last(i) - start(i) + 1;
+    }
+
+    private static int nextSet(long[] words, int from) {
+        int i = from >>> 6;
+        long w = words[i] & (-1L << from);
+        while (true) {
+            if (w != 0) return (i << 6) + Long.numberOfTrailingZeros(w);
+            if (++i == WORDS) return -1;
+            w = words[i];
+        }
+    }
+
+    private static int nextClear(long[] words, int from) {
+        int i = from >>> 6;
+        long w = ~words[i] & (-1L << from);
+        while (true) {
+            if (w != 0) return (i << 6) + Long.numberOfTrailingZeros(w);
+            if (++i == WORDS) return CAPACITY;
+            w = ~words[i];
+        }
+    }
+
+}
@@ -72,4 +72,9 @@ public final class CustomEqualityCollectionImpl<E> extends AbstractCollection<E>
         return inner.size();
     }
 
+    @Override
+    public int modCount() {
+        return inner.modCount();
+    }
+
 }
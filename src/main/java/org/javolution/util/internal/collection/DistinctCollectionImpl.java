@@ -13,6 +13,7 @@ import java.util.NoSuchElementException;
 
 import org.javolution.util.AbstractCollection;
 import org.javolution.util.FastIterator;
+import org.javolution.util.FastMap;
 import org.javolution.util.FastSet;
 import org.javolution.util.FastTable;
 import org.javolution.util.function.Equality;
@@ -20,30 +21,60 @@ import org.javolution.util.function.Order;
 import org.javolution.util.function.Predicate;
 
 /**
- * A view which does not iterate twice over the same elements.
+ * A view which does not iterate twice over the same elements. When indexed and the equality is an {@link Order}, 
+ * the view keeps the multiplicity of the inner elements (built on first use and maintained by the view updates)
+ * for constant time {@link #add}, {@link #contains}, {@link #remove} and {@link #size}; iterations only track the
+ * elements having duplicates. The index is rebuilt when the inner collection is modified outside of this view 
+ * (detected through its {@link AbstractCollection#modCount modCount}, or through its size if it does not keep 
+ * track of its modifications).
  */
 public final class DistinctCollectionImpl<E> extends AbstractCollection<E> {
 
     private static final long serialVersionUID = 0x700L; // Version.
     private final AbstractCollection<E> inner;
+    private final boolean indexed;
+    private transient FastMap<E, Integer> index; // Multiplicity of the inner non-null elements (null if not built).
+    private transient int nulls; // Number of inner null elements when indexed.
+    private transient int indexedSize; // Size of the inner collection when indexed.
+    private transient int indexedModCount; // Modification count of the inner collection when indexed.
 
     public DistinctCollectionImpl(AbstractCollection<E> inner) {
+        this(inner, false);
+    }
+
+    public DistinctCollectionImpl(AbstractCollection<E> inner, boolean indexed) {
         this.inner = inner;
+        this.indexed = indexed && (inner.equality() instanceof Order);
     }
 
     @Override
     public boolean add(E element) {
-        return contains(element) ? false : inner.add(element);
+        if (contains(element) || !inner.add(element)) return false;
+        if (index != null) { // Up to date (contains).
+            if (element == null) nulls++;
+            else index.put(element, 1);
+            indexedSize++;
+            indexedModCount = inner.modCount();
+        }
+        return true;
     }
 
     @Override
     public void clear() {
         inner.clear();
+        index = null;
     }
 
     @Override
     public DistinctCollectionImpl<E> clone() {
-        return new DistinctCollectionImpl<E>(inner.clone());
+        return new DistinctCollectionImpl<E>(inner.clone(), indexed);
+    }
+
+    @Override
+    public boolean contains(Object searched) {
+        if (!indexed) return super.contains(searched);
+        FastMap<E, Integer> index = index();
+        return (searched == null) ? (nulls != 0) : index.containsKey(searched);
     }
 
     @Override
@@ -58,16 +89,30 @@ public final class DistinctCollectionImpl<E> extends AbstractCollection<E> {
 
     @Override
     public FastIterator<E> iterator() {
-        return new IteratorImpl<E>(inner.iterator(), inner.equality());
+        return new IteratorImpl<E>(inner.iterator(), inner.equality(), indexed ? index() : null);
     }
 
     @Override
     public FastIterator<E> descendingIterator() {
-        return new IteratorImpl<E>(inner.descendingIterator(), inner.equality());
+        return new IteratorImpl<E>(inner.descendingIterator(), inner.equality(), indexed ? index() : null);
     }
 
     @Override
     public boolean remove(final Object searched) { // Remove all occurrences.
+        if (indexed && (searched != null)) { // Removes as many occurrences as indexed (no scan).
+            @SuppressWarnings("unchecked")
+            E element = (E) searched;
+            Integer count = index().remove(element);
+            if (count == null) return false;
+            int n = count;
+            while ((n > 0) && inner.remove(element)) {
+                indexedSize--;
+                n--;
+            }
+            if (n != 0) index = null; // Inner collection not removing (e.g. filtered), rebuilt on first use.
+            indexedModCount = inner.modCount();
+            return true;
+        }
         return inner.removeIf(new Predicate<E>() {
             final Equality<? super E> equality = inner.equality();
             @SuppressWarnings("unchecked")
@@ -80,39 +125,64 @@ public final class DistinctCollectionImpl<E> extends AbstractCollection<E> {
 
     @Override
     public boolean removeIf(Predicate<? super E> filter) {
+        index = null; // Rebuilt on first use (the filter may not be stateless).
         return inner.removeIf(filter);
     }
 
     @Override
     public int size() {
+        if (indexed) return index().size() + ((nulls != 0) ? 1 : 0);
         int count = 0;
         for (Iterator<E> itr = iterator(); itr.hasNext(); itr.next())
             count++;
         return count;
     }
 
+    /** Returns the index, rebuilt if not built yet or not up to date. */
+    @SuppressWarnings("unchecked")
+    private FastMap<E, Integer> index() {
+        int modCount = inner.modCount();
+        if ((index != null) && ((modCount != -1) ? (modCount == indexedModCount) : (inner.size() == indexedSize)))
+            return index;
+        index = new FastMap<E, Integer>((Order<? super E>) inner.equality());
+        nulls = 0;
+        indexedSize = 0;
+        for (E e : inner) {
+            if (e == null) nulls++;
+            else {
+                Integer count = index.get(e);
+                index.put(e, (count != null) ? count + 1 : 1);
+            }
+            indexedSize++;
+        }
+        indexedModCount = modCount;
+        return index;
+    }
+
     /** Iterator not returning twice the same element. */
     private static final class IteratorImpl<E> implements FastIterator<E> {
         private final FastIterator<E> innerItr;
-        private final AbstractCollection<E> iterated;
+        private final Equality<? super E> equality;
+        private final FastMap<E, Integer> multiplicities; // Null if not indexed.
+        private AbstractCollection<E> iterated; // Created on demand (elements with duplicates only when indexed).
+        private boolean nullIterated;
         private E current;
         private boolean currentIsNext;
 
-        @SuppressWarnings("unchecked")
-        private IteratorImpl(FastIterator<E> innerItr, Equality<? super E> equality) {
+        private IteratorImpl(FastIterator<E> innerItr, Equality<? super E> equality,
+                FastMap<E, Integer> multiplicities) {
             this.innerItr = innerItr;
-            iterated = equality instanceof Order ? new FastSet<E>((Order<E>) equality)
-                    : new FastTable<E>().equality(equality);
-       }
+            this.equality = equality;
+            this.multiplicities = multiplicities;
+        }
 
         @Override
         public boolean hasNext() {
             if (currentIsNext) return true;
             while (innerItr.hasNext()) {
                 current = innerItr.next();
-                if (iterated.contains(current)) continue; // Ignore.
+                if (!isFirst(current)) continue; // Ignore.
                 currentIsNext = true;
-                iterated.add(current);
                 return true;
             }
             return false;
@@ -138,6 +208,25 @@ public final class DistinctCollectionImpl<E> extends AbstractCollection<E> {
             }
             return false;
         }
+
+        /** Indicates if the specified element is iterated for the first time (and records it). */
+        @SuppressWarnings("unchecked")
+        private boolean isFirst(E element) {
+            if (multiplicities != null) {
+                if (element == null) {
+                    if (nullIterated) return false;
+                    return nullIterated = true;
+                }
+                Integer count = multiplicities.get(element);
+                if ((count == null) || (count == 1)) return true; // No duplicate.
+            }
+            if (iterated == null)
+                iterated = equality instanceof Order ? new FastSet<E>((Order<E>) equality)
+                        : new FastTable<E>().equality(equality);
+            if (iterated.contains(element)) return false;
+            iterated.add(element);
+            return true;
+        }
     }
 
 }
@@ -0,0 +1,367 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.collection;
+
+import java.util.NoSuchElementException;
+
+import org.javolution.util.AbstractCollection;
+import org.javolution.util.FastIterator;
+import org.javolution.util.FastSet;
+import org.javolution.util.FastTable;
+import org.javolution.util.function.Equality;
+import org.javolution.util.function.Function;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
+
+/**
+ * A fused view of chained filter / map / distinct operations over a source collection.
+ *
+ * Instead of nested views (one iterator layer per operation), the operations are held in a single array
+ * applied in one loop to each source element. Iterations are pushed from the source iterator
+ * ({@link FastIterator#hasNext(Predicate)}); terminal operations (e.g. {@code forEach}, {@code reduce},
+ * {@code anyMatch}) do not allocate per element and stop as soon as the downstream predicate returns {@code true}.
+ * Consecutive filters and consecutive mappings are combined when the pipeline is built.
+ */
+public final class PipelineCollectionImpl<S, E> extends AbstractCollection<E> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private static final Object SKIP = new Object(); // Returned by operations when the element is discarded.
+    private final AbstractCollection<S> source;
+    private final Operation[] operations;
+    private final Equality<? super E> equality;
+
+    /** Creates a pipeline filtering the specified collection. */
+    public static <E> PipelineCollectionImpl<E, E> filter(AbstractCollection<E> source, Predicate<? super E> filter) {
+        return new PipelineCollectionImpl<E, E>(source, new Operation[] { new Filter(filter) }, source.equality());
+    }
+
+    /** Creates a pipeline mapping the specified collection. */
+    public static <E, R> PipelineCollectionImpl<E, R> map(AbstractCollection<E> source,
+            Function<? super E, ? extends R> function) {
+        return new PipelineCollectionImpl<E, R>(source, new Operation[] { new Mapping(function) },
+                Equality.<R>standard());
+    }
+
+    private PipelineCollectionImpl(AbstractCollection<S> source, Operation[] operations,
+            Equality<? super E> equality) {
+        this.source = source;
+        this.operations = operations;
+        this.equality = equality;
+    }
+
+    @Override
+    public PipelineCollectionImpl<S, E> filter(Predicate<? super E> filter) {
+        Operation last = operations[operations.length - 1];
+        if (last instanceof Filter) // Combines.
+            return new PipelineCollectionImpl<S, E>(source, replaceLast(((Filter) last).and(filter)), equality);
+        return new PipelineCollectionImpl<S, E>(source, append(new Filter(filter)), equality);
+    }
+
+    @Override
+    public <R> PipelineCollectionImpl<S, R> map(Function<? super E, ? extends R> function) {
+        Operation last = operations[operations.length - 1];
+        if (last instanceof Mapping) // Composes.
+            return new PipelineCollectionImpl<S, R>(source, replaceLast(((Mapping) last).then(function)),
+                    Equality.<R>standard());
+        return new PipelineCollectionImpl<S, R>(source, append(new Mapping(function)), Equality.<R>standard());
+    }
+
+    @Override
+    public PipelineCollectionImpl<S, E> distinct() {
+        if (operations[operations.length - 1] instanceof Distinct) return this;
+        return new PipelineCollectionImpl<S, E>(source, append(new Distinct(equality)), equality);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean add(E element) {
+        if (isMapped())
+            throw new UnsupportedOperationException("New elements cannot be added to mapped views");
+        for (Operation op : operations)
+            if ((op instanceof Filter) && !((Filter) op).filter.test(element)) return false;
+        if (isDistinct() && contains(element)) return false;
+        return source.add((S) element);
+    }
+
+    @Override
+    public void clear() {
+        if (isFiltered()) removeIf(Predicate.TRUE);
+        else source.clear();
+    }
+
+    @Override
+    public PipelineCollectionImpl<S, E> clone() {
+        return new PipelineCollectionImpl<S, E>(source.clone(), operations, equality);
+    }
+
+    @Override
+    public Equality<? super E> equality() {
+        return equality;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return (isFiltered()) ? !iterator().hasNext() : source.isEmpty();
+    }
+
+    @Override
+    public FastIterator<E> iterator() {
+        return new IteratorImpl(source.iterator());
+    }
+
+    @Override
+    public FastIterator<E> descendingIterator() {
+        return new IteratorImpl(source.descendingIterator());
+    }
+
+    @Override
+    public boolean removeIf(final Predicate<? super E> toRemove) { // Distinct operations are ignored.
+        return source.removeIf(new Predicate<S>() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public boolean test(S param) {
+                Object value = param;
+                for (Operation op : operations) {
+                    if (op instanceof Distinct) continue;
+                    if ((value = op.apply(value)) == SKIP) return false;
+                }
+                return toRemove.test((E) value);
+            }
+        });
+    }
+
+    @Override
+    public int size() {
+        if (!isFiltered() && !isDistinct()) return source.size();
+        final int[] count = new int[1];
+        iterator().hasNext(new Predicate<E>() {
+            @Override
+            public boolean test(E param) {
+                count[0]++;
+                return false;
+            }
+        });
+        return count[0];
+    }
+
+    private Operation[] append(Operation op) {
+        Operation[] ops = new Operation[operations.length + 1];
+        System.arraycopy(operations, 0, ops, 0, operations.length);
+        ops[operations.length] = op;
+        return ops;
+    }
+
+    private Operation[] replaceLast(Operation op) {
+        Operation[] ops = operations.clone();
+        ops[ops.length - 1] = op;
+        return ops;
+    }
+
+    private boolean isFiltered() {
+        for (Operation op : operations)
+            if (op instanceof Filter) return true;
+        return false;
+    }
+
+    private boolean isMapped() {
+        for (Operation op : operations)
+            if (op instanceof Mapping) return true;
+        return false;
+    }
+
+    private boolean isDistinct() {
+        for (Operation op : operations)
+            if (op instanceof Distinct) return true;
+        return false;
+    }
+
+    /** A pipeline operation, returns the transformed value or {@code SKIP}. */
+    private static abstract class Operation implements java.io.Serializable {
+        private static final long serialVersionUID = PipelineCollectionImpl.serialVersionUID;
+
+        abstract Object apply(Object value);
+
+        /** Returns the instance to use for a new traversal (stateful operations return a new instance). */
+        Operation start() {
+            return this;
+        }
+
+        /** Records the last value applied (stateful operations), called once the traversal moves past it. */
+        void record() {
+        }
+    }
+
+    private static final class Filter extends Operation {
+        private static final long serialVersionUID = PipelineCollectionImpl.serialVersionUID;
+        private final Predicate<Object> filter;
+
+        @SuppressWarnings("unchecked")
+        Filter(Predicate<?> filter) {
+            this.filter = (Predicate<Object>) filter;
+        }
+
+        @Override
+        Object apply(Object value) {
+            return filter.test(value) ? value : SKIP;
+        }
+
+        Filter and(final Predicate<?> other) {
+            @SuppressWarnings("unchecked")
+            final Predicate<Object> second = (Predicate<Object>) other;
+            return new Filter(new Predicate<Object>() {
+                @Override
+                public boolean test(Object param) {
+                    return filter.test(param) && second.test(param);
+                }
+            });
+        }
+    }
+
+    private static final class Mapping extends Operation {
+        private static final long serialVersionUID = PipelineCollectionImpl.serialVersionUID;
+        private final Function<Object, ?> function;
+
+        @SuppressWarnings("unchecked")
+        Mapping(Function<?, ?> function) {
+            this.function = (Function<Object, ?>) function;
+        }
+
+        @Override
+        Object apply(Object value) {
+            return function.apply(value);
+        }
+
+        Mapping then(final Function<?, ?> other) {
+            @SuppressWarnings("unchecked")
+            final Function<Object, ?> second = (Function<Object, ?>) other;
+            return new Mapping(new Function<Object, Object>() {
+                @Override
+                public Object apply(Object param) {
+                    return second.apply(function.apply(param));
+                }
+            });
+        }
+    }
+
+    private static final class Distinct extends Operation {
+        private static final long serialVersionUID = PipelineCollectionImpl.serialVersionUID;
+        private final Equality<Object> equality;
+        private final AbstractCollection<Object> iterated; // Null for the prototype.
+        private boolean nullIterated;
+        private Object current; // Last value applied (not recorded yet).
+
+        @SuppressWarnings("unchecked")
+        Distinct(Equality<?> equality) {
+            this.equality = ((equality != Equality.standard()) || (equality instanceof Order)) ?
+                (Equality<Object>) equality : Order.standard(); // Same equality, hash-based.
+            this.iterated = null;
+        }
+
+        private Distinct(Equality<Object> equality, AbstractCollection<Object> iterated) {
+            this.equality = equality;
+            this.iterated = iterated;
+        }
+
+        @Override
+        Object apply(Object value) { // Idempotent (the same value may be tested again before being recorded).
+            if ((value == null) ? nullIterated : iterated.contains(value)) return SKIP;
+            current = value;
+            return value;
+        }
+
+        @Override
+        void record() {
+            if (current == null) nullIterated = true;
+            else iterated.add(current);
+            current = null;
+        }
+
+        @Override
+        Operation start() {
+            return new Distinct(equality, (equality instanceof Order) ?
+                    new FastSet<Object>((Order<Object>) equality) : new FastTable<Object>().equality(equality));
+        }
+    }
+
+    /** Iterator pushing the source elements through the pipeline operations. */
+    private final class IteratorImpl implements FastIterator<E>, Predicate<S> {
+        private final FastIterator<S> sourceItr;
+        private final Operation[] ops;
+        private Predicate<? super E> matching;
+        private E next;
+        private boolean ready; // Indicates if next is the next element.
+
+        private IteratorImpl(FastIterator<S> sourceItr) {
+            this.sourceItr = sourceItr;
+            ops = new Operation[operations.length];
+            for (int i = 0; i < ops.length; i++) ops[i] = operations[i].start();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext(Predicate.TRUE);
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super E> matching) {
+            if (ready) {
+                if (matching.test(next)) return true;
+                ready = false;
+                next = null;
+            }
+            this.matching = matching;
+            boolean found = sourceItr.hasNext(this);
+            this.matching = null;
+            if (found) { // Consumes the source element (the pipeline value is next).
+                sourceItr.next();
+                record(ops.length);
+            }
+            return found;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            ready = false;
+            E tmp = next;
+            next = null;
+            return tmp;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean test(S param) { // Fused operations.
+            Object value = param;
+            for (int i = 0; i < ops.length; i++) {
+                if ((value = ops[i].apply(value)) == SKIP) {
+                    record(i);
+                    return false;
+                }
+            }
+            if (!matching.test((E) value)) {
+                record(ops.length);
+                return false;
+            }
+            next = (E) value; // Recorded when consumed (the source may test this element again).
+            ready = true;
+            return true;
+        }
+
+        private void record(int count) { // Records the values applied by the first operations.
+            for (int i = 0; i < count; i++) ops[i].record();
+        }
+
+    }
+
+}
@@ -2,13 +2,14 @@
  * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
  * Copyright (C) 2012 - Javolution (http://javolution.org/)
  * All rights reserved.
- * 
+ *
  * Permission to use, copy, modify, and distribute this software is
  * freely granted, provided that this notice is preserved.
  */
 package org.javolution.util.internal.collection;
 
 import java.util.Comparator;
+import java.util.NoSuchElementException;
 
 import org.javolution.util.AbstractCollection;
 import org.javolution.util.FastIterator;
@@ -18,12 +19,20 @@ import org.javolution.util.function.Predicate;
 
 /**
  * A sorted view over a collection.
+ *
+ * The first iteration is performed lazily through a binary heap: consuming only the first {@code k} elements
+ * costs {@code O(n + k log(n))}. Once an iteration completes, the sorted elements are cached as long as the
+ * inner collection {@link AbstractCollection#modCount modification count} is unchanged. Elements added
+ * through this view are sorted separately and merged into the cached elements (no full sort).
  */
 public final class SortedCollectionImpl<E> extends AbstractCollection<E> {
 
     private static final long serialVersionUID = 0x700L; // Version.
     private final AbstractCollection<E> inner;
     private final Comparator<? super E> cmp;
+    private transient E[] sorted; // Cached sorted elements (null if none).
+    private transient int sortedModCount; // Inner modification count for the cached elements.
+    private transient FastTable<E> added; // Elements added through this view since cached (null if none).
 
     public SortedCollectionImpl(AbstractCollection<E> inner, Comparator<? super E> cmp) {
         this.inner = inner;
@@ -32,7 +41,14 @@ public final class SortedCollectionImpl<E> extends AbstractCollection<E> {
 
     @Override
     public boolean add(E element) {
-        return inner.add(element);
+        boolean cached = isCached();
+        if (!inner.add(element)) return false;
+        if (cached && (inner.modCount() == sortedModCount + 1)) { // Only this element added.
+            if (added == null) added = new FastTable<E>();
+            added.add(element);
+            sortedModCount++;
+        }
+        return true;
     }
 
     @Override
@@ -57,18 +73,24 @@ public final class SortedCollectionImpl<E> extends AbstractCollection<E> {
 
     @Override
     public FastIterator<E> iterator() {
-        FastTable<E> sorted = new FastTable<E>();
-        sorted.addAll(inner);
-        sorted.sort(cmp);
-        return sorted.iterator();
+        E[] elements = cached();
+        return (elements != null) ? new ArrayIterator<E>(elements, 0, 1) : new HeapIterator(cmp, false);
     }
 
     @Override
     public FastIterator<E> descendingIterator() {
-        FastTable<E> sorted = new FastTable<E>();
-        sorted.addAll(inner);
-        sorted.sort(cmp);
-        return sorted.descendingIterator();
+        E[] elements = cached();
+        return (elements != null) ? new ArrayIterator<E>(elements, elements.length - 1, -1) :
+            new HeapIterator(new Comparator<E>() {
+                @Override
+                public int compare(E left, E right) {
+                    return cmp.compare(right, left);
+                }}, true);
+    }
+
+    @Override
+    public int modCount() {
+        return inner.modCount();
     }
 
     @Override
@@ -81,4 +103,149 @@ public final class SortedCollectionImpl<E> extends AbstractCollection<E> {
         return inner.size();
     }
 
+    /** Indicates if the cached elements (plus the elements added) are up to date. */
+    private boolean isCached() {
+        if (sorted == null) return false;
+        int modCount = inner.modCount();
+        if ((modCount != -1) && (modCount == sortedModCount)) return true;
+        sorted = null; // Stale.
+        added = null;
+        return false;
+    }
+
+    /** Returns the cached sorted elements (merging the elements added) or {@code null} if none. */
+    @SuppressWarnings("unchecked")
+    private E[] cached() {
+        if (!isCached()) return null;
+        if (added == null) return sorted;
+        added.sort(cmp);
+        E[] merged = (E[]) new Object[sorted.length + added.size()];
+        int i = 0, j = 0, k = 0;
+        while ((i < sorted.length) && (j < added.size())) {
+            E e = added.get(j);
+            merged[k++] = (cmp.compare(e, sorted[i]) < 0) ? added.get(j++) : sorted[i++];
+        }
+        while (i < sorted.length) merged[k++] = sorted[i++];
+        while (j < added.size()) merged[k++] = added.get(j++);
+        added = null;
+        return sorted = merged;
+    }
+
+    /** Iterator over cached sorted elements. */
+    private static final class ArrayIterator<E> implements FastIterator<E> {
+        private final E[] elements;
+        private final int step; // 1 or -1
+        private int next;
+
+        private ArrayIterator(E[] elements, int first, int step) {
+            this.elements = elements;
+            this.next = first;
+            this.step = step;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return (next >= 0) && (next < elements.length);
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super E> matching) {
+            for (; hasNext(); next += step)
+                if (matching.test(elements[next])) return true;
+            return false;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            E e = elements[next];
+            next += step;
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    /**
+     * Lazy heap-sort iterator; each element iterated is moved at the end of the heap array, once the
+     * iteration completes the array holds the elements in reverse iterative order (cached if unmodified).
+     */
+    private final class HeapIterator implements FastIterator<E> {
+        private final Comparator<? super E> order;
+        private final boolean descending;
+        private final E[] heap;
+        private final int modCount;
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        private HeapIterator(Comparator<? super E> order, boolean descending) {
+            this.order = order;
+            this.descending = descending;
+            this.modCount = inner.modCount();
+            heap = (E[]) inner.toArray();
+            size = heap.length;
+            for (int i = (size >>> 1) - 1; i >= 0; i--) siftDown(i);
+            if (size == 0) complete();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return size != 0;
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super E> matching) {
+            while (size != 0) {
+                if (matching.test(heap[0])) return true;
+                next();
+            }
+            return false;
+        }
+
+        @Override
+        public E next() {
+            if (size == 0) throw new NoSuchElementException();
+            E first = heap[0];
+            heap[0] = heap[--size];
+            heap[size] = first;
+            siftDown(0);
+            if (size == 0) complete();
+            return first;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void siftDown(int i) {
+            E e = heap[i];
+            for (int child; (child = (i << 1) + 1) < size; i = child) {
+                if ((child + 1 < size) && (order.compare(heap[child + 1], heap[child]) < 0)) child++;
+                if (order.compare(e, heap[child]) <= 0) break;
+                heap[i] = heap[child];
+            }
+            heap[i] = e;
+        }
+
+        private void complete() { // Caches the sorted array if the inner collection has not been modified.
+            if ((modCount == -1) || (inner.modCount() != modCount)) return;
+            if (!descending) { // Reverse order.
+                for (int i = 0, j = heap.length - 1; i < j; i++, j--) {
+                    E tmp = heap[i];
+                    heap[i] = heap[j];
+                    heap[j] = tmp;
+                }
+            }
+            sorted = heap;
+            sortedModCount = modCount;
+            added = null;
+        }
+
+    }
+
 }
@@ -72,4 +72,9 @@ public final class UnmodifiableCollectionImpl<E> extends AbstractCollection<E> {
         return inner.size();
     }
 
+    @Override
+    public int modCount() {
+        return inner.modCount();
+    }
+
 }
@@ -0,0 +1,48 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.function;
+
+import java.util.Comparator;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.util.function.Order;
+
+/**
+ * An order based upon a comparator (or the natural order of {@link Comparable} objects if the comparator
+ * is {@code null}). Elements are equal when their comparison returns zero; all elements have the same index
+ * (nothing is known about the comparator), the comparator alone decides the ordering and equality.
+ */
+public final class ComparatorOrderImpl<T> extends Order<T> {
+    private static final long serialVersionUID = 0x700L; // Version.
+    private final @Nullable Comparator<? super T> comparator;
+
+    public ComparatorOrderImpl(@Nullable Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    @Override
+    public boolean areEqual(@Nullable T left, @Nullable T right) {
+        if (left == right) return true;
+        if ((left == null) || (right == null)) return false;
+        return compare(left, right) == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public int compare(@Nullable T left, @Nullable T right) {
+        if (comparator != null) return comparator.compare(left, right);
+        return ((Comparable<? super T>) left).compareTo(right);
+    }
+
+    @Override
+    public long indexOf(@Nullable T obj) {
+        return 0;
+    }
+
+}
@@ -10,11 +10,13 @@ package org.javolution.util.internal.function;
 
 import org.javolution.annotations.Nullable;
 import org.javolution.lang.MathLib;
+import org.javolution.text.Text;
 import org.javolution.util.function.Order;
 
 /**
  * The lexicographic order default implementation (four UTF-16 characters at a time).
- * 
+ * Comparisons involving {@link Text} instances are delegated to the text (traversed leaf by leaf);
+ * sub-orders are only used for sequences having the same leading characters, the result is then the same.
  */
 public final class LexicalOrderImpl extends Order<CharSequence> {
     private static final long serialVersionUID = 0x700L; // Version.
@@ -28,6 +30,8 @@ public final class LexicalOrderImpl extends Order<CharSequence> {
     public boolean areEqual(@Nullable CharSequence left, @Nullable CharSequence right) {
         if (left == right) return true;
         if ((left == null) || (right == null)) return false;
+        if (left instanceof Text) return ((Text) left).contentEquals(right);
+        if (right instanceof Text) return ((Text) right).contentEquals(left);
         int n = left.length();
         if (right.length() != n) return false;
         for (int i = n; i > startIndex;) // Iterates from tail.
@@ -39,6 +43,8 @@ public final class LexicalOrderImpl extends Order<CharSequence> {
     public int compare(@Nullable CharSequence left, @Nullable CharSequence right) {
     	if (left == null) return -1;
     	if (right == null) return 1;
+        if (left instanceof Text) return ((Text) left).compareTo(right);
+        if (right instanceof Text) return -((Text) right).compareTo(left);
         for (int i = startIndex, n = MathLib.min(left.length(), right.length()); i < n; i++) {
             char c1 = left.charAt(i);
             char c2 = right.charAt(i);
@@ -48,12 +54,12 @@ public final class LexicalOrderImpl extends Order<CharSequence> {
     }
 
     @Override
-    public long indexOf(@Nullable CharSequence csq) {
+    public long indexOf(@Nullable CharSequence csq) { // Left aligned (missing characters are zeros).
     	if (csq == null) return 0;
         int length = csq.length();
-        int index = 0;
-        for (int i = startIndex, n = MathLib.min(startIndex + 4, length); i < n;) 
-        	index = (index << 16) | csq.charAt(i++);
+        long index = 0;
+        for (int i = startIndex, n = startIndex + 4; i < n; i++) 
+        	index = (index << 16) | ((i < length) ? csq.charAt(i) : 0);
         return index;	
     }
 
@@ -0,0 +1,76 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.map;
+
+import org.javolution.util.AbstractMap;
+import org.javolution.util.function.Equality;
+import org.javolution.util.function.Function;
+import org.javolution.util.function.Order;
+import org.javolution.util.internal.set.PrefixSetImpl;
+
+/**
+ * A view over the entries of a lexically ordered map whose keys start with a given prefix.
+ */
+public final class PrefixMapImpl<K, V> extends AbstractMap<K, V> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private final AbstractMap<K,V> inner;
+    private final CharSequence prefix;
+
+    public PrefixMapImpl(AbstractMap<K,V> inner, CharSequence prefix) {
+        this.inner = inner;
+        this.prefix = prefix;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public PrefixSetImpl<Entry<K, V>> entries() {
+        String successor = PrefixSetImpl.successor(prefix);
+        return new PrefixSetImpl<Entry<K, V>>(inner.entries(), prefix, new Entry<K,V>((K) prefix, null), 
+                (successor != null) ? new Entry<K,V>((K) successor, null) : null, 
+                new Function<Entry<K, V>, CharSequence>() {
+                    @Override
+                    public CharSequence apply(Entry<K, V> param) {
+                        return (CharSequence) param.getKey();
+                    }
+                });
+    }
+
+    @Override
+    public Entry<K, V> getEntry(K key) {
+        return inRange(key) ? inner.getEntry(key) : null;
+    }
+
+    @Override
+    public Entry<K, V> removeEntry(K key) {
+        return inRange(key) ? inner.removeEntry(key) : null;
+    }
+
+    @Override
+    public Order<? super K> keyOrder() {
+        return inner.keyOrder();
+    }
+
+    @Override
+    public Equality<? super V> valuesEquality() {
+        return inner.valuesEquality();
+    }
+
+    @Override
+    public Entry<K,V> addEntry(K key, V value) {
+        if (!inRange(key)) 
+            throw new UnsupportedOperationException("key out of prefix-map range");
+        return inner.addEntry(key, value);
+    }
+
+    private boolean inRange(K key) {
+        return PrefixSetImpl.startsWith((CharSequence) key, prefix);
+    }
+    
+}
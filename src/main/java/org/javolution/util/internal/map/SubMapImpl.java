@@ -38,8 +38,8 @@ public final class SubMapImpl<K, V> extends AbstractMap<K, V> {
 
     @Override
     public SubSetImpl<Entry<K, V>> entries() {
-        return new SubSetImpl<Entry<K, V>>(inner.entries(), new Entry<K,V>(fromKey, null), fromInclusive, 
-                new Entry<K,V>(toKey, null), toInclusive);
+        return new SubSetImpl<Entry<K, V>>(inner.entries(), (fromKey != null) ? new Entry<K,V>(fromKey, null) : null,
+                fromInclusive, (toKey != null) ? new Entry<K,V>(toKey, null) : null, toInclusive); // Null when no bound.
     }
 
     @Override
@@ -0,0 +1,145 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.queue;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.javolution.util.function.Supplier;
+
+/**
+ * An unbounded multi-producers / single-consumer queue made of linked array segments. Producers claim an index
+ * through an atomic increment (never fails, never retries) and publish their element in the segment holding that
+ * index, appending new segments as needed; the consumer releases segments once consumed.
+ */
+public final class LinkedSegmentQueueImpl<E> extends PaddedQueueImpl<E> {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    /** A segment of the queue (fixed size). */
+    private static final class Segment {
+        final long base; // Index of the first slot.
+        final AtomicReferenceArray<Object> slots = new AtomicReferenceArray<Object>(SEGMENT_SIZE);
+        volatile Segment next;
+
+        Segment(long base) {
+            this.base = base;
+        }
+    }
+
+    private static final AtomicReferenceFieldUpdater<Segment, Segment> NEXT = AtomicReferenceFieldUpdater
+            .newUpdater(Segment.class, Segment.class, "next");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<LinkedSegmentQueueImpl, Segment> TAIL_SEGMENT =
+            AtomicReferenceFieldUpdater.newUpdater(LinkedSegmentQueueImpl.class, Segment.class, "tailSegment");
+
+    private volatile Segment tailSegment; // Segment holding (or preceding) the tail index (producers).
+    private Segment headSegment; // Segment holding the head index (consumer only).
+
+    public LinkedSegmentQueueImpl() {
+        tailSegment = headSegment = new Segment(0);
+    }
+
+    @Override
+    public boolean offer(E element) {
+        if (element == null) throw new NullPointerException();
+        Segment segment = tailSegment; // Read before claiming (base less than or equal to the index claimed).
+        long t = TAIL.getAndIncrement(this);
+        segment = segmentOf(segment, t);
+        segment.slots.lazySet((int) (t - segment.base), element);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        long h = head;
+        Segment segment = headSegment(h);
+        if (segment == null) return null; // Empty.
+        int i = (int) (h - segment.base);
+        Object e = segment.slots.get(i);
+        if (e == null) {
+            if (h == tail) return null; // Empty.
+            while ((e = segment.slots.get(i)) == null) Thread.yield(); // Claimed but not yet published.
+        }
+        segment.slots.lazySet(i, null);
+        HEAD.lazySet(this, h + 1);
+        return elementOf(e);
+    }
+
+    @Override
+    public E peek() {
+        long h = head;
+        Segment segment = headSegment(h);
+        if (segment == null) return null;
+        int i = (int) (h - segment.base);
+        Object e = segment.slots.get(i);
+        if (e == null) {
+            if (h == tail) return null;
+            while ((e = segment.slots.get(i)) == null) Thread.yield();
+        }
+        return elementOf(e);
+    }
+
+    @Override
+    public int capacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int size() {
+        long h = head;
+        long n = tail - h;
+        return (n <= 0) ? 0 : (n >= Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) n;
+    }
+
+    @Override
+    public int fillFrom(Supplier<? extends E> supplier, int limit) {
+        int n = 0;
+        for (; n < limit; n++) { // Never full, elements can be supplied before claiming their slot.
+            E e = supplier.get();
+            if (e == null) throw new NullPointerException("Null element supplied");
+            offer(e);
+        }
+        return n;
+    }
+
+    // Returns the segment holding the specified head index, or null if that segment has not been linked yet and
+    // no producer claimed the index.
+    private Segment headSegment(long h) {
+        Segment segment = headSegment;
+        if (h - segment.base < SEGMENT_SIZE) return segment;
+        if (h == tail) return null; // Empty.
+        Segment next;
+        while ((next = segment.next) == null) Thread.yield(); // Being linked by a producer.
+        headSegment = next; // Previous segment released.
+        return next;
+    }
+
+    // Returns the segment holding the specified index starting from the specified segment (appends if necessary).
+    private Segment segmentOf(Segment segment, long index) {
+        while (index - segment.base >= SEGMENT_SIZE) {
+            Segment next = segment.next;
+            if (next == null) {
+                Segment created = new Segment(segment.base + SEGMENT_SIZE);
+                next = NEXT.compareAndSet(segment, null, created) ? created : segment.next;
+            }
+            segment = next;
+        }
+        Segment last = tailSegment;
+        if (last.base < segment.base) TAIL_SEGMENT.compareAndSet(this, last, segment); // Best effort.
+        return segment;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementOf(Object e) {
+        return (E) e;
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.queue;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.javolution.util.function.Supplier;
+
+/**
+ * A multi-producers / multi-consumers ring buffer (D. Vyukov). Each slot holds a sequence number telling
+ * whether it is ready to be written for lap {@code n} ({@code sequence == index}) or read
+ * ({@code sequence == index + 1}); producers and consumers claim slots by compare-and-set on their index.
+ */
+public final class MpmcArrayQueueImpl<E> extends PaddedQueueImpl<E> {
+
+    private final AtomicReferenceArray<Object> buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    public MpmcArrayQueueImpl(int capacity) {
+        int n = powerOfTwo(capacity);
+        buffer = new AtomicReferenceArray<Object>(n);
+        sequences = new AtomicLongArray(n);
+        for (int i = 0; i < n; i++) sequences.lazySet(i, i);
+        mask = n - 1;
+    }
+
+    @Override
+    public boolean offer(E element) {
+        if (element == null) throw new NullPointerException();
+        long t = claim();
+        if (t < 0) return false; // Full.
+        publish(t, element);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        while (true) {
+            long h = head;
+            int i = (int) h & mask;
+            long seq = sequences.get(i);
+            if (seq == h + 1) {
+                if (!HEAD.compareAndSet(this, h, h + 1)) continue;
+                Object e = buffer.get(i);
+                buffer.lazySet(i, null);
+                sequences.lazySet(i, h + mask + 1); // Ready for next lap.
+                if (e != SKIP) return elementOf(e);
+            } else if (seq < h + 1) {
+                return null; // Empty (or slot claimed but not yet published).
+            }
+        }
+    }
+
+    @Override
+    public E peek() {
+        while (true) {
+            long h = head;
+            int i = (int) h & mask;
+            long seq = sequences.get(i);
+            if (seq < h + 1) return null; // Empty.
+            if (seq == h + 1) {
+                Object e = buffer.get(i);
+                if (head != h) continue; // Consumed concurrently.
+                if (e != SKIP) return elementOf(e);
+                if (HEAD.compareAndSet(this, h, h + 1)) { // Consumes the skipped slot.
+                    buffer.lazySet(i, null);
+                    sequences.lazySet(i, h + mask + 1);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public int fillFrom(Supplier<? extends E> supplier, int limit) {
+        int n = 0;
+        for (long t; (n < limit) && ((t = claim()) >= 0); n++) {
+            E e = null;
+            try {
+                e = supplier.get();
+                if (e == null) throw new NullPointerException("Null element supplied");
+            } finally {
+                publish(t, (e != null) ? e : SKIP); // Claimed slot must be published (even if the supplier throws).
+            }
+        }
+        return n;
+    }
+
+    // Claims a single slot, returns its index or -1 if full.
+    private long claim() {
+        while (true) {
+            long t = tail;
+            long seq = sequences.get((int) t & mask);
+            if (seq == t) {
+                if (TAIL.compareAndSet(this, t, t + 1)) return t;
+            } else if (seq < t) {
+                return -1; // Full (slot from previous lap not consumed yet).
+            }
+        }
+    }
+
+    private void publish(long t, Object element) {
+        int i = (int) t & mask;
+        buffer.lazySet(i, element);
+        sequences.lazySet(i, t + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementOf(Object e) {
+        return (E) e;
+    }
+
+}
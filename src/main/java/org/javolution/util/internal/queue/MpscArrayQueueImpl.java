@@ -0,0 +1,126 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.queue;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.javolution.util.function.Supplier;
+
+/**
+ * A multi-producers / single-consumer ring buffer. Producers claim slots by compare-and-set on the tail index
+ * (checked against a cached consumer index to avoid reading the consumer cache line), then publish the element;
+ * the consumer waits for slots claimed but not yet published.
+ */
+public final class MpscArrayQueueImpl<E> extends PaddedQueueImpl<E> {
+
+    private final AtomicReferenceArray<Object> buffer;
+    private final int mask;
+
+    public MpscArrayQueueImpl(int capacity) {
+        int n = powerOfTwo(capacity);
+        buffer = new AtomicReferenceArray<Object>(n);
+        mask = n - 1;
+        producerLimit = n;
+    }
+
+    @Override
+    public boolean offer(E element) {
+        if (element == null) throw new NullPointerException();
+        long t = claim();
+        if (t < 0) return false; // Full.
+        buffer.lazySet((int) t & mask, element);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        while (true) {
+            long h = head;
+            int i = (int) h & mask;
+            Object e = buffer.get(i);
+            if (e == null) {
+                if (h == tail) return null; // Empty.
+                while ((e = buffer.get(i)) == null) Thread.yield(); // Claimed but not yet published.
+            }
+            buffer.lazySet(i, null);
+            HEAD.lazySet(this, h + 1);
+            if (e != SKIP) return elementOf(e);
+        }
+    }
+
+    @Override
+    public E peek() {
+        while (true) {
+            long h = head;
+            int i = (int) h & mask;
+            Object e = buffer.get(i);
+            if (e == null) {
+                if (h == tail) return null; // Empty.
+                while ((e = buffer.get(i)) == null) Thread.yield();
+            }
+            if (e != SKIP) return elementOf(e);
+            buffer.lazySet(i, null); // Consumes the skipped slot.
+            HEAD.lazySet(this, h + 1);
+        }
+    }
+
+    @Override
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public int fillFrom(Supplier<? extends E> supplier, int limit) {
+        if (limit <= 0) return 0;
+        long max = producerLimit;
+        long t;
+        int n;
+        do { // Claims a batch of slots.
+            t = tail;
+            if (t >= max) {
+                max = head + capacity();
+                if (t >= max) return 0; // Full.
+                PRODUCER_LIMIT.lazySet(this, max);
+            }
+            n = (int) Math.min(limit, max - t);
+        } while (!TAIL.compareAndSet(this, t, t + n));
+        int k = 0;
+        try {
+            for (; k < n; k++) {
+                E e = supplier.get();
+                if (e == null) throw new NullPointerException("Null element supplied");
+                buffer.lazySet((int) (t + k) & mask, e);
+            }
+        } finally { // Claimed slots must be published (even if the supplier throws).
+            for (int j = k; j < n; j++) buffer.lazySet((int) (t + j) & mask, SKIP);
+        }
+        return n;
+    }
+
+    // Claims a single slot, returns its index or -1 if full.
+    private long claim() {
+        long max = producerLimit;
+        long t;
+        do {
+            t = tail;
+            if (t >= max) {
+                max = head + capacity();
+                if (t >= max) return -1; // Full.
+                PRODUCER_LIMIT.lazySet(this, max);
+            }
+        } while (!TAIL.compareAndSet(this, t, t + 1));
+        return t;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementOf(Object e) {
+        return (E) e;
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.queue;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import org.javolution.util.FastQueue;
+
+/** Padding before the producer fields (object header side). */
+abstract class QueuePad0<E> extends FastQueue<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+/** The producer fields. */
+abstract class QueueProducerFields<E> extends QueuePad0<E> {
+    volatile long tail; // Next index to be written.
+    volatile long producerLimit; // Cached (head + capacity) for multi-producers queues.
+}
+
+/** Padding between the producer and consumer fields. */
+abstract class QueuePad1<E> extends QueueProducerFields<E> {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+/** The consumer fields. */
+abstract class QueueConsumerFields<E> extends QueuePad1<E> {
+    volatile long head; // Next index to be read.
+}
+
+/**
+ * The base class of lock-free queues; producer ({@code tail}) and consumer ({@code head}) indices are kept on
+ * separate cache lines (fields of super classes are laid out first) to avoid false sharing.
+ */
+public abstract class PaddedQueueImpl<E> extends QueueConsumerFields<E> {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+
+    /** Marker published in a slot claimed by a producer whose supplier failed (skipped by consumers). */
+    static final Object SKIP = new Object();
+
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<QueueProducerFields> TAIL = AtomicLongFieldUpdater
+            .newUpdater(QueueProducerFields.class, "tail");
+
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<QueueProducerFields> PRODUCER_LIMIT = AtomicLongFieldUpdater
+            .newUpdater(QueueProducerFields.class, "producerLimit");
+
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<QueueConsumerFields> HEAD = AtomicLongFieldUpdater
+            .newUpdater(QueueConsumerFields.class, "head");
+
+    @Override
+    public int size() {
+        long h = head; // Read head first (size never negative).
+        long n = tail - h;
+        return (n <= 0) ? 0 : (n >= capacity()) ? capacity() : (int) n;
+    }
+
+    /** Returns the smallest power of two greater than or equal to the specified capacity. */
+    static int powerOfTwo(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+        if (capacity > (1 << 30)) throw new IllegalArgumentException("Capacity too large");
+        return (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+}
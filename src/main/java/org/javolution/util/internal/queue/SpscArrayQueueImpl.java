@@ -0,0 +1,94 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.queue;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.javolution.util.function.Consumer;
+import org.javolution.util.function.Supplier;
+
+/**
+ * A single-producer / single-consumer ring buffer. A slot is free for the producer when {@code null} and ready
+ * for the consumer when {@code non-null}; indices are only written by their owner thread (ordered writes).
+ */
+public final class SpscArrayQueueImpl<E> extends PaddedQueueImpl<E> {
+
+    private final AtomicReferenceArray<E> buffer;
+    private final int mask;
+
+    public SpscArrayQueueImpl(int capacity) {
+        int n = powerOfTwo(capacity);
+        buffer = new AtomicReferenceArray<E>(n);
+        mask = n - 1;
+    }
+
+    @Override
+    public boolean offer(E element) {
+        if (element == null) throw new NullPointerException();
+        long t = tail;
+        int i = (int) t & mask;
+        if (buffer.get(i) != null) return false; // Full.
+        buffer.lazySet(i, element);
+        TAIL.lazySet(this, t + 1);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        long h = head;
+        int i = (int) h & mask;
+        E e = buffer.get(i);
+        if (e == null) return null; // Empty.
+        buffer.lazySet(i, null);
+        HEAD.lazySet(this, h + 1);
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        return buffer.get((int) head & mask);
+    }
+
+    @Override
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public int drainTo(Consumer<? super E> consumer, int limit) {
+        long h = head;
+        int n = 0;
+        try {
+            for (E e; (n < limit) && ((e = buffer.get((int) (h + n) & mask)) != null);) {
+                buffer.lazySet((int) (h + n++) & mask, null);
+                consumer.accept(e);
+            }
+        } finally {
+            HEAD.lazySet(this, h + n); // Single update for the whole batch.
+        }
+        return n;
+    }
+
+    @Override
+    public int fillFrom(Supplier<? extends E> supplier, int limit) {
+        long t = tail;
+        int n = 0;
+        try {
+            for (int i; (n < limit) && (buffer.get(i = (int) (t + n) & mask) == null); n++) {
+                E e = supplier.get();
+                if (e == null) throw new NullPointerException("Null element supplied");
+                buffer.lazySet(i, e);
+            }
+        } finally {
+            TAIL.lazySet(this, t + n);
+        }
+        return n;
+    }
+
+}
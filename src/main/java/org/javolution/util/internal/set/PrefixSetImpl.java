@@ -0,0 +1,192 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util.internal.set;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.javolution.annotations.Nullable;
+import org.javolution.util.AbstractSet;
+import org.javolution.util.FastIterator;
+import org.javolution.util.FastTable;
+import org.javolution.util.function.Function;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
+
+/**
+ * A view over the elements of a lexically ordered set starting with a given prefix.
+ * Since these elements are contiguous, iterations start directly at the prefix position in the inner set
+ * and stop at the first element not starting with the prefix.
+ */
+public final class PrefixSetImpl<E> extends AbstractSet<E> {
+
+    private static final long serialVersionUID = 0x700L; // Version.
+    private final AbstractSet<E> inner;
+    private final CharSequence prefix;
+    private final E start; // Element lower or equal to all the elements having the prefix.
+    private final E end; // Element greater than all the elements having the prefix (null if none).
+    private final Function<? super E, ? extends CharSequence> text; // Character sequence of an element.
+
+    public PrefixSetImpl(AbstractSet<E> inner, CharSequence prefix, E start, @Nullable E end,
+            Function<? super E, ? extends CharSequence> text) {
+        this.inner = inner;
+        this.prefix = prefix;
+        this.start = start;
+        this.end = end;
+        this.text = text;
+    }
+
+    /**
+     * Returns the smallest character sequence greater than all the character sequences starting with the
+     * specified prefix or {@code null} if none (e.g. empty prefix or prefix made of {@link Character#MAX_VALUE} only).
+     */
+    public static @Nullable String successor(CharSequence prefix) {
+        int n = prefix.length();
+        while ((n > 0) && (prefix.charAt(n - 1) == Character.MAX_VALUE)) n--;
+        if (n == 0) return null;
+        char[] chars = new char[n];
+        for (int i = 0; i < n; i++) chars[i] = prefix.charAt(i);
+        chars[n - 1]++;
+        return new String(chars);
+    }
+
+    /** Indicates if the specified character sequence starts with the specified prefix. */
+    public static boolean startsWith(CharSequence csq, CharSequence prefix) {
+        int n = prefix.length();
+        if (csq.length() < n) return false;
+        for (int i = n; i > 0;) // Iterates from tail (usually where differences are).
+            if (csq.charAt(--i) != prefix.charAt(i)) return false;
+        return true;
+    }
+
+    @Override
+    public boolean add(E element, boolean allowDuplicate) {
+        if (!inRange(element))
+            throw new UnsupportedOperationException("element out of prefix-set range");
+        return inner.add(element, allowDuplicate);
+    }
+
+    @Override
+    public void clear() {
+        removeIf(Predicate.TRUE);
+    }
+
+    @Override
+    public PrefixSetImpl<E> clone() {
+        return new PrefixSetImpl<E>(inner.clone(), prefix, start, end, text);
+    }
+
+    @Override
+    public FastIterator<E> descendingIterator(@Nullable E high) {
+        if ((high == null) || !inRange(high))
+            return new IteratorImpl((end != null) ? inner.descendingIterator(end) : inner.descendingIterator(), true);
+        return new IteratorImpl(inner.descendingIterator(high), true);
+    }
+
+    @Override
+    public E getAny(E element) {
+        return inRange(element) ? inner.getAny(element) : null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !iterator().hasNext();
+    }
+
+    @Override
+    public FastIterator<E> iterator(@Nullable E low) {
+        return new IteratorImpl(inner.iterator(((low == null) || !inRange(low)) ? start : low), false);
+    }
+
+    @Override
+    public Order<? super E> order() {
+        return inner.order();
+    }
+
+    @Override
+    public E removeAny(E element) {
+        return inRange(element) ? inner.removeAny(element) : null;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) { // Only the prefix range is iterated.
+        FastTable<E> removed = new FastTable<E>();
+        for (Iterator<E> itr = iterator(); itr.hasNext();) {
+            E e = itr.next();
+            if (filter.test(e)) removed.add(e);
+        }
+        for (E e : removed) inner.removeAny(e);
+        return !removed.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        int count = 0;
+        for (Iterator<E> itr = iterator(); itr.hasNext(); itr.next()) count++;
+        return count;
+    }
+
+    private boolean inRange(E element) {
+        return startsWith(text.apply(element), prefix);
+    }
+
+    /** Iterates over the contiguous elements having the prefix. */
+    private final class IteratorImpl implements FastIterator<E> {
+        private final FastIterator<E> itr;
+        private E next;
+
+        private IteratorImpl(FastIterator<E> itr, boolean descending) {
+            this.itr = itr;
+            Order<CharSequence> lexical = Order.lexical();
+            while (itr.hasNext()) { // Skips elements at the same index as the prefix but outside the range.
+                E e = itr.next();
+                CharSequence csq = text.apply(e);
+                if (startsWith(csq, prefix)) {
+                    next = e;
+                    break;
+                }
+                int cmp = lexical.compare(csq, prefix);
+                if (descending ? cmp < 0 : cmp > 0) break; // Past the range.
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public boolean hasNext(Predicate<? super E> matching) {
+            while (next != null) {
+                if (matching.test(next)) return true;
+                next();
+            }
+            return false;
+        }
+
+        @Override
+        public E next() {
+            if (next == null) throw new NoSuchElementException();
+            E current = next;
+            next = null;
+            if (itr.hasNext()) {
+                E e = itr.next();
+                if (inRange(e)) next = e;
+            }
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -33,18 +33,23 @@ public final class SortedSetImpl<E> extends AbstractSet<E> {
     public boolean add(E element, boolean allowDuplicate) {
         int i = firstIndex(element, 0, size);
         if (!allowDuplicate && (i < size) && comparator.areEqual(element, sorted.get(i))) return false;
-        sorted.shift(i, size++, element);
+        sorted = sorted.shift(i, size++, element);
         return true;
     }
 
     @Override
     public boolean removeIf(Predicate<? super E> filter) {
-        int initialSize = size;
-        for (FractalArray.Iterator<E> itr = sorted.iterator(); itr.hasNext(filter);) {
-            sorted.set(itr.nextIndex(), null);
-            --size;
+        int j = 0;
+        for (int i = 0; i < size; i++) { // Compacts the sorted array.
+            E e = sorted.get(i);
+            if (filter.test(e)) continue; // Removed (not copied).
+            if (i != j) sorted = sorted.set(j, e);
+            j++;
         }
-        return initialSize != size;
+        for (int i = j; i < size; i++) sorted = sorted.clear(i);
+        boolean modified = j != size;
+        size = j;
+        return modified;
     }
 
     @Override
@@ -84,17 +89,18 @@ public final class SortedSetImpl<E> extends AbstractSet<E> {
 
     @Override
     public FastIterator<E> iterator(E low) {
-        return sorted.iterator(firstIndex(low, 0, size));
+        return sorted.iterator((low != null) ? firstIndex(low, 0, size) : 0);
     }
 
     @Override
     public FastIterator<E> descendingIterator(E high) {
-        return sorted.descendingIterator(lastIndex(high, 0, size));
+        int i = (high != null) ? lastIndex(high, 0, size) - 1 : size - 1;
+        return (i >= 0) ? sorted.descendingIterator(i) : FractalArray.<E>empty().iterator();
     }
 
     @Override
     public boolean isEmpty() {
-        return size != 0;
+        return size == 0;
     }
 
     @Override
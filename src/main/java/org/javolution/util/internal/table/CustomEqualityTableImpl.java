@@ -10,40 +10,63 @@ package org.javolution.util.internal.table;
 
 import org.javolution.util.AbstractTable;
 import org.javolution.util.FastListIterator;
+import org.javolution.util.FastSet;
 import org.javolution.util.function.Equality;
+import org.javolution.util.function.Order;
 
 /**
- * A table view using a custom equality.
+ * A table view using a custom equality. When indexed and the equality is an {@link Order}, the view 
+ * keeps a companion multiset of its elements (built on first use and maintained by the view updates) 
+ * for constant time {@link #contains} and fast misses of {@link #indexOf}; modifications not performed 
+ * through this view are not reflected by the index.
  */
 public final class CustomEqualityTableImpl<E> extends AbstractTable<E> {
 
     private static final long serialVersionUID = 0x700L; // Version.
     private final AbstractTable<E> inner;
     private final Equality<? super E> equality;
+    private final boolean indexed;
+    private transient FastSet<E> index; // Non-null elements (multiset), null if not built yet.
 
     public CustomEqualityTableImpl(AbstractTable<E> inner, Equality<? super E> equality) {
+        this(inner, equality, false);
+    }
+
+    public CustomEqualityTableImpl(AbstractTable<E> inner, Equality<? super E> equality, boolean indexed) {
         this.inner = inner;
         this.equality = equality;
+        this.indexed = indexed && (equality instanceof Order);
     }
 
     @Override
     public boolean add(E element) {
-        return inner.add(element);
+        if (!inner.add(element)) return false;
+        indexAdd(element);
+        return true;
     }
 
     @Override
     public void add(int index, E element) {
         inner.add(index, element);
+        indexAdd(element);
     }
 
     @Override
     public void clear() {
         inner.clear();
+        index = null;
     }
 
     @Override
     public CustomEqualityTableImpl<E> clone() {
-        return new CustomEqualityTableImpl<E>(inner.clone(), equality);
+        return new CustomEqualityTableImpl<E>(inner.clone(), equality, indexed);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean contains(Object searched) {
+        if (!indexed || (searched == null)) return super.contains(searched);
+        return index().getAny((E) searched) != null;
     }
 
     @Override
@@ -61,14 +84,38 @@ public final class CustomEqualityTableImpl<E> extends AbstractTable<E> {
         return inner.listIterator(index);
     }
 
+    @Override
+    public int indexOf(Object searched) {
+        return (indexed && (searched != null) && !contains(searched)) ? -1 : super.indexOf(searched);
+    }
+
+    @Override
+    public int lastIndexOf(Object searched) {
+        return (indexed && (searched != null) && !contains(searched)) ? -1 : super.lastIndexOf(searched);
+    }
+
     @Override
     public E remove(int index) {
-        return inner.remove(index);
+        E removed = inner.remove(index);
+        indexRemove(removed);
+        return removed;
+    }
+
+    @Override
+    public boolean remove(Object searched) { // First occurrence (List contract).
+        if (!indexed) return super.remove(searched);
+        int i = indexOf(searched);
+        if (i < 0) return false;
+        remove(i);
+        return true;
     }
 
     @Override
     public E set(int index, E element) {
-        return inner.set(index, element);
+        E previous = inner.set(index, element);
+        indexRemove(previous);
+        indexAdd(element);
+        return previous;
     }
 
     @Override
@@ -76,4 +123,27 @@ public final class CustomEqualityTableImpl<E> extends AbstractTable<E> {
         return inner.size();
     }
 
+    @Override
+    public int modCount() {
+        return inner.modCount();
+    }
+
+    @SuppressWarnings("unchecked")
+    private FastSet<E> index() {
+        if (index == null) {
+            index = new FastSet<E>((Order<? super E>) equality);
+            for (E e : inner)
+                if (e != null) index.add(e, true);
+        }
+        return index;
+    }
+
+    private void indexAdd(E element) {
+        if ((index != null) && (element != null)) index.add(element, true);
+    }
+
+    private void indexRemove(E element) {
+        if ((index != null) && (element != null)) index.removeAny(element);
+    }
+
 }
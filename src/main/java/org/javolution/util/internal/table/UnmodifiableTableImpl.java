@@ -75,6 +75,11 @@ public final class UnmodifiableTableImpl<E> extends AbstractTable<E> {
         return inner.size();
     }
 
+    @Override
+    public int modCount() {
+        return inner.modCount();
+    }
+
     @Override
     public UnmodifiableTableImpl<E> unmodifiable() {
         return this;
@@ -0,0 +1,98 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.javolution.io.UTF8StreamReader;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PatternSetTest {
+
+	private PatternSet _patterns;
+	private TextBuilder _matches;
+	private PatternSet.Handler _handler;
+	
+	@Before
+	public void init(){
+		_patterns = PatternSet.valueOf("he", "she", "his", "hers");
+		_matches = new TextBuilder();
+		_handler = new PatternSet.Handler() {
+			@Override
+			public boolean onMatch(int pattern, long start, long end) {
+				_matches.append(_patterns.get(pattern)).append('@').append(start).append(' ');
+				return true;
+			}
+		};
+	}
+	
+	@Test
+	public void testMatchInString(){
+		assertTrue("Search Completed", _patterns.matchIn("ushers", _handler));
+		assertEquals("Matches Are she@1 he@2 hers@2", "she@1 he@2 hers@2 ", _matches.toString());
+	}
+	
+	@Test
+	public void testMatchInTextAcrossLeaves(){
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 20; i++) sb.append("xxxxxxxxxxxxxxxxxxxxxxxxxxxxxhis");
+		Text text = Text.valueOf(sb.toString());
+		final int[] count = new int[1];
+		_patterns.matchIn(text, new PatternSet.Handler() {
+			@Override
+			public boolean onMatch(int pattern, long start, long end) {
+				assertEquals("Pattern Is his", 2, pattern);
+				assertEquals("Match Position", 29 + 32 * count[0]++, start);
+				return true;
+			}
+		});
+		assertEquals("20 Matches", 20, count[0]);
+	}
+	
+	@Test
+	public void testMatchInReader() throws IOException {
+		byte[] bytes = "é she sells seashells, hers".getBytes("UTF-8");
+		assertTrue("Search Completed", _patterns.matchIn(new UTF8StreamReader(new ByteArrayInputStream(bytes)), _handler));
+		assertEquals("Matches", "she@2 he@3 she@15 he@16 he@23 hers@23 ", _matches.toString());
+	}
+	
+	@Test
+	public void testMatcherFeed(){
+		PatternSet.Matcher matcher = _patterns.matcher();
+		matcher.feed("us", _handler);
+		matcher.feed("h", _handler);
+		matcher.feed("ers", _handler);
+		assertEquals("Matches Across Pieces", "she@1 he@2 hers@2 ", _matches.toString());
+		assertEquals("Position Is 6", 6, matcher.position());
+	}
+	
+	@Test
+	public void testStop(){
+		assertFalse("Search Stopped", _patterns.matchIn("ushers", new PatternSet.Handler() {
+			@Override
+			public boolean onMatch(int pattern, long start, long end) {
+				return false;
+			}
+		}));
+		assertEquals("First Match At 1", 1, _patterns.indexIn("ushers"));
+		assertEquals("No Match", -1, _patterns.indexIn("nothing"));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testEmptyPatternThrowsException(){
+		PatternSet.valueOf("a", "");
+	}
+	
+}
@@ -0,0 +1,53 @@
+package org.javolution.text;
+
+import java.util.Random;
+
+/** Compares a multi-pattern search with one indexOf per keyword. */
+public class TestPatternSet {
+    private static final int KEYWORDS = 300;
+    private static final int MESSAGES = 2000;
+
+    public static void main(String[] args) {
+        Random random = new Random(0);
+        String[] keywords = new String[KEYWORDS];
+        for (int i = 0; i < KEYWORDS; i++) keywords[i] = word(random, 6 + random.nextInt(6));
+        String[] messages = new String[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            StringBuilder sb = new StringBuilder();
+            while (sb.length() < 500) sb.append(random.nextInt(50) == 0 ? keywords[random.nextInt(KEYWORDS)]
+                    : word(random, 1 + random.nextInt(8))).append(' ');
+            messages[i] = sb.toString();
+        }
+        PatternSet patterns = PatternSet.valueOf(keywords);
+        final int[] count = new int[1];
+        PatternSet.Handler handler = new PatternSet.Handler() {
+            @Override
+            public boolean onMatch(int pattern, long start, long end) {
+                count[0]++;
+                return true;
+            }
+        };
+        for (int run = 0; run < 3; run++) { // Warm-up included.
+            System.out.println("Run " + run);
+            count[0] = 0;
+            long time = System.nanoTime();
+            for (String message : messages) patterns.matchIn(message, handler);
+            long setTime = System.nanoTime() - time;
+            int found = 0;
+            time = System.nanoTime();
+            for (String message : messages)
+                for (String keyword : keywords)
+                    for (int i = message.indexOf(keyword); i >= 0; i = message.indexOf(keyword, i + 1)) found++;
+            long indexOfTime = System.nanoTime() - time;
+            System.out.println("  PatternSet: " + setTime / MESSAGES + " ns/message (" + count[0] + " matches)");
+            System.out.println("  String.indexOf per keyword: " + indexOfTime / MESSAGES + " ns/message (" + found
+                    + " matches)");
+        }
+    }
+
+    private static String word(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) chars[i] = (char) ('a' + random.nextInt(26));
+        return new String(chars);
+    }
+}
@@ -0,0 +1,57 @@
+package org.javolution.text;
+
+/** Compares case conversions, trimming and blank checks over ASCII and mixed ASCII/Unicode texts. */
+public class TestTextCase {
+    private static final int FIELDS = 20000;
+
+    public static void main(String[] args) {
+        StringBuilder ascii = new StringBuilder();
+        StringBuilder mixed = new StringBuilder();
+        for (int i = 0; i < FIELDS; i++) {
+            ascii.append("  Field").append(i).append(" = value ").append(i % 97).append("; ");
+            mixed.append("  Feld").append(i).append(i % 5 == 0 ? " = été " : " = Δελτα ")
+                    .append(i % 97).append("; ");
+        }
+        for (int run = 0; run < 3; run++) { // Warm-up included.
+            System.out.println("Run " + run);
+            bench("ASCII", ascii.toString());
+            bench("Mixed", mixed.toString());
+        }
+    }
+
+    private static void bench(String name, String str) {
+        Text text = Text.valueOf(str);
+        Text lower = text.toLowerCase();
+        long time = System.nanoTime();
+        Text upper = text.toUpperCase();
+        long upperTime = System.nanoTime() - time;
+        time = System.nanoTime();
+        Text same = lower.toLowerCase(); // Unchanged (same instance).
+        long sameTime = System.nanoTime() - time;
+        time = System.nanoTime();
+        Text baseline = upperCaseCharByChar(text);
+        long baselineTime = System.nanoTime() - time;
+        time = System.nanoTime();
+        boolean equal = text.contentEqualsIgnoreCase(upper);
+        long ignoreCaseTime = System.nanoTime() - time;
+        time = System.nanoTime();
+        boolean blank = text.isBlank();
+        long blankTime = System.nanoTime() - time;
+        time = System.nanoTime();
+        String strUpper = str.toUpperCase();
+        long stringTime = System.nanoTime() - time;
+        System.out.println("  " + name + ": toUpperCase " + upperTime / 1000 + " us (char by char " + baselineTime / 1000
+                + " us, String " + stringTime / 1000 + " us), unchanged toLowerCase " + sameTime / 1000 + " us ("
+                + (same == lower) + "), contentEqualsIgnoreCase " + ignoreCaseTime / 1000 + " us (" + equal
+                + "), isBlank " + blankTime / 1000 + " us (" + blank + ")"
+                + (baseline.equals(upper) && strUpper.length() == upper.length() ? "" : " MISMATCH"));
+    }
+
+    /** Reference implementation (one rope access per character). */
+    private static Text upperCaseCharByChar(Text text) {
+        TextBuilder tb = new TextBuilder();
+        for (int i = 0, n = text.length(); i < n; i++) 
+            tb.append(Character.toUpperCase(text.charAt(i)));
+        return tb.toText();
+    }
+}
@@ -0,0 +1,34 @@
+package org.javolution.text;
+
+/** Compares substring searches over large texts (log scanning). */
+public class TestTextSearch {
+    private static final int LINES = 100000;
+
+    public static void main(String[] args) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < LINES; i++) 
+            sb.append("2015-09-13 12:00:00 INFO [worker-").append(i % 8).append("] request ").append(i)
+                    .append(" served in ").append(i % 97).append(" ms\n");
+        String log = sb.toString();
+        Text text = Text.valueOf(log);
+        String[] needles = { "ms\n2015", "request 99999 ", "[worker-3] request 99995 served in 87 ms" };
+        for (int run = 0; run < 3; run++) { // Warm-up included.
+            System.out.println("Run " + run);
+            for (String needle : needles) {
+                TextPattern pattern = TextPattern.valueOf(needle);
+                long time = System.nanoTime();
+                int count = 0;
+                for (int i = pattern.indexIn(text); i >= 0; i = pattern.indexIn(text, i + 1)) count++;
+                long textTime = System.nanoTime() - time;
+                time = System.nanoTime();
+                for (int i = log.indexOf(needle); i >= 0; i = log.indexOf(needle, i + 1)) count--;
+                long stringTime = System.nanoTime() - time;
+                System.out.println("  \"" + needle.replace("\n", "\\n") + "\": Text " + textTime / 1000 + " us, String "
+                        + stringTime / 1000 + " us (" + count + ")");
+            }
+            long time = System.nanoTime();
+            text.indexOf("request 99999 ");
+            System.out.println("  Text.indexOf (unique match): " + (System.nanoTime() - time) / 1000 + " us");
+        }
+    }
+}
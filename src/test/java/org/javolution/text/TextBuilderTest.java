@@ -10,6 +10,8 @@ package org.javolution.text;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
@@ -190,4 +192,78 @@ public class TextBuilderTest {
 		_textBuilder.append("Test");
 		assertEquals("TextBuilder Text Is Test", _textBuilder.toText(), Text.valueOf("Test"));
 	}
+	
+	@Test
+	public void testToTextSharesBlocks(){
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 5000; i++) sb.append((char) ('a' + i % 26));
+		String str = sb.toString();
+		_textBuilder.append(str);
+		Text text = _textBuilder.toText();
+		assertEquals("Large Text Is String", str, text.toString());
+		_textBuilder.setCharAt(10, '#');
+		_textBuilder.delete(0, 5);
+		_textBuilder.append("Test");
+		assertEquals("Text Unchanged By Builder Modifications", str, text.toString());
+		assertEquals("Builder Modified", str.substring(5, 10) + '#' + str.substring(11) + "Test", _textBuilder.toString());
+		Text text2 = _textBuilder.toText();
+		_textBuilder.clear().append("Test");
+		assertEquals("Text Unchanged By Builder Reuse", str, text.toString());
+		assertEquals("Second Text Unchanged By Builder Reuse", str.substring(5, 10) + '#' + str.substring(11) + "Test", text2.toString());
+		assertEquals("Builder Reused", "Test", _textBuilder.toString());
+	}
+
+	@Test
+	public void testEditsInTheMiddle(){
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 3000; i++) sb.append((char) ('a' + i % 26));
+		_textBuilder.append(sb);
+		for (int i = 0; i < 2000; i++) { // Typing and erasing around a moving location.
+			int index = 1000 + (i % 7) * 150;
+			_textBuilder.insert(index, "Test");
+			sb.insert(index, "Test");
+			if (i % 3 == 0) {
+				_textBuilder.delete(index - 2, index + 1);
+				sb.delete(index - 2, index + 1);
+			}
+		}
+		assertEquals("Length = " + sb.length(), sb.length(), _textBuilder.length());
+		assertEquals("Builder Is StringBuilder", sb.toString(), _textBuilder.toString());
+		assertEquals("Char At 2500", sb.charAt(2500), _textBuilder.charAt(2500));
+		_textBuilder.append("End");
+		sb.append("End");
+		assertEquals("Text Is StringBuilder", sb.toString(), _textBuilder.toText().toString());
+	}
+
+	@Test
+	public void testAcquireRelease(){
+		TextBuilder tb = TextBuilder.acquire();
+		assertEquals("Length = 4", 4, tb.append("Test").length());
+		tb.release();
+		TextBuilder tb2 = TextBuilder.acquire();
+		assertSame("Builder Recycled", tb, tb2);
+		assertEquals("Length = 0", 0, tb2.length());
+		TextBuilder tb3 = TextBuilder.acquire();
+		assertNotSame("Builder Not Shared", tb2, tb3);
+		tb3.release();
+		for (int i = 0; i < 100000; i++) tb2.append('x');
+		tb2.release(); // Capacity too large (not retained).
+		assertSame("Small Builder Recycled", tb3, TextBuilder.acquire());
+		assertNotSame("Large Builder Not Retained", tb2, TextBuilder.acquire());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testReleaseTwiceThrowsException(){
+		TextBuilder tb = TextBuilder.acquire();
+		tb.release();
+		tb.release();
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testReleaseLargeBuilderTwiceThrowsException(){
+		TextBuilder tb = TextBuilder.acquire();
+		for (int i = 0; i < 100000; i++) tb.append('x');
+		tb.release(); // Not retained.
+		tb.release();
+	}
 }
@@ -0,0 +1,83 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TextPatternTest {
+
+	private String _log;
+	
+	@Before
+	public void init(){
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 200; i++) 
+			sb.append("INFO ").append(i).append(" request served in ").append(i % 17).append(" ms\n");
+		_log = sb.toString();
+	}
+	
+	@Test
+	public void testIndexInString(){
+		TextPattern pattern = TextPattern.valueOf("served in 16 ms");
+		assertEquals("Index Of served in 16 ms", _log.indexOf("served in 16 ms"), pattern.indexIn(_log));
+		assertEquals("Index Of served in 16 ms From 2000", _log.indexOf("served in 16 ms", 2000), pattern.indexIn(_log, 2000));
+		assertEquals("Index Of ERROR Is -1", -1, TextPattern.valueOf("ERROR").indexIn(_log));
+	}
+	
+	@Test
+	public void testIndexInTextAcrossLeaves(){
+		Text text = Text.valueOf(_log);
+		String[] needles = { "INFO 199", "\nINFO 42 ", "request served in 3 ms\nINFO 21 request served in 4 ms\nINFO 22", "ms\nI" };
+		for (String needle : needles) {
+			TextPattern pattern = TextPattern.valueOf(needle);
+			for (int from = 0; from < _log.length(); from += 97) 
+				assertEquals("Index Of " + needle + " From " + from, _log.indexOf(needle, from), pattern.indexIn(text, from));
+			assertEquals("Text.indexOf " + needle, _log.indexOf(needle), text.indexOf(needle));
+		}
+	}
+	
+	@Test
+	public void testIndexInPeriodic(){
+		String haystack = Text.valueOf('a', 300).toString() + "b" + Text.valueOf('a', 100);
+		String needle = Text.valueOf('a', 40).toString() + "b";
+		TextPattern pattern = TextPattern.valueOf(needle);
+		assertEquals("Index Of a..ab", 260, pattern.indexIn(haystack));
+		assertEquals("Index Of a..ab In Text", 260, pattern.indexIn(Text.valueOf(haystack)));
+		assertEquals("Index Of a..ab In Array", 260, pattern.indexIn(haystack.toCharArray()));
+	}
+	
+	@Test
+	public void testIndexInCharArray(){
+		char[] chars = ("xx" + _log + "xx").toCharArray();
+		CharArray array = new CharArray().setArray(chars, 2, _log.length());
+		assertEquals("Index Of INFO 100", _log.indexOf("INFO 100"), TextPattern.valueOf("INFO 100").indexIn(array));
+		assertEquals("CharArray.indexOf INFO 100", _log.indexOf("INFO 100"), array.indexOf("INFO 100"));
+	}
+	
+	@Test
+	public void testIndexOfShortAndRepeatedNeedles(){
+		Text text = Text.valueOf(_log.substring(0, 5000)).concat(Text.valueOf(_log.substring(5000)));
+		for (String needle : new String[] { "ms", "INFO", "request" }) { // Direct scan (across leaves).
+			for (int from = 0; from < _log.length(); from += 331) 
+				assertEquals("Text.indexOf " + needle + " From " + from, _log.indexOf(needle, from), text.indexOf(needle, from));
+		}
+		String needle = "served in 42 ms";
+		assertEquals("Text.indexOf " + needle, _log.indexOf(needle), text.indexOf(needle));
+		TextPattern pattern = TextPattern.compiled(needle);
+		assertSame("Pattern Reused", pattern, TextPattern.compiled(new TextBuilder(needle)));
+		CharArray array = new CharArray(_log);
+		assertEquals("CharArray.indexOf " + needle, _log.indexOf(needle), array.indexOf(needle));
+		assertSame("Pattern Reused By CharArray", pattern, TextPattern.compiled(needle));
+	}
+	
+}
@@ -0,0 +1,95 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TextPoolTest {
+
+	private TextPool _pool;
+	
+	@Before
+	public void init(){
+		_pool = new TextPool(64);
+	}
+	
+	@Test
+	public void testCanonicalText(){
+		char[] buffer = "symbol=EURUSD;symbol=EURUSD".toCharArray();
+		CharArray view = new CharArray().setArray(buffer, 7, 6);
+		Text text = _pool.text(view);
+		assertEquals("Text Is EURUSD", Text.valueOf("EURUSD"), text);
+		view.setArray(buffer, 21, 6);
+		assertSame("Same Text Instance", text, _pool.text(view));
+		assertSame("Same Text Instance From String", text, _pool.text("EURUSD"));
+		assertEquals("Misses = 1", 1, _pool.misses());
+		assertEquals("Hits = 2", 2, _pool.hits());
+		assertEquals("Hit Ratio = 2/3", 2.0 / 3, _pool.hitRatio(), 1E-9);
+		assertTrue("Bytes Saved", _pool.bytesSaved() >= 2 * 2 * 6);
+	}
+	
+	@Test
+	public void testBytesSavedFromEncoding(){
+		_pool.text("EURUSD");
+		_pool.text("EURUSD");
+		long latin1 = _pool.bytesSaved(); // One byte per character.
+		_pool.clear();
+		_pool.text("\u20ACURUSD");
+		_pool.text("\u20ACURUSD");
+		assertEquals("Non Latin-1 Saves 6 More Bytes", latin1 + 6, _pool.bytesSaved());
+	}
+	
+	@Test
+	public void testCanonicalString(){
+		String str = _pool.string(new CharArray("EURUSD"));
+		assertEquals("String Is EURUSD", "EURUSD", str);
+		assertSame("Same String Instance", str, _pool.string(new TextBuilder("EURUSD")));
+	}
+	
+	@Test
+	public void testBoundedSize(){
+		for (int i = 0; i < 1000; i++) {
+			Text text = _pool.text("Symbol" + i);
+			assertEquals("Text Is Symbol" + i, "Symbol" + i, text.toString());
+		}
+		assertTrue("Size <= 64", _pool.size() <= 64);
+		assertTrue("Evictions > 0", _pool.evictions() > 0);
+		_pool.clear();
+		assertEquals("Size = 0", 0, _pool.size());
+		assertEquals("Hits = 0", 0, _pool.hits());
+	}
+	
+	@Test
+	public void testConcurrentLookups() throws InterruptedException {
+		final AtomicInteger errors = new AtomicInteger();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 10000; i++) {
+						String symbol = "Symbol" + (i % 100);
+						if (!_pool.text(symbol).toString().equals(symbol)) errors.incrementAndGet();
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) thread.join();
+		assertEquals("Errors = 0", 0, errors.get());
+		assertEquals("Look-ups = 40000", 40000, _pool.hits() + _pool.misses());
+	}
+}
@@ -297,6 +297,33 @@ public class TextTest {
 		assertEquals("toUpperCase() test", Text.valueOf("TEST"), _text.toUpperCase());
 	}
 	
+	@Test
+	public void testCaseConversionAcrossLeaves(){
+		String str = longString(300) + "\u00c0\u00ff\u00b5\u03a3a End";
+		Text text = Text.valueOf(longString(100)).concat(Text.valueOf(str));
+		String expected = longString(100) + str;
+		assertEquals("Lower Case", expected.toLowerCase(java.util.Locale.ROOT), text.toLowerCase().toString());
+		assertEquals("Upper Case Of \u00ff", "\u0178", Text.valueOf("\u00ff").toUpperCase().toString());
+		assertTrue("Ignore Case", text.contentEqualsIgnoreCase(text.toUpperCase()));
+		assertFalse("Ignore Case (Different)", text.contentEqualsIgnoreCase(expected.replace('E', 'F')));
+		Text lower = Text.valueOf(longString(500)).concat(Text.valueOf(" test"));
+		assertSame("Same Instance If Unchanged", lower, lower.toLowerCase());
+		assertSame("Same Instance If Not Trimmed", lower, lower.trim());
+	}
+	
+	@Test
+	public void testTrimAcrossLeaves(){
+		Text blanks = Text.valueOf("      ").concat(Text.valueOf("\t \n"));
+		assertTrue("Blank", blanks.isBlank());
+		Text text = blanks.concat(Text.valueOf(longString(100))).concat(blanks);
+		assertFalse("Not Blank", text.isBlank());
+		assertTrue("Blank Range", text.isBlank(text.length() - 9, 9));
+		assertEquals("Trimmed", longString(100), text.trim().toString());
+		assertEquals("Trimmed Start", longString(100) + "      \t \n", text.trimStart().toString());
+		assertEquals("Trimmed End", "      \t \n" + longString(100), text.trimEnd().toString());
+		assertEquals("Blanks Trimmed", 0, blanks.trim().length());
+	}
+	
 	@Test
 	public void testTrim(){
 		_text = Text.valueOf("    Test    ").trim();
@@ -366,4 +393,100 @@ public class TextTest {
 		assertEquals("valueOf(char[]) is Test", Text.valueOf("Test"), Text.valueOf(new char[]{'T','e','s','t'}));
 	}
 	
+	@Test
+	public void testHashCodeAcrossLeaves(){
+		String str = longString(1000);
+		Text text = Text.valueOf(str);
+		assertEquals("Hash Code Is String Hash Code", str.hashCode(), text.hashCode());
+		Text rope = Text.EMPTY;
+		for (int i = 0; i < str.length(); i += 7) 
+			rope = rope.plus(str.substring(i, Math.min(i + 7, str.length())));
+		assertEquals("Rope Hash Code Is String Hash Code", str.hashCode(), rope.hashCode());
+		assertEquals("Rope Hash Code Is Cached", str.hashCode(), rope.hashCode());
+	}
+	
+	@Test
+	public void testEqualsAcrossLeaves(){
+		String str = longString(500);
+		Text text = Text.valueOf(str);
+		Text rope = text.subtext(0, 123).concat(text.subtext(123, 321)).concat(text.subtext(321));
+		assertEquals("Rope Equals Text", text, rope);
+		assertTrue("Rope Content Equals String", rope.contentEquals(str));
+		assertTrue("Rope Content Equals Text", rope.contentEquals(text));
+		Text other = text.subtext(0, 400).concat(Text.valueOf('#')).concat(text.subtext(401));
+		assertFalse("Rope Not Equals Modified Text", rope.equals(other));
+		assertFalse("Rope Content Not Equals Modified String", rope.contentEquals(other.toString()));
+	}
+	
+	@Test
+	public void testCompareToAcrossLeaves(){
+		String str = longString(500);
+		Text text = Text.valueOf(str);
+		Text rope = text.subtext(0, 77).concat(text.subtext(77));
+		assertEquals("Rope Compared To Text Is 0", 0, rope.compareTo(text));
+		assertEquals("Rope Compared To String Is 0", 0, rope.compareTo(str));
+		Text prefix = text.subtext(0, 450);
+		assertTrue("Prefix Is Less Than Text", prefix.compareTo(rope) < 0);
+		assertTrue("Text Is Greater Than Prefix", rope.compareTo(prefix.toString()) > 0);
+		Text greater = text.subtext(0, 300).concat(Text.valueOf('~')).concat(text.subtext(301));
+		assertTrue("Text Is Less Than Greater", rope.compareTo(greater) < 0);
+		assertTrue("Greater Is Greater Than Text", greater.compareTo(str) > 0);
+	}
+	
+	@Test
+	public void testLatin1AndUnicodeLeaves(){
+		String latin1 = longString(100) + "\u00e9\u00ff";
+		String unicode = "\u20ac" + longString(50) + "\u4e2d";
+		Text text = Text.valueOf(latin1).concat(Text.valueOf(unicode)).concat(Text.valueOf(latin1));
+		String str = latin1 + unicode + latin1;
+		assertEquals("Mixed Text Is Mixed String", str, text.toString());
+		assertEquals("CharAt Latin-1", '\u00ff', text.charAt(101));
+		assertEquals("CharAt Unicode", '\u20ac', text.charAt(102));
+		assertEquals("Index Of \u00e9", str.indexOf('\u00e9', 110), text.indexOf('\u00e9', 110));
+		assertEquals("Index Of \u4e2d", str.indexOf('\u4e2d'), text.indexOf('\u4e2d'));
+		assertEquals("Last Index Of \u20ac", str.lastIndexOf('\u20ac'), text.lastIndexOf('\u20ac'));
+		assertEquals("Subtext Across Leaves", str.substring(95, 160), text.subtext(95, 160).toString());
+		assertEquals("Subtext Across Leaves Equals", Text.valueOf(str.substring(95, 160)), text.subtext(95, 160));
+		assertEquals("Hash Code Is String Hash Code", str.hashCode(), text.hashCode());
+	}
+	
+	@Test
+	public void testRebalance(){
+		String str = longString(2000);
+		Text text = Text.EMPTY;
+		for (int i = 0; i < str.length(); i += 3) // Many small leaves.
+			text = text.concat(Text.valueOf(str.substring(i, Math.min(i + 3, str.length()))).subtext(0, 1))
+				.concat(Text.valueOf(str.substring(i + 1, Math.min(i + 3, str.length()))));
+		assertEquals("Text Built From Pieces", str, text.toString());
+		Text balanced = text.rebalance();
+		assertEquals("Rebalanced Text Equals Text", text, balanced);
+		assertEquals("Rebalanced Text Is String", str, balanced.toString());
+		assertTrue("Primitive Already Balanced", _text.rebalance() == _text);
+		assertTrue("Rebalanced Depth Not Greater", depthOf(balanced) <= depthOf(text));
+	}
+	
+	@Test
+	public void testJoin(){
+		String str = longString(300);
+		Text text = Text.join("Test", Text.valueOf(str), new StringBuilder("\u20ac"), "", str.substring(0, 33));
+		assertEquals("Joined Text", "Test" + str + "\u20ac" + str.substring(0, 33), text.toString());
+		assertEquals("Joined Nothing Is Empty", Text.EMPTY, Text.join());
+		assertEquals("Joined Single Piece", _text, Text.join("Test"));
+	}
+	
+	private static int depthOf(Text text){
+		java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+		text.printStatistics(new java.io.PrintStream(out));
+		String stats = out.toString();
+		int i = stats.indexOf("MAX DEPTH: ") + 11;
+		return Integer.parseInt(stats.substring(i, stats.indexOf(',', i)));
+	}
+	
+	private static String longString(int length){
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < length; i++) 
+			sb.append((char) ('a' + (i * 7) % 26));
+		return sb.toString();
+	}
+	
 }
@@ -115,6 +115,30 @@ public class FastBitSetTest {
 		assertEquals("Next Set Bit = 6, From 4", 5, _fastBitSet3567.nextSetBit(4));
 	}
 	
+	@Test
+	public void testNextSetBits(){
+		_fastBitSetNone.set(3);
+		_fastBitSetNone.set(64, 70);
+		_fastBitSetNone.set(1000);
+		int[] buffer = new int[4];
+		assertEquals("4 Bits Extracted", 4, _fastBitSetNone.nextSetBits(0, buffer));
+		assertEquals("Bits 3,64,65,66", "[3, 64, 65, 66]", java.util.Arrays.toString(buffer));
+		assertEquals("4 Bits Extracted, From 67", 4, _fastBitSetNone.nextSetBits(67, buffer));
+		assertEquals("Bits 67,68,69,1000", "[67, 68, 69, 1000]", java.util.Arrays.toString(buffer));
+		assertEquals("No Bits Extracted, From 1001", 0, _fastBitSetNone.nextSetBits(1001, buffer));
+		assertEquals("Previous Set Bit = 1000, From 5000", 1000, _fastBitSetNone.previousSetBit(5000));
+		assertEquals("Previous Clear Bit = 63, From 69", 63, _fastBitSetNone.previousClearBit(69));
+	}
+	
+	@Test
+	public void testForEachSetBit(){
+		final StringBuilder sb = new StringBuilder();
+		_fastBitSet3567.forEachSetBit(i -> sb.append(i).append(' '));
+		assertEquals("For Each 3,5,6,7", "3 5 6 7 ", sb.toString());
+		assertEquals("Bit Stream Sum = 15", 15, _fastBitSet1248.bitStream().sum());
+		assertEquals("Bit Stream Count = 8", 8, _fastBitSetAll.bitStream().count());
+	}
+	
 	@Test
 	public void testOf(){
 		assertTrue("Bit 1 = True", _fastBitSet1248.get(1));
@@ -193,6 +217,36 @@ public class FastBitSetTest {
 		assertFalse("Bit 8 = False", resultBitSet.get(8));
 	}
 	
+	@Test
+	public void testBulkCardinality(){
+		assertEquals("And Cardinality = 4", 4, _fastBitSet1248.andCardinality(_fastBitSetAll));
+		assertEquals("And Cardinality = 0", 0, _fastBitSet1248.andCardinality(_fastBitSet3567));
+		assertEquals("Or Cardinality = 8", 8, _fastBitSet1248.orCardinality(_fastBitSet3567));
+		assertEquals("And Not Cardinality = 4", 4, _fastBitSetAll.andNotCardinality(_fastBitSet1248));
+		assertEquals("Cardinality [2, 7) = 5", 5, _fastBitSetAll.cardinality(2, 7));
+		assertEquals("And Cardinality [2, 7) = 2", 2, _fastBitSet1248.andCardinality(_fastBitSetAll, 2, 7));
+		assertEquals("Or Cardinality [2, 7) = 5", 5, _fastBitSet1248.orCardinality(_fastBitSet3567, 2, 7));
+	}
+	
+	@Test
+	public void testIntersectionUnion(){
+		assertEquals("Intersection", "[1, 2, 4, 8]", 
+				FastBitSet.intersection(_fastBitSet1248, _fastBitSetAll, _fastBitSet1248).toString());
+		assertTrue("Intersection Is Empty", 
+				FastBitSet.intersection(_fastBitSet1248, _fastBitSet3567, _fastBitSetAll).isEmpty());
+		assertEquals("Union", "[1, 2, 3, 4, 5, 6, 7, 8]", 
+				FastBitSet.union(_fastBitSet1248, _fastBitSet3567, _fastBitSetNone).toString());
+	}
+	
+	@Test
+	public void testAndNotInto(){
+		FastBitSet resultBitSet = new FastBitSet();
+		resultBitSet.set(100);
+		_fastBitSetAll.andNot(_fastBitSet1248, resultBitSet);
+		assertEquals("And Not", "[3, 5, 6, 7]", resultBitSet.toString());
+		assertEquals("Source Unchanged", 8, _fastBitSetAll.cardinality());
+	}
+	
 	@Test
 	public void testClear(){
 		_fastBitSetAll.clear();
@@ -0,0 +1,106 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.javolution.lang.Index;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FastCompressedBitSetTest {
+
+	private FastCompressedBitSet _sparse;
+	private FastCompressedBitSet _runs;
+	private FastCompressedBitSet _dense;
+	
+	@Before
+	public void init(){
+		_sparse = new FastCompressedBitSet();
+		_sparse.addAll(Index.of(1), Index.of(70000), Index.of(1 << 30));
+		_runs = new FastCompressedBitSet();
+		_runs.set(0, 200000);
+		_dense = new FastCompressedBitSet();
+		for (int i = 0; i < 200000; i += 2) _dense.set(i);
+	}
+	
+	@Test
+	public void testAnd(){
+		FastCompressedBitSet result = _runs.clone();
+		result.and(_sparse);
+		assertEquals("And Sparse/Runs", "[1, 70000]", result.toString());
+		result = _dense.clone();
+		result.and(_runs);
+		assertEquals("And Dense/Runs Cardinality = 100000", 100000, result.cardinality());
+		result.and(_sparse);
+		assertEquals("And Dense/Sparse", "[70000]", result.toString());
+	}
+	
+	@Test
+	public void testAndNot(){
+		FastCompressedBitSet result = _runs.clone();
+		result.andNot(_dense);
+		assertEquals("AndNot Cardinality = 100000", 100000, result.cardinality());
+		assertFalse("Bit 0 = False", result.get(0));
+		assertTrue("Bit 1 = True", result.get(1));
+	}
+
+	@Test
+	public void testCardinality(){
+		assertEquals("Cardinality: Sparse = 3", 3, _sparse.cardinality());
+		assertEquals("Cardinality: Runs = 200000", 200000, _runs.cardinality());
+		assertEquals("Cardinality: Dense = 100000", 100000, _dense.size());
+	}
+	
+	@Test
+	public void testClearRange(){
+		_runs.clear(10, 199990);
+		assertEquals("Cardinality = 20", 20, _runs.cardinality());
+		assertEquals("Next Set Bit = 199990, From 10", 199990, _runs.nextSetBit(10));
+	}
+
+	@Test
+	public void testNextSetBit(){
+		assertEquals("Next Set Bit = 70000, From 2", 70000, _sparse.nextSetBit(2));
+		assertEquals("Next Set Bit = 2^30, From 70001", 1 << 30, _sparse.nextSetBit(70001));
+		assertEquals("No Next Set Bit", -1, _sparse.nextSetBit((1 << 30) + 1));
+		assertEquals("Previous Set Bit = 70000", 70000, _sparse.previousSetBit((1 << 30) - 1));
+		assertEquals("Next Clear Bit = 200000", 200000, _runs.nextClearBit(5));
+		assertEquals("Length = 2^30 + 1", (1 << 30) + 1, _sparse.length());
+	}
+	
+	@Test
+	public void testOr(){
+		FastCompressedBitSet result = _sparse.clone();
+		result.or(_runs);
+		assertEquals("Or Cardinality = 200001", 200001, result.cardinality());
+		result.runOptimize();
+		assertEquals("Or Cardinality (Optimized) = 200001", 200001, result.cardinality());
+		assertTrue("Contains 2^30", result.contains(Index.of(1 << 30)));
+	}
+	
+	@Test
+	public void testXOr(){
+		FastCompressedBitSet result = _runs.clone();
+		result.xor(_dense);
+		assertEquals("XOr Cardinality = 100000", 100000, result.cardinality());
+		result.xor(_runs);
+		assertEquals("XOr Twice", _dense, result);
+	}
+
+	@Test
+	public void testIterator(){
+		assertEquals("Ascending", "[1, 70000, 1073741824]", _sparse.toString());
+		assertEquals("Descending First", Index.of(1 << 30), _sparse.descendingIterator().next());
+		_sparse.remove(Index.of(70000));
+		assertEquals("Removed", "[1, 1073741824]", _sparse.toString());
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class FastConcurrentBitSetTest {
+
+	private FastConcurrentBitSet _bitSet;
+	
+	@Before
+	public void init(){
+		_bitSet = new FastConcurrentBitSet(130);
+		_bitSet.set(1);
+		_bitSet.set(64);
+		_bitSet.set(129);
+	}
+	
+	@Test
+	public void testGetAndSet(){
+		assertTrue("Previous Bit 64 = True", _bitSet.getAndSet(64, false));
+		assertFalse("Previous Bit 64 = False", _bitSet.getAndSet(64, false));
+		assertFalse("Flip Bit 2 Previous = False", _bitSet.flip(2));
+		assertTrue("Bit 2 = True", _bitSet.get(2));
+		assertFalse("Bit 130 = False (Beyond Capacity)", _bitSet.get(130));
+		assertEquals("Cardinality = 3", 3, _bitSet.cardinality());
+		assertEquals("[1, 2, 129]", _bitSet.toString());
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testSetBeyondCapacity(){
+		_bitSet.set(130);
+	}
+	
+	@Test
+	public void testNextBits(){
+		assertEquals("Next Set Bit = 64, From 2", 64, _bitSet.nextSetBit(2));
+		assertEquals("Next Clear Bit = 2, From 1", 2, _bitSet.nextClearBit(1));
+		assertEquals("Previous Set Bit = 64, From 128", 64, _bitSet.previousSetBit(128));
+		assertEquals("Descending", "[129, 64, 1]", _bitSet.reversed().toString());
+	}
+	
+	@Test
+	public void testClaimNextClearBit(){
+		assertEquals("Claim From 0 = 0", 0, _bitSet.claimNextClearBit(0));
+		assertEquals("Claim From 0 = 2", 2, _bitSet.claimNextClearBit(0));
+		assertEquals("Claim From 128 = 128", 128, _bitSet.claimNextClearBit(128));
+		assertEquals("Claim From 129 = -1 (Full)", -1, _bitSet.claimNextClearBit(129));
+	}
+	
+	@Test
+	public void testConcurrentClaims() throws InterruptedException {
+		final FastConcurrentBitSet slots = new FastConcurrentBitSet(4000);
+		final int[][] claimed = new int[4][1000];
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int[] mine = claimed[t];
+			threads[t] = new Thread(new Runnable() {
+				public void run() {
+					for (int i = 0; i < mine.length; i++) mine[i] = slots.claimNextClearBit(0);
+				}});
+			threads[t].start();
+		}
+		for (Thread thread : threads) thread.join();
+		FastBitSet unique = new FastBitSet();
+		for (int[] mine : claimed)
+			for (int slot : mine) unique.set(slot);
+		assertEquals("All Slots Claimed Once", 4000, unique.cardinality());
+		assertEquals("Full", -1, slots.claimNextClearBit(0));
+	}
+	
+}
@@ -0,0 +1,142 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.javolution.util.function.Consumer;
+import org.javolution.util.function.Predicate;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FastHeapTest {
+
+	private FastHeap<String> _heap;
+	private FastHeap<String> _priorityHeap;
+	private FastHeap.Handle<String> _charlie;
+	
+	@Before
+	public void init(){
+		_heap = new FastHeap<String>().with("delta", "alpha", "echo", "charlie", "bravo");
+		_priorityHeap = FastHeap.byPriority();
+		_priorityHeap.insert(30, "thirty");
+		_priorityHeap.insert(10, "ten");
+		_charlie = _priorityHeap.insert(20, "twenty");
+		_priorityHeap.insert(10, "ten again");
+	}
+	
+	@Test
+	public void testPoll(){
+		assertEquals("Peek = alpha", "alpha", _heap.peek());
+		assertEquals("Poll = alpha", "alpha", _heap.poll());
+		assertEquals("Poll = bravo", "bravo", _heap.poll());
+		assertEquals("Size = 3", 3, _heap.size());
+		_heap.clear();
+		assertNull("Poll Empty = null", _heap.poll());
+	}
+	
+	@Test
+	public void testDuplicatePriorities(){
+		assertEquals("Size = 4", 4, _priorityHeap.size());
+		assertEquals("Peek Priority = 10", 10, _priorityHeap.peekPriority());
+		_priorityHeap.poll();
+		assertEquals("Peek Priority = 10", 10, _priorityHeap.peekPriority());
+		_priorityHeap.poll();
+		assertEquals("Poll = twenty", "twenty", _priorityHeap.poll());
+	}
+	
+	@Test
+	public void testPriorityHeapAsCollection(){
+		_priorityHeap.add("zero");
+		assertTrue("Offer", _priorityHeap.offer("zero again"));
+		assertEquals("Poll = zero (Default Priority 0)", "zero", _priorityHeap.poll());
+		assertEquals("Poll = zero again", "zero again", _priorityHeap.poll());
+		FastHeap<String> late = FastHeap.<String>byPriority(100).with("late", "later");
+		late.insert(50, "early");
+		late.addAll(java.util.Arrays.asList("latest"));
+		assertEquals("Size = 4", 4, late.size());
+		assertEquals("Poll = early", "early", late.poll());
+		assertEquals("Peek Priority = 100", 100, late.peekPriority());
+		assertEquals("Clone Default Priority", 100, late.clone().insert("cloned").getPriority());
+	}
+	
+	@Test
+	public void testNullElements(){
+		FastHeap<String> heap = FastHeap.byPriority();
+		heap.insert(1, null);
+		heap.insert(2, "x");
+		final int[] count = new int[1];
+		heap.forEach(new Consumer<String>() {
+			public void accept(String element) {
+				count[0]++;
+			}});
+		assertEquals("ForEach Visits 2", 2, count[0]);
+		assertTrue("Contains null", heap.contains(null));
+		assertEquals("Size = 2", 2, heap.size());
+	}
+	
+	@Test
+	public void testDecreasePriority(){
+		_priorityHeap.decreasePriority(_charlie, 5);
+		assertEquals("Poll = twenty", "twenty", _priorityHeap.poll());
+		assertFalse("Handle Not Queued", _charlie.isQueued());
+		assertFalse("Remove Polled Handle = False", _priorityHeap.remove(_charlie));
+	}
+	
+	@Test
+	public void testSetPriority(){
+		_priorityHeap.setPriority(_charlie, 40);
+		_priorityHeap.poll();
+		_priorityHeap.poll();
+		assertEquals("Poll = thirty", "thirty", _priorityHeap.poll());
+		assertEquals("Poll = twenty", "twenty", _priorityHeap.poll());
+		assertTrue("Empty", _priorityHeap.isEmpty());
+	}
+	
+	@Test
+	public void testDecreaseKey(){
+		FastHeap.Handle<String> echo = null;
+		_heap.clear();
+		for (String str : new String[] { "delta", "echo", "charlie" }) {
+			FastHeap.Handle<String> handle = _heap.insert(str);
+			if (str.equals("echo")) echo = handle;
+		}
+		_heap.decreaseKey(echo, "able");
+		assertEquals("Poll = able", "able", _heap.poll());
+		assertEquals("Poll = charlie", "charlie", _heap.poll());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecreaseKeyIncreased(){
+		FastHeap.Handle<String> handle = _heap.insert("foxtrot");
+		_heap.decreaseKey(handle, "golf");
+	}
+	
+	@Test
+	public void testRemoveHandle(){
+		assertTrue("Remove Handle = True", _priorityHeap.remove(_charlie));
+		assertEquals("Size = 3", 3, _priorityHeap.size());
+		_priorityHeap.poll();
+		_priorityHeap.poll();
+		assertEquals("Poll = thirty", "thirty", _priorityHeap.poll());
+	}
+	
+	@Test
+	public void testRemoveIf(){
+		_heap.removeIf(new Predicate<String>() {
+			public boolean test(String str) {
+				return str.compareTo("c") < 0;
+			}});
+		assertEquals("Size = 3", 3, _heap.size());
+		assertEquals("Poll = charlie", "charlie", _heap.poll());
+	}
+}
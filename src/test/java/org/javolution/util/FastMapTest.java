@@ -141,6 +141,35 @@ public class FastMapTest {
 		assertEquals("Result Should Equal TestValue1", "TestValue1", result);		
 	}
 	
+	@Test
+	public void testFreezeCompact(){
+		FastMap<String,String> fastMap = new FastMap<String,String>(org.javolution.util.function.Order.lexical());
+		for (int i = 0; i < 1000; i++) fastMap.put("TestKey" + i, "TestValue" + i);
+		FastMap.Immutable<String,String> frozen = fastMap.freeze(true);
+		assertEquals("Frozen Map Size Is 1000", 1000, frozen.size());
+		for (int i = 0; i < 1000; i++) assertEquals("Frozen Map Value", "TestValue" + i, frozen.get("TestKey" + i));
+		assertEquals("Frozen Map First Key", "TestKey0", frozen.firstKey());
+		assertEquals("Frozen Map Last Key", "TestKey999", frozen.lastKey());
+		assertNull("No Value For Missing Key", frozen.get("TestKey"));
+	}
+	
+	@Test
+	public void testPrefixMap(){
+		_fastMap = new FastMap<String,String>(org.javolution.util.function.Order.lexical());
+		_fastMap.put("TestKey1", "TestValue1");
+		_fastMap.put("TestKey2", "TestValue2");
+		_fastMap.put("Other", "OtherValue");
+		_fastMap.put("TestKe", "TestValue");
+		
+		AbstractMap<String,String> prefixMap = _fastMap.prefixMap("TestKey");
+		assertEquals("Prefix Map Size Is 2", 2, prefixMap.size());
+		assertEquals("First Key Is TestKey1", "TestKey1", prefixMap.firstKey());
+		assertEquals("Last Key Is TestKey2", "TestKey2", prefixMap.lastKey());
+		assertNull("Out Of Range Key Not Found", prefixMap.get("Other"));
+		prefixMap.clear();
+		assertEquals("Size Equals 2 After Prefix Clear", 2, _fastMap.size());
+	}
+	
 	@Test
 	public void testSize(){
 		assertEquals("Size Equals 0", _fastMap.size(), 0);
@@ -0,0 +1,138 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.javolution.util.function.Consumer;
+import org.javolution.util.function.Supplier;
+import org.junit.Test;
+
+public class FastQueueTest {
+
+	@SuppressWarnings("unchecked")
+	private final FastQueue<Integer>[] _queues = new FastQueue[] { FastQueue.spsc(5), FastQueue.mpsc(8), 
+			FastQueue.mpmc(8), FastQueue.unbounded() };
+	
+	@Test
+	public void testOfferPoll(){
+		for (FastQueue<Integer> queue : _queues) {
+			assertNull("Poll Empty = null", queue.poll());
+			for (int i = 0; i < 8; i++) assertTrue("Offer " + i, queue.offer(i));
+			assertEquals("Size = 8", 8, queue.size());
+			assertEquals("Peek = 0", Integer.valueOf(0), queue.peek());
+			for (int i = 0; i < 8; i++) assertEquals("Poll " + i, Integer.valueOf(i), queue.poll());
+			assertTrue("Empty", queue.isEmpty());
+		}
+	}
+	
+	@Test
+	public void testBounded(){
+		for (int q = 0; q < 3; q++) {
+			FastQueue<Integer> queue = _queues[q];
+			assertEquals("Capacity = 8", 8, queue.capacity());
+			for (int i = 0; i < 8; i++) queue.offer(i);
+			assertFalse("Offer Full = False", queue.offer(8));
+			queue.poll();
+			assertTrue("Offer After Poll = True", queue.offer(8));
+		}
+	}
+	
+	@Test
+	public void testFillDrain(){
+		for (FastQueue<Integer> queue : _queues) {
+			final int[] next = new int[1];
+			int filled = queue.fillFrom(new Supplier<Integer>() {
+				public Integer get() {
+					return next[0]++;
+				}}, 20);
+			assertEquals("Filled", Math.min(20, queue.capacity()), filled);
+			assertEquals("Supplier Called Once Per Element", filled, next[0]);
+			final int[] sum = new int[1];
+			int drained = queue.drainTo(new Consumer<Integer>() {
+				public void accept(Integer value) {
+					sum[0] += value;
+				}}, 5);
+			assertEquals("Drained = 5", 5, drained);
+			assertEquals("Sum = 10", 10, sum[0]);
+			assertEquals("Remaining", filled - 5, queue.size());
+		}
+	}
+	
+	@Test
+	public void testNullSupplied(){
+		for (FastQueue<Integer> queue : _queues) {
+			final int[] count = new int[1];
+			try {
+				queue.fillFrom(new Supplier<Integer>() {
+					public Integer get() {
+						return (count[0]++ == 2) ? null : count[0];
+					}}, 5);
+			} catch (NullPointerException e) {
+				// Expected.
+			}
+			assertEquals("Poll = 1", Integer.valueOf(1), queue.poll());
+			assertEquals("Poll = 2", Integer.valueOf(2), queue.poll());
+			assertNull("Poll = null", queue.poll());
+			assertTrue("Offer = True", queue.offer(3));
+			assertEquals("Poll = 3", Integer.valueOf(3), queue.poll());
+		}
+	}
+	
+	@Test
+	public void testSupplierThrows(){
+		for (FastQueue<Integer> queue : _queues) {
+			final int[] count = new int[1];
+			try {
+				queue.fillFrom(new Supplier<Integer>() {
+					public Integer get() {
+						if (count[0]++ == 1) throw new IllegalStateException();
+						return count[0];
+					}}, 5);
+			} catch (IllegalStateException e) {
+				// Expected.
+			}
+			assertEquals("Poll = 1", Integer.valueOf(1), queue.poll());
+			assertTrue("Offer = True", queue.offer(5));
+			assertEquals("Poll = 5", Integer.valueOf(5), queue.poll());
+			assertNull("Poll = null", queue.poll());
+		}
+	}
+	
+	@Test
+	public void testMultipleProducers() throws InterruptedException {
+		for (int q = 1; q < 4; q++) {
+			final FastQueue<Integer> queue = _queues[q];
+			Thread[] producers = new Thread[3];
+			for (int p = 0; p < producers.length; p++) {
+				producers[p] = new Thread(new Runnable() {
+					public void run() {
+						for (int i = 0; i < 1000; i++)
+							while (!queue.offer(i)) Thread.yield();
+					}});
+				producers[p].start();
+			}
+			long sum = 0;
+			for (int received = 0; received < 3000;) {
+				Integer value = queue.poll();
+				if (value == null) {
+					Thread.yield();
+					continue;
+				}
+				sum += value;
+				received++;
+			}
+			for (Thread producer : producers) producer.join();
+			assertEquals("Sum", 3 * 999 * 1000 / 2, sum);
+		}
+	}
+}
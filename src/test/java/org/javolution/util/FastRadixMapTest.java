@@ -0,0 +1,121 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class FastRadixMapTest {
+
+	private FastRadixMap<String,String> _radixMap;
+	
+	@Before
+	public void init(){
+		_radixMap = new FastRadixMap<String,String>();
+	}
+	
+	@Test
+	public void testPutGetRemove(){
+		_radixMap.put("romane", "1");
+		_radixMap.put("romanus", "2");
+		_radixMap.put("romulus", "3");
+		_radixMap.put("rom", "4");
+		_radixMap.put("", "5");
+		assertEquals("Size Equals 5", 5, _radixMap.size());
+		assertEquals("Value Of romanus Is 2", "2", _radixMap.get("romanus"));
+		assertEquals("Value Of Empty Key Is 5", "5", _radixMap.get(""));
+		assertNull("No Value For Prefix Without Entry", _radixMap.get("roman"));
+		assertEquals("Previous Value Returned", "4", _radixMap.put("rom", "6"));
+		assertEquals("Removed Value Returned", "2", _radixMap.remove("romanus"));
+		assertNull("Removed Key Not Found", _radixMap.get("romanus"));
+		assertEquals("Sibling Key Still Found", "1", _radixMap.get("romane"));
+		assertEquals("Size Equals 4", 4, _radixMap.size());
+	}
+	
+	@Test
+	public void testLexicalIteration(){
+		_radixMap.put("b", "1");
+		_radixMap.put("abc", "2");
+		_radixMap.put("a", "3");
+		_radixMap.put("ab", "4");
+		_radixMap.put("abd", "5");
+		assertEquals("Keys In Lexical Order", "[a, ab, abc, abd, b]", _radixMap.keySet().toString());
+		Iterator<String> descending = _radixMap.keySet().descendingIterator();
+		assertEquals("Last Key Is b", "b", descending.next());
+		assertEquals("Then abd", "abd", descending.next());
+	}
+	
+	@Test
+	public void testPrefixMap(){
+		_radixMap.put("/api/users", "users");
+		_radixMap.put("/api/users/admin", "admin");
+		_radixMap.put("/api/orders", "orders");
+		_radixMap.put("/home", "home");
+		AbstractMap<String,String> users = _radixMap.prefixMap("/api/users");
+		assertEquals("Prefix Map Size Is 2", 2, users.size());
+		assertEquals("Prefix Map Keys", "[/api/users, /api/users/admin]", users.keySet().toString());
+		assertEquals("Prefix Map Size Is 3", 3, _radixMap.prefixMap("/api").size());
+		assertTrue("Empty Prefix Map", _radixMap.prefixMap("/x").isEmpty());
+	}
+	
+	@Test
+	public void testRemoveIf(){
+		_radixMap.put("abc", "1");
+		_radixMap.put("abd", "2");
+		_radixMap.put("ab", "3");
+		_radixMap.values().removeIf(new org.javolution.util.function.Predicate<String>() {
+			@Override
+			public boolean test(String param) {
+				return !param.equals("2");
+			}});
+		assertEquals("Size Equals 1", 1, _radixMap.size());
+		assertEquals("Remaining Value Is 2", "2", _radixMap.get("abd"));
+		assertFalse("Removed Key Not Contained", _radixMap.containsKey("ab"));
+	}
+	
+	@Test
+	public void testAgainstTreeMap(){
+		TreeMap<String,String> treeMap = new TreeMap<String,String>();
+		Random random = new Random(0);
+		for (int i = 0; i < 10000; i++) {
+			String key = Integer.toString(random.nextInt(2000), 4);
+			if (random.nextBoolean()) {
+				assertEquals("Same Previous Value On Put", treeMap.put(key, key), _radixMap.put(key, key));
+			} else {
+				assertEquals("Same Value On Remove", treeMap.remove(key), _radixMap.remove(key));
+			}
+		}
+		assertEquals("Same Size", treeMap.size(), _radixMap.size());
+		assertEquals("Same Keys", treeMap.keySet().toString(), _radixMap.keySet().toString());
+		assertEquals("Same Tail Keys", treeMap.tailMap("123").keySet().toString(), 
+				_radixMap.tailMap("123").keySet().toString());
+		assertEquals("Same Head Keys", treeMap.headMap("2").keySet().toString(), 
+				_radixMap.headMap("2").keySet().toString());
+	}
+	
+	@Test
+	public void testClone(){
+		_radixMap.put("a", "1");
+		FastRadixMap<String,String> copy = _radixMap.clone();
+		copy.put("a", "2");
+		copy.put("b", "3");
+		assertEquals("Original Unmodified", "1", _radixMap.get("a"));
+		assertEquals("Original Size Unmodified", 1, _radixMap.size());
+	}
+	
+}
@@ -0,0 +1,93 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class FastRangeMapTest {
+
+	private FastRangeMap<String> _rangeMap;
+	private FastRangeSet _rangeSet;
+	
+	@Before
+	public void init(){
+		_rangeMap = new FastRangeMap<String>();
+		_rangeMap.put(0, 100, "low");
+		_rangeMap.put(200, 300, "mid");
+		_rangeMap.put(-100, -1, "high"); // Unsigned [2^64-100, 2^64-1)
+		_rangeSet = new FastRangeSet();
+		_rangeSet.add(900, 1200);
+		_rangeSet.add(1200, 1300);
+		_rangeSet.add(2000, 2100);
+	}
+	
+	@Test
+	public void testGet(){
+		assertEquals("Size = 3", 3, _rangeMap.size());
+		assertEquals("Get 0 = low", "low", _rangeMap.get(0));
+		assertEquals("Get 99 = low", "low", _rangeMap.get(99));
+		assertNull("Get 100 = null", _rangeMap.get(100));
+		assertEquals("Get 250 = mid", "mid", _rangeMap.get(250));
+		assertEquals("Get -2 = high", "high", _rangeMap.get(-2));
+		assertNull("Get -1 = null", _rangeMap.get(-1));
+	}
+	
+	@Test
+	public void testSplit(){
+		_rangeMap.put(240, 260, "other");
+		assertEquals("Size = 5", 5, _rangeMap.size());
+		assertEquals("Get 239 = mid", "mid", _rangeMap.get(239));
+		assertEquals("Get 240 = other", "other", _rangeMap.get(240));
+		assertEquals("Get 260 = mid", "mid", _rangeMap.get(260));
+		_rangeMap.remove(50, 250);
+		assertEquals("Size = 4", 4, _rangeMap.size());
+		assertEquals("Range 49 = [0, 50)", 50, _rangeMap.getRange(49).getTo());
+		assertEquals("Range 250 = [250, 260)", 250, _rangeMap.getRange(255).getFrom());
+	}
+	
+	@Test
+	public void testCoalesce(){
+		_rangeMap.put(100, 200, "low");
+		assertEquals("Size = 3", 3, _rangeMap.size());
+		assertEquals("Range 150 = [0, 200)", 200, _rangeMap.getRange(150).getTo());
+		_rangeMap.put(150, 250, "mid");
+		assertEquals("Range 150 = [150, 300)", 150, _rangeMap.getRange(299).getFrom());
+		_rangeMap.put(0, -1, null);
+		assertTrue("Map Empty", _rangeMap.isEmpty());
+	}
+	
+	@Test
+	public void testOverlaps(){
+		assertTrue("Overlaps [50, 150)", _rangeMap.overlaps(50, 150));
+		assertFalse("Not Overlaps [100, 200)", _rangeMap.overlaps(100, 200));
+		int count = 0;
+		for (FastIterator<FastRangeMap.Range<String>> i = _rangeMap.overlapping(50, -50); i.hasNext(); i.next())
+			count++;
+		assertEquals("Overlapping = 3", 3, count);
+	}
+	
+	@Test
+	public void testRangeSet(){
+		assertEquals("Size = 2", 2, _rangeSet.size());
+		assertTrue("Contains [900, 1300)", _rangeSet.contains(900, 1300));
+		assertFalse("Not Contains [900, 1301)", _rangeSet.contains(900, 1301));
+		_rangeSet.remove(950, 960);
+		assertFalse("Not Contains 955", _rangeSet.contains(955));
+		assertEquals("Size = 3", 3, _rangeSet.size());
+		assertFalse("Free [1300, 2000)", _rangeSet.overlaps(1300, 2000));
+		assertEquals("toString", "[[900, 950), [960, 1300), [2000, 2100)]", _rangeSet.toString());
+	}
+	
+}
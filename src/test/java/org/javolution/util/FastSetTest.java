@@ -121,6 +121,44 @@ public class FastSetTest {
 		assertEquals("Element 4 is A", "A", iterator.next());
 	}
 	
+	@Test
+	public void testFreezeCompact(){
+		for (int i = 0; i < 1000; i++) _fastSet.add("Test" + i);
+		FastSet<String> fastSet = (FastSet<String>) _fastSet;
+		FastSet.Immutable<String> frozen = fastSet.freeze(true);
+		assertEquals("Frozen Set Size Is 1000", 1000, frozen.size());
+		for (int i = 0; i < 1000; i++) assertTrue("Frozen Set Contains Test" + i, frozen.contains("Test" + i));
+		assertFalse("Frozen Set Does Not Contain Test1000", frozen.contains("Test1000"));
+		int count = 0;
+		for (Iterator<String> itr = frozen.descendingIterator(); itr.hasNext(); itr.next()) count++;
+		assertEquals("Descending Iteration Over 1000 Elements", 1000, count);
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testFreezeCompactIsImmutable(){
+		_fastSet.add("Test");
+		((FastSet<String>) _fastSet).freeze(true).add("Test2");
+	}
+	
+	@Test
+	public void testPrefixRange(){
+		_fastSet = new FastSet<String>(org.javolution.util.function.Order.lexical());
+		_fastSet.addAll(java.util.Arrays.asList("ab", "abc", "abcdefgh", "abd", "ac", "a", "b", "abcdefghij", "aa"));
+		AbstractSet<String> range = _fastSet.prefixRange("ab");
+		assertEquals("Prefix Range Size Is 5", 5, range.size());
+		assertEquals("Prefix Range Elements In Order", "[ab, abc, abcdefgh, abcdefghij, abd]", range.toString());
+		assertEquals("Last Element Is abd", "abd", range.descendingIterator().next());
+		assertFalse("Out Of Range Element Not Contained", range.contains("ac"));
+		range.clear();
+		assertEquals("Only Prefixed Elements Removed", 4, _fastSet.size());
+		assertTrue("Prefix Range Is Empty", _fastSet.prefixRange("ab").isEmpty());
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testPrefixRangeRequiresLexicalOrder(){
+		_fastSet.prefixRange("A");
+	}
+	
 	@Test
 	public void testSize(){
 		_fastSet.add("Test1");
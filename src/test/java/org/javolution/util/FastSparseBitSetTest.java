@@ -0,0 +1,83 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.javolution.lang.Index;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FastSparseBitSetTest {
+
+	private static final long HIGH = 1L << 62;
+	private FastSparseBitSet _sparse;
+	private FastSparseBitSet _range;
+	
+	@Before
+	public void init(){
+		_sparse = new FastSparseBitSet();
+		_sparse.set(3);
+		_sparse.set(HIGH);
+		_sparse.set(-1L); // Maximum unsigned index.
+		_range = new FastSparseBitSet();
+		_range.set(HIGH - 10000, HIGH + 10000);
+	}
+	
+	@Test
+	public void testGet(){
+		assertTrue("Bit 3 = True", _sparse.get(3));
+		assertTrue("Bit 2^62 = True", _sparse.get(HIGH));
+		assertTrue("Bit 2^64-1 = True", _sparse.get(-1L));
+		assertFalse("Bit 2^63 = False", _sparse.get(Long.MIN_VALUE));
+		assertEquals("Cardinality = 3", 3, _sparse.cardinality());
+		assertEquals("Cardinality = 20000", 20000, _range.cardinality());
+	}
+	
+	@Test
+	public void testNextSetBit(){
+		assertEquals("Next Set Bit = 2^62, From 4", HIGH, _sparse.nextSetBit(4));
+		assertEquals("Next Set Bit = 2^64-1, From 2^62+1", -1L, _sparse.nextSetBit(HIGH + 1));
+		assertEquals("Previous Set Bit = 2^62, From 2^64-2", HIGH, _sparse.previousSetBit(-2L));
+		assertEquals("Previous Set Bit = 3, From 2^62-1", 3, _sparse.previousSetBit(HIGH - 1));
+		assertEquals("Next Set Bit In Range", HIGH - 10000, _range.nextSetBit(0));
+	}
+	
+	@Test
+	public void testIterator(){
+		assertEquals("Ascending", "[3, " + Index.of(HIGH) + ", " + Index.of(-1L) + "]", _sparse.toString());
+		assertEquals("Descending First", Index.of(-1L), _sparse.descendingIterator().next());
+		assertEquals("Size = 3", 3, _sparse.size());
+	}
+
+	@Test
+	public void testLogicalOperations(){
+		FastSparseBitSet result = _range.clone();
+		result.and(_sparse);
+		assertEquals("And", "[" + Index.of(HIGH) + "]", result.toString());
+		result = _range.clone();
+		result.or(_sparse);
+		assertEquals("Or Cardinality = 20002", 20002, result.cardinality());
+		result.xor(_sparse);
+		assertEquals("XOr Cardinality = 19999", 19999, result.cardinality());
+		result.andNot(_range);
+		assertTrue("AndNot Is Empty", result.isEmpty());
+		assertTrue("Intersects", _range.intersects(_sparse));
+	}
+
+	@Test
+	public void testClearRange(){
+		_range.clear(HIGH - 9990, HIGH + 9990);
+		assertEquals("Cardinality = 20", 20, _range.cardinality());
+		_range.clear(0, -1L);
+		assertTrue("Is Empty", _range.isEmpty());
+	}
+}
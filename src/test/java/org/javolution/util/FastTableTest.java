@@ -13,10 +13,17 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.Random;
 
+import org.javolution.util.FastIterator;
+import org.javolution.util.FastSet;
 import org.javolution.util.FastTable;
 import org.javolution.util.FractalArray;
+import org.javolution.util.function.Function;
+import org.javolution.util.function.Indexer;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -108,6 +115,193 @@ public class FastTableTest {
 		assertEquals("Index Of Test2 is 1", 1, _fastTable.indexOf("Test2"));
 	}
 	
+	@Test
+	public void testIndexedDistinct(){
+		_fastTable.add("Test2"); // Duplicate.
+		AbstractCollection<String> distinct = _fastTable.equality(org.javolution.util.function.Order.lexical()).distinct(true);
+		assertFalse("Duplicate Not Added", distinct.add("Test1"));
+		assertTrue("New Element Added", distinct.add("Test4"));
+		assertEquals("Distinct Size Is 4", 4, distinct.size());
+		assertEquals("Table Size Is 5", 5, _fastTable.size());
+		assertTrue("Remove All Occurrences", distinct.remove("Test2"));
+		assertFalse("Test2 Removed", distinct.contains("Test2"));
+		assertEquals("Distinct Elements", "[Test1, Test3, Test4]", distinct.toString());
+		for (int i = 0; i < 1000; i++) distinct.add("Test" + (i % 100));
+		assertEquals("Distinct Size Is 100", 100, distinct.size());
+	}
+	
+	@Test
+	public void testIndexedDistinctAfterDirectModifications(){
+		AbstractCollection<String> distinct = _fastTable.equality(org.javolution.util.function.Order.lexical()).distinct(true);
+		assertTrue("Contains Test1", distinct.contains("Test1")); // Builds the index.
+		_fastTable.set(2, "Test1"); // Duplicate (same size).
+		_fastTable.add("Test1"); // Duplicate.
+		assertEquals("Distinct Elements", "[Test1, Test2]", distinct.toString());
+		assertEquals("Distinct Size Is 2", 2, distinct.size());
+		assertTrue("Remove All Occurrences", distinct.remove("Test1"));
+		assertEquals("Table Is [Test2]", "[Test2]", _fastTable.toString());
+		assertFalse("Test1 Removed", distinct.contains("Test1"));
+	}
+	
+	@Test
+	public void testIndexedDistinctSizeAndIteration(){
+		AbstractCollection<String> distinct = _fastTable.equality(org.javolution.util.function.Order.lexical()).distinct(true);
+		assertEquals("Distinct Size Is 3", 3, distinct.size());
+		_fastTable.add("Test2");
+		_fastTable.add(null);
+		_fastTable.add(null);
+		assertEquals("Distinct Size Is 4", 4, distinct.size());
+		assertEquals("Distinct Elements", "[Test1, Test2, Test3, null]", distinct.toString());
+		assertTrue("Contains null", distinct.contains(null));
+		assertFalse("Add Test3 Has No Effect", distinct.add("Test3"));
+		assertTrue("Add Test4", distinct.add("Test4"));
+		assertEquals("Distinct Size Is 5", 5, distinct.size());
+		_fastTable.set(0, "Test3"); // Replacement (same size).
+		assertEquals("Distinct Size Is 4 After Replacement", 4, distinct.size());
+		assertEquals("Distinct Elements After Replacement", "[Test3, Test2, null, Test4]", distinct.toString());
+	}
+	
+	@Test
+	public void testIndexedEquality(){
+		AbstractTable<String> indexed = _fastTable.equality(org.javolution.util.function.Order.lexical(), true);
+		assertTrue("Contains Test2", indexed.contains("Test2"));
+		assertEquals("Index Of Test4 Is -1", -1, indexed.indexOf("Test4"));
+		indexed.set(1, "Test4");
+		assertFalse("No Longer Contains Test2", indexed.contains("Test2"));
+		assertEquals("Index Of Test4 Is 1", 1, indexed.indexOf("Test4"));
+		indexed.add(0, "Test3");
+		assertEquals("Last Index Of Test3 Is 3", 3, indexed.lastIndexOf("Test3"));
+		assertTrue("Remove First Occurrence", indexed.remove("Test3"));
+		assertTrue("Still Contains Test3", indexed.contains("Test3"));
+		indexed.removeLast();
+		assertFalse("Test3 Removed", indexed.contains("Test3"));
+		assertEquals("Table Elements", "[Test1, Test4]", _fastTable.toString());
+	}
+	
+	@Test
+	public void testSortedView(){
+		_fastTable.add("Test0");
+		AbstractCollection<String> sorted = _fastTable.sorted();
+		assertEquals("Sorted Elements", "[Test0, Test1, Test2, Test3]", sorted.toString());
+		assertEquals("Cached Sorted Elements", "[Test0, Test1, Test2, Test3]", sorted.toString());
+		sorted.add("Test15");
+		sorted.add("Test4");
+		assertEquals("Merged Added Elements", "[Test0, Test1, Test15, Test2, Test3, Test4]", sorted.toString());
+		_fastTable.remove("Test2");
+		assertEquals("Inner Modification Detected", "[Test0, Test1, Test15, Test3, Test4]", sorted.toString());
+		assertEquals("Descending First Element", "Test4", sorted.descendingIterator().next());
+		Iterator<String> itr = sorted.iterator(); // Top-k (partial iteration).
+		assertEquals("First Element", "Test0", itr.next());
+		assertEquals("Second Element", "Test1", itr.next());
+	}
+	
+	@Test
+	public void testSortedViewAgainstSort(){
+		Random random = new Random(0);
+		FastTable<Integer> table = new FastTable<Integer>();
+		AbstractCollection<Integer> sorted = table.sorted();
+		ArrayList<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < 100; i++) {
+			for (int j = random.nextInt(50); j > 0; j--) {
+				Integer value = random.nextInt(1000);
+				if (random.nextBoolean()) sorted.add(value); else table.add(value);
+				expected.add(value);
+			}
+			if (random.nextInt(10) == 0) {
+				Integer removed = table.remove(random.nextInt(table.size()));
+				expected.remove(removed);
+			}
+			java.util.Collections.sort(expected);
+			assertEquals("Same Sorted Elements", expected.toString(), sorted.toString());
+		}
+	}
+
+	@Test
+	public void testPipeline(){
+		FastTable<Integer> table = new FastTable<Integer>();
+		for (int i = 0; i < 20; i++) table.add(i);
+		AbstractCollection<Integer> pipeline = table.filter(x -> x % 2 == 0).map(x -> x / 4).filter(x -> x > 0).distinct();
+		assertEquals("Fused Elements", "[1, 2, 3, 4]", pipeline.toString());
+		assertEquals("Size Equals 4", 4, pipeline.size());
+		assertTrue("Any Match 3", pipeline.anyMatch(x -> x == 3));
+		assertFalse("No Match 0", pipeline.anyMatch(x -> x == 0));
+		assertEquals("Reduce Sum", Integer.valueOf(10), pipeline.reduce((x, y) -> x + y));
+		assertEquals("Max Equals 4", Integer.valueOf(4), pipeline.max((x, y) -> x - y));
+		assertEquals("Collect Elements", "[1, 2, 3, 4]", pipeline.collect().toString());
+		assertEquals("Descending Elements", "[4, 3, 2, 1]", toString(pipeline.descendingIterator()));
+		pipeline.removeIf(x -> x == 2);
+		assertEquals("Elements Removed", "[1, 3, 4]", pipeline.toString());
+		assertEquals("Table Size", 18, table.size());
+	}
+
+	@Test
+	public void testPipelineDistinctWithRetestingSource(){
+		final FastTable<Integer> table = new FastTable<Integer>() {
+			private static final long serialVersionUID = 1L;
+			@Override
+			public FastIterator<Integer> iterator() { // Tests each element twice.
+				return new FastIterator<Integer>() {
+					int i;
+					@Override
+					public boolean hasNext() {
+						return i < size();
+					}
+					@Override
+					public boolean hasNext(Predicate<? super Integer> matching) {
+						for (; i < size(); i++) 
+							if (matching.test(get(i)) && matching.test(get(i))) return true;
+						return false;
+					}
+					@Override
+					public Integer next() {
+						return get(i++);
+					}
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+		for (int i = 0; i < 10; i++) table.add(i % 4);
+		assertEquals("Distinct Elements", "[0, 1, 2, 3]", table.filter(x -> true).map(x -> x).distinct().toString());
+		assertEquals("Distinct Size Is 4", 4, table.filter(x -> true).distinct().size());
+	}
+
+	@Test
+	public void testPipelineMappedNulls(){
+		FastSet<Integer> set = new FastSet<Integer>();
+		for (int i = 0; i < 6; i++) set.add(i);
+		Function<Integer, String> odd = x -> (x % 2 == 0) ? null : "Odd" + x;
+		assertEquals("Nulls Passed Through", "[null, Odd1, null, Odd3, null, Odd5]", set.map(odd).toString());
+		assertEquals("Size Equals 6", 6, set.map(odd).size());
+		assertEquals("Distinct Null", "[null, Odd1, Odd3, Odd5]", set.map(odd).distinct().toString());
+		assertEquals("Filtered Nulls", "[null, null, null]", set.map(odd).filter(x -> x == null).toString());
+		assertEquals("Mapped Nulls", "[null, null, null]", set.filter(x -> x % 2 == 0).map(odd).toString());
+	}
+
+	@Test
+	public void testPipelineAdd(){
+		FastTable<Integer> table = new FastTable<Integer>();
+		AbstractCollection<Integer> evens = table.filter(x -> x % 2 == 0).distinct();
+		assertTrue("Added 2", evens.add(2));
+		assertFalse("Not Added 3", evens.add(3));
+		assertFalse("Not Added 2 Again", evens.add(2));
+		assertEquals("Size Equals 1", 1, table.size());
+		try {
+			evens.map(x -> x + 1).add(5);
+			assertTrue("Mapped Views Are Read-Only", false);
+		} catch (UnsupportedOperationException e) {
+			// Expected.
+		}
+	}
+
+	private static String toString(Iterator<?> itr){
+		ArrayList<Object> list = new ArrayList<Object>();
+		while (itr.hasNext()) list.add(itr.next());
+		return list.toString();
+	}
+	
 	@Test
 	public void testIsEmpty(){
 		_fastTable = new FastTable<String>();
@@ -228,4 +422,61 @@ public class FastTableTest {
 		_fastTable.remove(1);
 		assertFalse("No Longer Contains Test2", _fastTable.contains("Test2"));
 	}
+	
+	@Test
+	public void testIndex(){
+		TableIndex<String, Character> byLast = _fastTable.index(new Function<String, Character>() {
+			@Override
+			public Character apply(String param) {
+				return param.charAt(param.length() - 1);
+			}}, false);
+		TableIndex<String, String> unique = _fastTable.index(new Function<String, String>() {
+			@Override
+			public String apply(String param) {
+				return param;
+			}}, true);
+		assertEquals("Get 2 = Test2", "Test2", byLast.get('2'));
+		_fastTable.add(0, "Best2");
+		assertEquals("Count 2 = 2", 2, byLast.count('2'));
+		_fastTable.set(0, "Best4");
+		assertEquals("Count 2 = 1", 1, byLast.count('2'));
+		_fastTable.remove(1);
+		assertFalse("Not Contains Key 1", byLast.containsKey('1'));
+		assertEquals("Get Test3 = Test3", "Test3", unique.get("Test3"));
+		try {
+			_fastTable.add(new String("Test3")); // Distinct row.
+			assertTrue("Duplicate Key Exception", false);
+		} catch (IllegalArgumentException e) {
+			assertEquals("Size = 3", 3, _fastTable.size());
+		}
+		_fastTable.clear();
+		assertFalse("Not Contains Key 3", byLast.containsKey('3'));
+		assertTrue("Drop Index", _fastTable.dropIndex(unique));
+		_fastTable.add("Test3");
+		_fastTable.add("Test3");
+		assertEquals("Count 3 = 2", 2, byLast.count('3'));
+	}
+	
+	@Test
+	public void testRangeIndex(){
+		for (int i = 0; i < 100; i++) _fastTable.add("Value" + i);
+		TableIndex<String, Integer> byLength = _fastTable.index(new Function<String, Integer>() {
+			@Override
+			public Integer apply(String param) {
+				return param.length();
+			}}, Order.valueOf(new Indexer<Integer>() {
+				@Override
+				public long indexOf(Integer param) {
+					return param;
+				}}), false);
+		assertEquals("Range [5, 7) Size = 13", 13, byLength.range(5, 7).size());
+		_fastTable.sort(Order.lexical());
+		_fastTable.removeIf(new Predicate<String>() {
+			@Override
+			public boolean test(String param) {
+				return param.length() == 6;
+			}});
+		assertEquals("Range [5, 7) Size = 3", 3, byLength.range(5, 7).size());
+		assertEquals("Count 7 = 90", 90, byLength.count(7));
+	}
 }
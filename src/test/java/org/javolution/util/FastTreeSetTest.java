@@ -0,0 +1,144 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2012 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ * 
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.javolution.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.javolution.lang.MathLib;
+import org.javolution.util.function.Order;
+import org.javolution.util.function.Predicate;
+import org.javolution.util.internal.function.ComparatorOrderImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FastTreeSetTest {
+
+	private FastTreeSet<Integer> _treeSet;
+	
+	@Before
+	public void init(){
+		_treeSet = new FastTreeSet<Integer>(new ComparatorOrderImpl<Integer>(null), 4); // Small nodes (deep tree).
+		for (int i = 0; i < 1000; i++) _treeSet.add((i * 7919) % 1000);
+	}
+	
+	@Test
+	public void testAddRemove(){
+		assertEquals("Size = 1000", 1000, _treeSet.size());
+		assertFalse("Add Existing = false", _treeSet.add(500));
+		assertTrue("Contains 999", _treeSet.contains(999));
+		for (int i = 0; i < 1000; i += 2) _treeSet.remove(i);
+		assertEquals("Size = 500", 500, _treeSet.size());
+		assertFalse("Not Contains 500", _treeSet.contains(500));
+		assertEquals("First = 1", 1, _treeSet.first().intValue());
+		assertEquals("Last = 999", 999, _treeSet.last().intValue());
+		int previous = -1;
+		for (int i : _treeSet) {
+			assertTrue("Ascending Order", i > previous);
+			previous = i;
+		}
+	}
+	
+	@Test
+	public void testIteratorFrom(){
+		FastIterator<Integer> itr = _treeSet.iterator(995);
+		assertEquals("Next = 995", 995, itr.next().intValue());
+		itr = _treeSet.descendingIterator(3);
+		assertEquals("Next = 3", 3, itr.next().intValue());
+		assertEquals("Next = 2", 2, itr.next().intValue());
+		assertEquals("SubSet Size = 100", 100, _treeSet.subSet(100, 200).size());
+		_treeSet.subSet(100, 200).clear();
+		assertEquals("Size = 900", 900, _treeSet.size());
+		assertFalse("Not Contains 150", _treeSet.contains(150));
+	}
+	
+	@Test
+	public void testMultiset(){
+		AbstractSet<Integer> multiset = _treeSet.multi();
+		multiset.add(7);
+		multiset.add(7);
+		assertEquals("Size = 1002", 1002, _treeSet.size());
+		assertEquals("Count 7 = 3", 3, count(7));
+		_treeSet.remove(7);
+		assertEquals("Count 7 = 2", 2, count(7));
+		assertEquals("Next After 7 = 8", 8, _treeSet.iterator(8).next().intValue());
+	}
+	
+	private int count(int value) {
+		int count = 0;
+		for (FastIterator<Integer> itr = _treeSet.iterator(value); itr.hasNext() && (itr.next() == value);) count++;
+		return count;
+	}
+	
+	@Test
+	public void testLoad(){
+		List<Integer> sorted = new ArrayList<Integer>();
+		for (int i = 0; i < 100; i++) sorted.add(i * 2);
+		_treeSet.load(sorted);
+		assertEquals("Size = 100", 100, _treeSet.size());
+		assertTrue("Contains 198", _treeSet.contains(198));
+		assertTrue("Add 99", _treeSet.add(99));
+		assertEquals("Next After 98 = 99", 99, _treeSet.iterator(99).next().intValue());
+		_treeSet.removeIf(new Predicate<Integer>() {
+			@Override
+			public boolean test(Integer param) {
+				return param < 100;
+			}});
+		assertEquals("Size = 50", 50, _treeSet.size());
+		assertEquals("First = 100", 100, _treeSet.first().intValue());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testLoadNotSorted(){
+		List<Integer> unsorted = new ArrayList<Integer>();
+		unsorted.add(2);
+		unsorted.add(1);
+		_treeSet.load(unsorted);
+	}
+	
+	@Test
+	public void testTreeMap(){
+		FastTreeMap<String, Integer> treeMap = new FastTreeMap<String, Integer>(String.CASE_INSENSITIVE_ORDER);
+		treeMap.put("charlie", 3);
+		treeMap.put("Alpha", 1);
+		treeMap.put("bravo", 2);
+		assertEquals("Get ALPHA = 1", 1, treeMap.get("ALPHA").intValue());
+		assertEquals("First Key = Alpha", "Alpha", treeMap.firstKey());
+		assertEquals("Head Map Size = 2", 2, treeMap.headMap("c").size());
+		assertEquals("Tail Map Size = 2", 2, treeMap.tailMap("b").size());
+		assertEquals("Previous = 2", 2, treeMap.remove("BRAVO").intValue());
+		assertNull("Get bravo = null", treeMap.get("bravo"));
+		assertEquals("Clone Size = 2", 2, treeMap.clone().size());
+	}
+	
+	@Test
+	public void testComparatorOrderConsistency(){
+		FastTreeSet<String> names = new FastTreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+		names.add("a");
+		names.add("b");
+		Order<? super String> order = names.order();
+		assertTrue("a Equals A", order.areEqual("a", "A"));
+		assertEquals("Same Index (a, A)", order.indexOf("a"), order.indexOf("A"));
+		assertTrue("a < B", order.compare("a", "B") < 0);
+		assertFalse("Index B < Index a", MathLib.unsignedLessThan(order.indexOf("B"), order.indexOf("a")));
+		assertTrue("B < a Is False", order.compare("B", "a") > 0);
+		assertTrue("Tree Contains A", names.contains("A"));
+		FastSet<String> set = new FastSet<String>(order);
+		set.addAll(names);
+		assertTrue("Set Contains A", set.contains("A"));
+		assertTrue("Set Contains B", set.contains("B"));
+		assertEquals("Set Size = 2", 2, set.size());
+	}
+	
+}
@@ -0,0 +1,86 @@
+package org.javolution.util;
+
+import java.util.Random;
+
+public class TestCompressedBitSet {
+
+    public static void main(String[] args) {
+        benchmark("Dense (50% of 4M bits)", 1, 4000000, 0);
+        benchmark("Sparse (20K bits over 2^28)", 13421, 1 << 28, 0);
+        benchmark("Runs (100 runs of 10K bits over 16M)", 0, 16000000, 100);
+    }
+
+    private static void benchmark(String name, int spacing, int span, int runs) {
+        System.out.println(name);
+        Random random = new Random(11111);
+        FastBitSet f1 = new FastBitSet(), f2 = new FastBitSet();
+        FastCompressedBitSet c1 = new FastCompressedBitSet(), c2 = new FastCompressedBitSet();
+        for (int k = 0; k < 2; k++) {
+            FastBitSet f = (k == 0) ? f1 : f2;
+            FastCompressedBitSet c = (k == 0) ? c1 : c2;
+            if (runs != 0) {
+                for (int r = 0; r < runs; r++) {
+                    int from = random.nextInt(span - 10000);
+                    f.set(from, from + 10000);
+                    c.set(from, from + 10000);
+                }
+            } else if (spacing == 1) {
+                for (int i = 0; i < span; i++)
+                    if (random.nextBoolean()) {
+                        f.set(i);
+                        c.set(i);
+                    }
+            } else {
+                for (int i = 0; i < span / spacing; i++) {
+                    int bit = random.nextInt(span);
+                    f.set(bit);
+                    c.set(bit);
+                }
+            }
+        }
+        c1.runOptimize();
+        c2.runOptimize();
+        System.out.println("  FastBitSet words: " + (f1.toLongArray().length + f2.toLongArray().length));
+        for (int run = 0; run < 5; run++) { // Warm-up included.
+            long time = System.nanoTime();
+            int card = 0;
+            for (int i = 0; i < 10; i++) {
+                FastBitSet f = f1.clone();
+                f.and(f2);
+                card += f.cardinality();
+                f = f1.clone();
+                f.or(f2);
+                card += f.cardinality();
+                f = f1.clone();
+                f.xor(f2);
+                card += f.cardinality();
+            }
+            System.out.println("  FastBitSet and/or/xor: " + card + " in " + (System.nanoTime() - time) / 1000000 + " ms");
+
+            time = System.nanoTime();
+            card = 0;
+            for (int i = 0; i < 10; i++) {
+                FastCompressedBitSet c = c1.clone();
+                c.and(c2);
+                card += c.cardinality();
+                c = c1.clone();
+                c.or(c2);
+                card += c.cardinality();
+                c = c1.clone();
+                c.xor(c2);
+                card += c.cardinality();
+            }
+            System.out.println("  FastCompressedBitSet and/or/xor: " + card + " in " + (System.nanoTime() - time) / 1000000 + " ms");
+
+            time = System.nanoTime();
+            long sum = 0;
+            for (int i = f1.nextSetBit(0); i >= 0; i = f1.nextSetBit(i + 1)) sum += i;
+            System.out.println("  FastBitSet nextSetBit scan: " + sum + " in " + (System.nanoTime() - time) / 1000000 + " ms");
+
+            time = System.nanoTime();
+            sum = 0;
+            for (int i = c1.nextSetBit(0); i >= 0; i = c1.nextSetBit(i + 1)) sum += i;
+            System.out.println("  FastCompressedBitSet nextSetBit scan: " + sum + " in " + (System.nanoTime() - time) / 1000000 + " ms");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.javolution.util;
+
+import java.util.concurrent.CountDownLatch;
+
+public class TestConcurrentBitSet {
+
+    private static final int SLOTS = 4096;
+    private static final int OPERATIONS = 1000000;
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            System.out.println("Threads: " + threads);
+            for (int run = 0; run < 3; run++) { // Warm-up included.
+                benchmark("  FastConcurrentBitSet (CAS)", threads, new Allocator() {
+                    final FastConcurrentBitSet slots = new FastConcurrentBitSet(SLOTS);
+
+                    public int claim() {
+                        return slots.claimNextClearBit(0);
+                    }
+
+                    public void release(int slot) {
+                        slots.clear(slot);
+                    }
+                });
+                benchmark("  FastBitSet (synchronized)", threads, new Allocator() {
+                    final FastBitSet slots = new FastBitSet();
+
+                    public synchronized int claim() {
+                        int slot = slots.nextClearBit(0);
+                        if (slot >= SLOTS) return -1;
+                        slots.set(slot);
+                        return slot;
+                    }
+
+                    public synchronized void release(int slot) {
+                        slots.clear(slot);
+                    }
+                });
+            }
+        }
+    }
+
+    private interface Allocator {
+        int claim();
+
+        void release(int slot);
+    }
+
+    private static void benchmark(String name, int threads, final Allocator allocator) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(threads);
+        final int perThread = OPERATIONS / threads;
+        long time = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            new Thread(new Runnable() {
+                public void run() {
+                    int[] held = new int[16];
+                    for (int i = 0; i < perThread; i += held.length) {
+                        for (int j = 0; j < held.length; j++) held[j] = allocator.claim();
+                        for (int j = 0; j < held.length; j++) allocator.release(held[j]);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        long ns = System.nanoTime() - time;
+        System.out.println(name + ": " + (OPERATIONS * 1000L / Math.max(1, ns / 1000)) + " claims/ms");
+    }
+}
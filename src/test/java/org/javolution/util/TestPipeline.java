@@ -0,0 +1,79 @@
+package org.javolution.util;
+
+import java.util.ArrayList;
+import java.util.stream.Collectors;
+
+import org.javolution.util.function.Function;
+import org.javolution.util.function.Predicate;
+
+public class TestPipeline {
+
+    public static void main(String[] args) {
+        java.util.Random random = new java.util.Random(11111);
+        int n = 1000000;
+        ArrayList<Integer> aa = new ArrayList<Integer>(n);
+        FastTable<Integer> ff = new FastTable<Integer>();
+        for (int i = 0; i < n; i++) {
+            int r = random.nextInt(n);
+            aa.add(r);
+            ff.add(r);
+        }
+        Predicate<Integer> isEven = new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer param) {
+                return (param & 1) == 0;
+            }
+        };
+        Function<Integer, Integer> half = new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer param) {
+                return param >> 1;
+            }
+        };
+        for (int run = 0; run < 5; run++) { // Warm-up included.
+            long time = System.nanoTime();
+            long count = 0;
+            for (int i = 0; i < 10; i++)
+                count += aa.stream().filter(isEven).map(half).filter(x -> x > 1000).count();
+            System.out.println("Stream filter/map/filter count: " + count + " in "
+                    + (System.nanoTime() - time) / 1000000 + " ms");
+
+            time = System.nanoTime();
+            count = 0;
+            for (int i = 0; i < 10; i++)
+                count += ff.filter(isEven).map(half).filter(x -> x > 1000).size();
+            System.out.println("Pipeline filter/map/filter size: " + count + " in "
+                    + (System.nanoTime() - time) / 1000000 + " ms");
+
+            time = System.nanoTime();
+            int distinct = aa.stream().filter(isEven).map(half).distinct().collect(Collectors.toList()).size();
+            System.out.println("Stream filter/map/distinct collect: " + distinct + " in "
+                    + (System.nanoTime() - time) / 1000000 + " ms");
+
+            time = System.nanoTime();
+            distinct = ff.filter(isEven).map(half).distinct().collect().size();
+            System.out.println("Pipeline filter/map/distinct collect: " + distinct + " in "
+                    + (System.nanoTime() - time) / 1000000 + " ms");
+
+            time = System.nanoTime();
+            Integer max = aa.stream().filter(isEven).map(half).max(Integer::compare).get();
+            System.out.println("Stream filter/map max: " + max + " in "
+                    + (System.nanoTime() - time) / 1000000 + " ms");
+
+            time = System.nanoTime();
+            max = ff.filter(isEven).map(half).max(Integer::compare);
+            System.out.println("Pipeline filter/map max: " + max + " in "
+                    + (System.nanoTime() - time) / 1000000 + " ms");
+
+            time = System.nanoTime();
+            boolean found = aa.stream().filter(isEven).map(half).anyMatch(x -> x == 12345);
+            System.out.println("Stream filter/map anyMatch: " + found + " in "
+                    + (System.nanoTime() - time) / 1000000 + " ms");
+
+            time = System.nanoTime();
+            found = ff.filter(isEven).map(half).anyMatch(x -> x == 12345);
+            System.out.println("Pipeline filter/map anyMatch: " + found + " in "
+                    + (System.nanoTime() - time) / 1000000 + " ms");
+        }
+    }
+}
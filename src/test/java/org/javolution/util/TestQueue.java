@@ -0,0 +1,108 @@
+package org.javolution.util;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+public class TestQueue {
+
+    private static final int MESSAGES = 2000000;
+    private static final int ROUND_TRIPS = 100000;
+    private static final Integer MESSAGE = 1;
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int producers = 1; producers <= 4; producers *= 4) {
+            System.out.println("Throughput (" + producers + " producer(s), 1 consumer)");
+            for (int run = 0; run < 3; run++) { // Warm-up included.
+                if (producers == 1) throughput("  FastQueue.spsc", adapter(FastQueue.<Integer>spsc(1024)), producers);
+                throughput("  FastQueue.mpsc", adapter(FastQueue.<Integer>mpsc(1024)), producers);
+                throughput("  FastQueue.mpmc", adapter(FastQueue.<Integer>mpmc(1024)), producers);
+                throughput("  FastQueue.unbounded", adapter(FastQueue.<Integer>unbounded()), producers);
+                throughput("  ArrayBlockingQueue", adapter(new ArrayBlockingQueue<Integer>(1024)), producers);
+                throughput("  ConcurrentLinkedQueue", adapter(new ConcurrentLinkedQueue<Integer>()), producers);
+            }
+        }
+        System.out.println("Latency (round trip between two threads)");
+        for (int run = 0; run < 3; run++) {
+            latency("  FastQueue.spsc", adapter(FastQueue.<Integer>spsc(16)), adapter(FastQueue.<Integer>spsc(16)));
+            latency("  ArrayBlockingQueue", adapter(new ArrayBlockingQueue<Integer>(16)),
+                    adapter(new ArrayBlockingQueue<Integer>(16)));
+            latency("  ConcurrentLinkedQueue", adapter(new ConcurrentLinkedQueue<Integer>()),
+                    adapter(new ConcurrentLinkedQueue<Integer>()));
+        }
+    }
+
+    private interface Channel {
+        boolean offer(Integer value);
+
+        Integer poll();
+    }
+
+    private static Channel adapter(final FastQueue<Integer> queue) {
+        return new Channel() {
+            public boolean offer(Integer value) {
+                return queue.offer(value);
+            }
+
+            public Integer poll() {
+                return queue.poll();
+            }
+        };
+    }
+
+    private static Channel adapter(final Queue<Integer> queue) {
+        return new Channel() {
+            public boolean offer(Integer value) {
+                return queue.offer(value);
+            }
+
+            public Integer poll() {
+                return queue.poll();
+            }
+        };
+    }
+
+    private static void throughput(String name, final Channel channel, int producers) throws InterruptedException {
+        final int perProducer = MESSAGES / producers;
+        final CountDownLatch done = new CountDownLatch(producers);
+        long time = System.nanoTime();
+        for (int p = 0; p < producers; p++) {
+            new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < perProducer; i++)
+                        while (!channel.offer(MESSAGE)) Thread.yield();
+                    done.countDown();
+                }
+            }).start();
+        }
+        for (int received = 0; received < perProducer * producers;) {
+            if (channel.poll() != null) received++;
+            else Thread.yield();
+        }
+        done.await();
+        long ns = System.nanoTime() - time;
+        System.out.println(name + ": " + (MESSAGES * 1000L / Math.max(1, ns / 1000)) + " messages/ms");
+    }
+
+    private static void latency(String name, final Channel ping, final Channel pong) throws InterruptedException {
+        Thread echo = new Thread(new Runnable() {
+            public void run() {
+                for (int i = 0; i < ROUND_TRIPS; i++) {
+                    Integer value;
+                    while ((value = ping.poll()) == null) Thread.yield();
+                    while (!pong.offer(value)) Thread.yield();
+                }
+            }
+        });
+        echo.start();
+        long time = System.nanoTime();
+        for (int i = 0; i < ROUND_TRIPS; i++) {
+            while (!ping.offer(MESSAGE)) Thread.yield();
+            while (pong.poll() == null) Thread.yield();
+        }
+        long ns = System.nanoTime() - time;
+        echo.join();
+        System.out.println(name + ": " + (ns / ROUND_TRIPS) + " ns/round trip");
+    }
+}
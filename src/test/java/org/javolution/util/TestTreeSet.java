@@ -0,0 +1,41 @@
+package org.javolution.util;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.javolution.util.internal.function.ComparatorOrderImpl;
+import org.javolution.util.internal.set.SortedSetImpl;
+
+/** Compares comparator-ordered sets (random insertions, lookups and removals). */
+public class TestTreeSet {
+    private static final int SIZE = 200000;
+
+    public static void main(String[] args) {
+        Integer[] values = new Integer[SIZE];
+        Random random = new Random(0);
+        for (int i = 0; i < SIZE; i++) values[i] = random.nextInt();
+        ComparatorOrderImpl<Integer> natural = new ComparatorOrderImpl<Integer>(null);
+        for (int run = 0; run < 3; run++) { // Warm-up included.
+            System.out.println("Run " + run);
+            benchmark("  FastTreeSet (B+tree)", new FastTreeSet<Integer>(natural), values);
+            benchmark("  java.util.TreeSet", new TreeSet<Integer>(), values);
+            if (run == 2) benchmark("  SortedSetImpl (FractalArray.shift)", new SortedSetImpl<Integer>(natural), values);
+        }
+    }
+
+    private static void benchmark(String name, Collection<Integer> set, Integer[] values) {
+        long time = System.nanoTime();
+        for (Integer value : values) set.add(value);
+        long add = System.nanoTime() - time;
+        time = System.nanoTime();
+        int found = 0;
+        for (Integer value : values) if (set.contains(value)) found++;
+        long contains = System.nanoTime() - time;
+        time = System.nanoTime();
+        for (Integer value : values) set.remove(value);
+        long remove = System.nanoTime() - time;
+        System.out.println(name + ": add " + add / SIZE + " ns, contains " + contains / SIZE + " ns, remove "
+                + remove / SIZE + " ns (" + found + " found)");
+    }
+}